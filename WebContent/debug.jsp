@@ -1,6 +1,7 @@
 <?xml version="1.0" encoding="utf-8"?>
 
 <%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 
 <!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
 <html xmlns="http://www.w3.org/1999/xhtml" xml:lang="en" lang="eng">
@@ -21,7 +22,17 @@ Revision: [SVN_REVISION_NUMBER]
 Author:   [SVN_REVISION_AUTHOR]
 Date:     [SVN_REVISION_DATE]
 
-Server:   ${server}
+Server:   <c:out value="${server}" />
+<c:if test="${curator}">
+Named queries (executions since start up):
+<c:out value="${statements}" />
+
+Resolver cache (since start up):
+<c:out value="${resolver}" />
+
+Pathological identifier patterns:
+<c:out value="${patterns}" />
+</c:if>
         </pre>
     </body>
 </html>
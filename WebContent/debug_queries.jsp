@@ -0,0 +1,51 @@
+<?xml version="1.0" encoding="utf-8"?>
+
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt" %>
+
+<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
+<html xmlns="http://www.w3.org/1999/xhtml" xml:lang="en" lang="eng">
+    <head>
+        <meta http-equiv="Content-Type" content="text/html; charset=utf-8" />
+        <meta http-equiv="Content-Language" content="en-GB" />
+        <meta name="no-email-collection" content="http://www.unspam.com/noemailcollection/" />
+        
+        <title>MIRIAM Registry: Debug info (queries)</title>
+    </head>
+    
+    <body>
+        <p>Database queries, the most expensive ones first (times in ms; slow query threshold: ${threshold} ms; rows: modified by the updates).</p>
+        <form method="post" action="">
+            <p><input type="hidden" name="reset" value="true" /><input type="submit" value="Reset" /></p>
+        </form>
+        <table border="1" cellpadding="3">
+            <tr>
+                <th>Caller (sampled)</th>
+                <th>Query</th>
+                <th>Executions</th>
+                <th>Rows updated</th>
+                <th>Total</th>
+                <th>Mean</th>
+                <th>p50</th>
+                <th>p95</th>
+                <th>p99</th>
+                <th>Max</th>
+            </tr>
+            <c:forEach var="query" items="${queries}">
+            <tr>
+                <td><c:out value="${query.caller}" /></td>
+                <td><code><c:out value="${query.template}" /></code></td>
+                <td>${query.count}</td>
+                <td>${query.rows}</td>
+                <td><fmt:formatNumber value="${query.totalTime}" maxFractionDigits="1" /></td>
+                <td><fmt:formatNumber value="${query.meanTime}" maxFractionDigits="2" /></td>
+                <td><fmt:formatNumber value="${query.p50}" maxFractionDigits="2" /></td>
+                <td><fmt:formatNumber value="${query.p95}" maxFractionDigits="2" /></td>
+                <td><fmt:formatNumber value="${query.p99}" maxFractionDigits="2" /></td>
+                <td><fmt:formatNumber value="${query.maxTime}" maxFractionDigits="2" /></td>
+            </tr>
+            </c:forEach>
+        </table>
+    </body>
+</html>
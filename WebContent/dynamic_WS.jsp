@@ -158,6 +158,7 @@
 						            <option value="getDataTypeDef" <c:if test="${request == 'getDataTypeDef'}">selected="selected"</c:if>>get the definition of a data collection</option>
 						            <option value="getDataTypePattern" <c:if test="${request == 'getDataTypePattern'}">selected="selected"</c:if>>get the regular expression of a data collection</option>
                                           <option value="checkRegExp" <c:if test="${request == 'checkRegExp'}">selected="selected"</c:if>>check identifier pattern</option>
+                                          <option value="classify" <c:if test="${request == 'classify'}">selected="selected"</c:if>>find the data collections of an identifier</option>
 				  	 		    </select>
 				  	 		    <input type="submit" value="Go!" class="submit_button" />
 			  	 		    </div>
@@ -264,6 +265,21 @@
                               </form>
                               <ajax:htmlContent baseUrl="checkRegExp.do" source="checkRegExpButton" target="getRequestResult" parameters="checkRegExpParam1={checkRegExpParam1},checkRegExpParam2={checkRegExpParam2}" preFunction="MsgWait" postFunction="MsgWaitEnd" />
                           </c:when>
+                          
+                          <c:when test="${request == 'classify'}">
+                              <p>
+                                  Finds the data collections an identifier could belong to (the most relevant first):
+                              </p>
+                              <form id="classifyForm" action="" onsubmit="classifyButton.click(); return false;">
+                                  <fieldset class="request">
+                                      <legend>classify</legend>
+                                      <label>identifier</label>
+                                      <input type="text" id="classifyParam" size="30" />
+                                      <input type="button" value="Search" id="classifyButton" class="submit_button" />
+                                  </fieldset>
+                              </form>
+                              <ajax:htmlContent baseUrl="classify.do" source="classifyButton" target="getRequestResult" parameters="classifyParam={classifyParam}" preFunction="MsgWait" postFunction="MsgWaitEnd" />
+                          </c:when>
 					
 					<c:otherwise>
 						<p>Choose one of the queries from the list above...</p>
@@ -307,7 +307,7 @@ public class AnnotationDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = true;
             }
@@ -346,7 +346,7 @@ public class AnnotationDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 existing = true;
             }
@@ -393,6 +393,7 @@ public class AnnotationDao extends Dao
                 stmt.executeUpdate();
                 stmt.close();
                 state = true;
+                ChangeLog.record(getPoolName(), ChangeLog.ANNOTATION, dataId);
             }
             catch (SQLException e)
             {
@@ -416,15 +417,14 @@ public class AnnotationDao extends Dao
      */
     public AnnotationTag getAnnoFromId(String tagId)
     {
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         AnnotationTag result = null;
-        String sql = "SELECT id, name, information, format FROM mir_annotation WHERE (id='" + tagId + "')";
         
         try
         {
-            stmt = openStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())            
+            stmt = openReadOnlyPreparedStatement(SqlQuery.ANNOTATION_BY_ID, tagId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next())            
             {
                 String id = rs.getString("id");
                 String name = rs.getString("name");
@@ -440,7 +440,7 @@ public class AnnotationDao extends Dao
         }
         finally
         {
-            closeStatement(stmt);
+            closePreparedStatement(stmt);
         }
         
         return result;
@@ -0,0 +1,70 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.Set;
+
+
+/**
+ * <p>Notified of the modifications of the Registry, whether they have been made by this node or by another one
+ * (cf. <code>ChangeLog</code>), in order to evict the cached data affected.
+ * Implementations are called by the thread which records or polls the modifications: they must return quickly.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public interface ChangeListener
+{
+    /**
+     * Processes some modifications of the Registry.
+     * @param kind kind of entity modified (for example: <code>ChangeLog.COLLECTION</code>)
+     * @param ids identifiers of the entities modified, or null if any entity of this kind may have been modified
+     */
+    void changed(String kind, Set<String> ids);
+}
@@ -0,0 +1,334 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Propagates the modifications of the Registry to all the nodes of the cluster, without any message broker.
+ *
+ * <p>Every modification is recorded in the database (cf. <code>ChangeLogDao</code>) and immediately notified to the local
+ * listeners (cf. <code>ChangeListener</code>). Each node polls the log regularly (one indexed query on the primary key)
+ * and notifies its listeners of the modifications made by the other nodes, grouped by kind of entity, so that they only evict
+ * the data affected. The time between two polls bounds how long a node can serve outdated data.
+ *
+ * <p>The modifications older than a day are removed from the log.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class ChangeLog
+{
+    /** Data collection (including its resources, URIs, synonyms, documentation and restrictions), identified by its identifier. */
+    public static final String COLLECTION = "collection";
+    /** Tag, identified by its identifier. */
+    public static final String TAG = "tag";
+    /** Examples of annotation, identified by the identifier of the data collection. */
+    public static final String ANNOTATION = "annotation";
+    /** Health of the resources (result of a check of all the resources). */
+    public static final String HEALTH = "health";
+    private static Logger logger = Logger.getLogger(ChangeLog.class);
+    private static final int RETENTION = 24;   // in hours
+    private static final long PURGE_INTERVAL = 3600000;   // in milliseconds
+    private static final String node = createNodeId();
+    private static final List<ChangeListener> listeners = new CopyOnWriteArrayList<ChangeListener>();
+    private static ScheduledExecutorService scheduler = null;
+    private static volatile String poolName = null;
+    private static long lastChangeId = -1;   // only used by the polling thread
+    private static long lastPurge = 0;
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private ChangeLog()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Creates the table of the modifications if needed (usually called once, at start up, whether the modifications are polled or not).
+     * @param pool name of the database pool of the Registry
+     */
+    public static void init(String pool)
+    {
+        ChangeLogDao dao = new ChangeLogDao(pool);
+        if (! dao.createTable())
+        {
+            logger.warn("The modifications of the Registry cannot be recorded: the other nodes will not be notified of them!");
+        }
+        dao.clean();
+    }
+    
+    
+    /**
+     * Records a modification of the Registry and notifies the local listeners.
+     * @param pool name of the database pool of the Registry
+     * @param kind kind of entity modified (for example: <code>COLLECTION</code>)
+     * @param id identifier of the entity modified (can be null: any entity of this kind)
+     */
+    public static void record(String pool, String kind, String id)
+    {
+        ChangeLogDao dao = new ChangeLogDao(pool);
+        if (! dao.record(kind, id, node))
+        {
+            logger.warn("The other nodes will not be notified of the modification of the " + kind + " '" + id + "'!");
+        }
+        dao.clean();
+        
+        notifyListeners(kind, (null == id) ? null : Collections.singleton(id));
+    }
+    
+    
+    /**
+     * Registers a listener, notified of all the modifications of the Registry.
+     * @param listener
+     */
+    public static void addListener(ChangeListener listener)
+    {
+        listeners.add(listener);
+    }
+    
+    
+    /**
+     * Unregisters a listener.
+     * @param listener
+     */
+    public static void removeListener(ChangeListener listener)
+    {
+        listeners.remove(listener);
+    }
+    
+    
+    /**
+     * Starts polling the modifications made by the other nodes (usually called once, at start up).
+     * @param pool name of the database pool of the Registry
+     * @param interval time between two polls (in seconds)
+     */
+    public static synchronized void start(String pool, long interval)
+    {
+        if (null != scheduler)
+        {
+            return;
+        }
+        poolName = pool;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "registry-changes");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    poll();
+                }
+                catch (RuntimeException e)
+                {
+                    logger.error("Unable to poll the modifications of the Registry!", e);
+                }
+            }
+        }, 0, interval, TimeUnit.SECONDS);
+        logger.info("Modifications of the Registry polled every " + interval + " s (node: " + node + ").");
+    }
+    
+    
+    /**
+     * Stops polling the modifications (usually when the application is stopped).
+     */
+    public static synchronized void stop()
+    {
+        if (null != scheduler)
+        {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    
+    /**
+     * Getter of the identifier of this node, as recorded with its modifications.
+     * @return identifier of the node (host name and random suffix)
+     */
+    public static String getNode()
+    {
+        return node;
+    }
+    
+    
+    /**
+     * Retrieves the modifications made by the other nodes since the previous poll, and notifies the local listeners.
+     * The first poll only retrieves the identifier of the latest modification: the caches are built afterwards.
+     */
+    static void poll()
+    {
+        Map<String, Set<String>> changes = new LinkedHashMap<String, Set<String>>();
+        ChangeLogDao dao = new ChangeLogDao(poolName);
+        
+        try
+        {
+            if (lastChangeId < 0)
+            {
+                lastChangeId = dao.getLastChangeId();
+                return;
+            }
+            
+            List<ChangeLogDao.Change> page;
+            do
+            {
+                page = dao.getChangesSince(lastChangeId);
+                for (ChangeLogDao.Change change: page)
+                {
+                    lastChangeId = change.getId();
+                    if (node.equals(change.getNode()))
+                    {
+                        continue;   // already notified when recorded
+                    }
+                    if (! changes.containsKey(change.getKind()))
+                    {
+                        changes.put(change.getKind(), new HashSet<String>());
+                    }
+                    Set<String> ids = changes.get(change.getKind());
+                    if (null == change.getEntityId())
+                    {
+                        changes.put(change.getKind(), null);
+                    }
+                    else if (null != ids)
+                    {
+                        ids.add(change.getEntityId());
+                    }
+                }
+            }
+            while (page.size() == ChangeLogDao.PAGE_SIZE);
+            
+            if ((System.currentTimeMillis() - lastPurge) > PURGE_INTERVAL)
+            {
+                lastPurge = System.currentTimeMillis();
+                dao.purge(RETENTION);
+            }
+        }
+        finally
+        {
+            dao.clean();
+        }
+        
+        for (Map.Entry<String, Set<String>> change: changes.entrySet())
+        {
+            logger.debug("Modification of the " + change.getKey() + " " + ((null == change.getValue()) ? "(all)" : change.getValue()) + " by another node.");
+            notifyListeners(change.getKey(), change.getValue());
+        }
+    }
+    
+    
+    /**
+     * Notifies all the local listeners of some modifications.
+     * @param kind kind of entity modified
+     * @param ids identifiers of the entities modified (null for any entity of this kind)
+     */
+    private static void notifyListeners(String kind, Set<String> ids)
+    {
+        for (ChangeListener listener: listeners)
+        {
+            try
+            {
+                listener.changed(kind, ids);
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Unable to process the modification of the " + kind + " " + ids + "!", e);
+            }
+        }
+    }
+    
+    
+    /**
+     * Creates the identifier of this node: name of the host and random suffix (several applications can run on the same host).
+     * @return identifier of the node
+     */
+    private static String createNodeId()
+    {
+        String host;
+        try
+        {
+            host = InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException e)
+        {
+            host = "unknown";
+        }
+        if (host.length() > 55)
+        {
+            host = host.substring(0, 55);
+        }
+        
+        return host + "-" + Integer.toHexString(new Random().nextInt(0x10000000) | 0x10000000).substring(1);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Access to the log of the modifications of the Registry (cf. <code>ChangeLog</code>), stored in the table <code>mir_change_log</code>,
+ * which is created at start up if it doesn't exist yet (cf. {@link #createTable()} and <code>SqlQuery.CHANGE_CREATE_TABLE</code>).
+ *
+ * <p>All the queries use the primary database: a read replica may not have received the latest modifications yet.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ChangeLogDao extends Dao
+{
+    private Logger logger = Logger.getLogger(ChangeLogDao.class);
+    static final int PAGE_SIZE = 500;   // maximum number of modifications retrieved at once (bound to the limit of SqlQuery.CHANGE_SINCE)
+    
+    
+    /**
+     * Constructor.
+     * @param poolName name of the database pool of the Registry
+     */
+    public ChangeLogDao(String poolName)
+    {
+        super(poolName);
+    }
+    
+    
+    /**
+     * Creates the table of the modifications, if it doesn't exist yet.
+     * @return True if the table exists (or has been created), False otherwise
+     */
+    public boolean createTable()
+    {
+        PreparedStatement stmt = null;
+        boolean result = false;
+        
+        try
+        {
+            stmt = openPreparedStatement(SqlQuery.CHANGE_CREATE_TABLE);
+            stmt.execute();
+            result = true;
+        }
+        catch (SQLException e)
+        {
+            logger.error("Unable to create the table of the modifications of the Registry (mir_change_log)!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            closePreparedStatement(stmt);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Records a modification of the Registry.
+     * @param kind kind of entity modified (for example: <code>ChangeLog.COLLECTION</code>)
+     * @param entityId identifier of the entity modified (can be null: any entity of this kind)
+     * @param node identifier of the node which made the modification
+     * @return True if the modification has been recorded, False otherwise
+     */
+    public boolean record(String kind, String entityId, String node)
+    {
+        PreparedStatement stmt = null;
+        boolean result = false;
+        
+        try
+        {
+            stmt = openPreparedStatement(SqlQuery.CHANGE_INSERT, kind, entityId, node);
+            result = (stmt.executeUpdate() == 1);
+        }
+        catch (SQLException e)
+        {
+            logger.error("Unable to record the modification of the " + kind + " '" + entityId + "'!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            closePreparedStatement(stmt);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves the identifier of the latest modification recorded.
+     * @return identifier of the latest modification, 0 if there is none, or -1 if an error occurred
+     */
+    public long getLastChangeId()
+    {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        long result = -1;
+        
+        try
+        {
+            stmt = openPreparedStatement(SqlQuery.CHANGE_LAST_ID);
+            rs = stmt.executeQuery();
+            result = rs.next() ? rs.getLong(1) : 0;
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error while retrieving the identifier of the latest modification of the Registry!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            closeResultSet(rs);
+            closePreparedStatement(stmt);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves the modifications recorded after a given one, in order (at most <code>PAGE_SIZE</code> of them).
+     * @param changeId identifier of the last modification already known
+     * @return modifications (empty if there is none or if an error occurred)
+     */
+    public List<Change> getChangesSince(long changeId)
+    {
+        PreparedStatement stmt = null;
+        List<Change> changes = new ArrayList<Change>();
+        
+        try
+        {
+            stmt = openPreparedStatement(SqlQuery.CHANGE_SINCE, changeId, PAGE_SIZE);
+            changes = Rows.toList(stmt.executeQuery(), new RowMapper<Change>()
+            {
+                public Change mapRow(ResultSet rs) throws SQLException
+                {
+                    return new Change(rs.getLong("change_id"), rs.getString("kind"), rs.getString("entity_id"), rs.getString("node"));
+                }
+            });
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error while retrieving the modifications of the Registry since #" + changeId + "!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            closePreparedStatement(stmt);
+        }
+        
+        return changes;
+    }
+    
+    
+    /**
+     * Removes the old modifications (already processed by all the nodes).
+     * @param hours age of the modifications to remove (in hours)
+     * @return number of modifications removed
+     */
+    public int purge(int hours)
+    {
+        PreparedStatement stmt = null;
+        int result = 0;
+        
+        try
+        {
+            stmt = openPreparedStatement(SqlQuery.CHANGE_PURGE, hours);
+            result = stmt.executeUpdate();
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Unable to remove the old modifications of the Registry!");
+            logger.warn("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            closePreparedStatement(stmt);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * One modification of the Registry.
+     */
+    static final class Change
+    {
+        private final long id;
+        private final String kind;
+        private final String entityId;
+        private final String node;
+        
+        
+        Change(long id, String kind, String entityId, String node)
+        {
+            this.id = id;
+            this.kind = kind;
+            this.entityId = entityId;
+            this.node = node;
+        }
+        
+        long getId()
+        {
+            return this.id;
+        }
+        
+        String getKind()
+        {
+            return this.kind;
+        }
+        
+        String getEntityId()
+        {
+            return this.entityId;
+        }
+        
+        String getNode()
+        {
+            return this.node;
+        }
+    }
+}
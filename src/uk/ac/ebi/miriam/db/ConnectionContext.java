@@ -0,0 +1,269 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Database connection bound to the processing of one request.
+ *
+ * <p>The pooled connection is only retrieved when first needed and all the statements created through this object
+ * are tracked. {@link #release()} must be called once the request has been processed (in a <code>finally</code> block):
+ * it closes any statement left open (counted as a leak) and always returns the connection to the pool.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ConnectionContext
+{
+    private static Logger logger = Logger.getLogger(ConnectionContext.class);
+    private static final AtomicInteger active = new AtomicInteger();   // connections currently checked out
+    private static final AtomicLong leakedStatements = new AtomicLong();   // statements closed on behalf of their owner
+    private static final AtomicLong failedReleases = new AtomicLong();   // connections which could not be returned to the pool
+    private final String poolName;
+    private final String owner;
+    private final boolean readOnly;   // connection retrieved from the read replica of the pool, if there is one
+    private final List<Statement> statements = new ArrayList<Statement>();
+    private Connection connection = null;
+    private boolean released = false;
+    
+    
+    /**
+     * Constructor.
+     * @param poolName name of the database pool
+     * @param owner name of the component using the connection (for example the name of the Servlet), only used in the logs
+     */
+    public ConnectionContext(String poolName, String owner)
+    {
+        this(poolName, owner, false);
+    }
+    
+    
+    /**
+     * Constructor.
+     * @param poolName name of the database pool
+     * @param owner name of the component using the connection (for example the name of the Servlet), only used in the logs
+     * @param readOnly true if the connection is only used for read-only queries (cf. <code>DbPoolRegistry.getReadConnection()</code>)
+     */
+    public ConnectionContext(String poolName, String owner, boolean readOnly)
+    {
+        this.poolName = poolName;
+        this.owner = owner;
+        this.readOnly = readOnly;
+    }
+    
+    
+    /**
+     * Retrieves the connection, which is checked out from the pool the first time this method is called.
+     * The connection must not be closed by the caller.
+     * @return pooled connection
+     * @throws SQLException
+     */
+    public Connection getConnection() throws SQLException
+    {
+        if (this.released)
+        {
+            throw new SQLException("The connection of '" + this.owner + "' has already been released!");
+        }
+        
+        if (null == this.connection)
+        {
+            this.connection = this.readOnly ? DbPoolRegistry.getReadConnection(this.poolName) : DbPoolRegistry.getConnection(this.poolName);
+            active.incrementAndGet();
+        }
+        
+        return this.connection;
+    }
+    
+    
+    /**
+     * Checks if the connection has already been checked out from the pool.
+     * @return true if the connection is in use
+     */
+    public boolean isConnected()
+    {
+        return (null != this.connection);
+    }
+    
+    
+    /**
+     * Creates a (tracked) SQL <code>Statement</code>.
+     * @return Statement
+     * @throws SQLException
+     */
+    public Statement createStatement() throws SQLException
+    {
+        Statement statement = QueryMonitor.monitor(getConnection().createStatement());
+        this.statements.add(statement);
+        
+        return statement;
+    }
+    
+    
+    /**
+     * Creates a (tracked) SQL <code>PreparedStatement</code>.
+     * @param sql SQL query, including place holders '?'
+     * @return PreparedStatement
+     * @throws SQLException
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException
+    {
+        PreparedStatement statement = QueryMonitor.monitor(getConnection().prepareStatement(sql), sql);
+        this.statements.add(statement);
+        
+        return statement;
+    }
+    
+    
+    /**
+     * Closes all the statements left open and returns the connection to the pool.
+     * Can safely be called several times.
+     */
+    public void release()
+    {
+        if (this.released)
+        {
+            return;
+        }
+        this.released = true;
+        
+        int leaks = 0;
+        for (Statement statement: this.statements)
+        {
+            try
+            {
+                if (! statement.isClosed())
+                {
+                    leaks++;
+                    statement.close();
+                }
+            }
+            catch (SQLException e)
+            {
+                logger.debug("Unable to close a SQL Statement!");
+                logger.debug("SQLException raised: " + e.getMessage());
+            }
+        }
+        this.statements.clear();
+        
+        if (leaks > 0)
+        {
+            long total = leakedStatements.addAndGet(leaks);
+            logger.warn(leaks + " SQL statement(s) left open by '" + this.owner + "' (" + total + " since start up).");
+        }
+        
+        if (null != this.connection)
+        {
+            try
+            {
+                this.connection.close();   // returns the connection to the pool
+            }
+            catch (SQLException e)
+            {
+                long total = failedReleases.incrementAndGet();
+                logger.error("Unable to return the database connection used by '" + this.owner + "' to the pool (" + total + " since start up)!");
+                logger.error("SQLException raised: " + e.getMessage());
+            }
+            finally
+            {
+                this.connection = null;
+                active.decrementAndGet();
+            }
+        }
+    }
+    
+    
+    /**
+     * Getter
+     * @return the poolName
+     */
+    public String getPoolName()
+    {
+        return this.poolName;
+    }
+    
+    
+    /**
+     * Returns the number of connections currently checked out through a <code>ConnectionContext</code>.
+     * @return number of active connections
+     */
+    public static int getActiveCount()
+    {
+        return active.get();
+    }
+    
+    
+    /**
+     * Returns the number of statements which had to be closed on behalf of their owner, since start up.
+     * @return number of leaked statements
+     */
+    public static long getLeakedStatementCount()
+    {
+        return leakedStatements.get();
+    }
+    
+    
+    /**
+     * Returns the number of connections which could not be returned to the pool, since start up.
+     * @return number of failed releases
+     */
+    public static long getFailedReleaseCount()
+    {
+        return failedReleases.get();
+    }
+}
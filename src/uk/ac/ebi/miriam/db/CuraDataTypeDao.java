@@ -128,8 +128,7 @@ public class CuraDataTypeDao extends Dao
             logger.debug("SQL query: " + stmt01.toString());
             rs01 = stmt01.executeQuery();
             
-            int nb = MiriamUtilities.getRowCount(rs01);
-            if (nb == 1)
+            if (rs01.next())
             {
                 exist = true;
                 
@@ -143,13 +142,15 @@ public class CuraDataTypeDao extends Dao
                 dataType.setObsolete(rs01.getBoolean("obsolete"));
                 dataType.setObsoleteComment(rs01.getString("obsolete_comment"));
                 dataType.setReplacedBy(rs01.getString("replacement"));
-            }
-            else
-            {
-                if (nb > 1)
+                
+                if (rs01.next())
                 {
                     logger.warn("The data type '" + id + "' in the curation pipeline is not unique!");
+                    exist = false;
                 }
+            }
+            else
+            {
                 exist = false;
             }
         }
@@ -354,7 +355,7 @@ public class CuraDataTypeDao extends Dao
 			{
 				stmt5 = openStatement();
 				rs5 = stmt5.executeQuery("SELECT comment, state, sub_info, public_id FROM cura_material WHERE (ptr_datatype='" + id + "')");
-                if (rs5.first())
+                if (rs5.next())
                 {
                     dataType.setComment(rs5.getString("comment"));
                     dataType.setState(rs5.getString("state"));
@@ -427,7 +428,7 @@ public class CuraDataTypeDao extends Dao
         {
         	stmt = openStatement();
         	rs = stmt.executeQuery("SELECT COUNT(ptr_datatype) AS number FROM cura_material WHERE (state='Submitted' OR state='Curation' OR state='Pending')");
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -460,7 +461,7 @@ public class CuraDataTypeDao extends Dao
         {
         	stmt = openStatement();
     		rs = stmt.executeQuery("SELECT COUNT(r.resource_id) AS number FROM cura_material m, cura_resource r WHERE ((m.state='Submitted' OR m.state='Curation' OR m.state='Pending') AND (r.ptr_datatype = m.ptr_datatype) AND (r.obsolete = 0))");
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -493,7 +494,7 @@ public class CuraDataTypeDao extends Dao
         {
         	stmt = openStatement();
     		rs = stmt.executeQuery("SELECT date_modif FROM cura_datatype WHERE 1 ORDER BY date_modif DESC LIMIT 1");
-            if (rs.first())
+            if (rs.next())
             {
                 lastModif = rs.getDate("date_modif");
             }
@@ -657,7 +658,7 @@ public class CuraDataTypeDao extends Dao
     		rs1 = stmt1.executeQuery(sql);
     		
 	        // no name of existing data types is equivalent of the name of the data type
-	        if (DbPoolConnect.getRowCount(rs1) == 0)
+	        if (! rs1.next())
 	        {
 	            // query to test the uniqueness of the name (part two)
 	            sql = "SELECT name FROM cura_synonym WHERE (name='" + data.getName() + "')";
@@ -665,7 +666,7 @@ public class CuraDataTypeDao extends Dao
 	            rs2 = stmt2.executeQuery(sql);
 	            
 	            // no synonym of existing data types is equivalent to the name of the new data type  
-	            if (DbPoolConnect.getRowCount(rs2) == 0)
+	            if (! rs2.next())
 	            {
 	                boolean tempExist1 = false;
 	                
@@ -677,7 +678,7 @@ public class CuraDataTypeDao extends Dao
 	                    rs3 = stmt3.executeQuery(sql);
 	                    
 	                    // one of the synonyms of the new data type is equivalent to the name of an existing data type
-	                    if (DbPoolConnect.getRowCount(rs3) != 0)
+	                    if (rs3.next())
 	                    {
 	                        tempExist1 = true;
 	                        break;
@@ -696,7 +697,7 @@ public class CuraDataTypeDao extends Dao
 	                        stmt4 = openStatement();
 		                    rs4 = stmt4.executeQuery(sql);
 	                        
-	                        if (DbPoolConnect.getRowCount(rs4) != 0)
+	                        if (rs4.next())
 	                        {
 	                            tempExist2 = true;
 	                            break;
@@ -712,7 +713,7 @@ public class CuraDataTypeDao extends Dao
 		                    rs5 = stmt5.executeQuery(sql);
 	                        
 	                        // no URI of existing data types is equivalent to one of the URIs of the new data type 
-	                        if (DbPoolConnect.getRowCount(rs5) == 0)
+	                        if (! rs5.next())
 	                        {
 	                            boolean tempExist3 = false;
 	                            
@@ -723,7 +724,7 @@ public class CuraDataTypeDao extends Dao
 	                                stmt6 = openStatement();
 	    		                    rs6 = stmt6.executeQuery(sql);
 	                                
-	                                if (DbPoolConnect.getRowCount(rs6) != 0)
+	                                if (rs6.next())
 	                                {
 	                                    tempExist3 = true;
 	                                    break;
@@ -830,7 +831,7 @@ public class CuraDataTypeDao extends Dao
             {
             	stmt2 = openStatement();
                 rs2 = stmt2.executeQuery(sql);
-	            if (DbPoolConnect.getRowCount(rs2) > 0)
+	            if (rs2.next())
 	            {
 	                stmt3 = openPreparedStatement("DELETE FROM cura_synonym WHERE (ptr_datatype='" + data.getId() + "')");
 	                resultStatus = stmt3.executeUpdate();
@@ -1140,7 +1141,7 @@ public class CuraDataTypeDao extends Dao
             	stmt121 = openPreparedStatement("DELETE FROM cura_doc WHERE (ptr_datatype=?)");
             	stmt12 = openStatement();
             	rs12 = stmt12.executeQuery("SELECT * FROM cura_doc WHERE (ptr_datatype='" + data.getId() + "')");
-	            if (DbPoolConnect.getRowCount(rs12) > 0)
+	            if (rs12.next())
 	            {
 	            	stmt121.setString(1, data.getId());
 	                resultStatus = stmt121.executeUpdate();
@@ -1673,19 +1674,19 @@ public class CuraDataTypeDao extends Dao
         if (type == RESOURCE)
         {
             id = "MIR:001";
-            sql = "SELECT resource_id FROM cura_resource";
+            sql = "SELECT COUNT(*) FROM cura_resource";
         }
         if (type == CURA_DATATYPE)
         {
             id = "MIR:009";
-            sql = "SELECT datatype_id FROM cura_datatype";
+            sql = "SELECT COUNT(*) FROM cura_datatype";
         }
         
         try
         {
 			stmt = openStatement();
 			rs = stmt.executeQuery(sql);
-			size = MiriamUtilities.getRowCount(rs);
+			size = MiriamUtilities.intConvert(rs);
 	        size += 1;
 	        
 	        if (size < 10)
@@ -2047,7 +2048,7 @@ public class CuraDataTypeDao extends Dao
             	stmt1 = openStatement();
             	rs1 = stmt1.executeQuery("SELECT datatype_id FROM mir_datatype WHERE (name='" + toPublish.getName() + "')");
             	
-                if (rs1.first())
+                if (rs1.next())
                 {
                     id = rs1.getString("datatype_id");
                 }
@@ -2115,7 +2116,7 @@ public class CuraDataTypeDao extends Dao
             stmt.setString(1, dataId);
             logger.debug("SQL query: " + stmt.toString());
             rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getString("state");
             }
@@ -2152,7 +2153,7 @@ public class CuraDataTypeDao extends Dao
             stmt.setString(1, dataId);
             logger.debug("SQL query: " + stmt.toString());
             rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 exist = true;
             }
@@ -2190,7 +2191,7 @@ public class CuraDataTypeDao extends Dao
         {
         	stmt = openStatement();
         	rs = stmt.executeQuery(sql);
-            notEmpty = rs.first();
+            notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleCuraDataType temp = new SimpleCuraDataType();
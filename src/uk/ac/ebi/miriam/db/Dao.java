@@ -26,16 +26,13 @@
 package uk.ac.ebi.miriam.db;
 
 
-import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 import org.apache.log4j.Logger;
-import javax.naming.Context;
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
 
 
 /**
@@ -65,130 +62,128 @@ import javax.naming.NamingException;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20130312
+ * @version 20261017
  */
 public abstract class Dao
 {
     private Logger logger = Logger.getLogger(Dao.class);
     private String poolName;
     protected Connection connection = null;
+    private boolean shared = false;   // connection owned by a unit of work
+    private Connection readConnection = null;   // used by the read-only queries (possibly from the read replica), outside of a unit of work
     
     
     /**
      * Constructor.
-     * Warning: before using the newly created object, you need to call setupEnv()!
+     * The connection is only retrieved from the pool when the first statement is opened
+     * (shared with the other DAOs if a <code>UnitOfWork</code> is active).
      * @param pool data base pool
      */
     public Dao(String poolName)
     {
         this.poolName = poolName;
-        
-        // setup env
-        if (! setupEnv())
-        {
-            logger.error("Unable to connect to database pool!");
-        }
     }
     
     
     /**
      * Sets up the database connection environment.
+     * The data source is provided by the <code>DbPoolRegistry</code> (no naming lookup here).
      */
     protected boolean setupEnv()
     {
-        DataSource dataSource = null;
-        Context initContext = null;
-        Context envContext = null;
         boolean success = false;
+        ConnectionContext context = UnitOfWork.getContext(this.poolName);
         
         try
         {
-            initContext = new InitialContext();
+            if (null != context)
+            {
+                this.connection = context.getConnection();
+                this.shared = true;
+            }
+            else
+            {
+                this.connection = DbPoolRegistry.getConnection(this.poolName);
+                this.shared = false;
+            }
         }
-        catch (NamingException e)
+        catch (Exception e)
         {
-            logger.error("Connection to the database pool: failure, no initial context!");
-            logger.error("NamingException raised: " + e.getMessage());
+            logger.error("Unable to open a database connection!");
+            logger.error("Exception raised: " + e.getMessage());
+            logger.error("StackTrace: ",e);
         }
-
-        if (null == initContext)
+        
+        if (null == this.connection)
         {
-            logger.error("Connection to the database pool: failed to retrieve the initial context.");
+            logger.error("Unable to get a connection from the database pool!");
         }
         else
         {
-            try
-            {
-                envContext = (Context) initContext.lookup("java:/comp/env");
-            }
-            catch (NamingException e)
-            {
-                logger.error("Connection to the database pool: failure, no environment context!");
-                logger.error("NamingException raised: " + e.getMessage());
-            }
-            
-            if (null == envContext)
-            {
-                logger.error("Connection to the database pool: failed to retrieve the environment context.");
-            }
-            else
-            {
-                try
-                {
-                    // look up a DataSource, which represents a connection pool
-                    dataSource = (DataSource) envContext.lookup("jdbc/" + this.poolName + DbServer.getDbServerText());
-                }
-                catch (NamingException e)
-                {
-                    logger.error("Connection to the database pool: failure, no data source 'jdbc/" + this.poolName + DbServer.getDbServerText()+ "' available!");
-                    logger.error("NamingException raised: " + e.getMessage());
-                    logger.error("StackTrace: ",e);
-                }
-                
-                if (null == dataSource)
-                {
-                    logger.error("Connection to the database pool: failed to retrieve the data source.");
-                }
-                else
-                {
-                    try
-                    {
-                        synchronized (dataSource)
-                        {
-                          this.connection = dataSource.getConnection();
-                        }
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Unable to open a database connection!");
-                        logger.error("Exception raised: " + e.getMessage());
-                        logger.error("StackTrace: ",e);
-                    }
-                    
-                    if (null == this.connection)
-                    {
-                        logger.error("Unable to get a connection from the database pool!");
-                    }
-                    else
-                    {
-                        success = true;
-                    }
-                }
-            }
+            success = true;
         }
         
         return success;
     }
     
     
+    /**
+     * Retrieves the database connection, setting up the environment if needed.
+     * @return connection
+     * @throws SQLException if no connection can be retrieved from the pool
+     */
+    protected Connection getConnection() throws SQLException
+    {
+        if ((null == this.connection) && (! setupEnv()))
+        {
+            throw new SQLException("Unable to connect to database pool '" + this.poolName + "'!");
+        }
+        
+        return this.connection;
+    }
+    
+    
+    /**
+     * Retrieves the database connection used by the read-only queries: from the read replica of the pool if there is one
+     * (cf. <code>DbPoolRegistry.getReadConnection()</code>), unless this DAO already uses the primary connection.
+     * 
+     * <p>Within a <code>UnitOfWork</code>, the connection is asked to the unit of work for each query and never kept here:
+     * as soon as any DAO of the unit of work has used the primary connection (all the updates go through it),
+     * the read-only queries are sent to it as well, so they see these updates.
+     * @return connection
+     * @throws SQLException if no connection can be retrieved from the pool
+     */
+    protected Connection getReadConnection() throws SQLException
+    {
+        if (null != this.connection)
+        {
+            return this.connection;   // the read-only queries see the updates made by this DAO
+        }
+        
+        ConnectionContext context = UnitOfWork.getReadContext(this.poolName);
+        if (null != context)
+        {
+            return context.getConnection();   // primary connection once the unit of work has written, read replica otherwise
+        }
+        
+        if (null == this.readConnection)
+        {
+            this.readConnection = DbPoolRegistry.getReadConnection(this.poolName);
+        }
+        
+        return this.readConnection;
+    }
+    
+    
     /**
      * Cleans the database connection environment.
+     * A connection shared by a <code>UnitOfWork</code> is left open (it will be returned to the pool at the end of the unit of work).
      */
     public void clean()
     {
         try
         {
-            if (null != this.connection)
+            if ((null != this.connection) && (! this.shared))
             {
                 this.connection.close();   // returns the connection to the pool
             }
@@ -198,6 +193,27 @@ public abstract class Dao
             logger.warn("Unable to close a previously opened database connection!");
             logger.warn("Exception raised: " + e.getMessage());
         }
+        finally
+        {
+            this.connection = null;
+        }
+        
+        try
+        {
+            if (null != this.readConnection)
+            {
+                this.readConnection.close();   // returns the connection to the pool
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to close a previously opened database connection!");
+            logger.warn("Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            this.readConnection = null;
+        }
     }
     
     
@@ -229,7 +245,7 @@ public abstract class Dao
     public Statement openStatement() throws SQLException
     {
         Statement statement = null;
-        statement = this.connection.createStatement();
+        statement = QueryMonitor.monitor(getConnection().createStatement());
         
         /*
         try
@@ -245,6 +261,16 @@ public abstract class Dao
         return statement;
     }
     
+    /**
+     * Retrieves a SQL <code>Statement</code> for read-only queries (cf. <code>getReadConnection()</code>).
+     * @return
+     */
+    public Statement openReadOnlyStatement() throws SQLException
+    {
+        return QueryMonitor.monitor(getReadConnection().createStatement());
+    }
+    
+    
     /**
      * Closes a SQL <code>Statement</code>.
      * @param statement
@@ -275,12 +301,52 @@ public abstract class Dao
     public PreparedStatement openPreparedStatement(String sql) throws SQLException
     {
         PreparedStatement preparedStatement = null;
-        preparedStatement = this.connection.prepareStatement(sql);
+        preparedStatement = QueryMonitor.monitor(getConnection().prepareStatement(sql), sql);
         
         return preparedStatement;
     }
     
     
+    /**
+     * Retrieves a SQL <code>PreparedStatement</code> for a named query of the catalogue, with its parameters already bound.
+     * The statement is meant to be executed once, then closed (cf. <code>closePreparedStatement()</code>).
+     * @param query named query
+     * @param params values of the parameters, in order
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement openPreparedStatement(SqlQuery query, Object... params) throws SQLException
+    {
+        return query.prepare(getConnection(), params);
+    }
+    
+    
+    /**
+     * Retrieves a SQL <code>PreparedStatement</code> for a read-only query (cf. <code>getReadConnection()</code>).
+     * @param sql SQL query, including place holders '?'
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement openReadOnlyPreparedStatement(String sql) throws SQLException
+    {
+        return QueryMonitor.monitor(getReadConnection().prepareStatement(sql), sql);
+    }
+    
+    
+    /**
+     * Retrieves a SQL <code>PreparedStatement</code> for a read-only named query of the catalogue (cf. <code>getReadConnection()</code>),
+     * with its parameters already bound.
+     * @param query named query
+     * @param params values of the parameters, in order
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement openReadOnlyPreparedStatement(SqlQuery query, Object... params) throws SQLException
+    {
+        return query.prepare(getReadConnection(), params);
+    }
+    
+    
     /**
      * Closes a SQL <code>PreparedStatement</code>.
      * @param preparedStatement
@@ -302,6 +368,54 @@ public abstract class Dao
     }
     
     
+    /**
+     * Executes a (forward-only, read-only) query, using the read connection, and converts all the rows returned into a list of objects.
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return list of objects (never null)
+     * @throws SQLException
+     */
+    protected <T> List<T> queryForList(String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        return Rows.list(getReadConnection(), sql, mapper, params);
+    }
+    
+    
+    /**
+     * Executes a (forward-only, read-only) query, using the read connection, and converts the first row returned into an object.
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return the object built from the first row, or null if no row is returned
+     * @throws SQLException
+     */
+    protected <T> T queryForObject(String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        return Rows.first(getReadConnection(), sql, mapper, params);
+    }
+    
+    
+    /**
+     * Executes a query, using the read connection, and processes all the rows returned by a handler (for large results, like exports).
+     * The rows are only streamed if the connection is not shared with a <code>UnitOfWork</code>: otherwise they are read first,
+     * so the other DAOs of the unit of work (possibly called by the handler) can still use the connection.
+     * While the rows are streamed, no other query can be executed by this DAO.
+     * @param sql SQL query, including place holders '?'
+     * @param handler processing of a row
+     * @param params values of the parameters, in order
+     * @return number of rows processed
+     * @throws SQLException
+     */
+    protected int queryForEach(String sql, RowHandler handler, Object... params) throws SQLException
+    {
+        Connection connection = getReadConnection();
+        boolean stream = (connection == this.connection) ? (! this.shared) : (connection == this.readConnection);   // the read connection is only kept outside of a unit of work
+        
+        return Rows.forEach(connection, stream, sql, handler, params);
+    }
+    
+    
     /*
      * Executes a simple SQL query.
      * @param sql SQL query
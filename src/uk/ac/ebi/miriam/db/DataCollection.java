@@ -77,32 +77,32 @@ import org.apache.log4j.Logger;
  * </p>
  * 
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20140312
+ * @version 20261017
  */
 public class DataCollection
 {
-    private Logger logger = Logger.getLogger(DataCollection.class);
+    private static Logger logger = Logger.getLogger(DataCollection.class);
     
     /* stable identifier of the data type (something starting by 'MIR:000' and followed by 5 digits) */
-    private String id = new String();
+    private String id = "";
     /* official name of the data type */
-    private String name = new String();
+    private String name = "";
     /* name of the data type for HTML links (with "%20" instead of spaces) */
-    private String nameURL = new String();
+    private String nameURL = "";
     /* synonyms of the name of the data type */
     private List<String> synonyms = new ArrayList<String>();
     /* official URL of the data type */
-    private String URL = new String();
+    private String URL = "";
     /* official URN of the data type */
-    private String URN = new String();
+    private String URN = "";
     /* deprecated URIs */
     private List<String> deprecatedURIs = new ArrayList<String>();
     private List<String> deprecatedURNs = new ArrayList<String>();   // for read only purposes
     private List<String> deprecatedURLs = new ArrayList<String>();   // for read only purposes
     /* definition of the data type */
-    private String definition = new String();
+    private String definition = "";
     /* regular expression of the data type */
-    private String regexp = new String();
+    private String regexp = "";
     /* resources (= physical locations) */
     private List<Resource> resources = new ArrayList<Resource>();
     /* list of physical locations of pieces of documentation of the data type */
@@ -115,17 +115,17 @@ public class DataCollection
     private List<String> docHtmlURLs = new ArrayList<String>();
     /* date of creation of the data type (the Date and String versions are linked and are modified together) */
     private Date dateCreation = new Date(0);
-    private String dateCreationStr = new String(); // for direct display in JSP following the good pattern
+    private String dateCreationStr = ""; // for direct display in JSP following the good pattern (formatted on demand when null)
     /* date of last modification of the data type (the Date and String versions are linked and are modified together) */
     private Date dateModification = new Date(0);
-    /* for direct display in JSP following the good pattern */
-    private String dateModificationStr = new String();
+    /* for direct display in JSP following the good pattern (formatted on demand when null) */
+    private String dateModificationStr = "";
     /* if the data type is obsolete or not */
     private boolean obsolete;
     /* why the data type is obsolete */
-    private String obsoleteComment = new String();
+    private String obsoleteComment = "";
     /* if the data type is obsolete, this field must have a value */
-    private String replacedBy = new String();
+    private String replacedBy = "";
     /* whether or not some restriction exist on the access and usage of the data set */
     private List<Restriction> restrictions;   // the kind of limitations, if any, null otherwise
     private List<Tag> tags;   // list of tags/categories
@@ -144,6 +144,66 @@ public class DataCollection
     }
     
     
+    /**
+     * Copy constructor: the lists, the resources and the tags are copied, so the copy can be modified without affecting
+     * the original (the URIs, mime types and restrictions, never modified once loaded, are shared).
+     * @param collection data collection to copy
+     */
+    public DataCollection(DataCollection collection)
+    {
+        this.id = collection.id;
+        this.name = collection.name;
+        this.nameURL = collection.nameURL;
+        this.synonyms = copyOf(collection.synonyms);
+        this.URL = collection.URL;
+        this.URN = collection.URN;
+        this.deprecatedURIs = copyOf(collection.deprecatedURIs);
+        this.deprecatedURNs = copyOf(collection.deprecatedURNs);
+        this.deprecatedURLs = copyOf(collection.deprecatedURLs);
+        this.definition = collection.definition;
+        this.regexp = collection.regexp;
+        if (null != collection.resources)
+        {
+            this.resources = new ArrayList<Resource>(collection.resources.size());
+            for (Resource resource: collection.resources)
+            {
+                this.resources.add(new Resource(resource));
+            }
+        }
+        this.documentationURLs = copyOf(collection.documentationURLs);
+        this.documentationIDs = copyOf(collection.documentationIDs);
+        this.documentationIDsType = copyOf(collection.documentationIDsType);
+        this.docHtmlURLs = copyOf(collection.docHtmlURLs);
+        this.dateCreation = (null == collection.dateCreation) ? null : new Date(collection.dateCreation.getTime());
+        this.dateCreationStr = collection.dateCreationStr;
+        this.dateModification = (null == collection.dateModification) ? null : new Date(collection.dateModification.getTime());
+        this.dateModificationStr = collection.dateModificationStr;
+        this.obsolete = collection.obsolete;
+        this.obsoleteComment = collection.obsoleteComment;
+        this.replacedBy = collection.replacedBy;
+        this.restrictions = copyOf(collection.restrictions);
+        if (null != collection.tags)
+        {
+            this.tags = new ArrayList<Tag>(collection.tags.size());
+            for (Tag tag: collection.tags)
+            {
+                this.tags.add(new Tag(tag.getId(), tag.getName(), tag.getInfo()));
+            }
+        }
+        this.uris = (null == collection.uris) ? null : new HashSet<URI>(collection.uris);
+        this.mimeTypeList = copyOf(collection.mimeTypeList);
+    }
+    
+    
+    /**
+     * Copies a list (null if the list is null).
+     */
+    private static <T> List<T> copyOf(List<T> list)
+    {
+        return (null == list) ? null : new ArrayList<T>(list);
+    }
+    
+    
     /**
      * Destroys the object (free the memory)
      */
@@ -1209,10 +1269,7 @@ public class DataCollection
     public void setDateCreation(Date dateCreation)
     {
         this.dateCreation = dateCreation;
-        
-        // modification of the String form of the creation date
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss 'GMT'");
-        this.dateCreationStr = dateFormat.format(this.dateCreation);
+        this.dateCreationStr = null;   // the String form is only built when needed
     }
     
     
@@ -1222,7 +1279,7 @@ public class DataCollection
      */
     public String getDateCreationStr()
     {
-        return this.dateCreationStr;
+        return (null == this.dateCreationStr) ? formatDate(this.dateCreation) : this.dateCreationStr;
     }
     
     
@@ -1265,10 +1322,7 @@ public class DataCollection
     public void setDateModification(Date dateModification)
     {
         this.dateModification = dateModification;
-        
-        // modification of the String form of the last modification date
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss 'GMT'");
-        this.dateModificationStr = dateFormat.format(this.dateModification);
+        this.dateModificationStr = null;
     }
     
     
@@ -1278,7 +1332,18 @@ public class DataCollection
      */
     public String getDateModificationStr()
     {
-        return this.dateModificationStr;
+        return (null == this.dateModificationStr) ? formatDate(this.dateModification) : this.dateModificationStr;
+    }
+    
+    
+    /**
+     * Formats a date for display (String form of the dates of creation and last modification).
+     * @param date
+     * @return formatted date
+     */
+    private static String formatDate(Date date)
+    {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss 'GMT'").format(date);
     }
     
     
@@ -1547,8 +1612,22 @@ public class DataCollection
         return uris;
     }
 
+    /**
+     * Adds a mime type: the list is copied first, as it can be shared by several data collections.
+     * @param mimeType
+     */
     public void addMimeType(MimeType mimeType){
-        mimeTypeList.add(mimeType);
+        List<MimeType> list = (null == mimeTypeList) ? new ArrayList<MimeType>() : new ArrayList<MimeType>(mimeTypeList);
+        list.add(mimeType);
+        mimeTypeList = list;
+    }
+
+    /**
+     * Setter of the list of mime types (can be shared, read-only, by several data collections, cf. <code>DataCollectionLoader</code>).
+     * @param mimeTypeList
+     */
+    public void setMimeTypeList(List<MimeType> mimeTypeList) {
+        this.mimeTypeList = mimeTypeList;
     }
 
     public List<MimeType> getMimeTypeList() {
@@ -1564,5 +1643,39 @@ public class DataCollection
         return null;
     }
 
+    /**
+     * Releases the unused capacity of all the lists of the data collection and of its resources
+     * (once fully loaded: the lists stay modifiable).
+     */
+    public void compact()
+    {
+        trim(this.synonyms);
+        trim(this.deprecatedURIs);
+        trim(this.deprecatedURNs);
+        trim(this.deprecatedURLs);
+        trim(this.resources);
+        trim(this.documentationURLs);
+        trim(this.documentationIDs);
+        trim(this.documentationIDsType);
+        trim(this.docHtmlURLs);
+        trim(this.restrictions);
+        trim(this.tags);
+        for (Resource resource: this.resources)
+        {
+            resource.compact();
+        }
+    }
+
 
+    /**
+     * Releases the unused capacity of a list.
+     * @param list (can be null)
+     */
+    static void trim(List<?> list)
+    {
+        if (list instanceof ArrayList)
+        {
+            ((ArrayList<?>) list).trimToSize();
+        }
+    }
 }
@@ -0,0 +1,648 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+import uk.ac.ebi.miriam.web.MiriamUtilities;
+
+
+/**
+ * <p>Loads complete data collections (with their URIs, resources, documentation, restrictions, tags, ...) with set-based queries:
+ * each table is read once for all the data collections requested, and the objects are assembled in memory.
+ *
+ * <p>Loading the whole Registry only takes a dozen of queries (instead of about twenty per data collection, plus a few per resource).
+ * The same code path is used for a single data collection (cf. <code>DataTypeHibernate.retrieveData()</code>).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class DataCollectionLoader extends Dao
+{
+    private Logger logger = Logger.getLogger(DataCollectionLoader.class);
+    private static final String AUTH_POOL = "auth";
+    private final Set<String> restricted = new HashSet<String>();   // data collections with restrictions
+    private final StringPool strings = new StringPool();   // values repeated on many rows are only kept once
+    
+    
+    /**
+     * Constructor.
+     * @param poolName name of the database pool of the Registry
+     */
+    public DataCollectionLoader(String poolName)
+    {
+        super(poolName);
+    }
+    
+    
+    /**
+     * Loads all the data collections of the Registry.
+     * @return data collections, ordered by identifier
+     */
+    public List<DataTypeHibernate> loadAll()
+    {
+        return load((Collection<String>) null);
+    }
+    
+    
+    /**
+     * Loads a set of data collections from the primary database, even if the pool has a read replica
+     * (for example right after their modification, which may not have been replicated yet).
+     * @param ids identifiers of the data collections to load
+     * @return data collections found, ordered by identifier
+     */
+    public List<DataTypeHibernate> loadFromPrimary(Collection<String> ids)
+    {
+        try
+        {
+            getConnection();   // the read-only queries use the primary connection, once opened
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Unable to use the primary database to load the data collections " + ids + "!");
+            logger.warn("SQL Exception raised: " + e.getMessage());
+        }
+        
+        return load(ids);
+    }
+    
+    
+    /**
+     * Loads a set of data collections.
+     * @param ids identifiers of the data collections to load (null for all the data collections)
+     * @return data collections found, ordered by identifier
+     */
+    public List<DataTypeHibernate> load(Collection<String> ids)
+    {
+        Map<String, DataTypeHibernate> collections = new LinkedHashMap<String, DataTypeHibernate>();
+        this.restricted.clear();
+        
+        try
+        {
+            loadCollections(collections, ids);
+            if (! collections.isEmpty())
+            {
+                loadDetails(collections, (null == ids) ? null : new ArrayList<String>(collections.keySet()));
+            }
+            for (DataTypeHibernate collection: collections.values())
+            {
+                collection.compact();
+            }
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error while loading the data collections!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            this.strings.clear();
+            clean();
+        }
+        
+        return new ArrayList<DataTypeHibernate>(collections.values());
+    }
+    
+    
+    /**
+     * Loads one data collection into an existing object.
+     * @param collection data collection to fill (its identifier must be set)
+     */
+    public void load(DataTypeHibernate collection)
+    {
+        Map<String, DataTypeHibernate> collections = new LinkedHashMap<String, DataTypeHibernate>(2);
+        this.restricted.clear();
+        collections.put(collection.getId(), collection);
+        
+        try
+        {
+            readCollections(collections, "SELECT * FROM mir_datatype WHERE (datatype_id = ?)", false, collection.getId());
+            loadDetails(collections, new ArrayList<String>(collections.keySet()));
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error while loading the data collection: " + collection.getId() + "!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
+        finally
+        {
+            clean();
+        }
+    }
+    
+    
+    /**
+     * Creates the data collections and sets their general information.
+     */
+    private void loadCollections(Map<String, DataTypeHibernate> collections, Collection<String> ids) throws SQLException
+    {
+        if (null == ids)
+        {
+            readCollections(collections, "SELECT * FROM mir_datatype ORDER BY datatype_id", true);
+        }
+        else if (! ids.isEmpty())
+        {
+            readCollections(collections, "SELECT * FROM mir_datatype WHERE " + Rows.in("datatype_id", ids.size()) + " ORDER BY datatype_id", true, ids.toArray());
+        }
+    }
+    
+    
+    /**
+     * Reads the general information of the data collections (name, definition, pattern, obsolescence, dates, ...).
+     * @param create true if the data collections need to be created, false if they are already in the map
+     */
+    private void readCollections(final Map<String, DataTypeHibernate> collections, String sql, final boolean create, Object... params) throws SQLException
+    {
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                String id = rs.getString("datatype_id");
+                DataTypeHibernate collection = create ? new DataTypeHibernate() : collections.get(id);
+                if (null == collection)
+                {
+                    return;
+                }
+                collection.setId(id);
+                collection.setName(rs.getString("name"));
+                collection.setNameURL(MiriamUtilities.nameTrans(collection.getName()));
+                collection.setDefinition(rs.getString("definition"));
+                collection.setRegexp(rs.getString("pattern"));
+                collection.setObsolete(rs.getInt("obsolete"));
+                if (collection.isObsolete())
+                {
+                    String replacement = rs.getString("replacement");
+                    if ((null != replacement) && (! replacement.matches("\\s*")))
+                    {
+                        collection.setReplacedBy(replacement);
+                    }
+                    else
+                    {
+                        collection.setReplacedBy(null);
+                    }
+                    collection.setObsoleteComment(rs.getString("obsolete_comment"));
+                }
+                else
+                {
+                    collection.setReplacedBy(null);
+                    collection.setObsoleteComment(null);
+                }
+                if (0 != rs.getInt("restriction"))
+                {
+                    restricted.add(id);   // the restrictions are loaded afterwards
+                }
+                collection.setDateCreation(toDate(rs.getTimestamp("date_creation")));
+                collection.setDateModification(toDate(rs.getTimestamp("date_modif")));
+                collections.put(id, collection);
+            }
+        });
+    }
+    
+    
+    /**
+     * Loads the content of all the child tables of the data collections.
+     * @param ids identifiers of the data collections (null if all of them are loaded)
+     */
+    private void loadDetails(Map<String, DataTypeHibernate> collections, List<String> ids) throws SQLException
+    {
+        Object[] params = (null == ids) ? new Object[0] : ids.toArray();
+        
+        loadSynonyms(collections, ids, params);
+        loadUris(collections, ids, params);
+        loadRestrictions(collections, ids, params);
+        Map<String, Resource> resources = loadResources(collections, ids, params);
+        loadFormats(collections, resources, ids, params);
+        loadDocumentation(collections, ids, params);
+        loadTags(collections, ids, params);
+        loadOwners(resources, (null == ids) ? null : resources.keySet());
+    }
+    
+    
+    /**
+     * Loads the synonyms of the data collections.
+     */
+    private void loadSynonyms(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        queryForEach("SELECT ptr_datatype, name FROM mir_synonym" + where(ids, "ptr_datatype"), new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if (null != collection)
+                {
+                    collection.getSynonyms().add(rs.getString("name"));
+                }
+            }
+        }, params);
+    }
+    
+    
+    /**
+     * Loads the URIs of the data collections (official URL and URN, deprecated URIs, ...).
+     */
+    private void loadUris(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        queryForEach("SELECT ptr_datatype, uri, uri_type, convertPrefix, deprecated FROM mir_uri" + where(ids, "ptr_datatype"), new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if (null == collection)
+                {
+                    return;
+                }
+                String value = rs.getString("uri");
+                String type = strings.get(rs.getString("uri_type"));
+                int deprecated = rs.getInt("deprecated");
+                
+                if (0 == deprecated)
+                {
+                    if ("URL".equals(type) && isEmpty(collection.getURL()))
+                    {
+                        collection.setURL(value);
+                    }
+                    else if ("URN".equals(type) && isEmpty(collection.getURN()))
+                    {
+                        collection.setURN(value);
+                    }
+                }
+                else
+                {
+                    collection.getDeprecatedURIs().add(value);
+                    if ("URN".equals(type))
+                    {
+                        collection.getDeprecatedURNs().add(value);
+                    }
+                    else if ("URL".equals(type))
+                    {
+                        collection.getDeprecatedURLs().add(value);
+                    }
+                }
+                
+                URI uri = new URI();
+                uri.setValue(value);
+                uri.setConvertPrefix(strings.get(rs.getString("convertPrefix")));
+                uri.setType(type);
+                uri.setDeprecated(deprecated);
+                collection.getUris().add(uri);
+            }
+        }, params);
+    }
+    
+    
+    /**
+     * Loads the restrictions of the data collections (only for the ones flagged as restricted).
+     */
+    private void loadRestrictions(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        String sql = "SELECT r.ptr_datatype, t.id AS rid, t.id AS tid, r.desc, r.link, r.link_text, t.short_desc, t.long_desc FROM mir_restriction r, mir_restriction_type t WHERE (r.ptr_restriction = t.id)";
+        if (null != ids)
+        {
+            sql += " AND " + Rows.in("r.ptr_datatype", ids.size());
+        }
+        
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if ((null == collection) || (! restricted.contains(collection.getId())))
+                {
+                    return;   // unknown or not restricted data collection
+                }
+                Restriction restriction = new Restriction();
+                restriction.setId(rs.getInt("rid"));
+                restriction.getType().setId(rs.getInt("tid"));
+                restriction.getType().setCategory(strings.get(rs.getString("short_desc")));
+                restriction.getType().setDesc(strings.get(rs.getString("long_desc")));
+                restriction.setInfo(strings.get(rs.getString("desc")));
+                restriction.setLink(rs.getString("link"));
+                restriction.setLinkText(strings.get(rs.getString("link_text")));
+                collection.addRestriction(restriction);
+            }
+        }, params);
+    }
+    
+    
+    /**
+     * Loads the resources of the data collections, with their reliability.
+     * @return all the resources loaded, per identifier
+     */
+    private Map<String, Resource> loadResources(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        final Map<String, Resource> resources = new HashMap<String, Resource>();
+        String sql = "SELECT r.ptr_datatype, r.resource_id, r.url_element_prefix, r.url_element_suffix, r.url_resource, r.info, r.institution, r.location, r.example, r.obsolete, r.official, r.convertPrefix, c.uptime, c.downtime, c.state FROM mir_resource r LEFT JOIN mir_url_check c ON (c.resource_id = r.resource_id)";
+        if (null != ids)
+        {
+            sql += " WHERE " + Rows.in("r.ptr_datatype", ids.size());
+        }
+        
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if (null == collection)
+                {
+                    return;
+                }
+                Resource resource = new Resource();
+                resource.setId(rs.getString("resource_id"));
+                resource.setCollectionId(collection.getId());
+                resource.setUrl_prefix(strings.get(rs.getString("url_element_prefix")));
+                resource.setUrl_suffix(strings.get(rs.getString("url_element_suffix")));
+                resource.setUrl_root(strings.get(rs.getString("url_resource")));
+                resource.setInfo(strings.get(rs.getString("info")));
+                resource.setInstitution(strings.get(rs.getString("institution")));
+                resource.setLocation(strings.get(rs.getString("location")));
+                resource.setExample(rs.getString("example"));
+                resource.setConvert_prefix(strings.get(rs.getString("convertPrefix")));
+                resource.setObsolete(0 != rs.getInt("obsolete"));
+                resource.setPrimary(0 != rs.getInt("official"));
+                
+                int uptime = rs.getInt("uptime");
+                if (rs.wasNull())
+                {
+                    logger.error("Something went wrong while retrieving health information about the resource: " + resource.getId());
+                    resource.setReliability(0);
+                }
+                else
+                {
+                    int totalDays = uptime + rs.getInt("downtime");
+                    resource.setReliability((totalDays > 0) ? (uptime * 100 / totalDays) : 0);   // 'unknown' not part of the uptime percent computation
+                    int state = rs.getInt("state");
+                    resource.setState(rs.wasNull() ? ResourceDao.STATE_NA : state);
+                }
+                
+                collection.addResource(resource);
+                resources.put(resource.getId(), resource);
+            }
+        }, params);
+        
+        return resources;
+    }
+    
+    
+    /**
+     * Loads the mime types (shared by all the data collections) and the formats of the resources.
+     */
+    private void loadFormats(Map<String, DataTypeHibernate> collections, final Map<String, Resource> resources, List<String> ids, Object[] params) throws SQLException
+    {
+        final Map<Integer, MimeType> mimeTypes = new LinkedHashMap<Integer, MimeType>();
+        queryForEach("SELECT id, mimetype, displaytext FROM mir_mimetype", new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                int id = rs.getInt("id");
+                mimeTypes.put(id, new MimeType(id, rs.getString("mimetype"), rs.getString("displaytext")));
+            }
+        });
+        List<MimeType> mimeTypeList = Collections.unmodifiableList(new ArrayList<MimeType>(mimeTypes.values()));   // same (read-only) list for all the data collections
+        for (DataTypeHibernate collection: collections.values())
+        {
+            collection.setMimeTypeList(mimeTypeList);
+        }
+        
+        String sql = "SELECT f.id, f.url_prefix, f.url_suffix, f.ptr_mimetype, f.deprecated, f.ptr_resource FROM mir_res_formats f";
+        if (null != ids)
+        {
+            sql += ", mir_resource r WHERE ((f.ptr_resource = r.resource_id) AND " + Rows.in("r.ptr_datatype", ids.size()) + ")";
+        }
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                Resource resource = resources.get(rs.getString("ptr_resource"));
+                if (null != resource)
+                {
+                    resource.addFormat(new Format(rs.getInt("id"), strings.get(rs.getString("url_prefix")), strings.get(rs.getString("url_suffix")), mimeTypes.get(rs.getInt("ptr_mimetype")), rs.getInt("deprecated")));
+                }
+            }
+        }, params);
+    }
+    
+    
+    /**
+     * Loads the documentation of the data collections: the URLs are kept as they are, the MIRIAM URIs (PubMed, DOI, ...)
+     * are transformed into URLs using the resources of the corresponding data collections.
+     */
+    private void loadDocumentation(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        final Map<String, List<String>> urlParts = new HashMap<String, List<String>>();   // data collection -> (prefix, suffix, prefix, suffix, ...)
+        Map<String, String> docResources = DataTypeHibernate.getDocResources();
+        queryForEach("SELECT ptr_datatype, url_element_prefix, url_element_suffix FROM mir_resource WHERE " + Rows.in("ptr_datatype", docResources.size()), new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                String id = rs.getString("ptr_datatype");
+                List<String> parts = urlParts.get(id);
+                if (null == parts)
+                {
+                    parts = new ArrayList<String>();
+                    urlParts.put(id, parts);
+                }
+                parts.add(rs.getString("url_element_prefix"));
+                parts.add(rs.getString("url_element_suffix"));
+            }
+        }, docResources.values().toArray());
+        
+        String sql = "SELECT ptr_datatype, uri, uri_type FROM mir_doc WHERE (ptr_type = 'data')";
+        if (null != ids)
+        {
+            sql += " AND " + Rows.in("ptr_datatype", ids.size());
+        }
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if (null == collection)
+                {
+                    return;
+                }
+                String uri = rs.getString("uri");
+                String type = rs.getString("uri_type");
+                if ("URL".equals(type))
+                {
+                    collection.getDocumentationURLs().add(MiriamUtilities.transURL(uri, '&', "&amp;"));
+                }
+                else
+                {
+                    collection.addDocumentationID(uri);
+                    collection.addDocumentationIDType(strings.get(type));
+                }
+            }
+        }, params);
+        
+        for (DataTypeHibernate collection: collections.values())
+        {
+            List<String> htmlUrls = new ArrayList<String>(collection.getDocumentationURLs());
+            for (int i = 0; i < collection.getDocumentationIDs().size(); ++i)
+            {
+                String uri = collection.getDocumentationID(i);
+                List<String> parts = urlParts.get(DataTypeHibernate.getDocResources().get(collection.getDocumentationIDType(i)));
+                if ((null == parts) || parts.isEmpty())
+                {
+                    logger.warn("A Miriam URI (" + uri + ") corresponding to a piece of documentation has no physical location");
+                    continue;
+                }
+                String element = MiriamUtilities.getElementPart(uri);
+                for (int j = 0; j < parts.size(); j += 2)
+                {
+                    htmlUrls.add(MiriamUtilities.transURL(parts.get(j) + element + parts.get(j + 1), '&', "&amp;"));
+                }
+            }
+            collection.setDocHtmlURLs(htmlUrls);
+        }
+    }
+    
+    
+    /**
+     * Loads the tags of the data collections.
+     */
+    private void loadTags(final Map<String, DataTypeHibernate> collections, List<String> ids, Object[] params) throws SQLException
+    {
+        final Map<String, Tag> tags = new HashMap<String, Tag>();   // a tag is shared by all the data collections it is linked to
+        String sql = "SELECT l.ptr_datatype, t.id, t.tag, t.info FROM mir_tag t, mir_tag_link l WHERE (l.ptr_tag = t.id)";
+        if (null != ids)
+        {
+            sql += " AND " + Rows.in("l.ptr_datatype", ids.size());
+        }
+        
+        queryForEach(sql, new RowHandler()
+        {
+            public void processRow(ResultSet rs) throws SQLException
+            {
+                DataTypeHibernate collection = collections.get(rs.getString("ptr_datatype"));
+                if (null != collection)
+                {
+                    Tag tag = tags.get(rs.getString("id"));
+                    if (null == tag)
+                    {
+                        tag = new Tag();
+                        tag.setId(rs.getString("id"));
+                        tag.setName(rs.getString("tag"));
+                        tag.setInfo(rs.getString("info"));
+                        tags.put(tag.getId(), tag);
+                    }
+                    collection.addTag(tag);
+                }
+            }
+        }, params);
+    }
+    
+    
+    /**
+     * Loads the owners of the resources (from the authentication database).
+     * @param resourceIds identifiers of the resources (null for all of them)
+     */
+    private void loadOwners(Map<String, Resource> resources, Collection<String> resourceIds)
+    {
+        if (resources.isEmpty())
+        {
+            return;
+        }
+        
+        OwnershipDao ownershipDao = new OwnershipDao(AUTH_POOL);
+        Map<String, List<User>> owners = ownershipDao.retrieveOwners(resourceIds);
+        ownershipDao.clean();
+        
+        for (Map.Entry<String, List<User>> entry: owners.entrySet())
+        {
+            Resource resource = resources.get(entry.getKey());
+            if (null != resource)
+            {
+                for (User user: entry.getValue())
+                {
+                    resource.addOwner(user);
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Builds the condition restricting a query to some data collections.
+     * @return empty string if all the data collections are loaded
+     */
+    private static String where(List<String> ids, String column)
+    {
+        return (null == ids) ? "" : " WHERE " + Rows.in(column, ids.size());
+    }
+    
+    
+    /**
+     * Checks if a value is empty (or null).
+     */
+    private static boolean isEmpty(String value)
+    {
+        return (null == value) || value.isEmpty();
+    }
+    
+    
+    /**
+     * Converts a date read from the database (1st January 1970 if there is none).
+     */
+    private static Date toDate(Timestamp timestamp)
+    {
+        return (null == timestamp) ? new Date(0) : new Date(timestamp.getTime());
+    }
+}
@@ -33,6 +33,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.apache.log4j.Logger;
 
 /**
  * <p>Handles some database connections for manipulating <code>DataType</code> (some other features are provided by <code>DataTypeHibernate</code>).
+ * <p>Most of the getters answer from the <code>RegistrySnapshot</code> when one is available, without querying the database.
  * 
  * <p>
  * <dl>
@@ -67,7 +69,7 @@ import org.apache.log4j.Logger;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20140311
+ * @version 20261017
  */
 public class DataTypeDao extends Dao
 {
@@ -103,7 +105,7 @@ public class DataTypeDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = true;
             }
@@ -129,18 +131,24 @@ public class DataTypeDao extends Dao
      */
     public String getDataTypeName(String id)
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getCollectionName(id);
+        }
+        
         PreparedStatement stmt = null;
         String result = null;
         String sql = "SELECT name FROM mir_datatype WHERE (datatype_id=?)";
         
         try
         {
-            stmt = openPreparedStatement(sql);
+            stmt = openReadOnlyPreparedStatement(sql);
             stmt.setString(1, id);
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getString("name");
             }
@@ -178,7 +186,7 @@ public class DataTypeDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 value = rs.getInt("restriction");
             }
@@ -222,18 +230,24 @@ public class DataTypeDao extends Dao
      */
     public SimpleDataType getSimpleDataTypeById(String id)
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getSimpleDataType(id);
+        }
+        
         PreparedStatement stmt = null;
         SimpleDataType data = null;
         String sql = "SELECT d.datatype_id, d.name, d.definition, u.uri FROM mir_datatype d, mir_uri u WHERE ((d.datatype_id=?) AND (d.datatype_id=u.ptr_datatype) AND (u.uri_type='URN') AND (u.deprecated=0))";
         
         try
         {
-            stmt = openPreparedStatement(sql);
+            stmt = openReadOnlyPreparedStatement(sql);
             stmt.setString(1, id);
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             // no check if several results...
-            if (rs.first())
+            if (rs.next())
             {
                 data = new SimpleDataType();
                 data.setId(rs.getString("d.datatype_id"));
@@ -270,7 +284,7 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openPreparedStatement(sql);
+            stmt = openReadOnlyPreparedStatement(sql);
         }
         catch (SQLException e)
         {
@@ -288,7 +302,7 @@ public class DataTypeDao extends Dao
                     logger.debug("SQL prepared query: " + stmt.toString());
                     ResultSet rs = stmt.executeQuery();
                     // no check if several results...
-                    if (rs.first())
+                    if (rs.next())
                     {
                         SimpleDataType tmp = new SimpleDataType();
                         tmp.setId(rs.getString("datatype_id"));
@@ -337,6 +351,7 @@ public class DataTypeDao extends Dao
                 if (state == 1)
                 {
                     result = true;
+                    ChangeLog.record(getPoolName(), ChangeLog.COLLECTION, dataTypeId);
                 }
             }
             catch (SQLException e)
@@ -399,15 +414,21 @@ public class DataTypeDao extends Dao
      */
     public int getNbDataTypes()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countCollections(false);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(name) AS number FROM mir_datatype WHERE (obsolete=0)";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -432,15 +453,21 @@ public class DataTypeDao extends Dao
      */
     public int getNbObsoleteDataTypes()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countCollections(true);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(name) AS number FROM mir_datatype WHERE (obsolete=1)";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -465,15 +492,21 @@ public class DataTypeDao extends Dao
      */
     public int getNbAllDataTypes()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countCollections(null);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(name) AS number FROM mir_datatype";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -506,10 +539,10 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openPreparedStatement(sql);
+            stmt = openReadOnlyPreparedStatement(sql);
             stmt.setString(1, identifier);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 if (rs.getInt("obsolete") == 1)
                 {
@@ -571,15 +604,21 @@ public class DataTypeDao extends Dao
      */
     public List<SimpleDataType> getSimpleDataTypes()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getSimpleDataTypes(null);
+        }
+        
         Statement stmt = null;
         List<SimpleDataType> result = new ArrayList<SimpleDataType>(200);   // ArrayList increases its array size by 50 percent when full
         String sql = "SELECT datatype_id, name, definition FROM mir_datatype ORDER BY name";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet sqlResult = stmt.executeQuery(sql);
-            boolean notEmpty = sqlResult.first();
+            boolean notEmpty = sqlResult.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -610,15 +649,21 @@ public class DataTypeDao extends Dao
      */
     public List<SimpleDataType> getSimpleDataTypesNotDeprecated()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getSimpleDataTypes(false);
+        }
+        
         Statement stmt = null;
         List<SimpleDataType> result = new ArrayList<SimpleDataType>(200);   // ArrayList increases its array size by 50 percent when full
         String sql = "SELECT datatype_id, name, definition FROM mir_datatype WHERE (obsolete = 0) ORDER BY name";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet sqlResult = stmt.executeQuery(sql);
-            boolean notEmpty = sqlResult.first();
+            boolean notEmpty = sqlResult.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -649,15 +694,21 @@ public class DataTypeDao extends Dao
      */
     public List<SimpleDataType> getSimpleDataTypesDeprecated()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getSimpleDataTypes(true);
+        }
+        
         Statement stmt = null;
         List<SimpleDataType> result = new ArrayList<SimpleDataType>(200);   // ArrayList increases its array size by 50 percent when full
         String sql = "SELECT datatype_id, name, definition FROM mir_datatype WHERE (obsolete = 1) ORDER BY name";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet sqlResult = stmt.executeQuery(sql);
-            boolean notEmpty = sqlResult.first();
+            boolean notEmpty = sqlResult.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -689,15 +740,21 @@ public class DataTypeDao extends Dao
      */
     public List<String> getDataCollectionIds()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getCollectionIds();
+        }
+        
     	List<String> ids = new ArrayList<String>();
     	Statement stmt = null;
     	String sql = "SELECT datatype_id FROM mir_datatype ORDER BY datatype_id";
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet sqlResult = stmt.executeQuery(sql);
-            boolean notEmpty = sqlResult.first();
+            boolean notEmpty = sqlResult.next();
             while (notEmpty)
             {
                 ids.add(sqlResult.getString("datatype_id"));
@@ -719,25 +776,32 @@ public class DataTypeDao extends Dao
     
     
     /**
-     * Retrieves a list of data type from the database, based on their (primary, not synonym) name.
-     * Warning: doesn't retrieve the URI of the data types!
-     * @param dataTypeNames list of name of a data types
-     * @return list of <code>SimpleDataType</code> (can be empty)
+     * Retrieves all the data collections, with all their details.
+     * @param dbPool name of the database pool
+     * @return list of data collections, ordered by identifier
      */
     public List<DataCollection> getDataCollections(String dbPool)
     {
-    	List<DataCollection> collections = new ArrayList<DataCollection>(200);   // ArrayList increases its array size by 50 percent when full
-    	List<String> ids = getDataCollectionIds();
-    	
-    	for (String id: ids)
-    	{
-    		DataTypeHibernate collection = new DataTypeHibernate();
-    		collection.retrieveData(dbPool, id);
-    		
-    		collections.add(collection);
-    	}
-    	
-    	return collections;
+    	return getDataCollections(dbPool, null);
+    }
+    
+    
+    /**
+     * Retrieves a set of data collections, with all their details, using a few set-based queries (cf. <code>DataCollectionLoader</code>).
+     * If a snapshot of the Registry is available, the data collections returned are copies of its own.
+     * @param dbPool name of the database pool
+     * @param ids identifiers of the data collections to retrieve (null for all of them)
+     * @return list of data collections, ordered by identifier
+     */
+    public List<DataCollection> getDataCollections(String dbPool, Collection<String> ids)
+    {
+        RegistrySnapshot snapshot = SnapshotManager.get(dbPool);
+        if (null != snapshot)
+        {
+            return snapshot.getCollections(ids);
+        }
+        
+    	return new ArrayList<DataCollection>(new DataCollectionLoader(dbPool).load(ids));
     }
     
     
@@ -773,10 +837,10 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openPreparedStatement(sql);
+            stmt = openReadOnlyPreparedStatement(sql);
             stmt.setString(1, startBy);
             ResultSet rs = stmt.executeQuery();
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -817,9 +881,9 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -859,9 +923,9 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -901,9 +965,9 @@ public class DataTypeDao extends Dao
         
         try
         {
-            stmt = openStatement();
+            stmt = openReadOnlyStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -946,7 +1010,7 @@ public class DataTypeDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getString("name");
             }
@@ -84,7 +84,7 @@ import org.apache.log4j.Logger;
  */
 public class DataTypeHibernate extends DataCollection
 {
-	private Logger logger = Logger.getLogger(DataTypeHibernate.class);
+	private static Logger logger = Logger.getLogger(DataTypeHibernate.class);
 	private final int DATATYPE = 1;   /* constant used in the 'generateID()' method */
 	private final int RESOURCE = 2;   /* constant used in the 'generateID()' method */
 	private final int CURA_DATATYPE = 3;   /* constant used in the 'generateID()' method */
@@ -103,6 +103,16 @@ public class DataTypeHibernate extends DataCollection
 	
 	
 	/**
+	 * Returns the data collections used to resolve the MIRIAM URIs of the documentation, per type of URI (PMID, DOI, ...).
+	 * @return identifiers of the data collections, per type of URI
+	 */
+	static Map<String, String> getDocResources()
+	{
+	    return docResources;
+	}
+	
+	
+		/**
      * <p>Default constructor (generates an empty object).  
      */
     public DataTypeHibernate()
@@ -130,7 +140,6 @@ public class DataTypeHibernate extends DataCollection
 	{
 		DbPoolConnect pool;
 		ResultSet result = null;
-		String sql = new String();
 		boolean exist = true;   // default: we need to proof the uniqueness
 		
 		// connection to the database pool
@@ -145,29 +154,26 @@ public class DataTypeHibernate extends DataCollection
             logger.debug("Complex test of existence (public website).");
             
             // query to test the uniqueness of the name (part one)
-            sql = "SELECT name FROM mir_datatype WHERE (name='" + getName() + "')";
-            result = pool.request(pool.getStatement(), sql);
+            result = pool.request(SqlQuery.DATATYPE_NAME_EXISTS, getName());
             
             // no name of existing data types is equivalent of the name of the data type
-            if (DbPoolConnect.getRowCount(result) == 0)
+            if (! DbPoolConnect.hasRow(result))
             {
                 // query to test the uniqueness of the name (part two)
-                sql = "SELECT name FROM mir_synonym WHERE (name='" + getName() + "')";
-                result = pool.request(pool.getStatement(), sql);
+                result = pool.request(SqlQuery.SYNONYM_NAME_EXISTS, getName());
                 
                 // no synonym of existing data types is equivalent to the name of the new data type  
-                if (DbPoolConnect.getRowCount(result) == 0)
+                if (! DbPoolConnect.hasRow(result))
                 {
                     boolean tempExist1 = false;
                     
                     // queries to test the uniqueness of the synonyms (part one)
                     for (int i=0; i<getSynonyms().size(); ++i)
                     {
-                        sql = "SELECT name FROM mir_datatype WHERE (name='" + getSynonym(i) + "')";
-                        result = pool.request(pool.getStatement(), sql);
+                        result = pool.request(SqlQuery.DATATYPE_NAME_EXISTS, getSynonym(i));
                         
                         // one of the synonyms of the new data type is equivalent to the name of an existing data type
-                        if (DbPoolConnect.getRowCount(result) != 0)
+                        if (DbPoolConnect.hasRow(result))
                         {
                             tempExist1 = true;
                             break;
@@ -182,10 +188,9 @@ public class DataTypeHibernate extends DataCollection
                         // queries to test the uniqueness of the synonyms (part two)
                         for (int i=0; i<getSynonyms().size(); ++i)
                         {
-                            sql = "SELECT name FROM mir_synonym WHERE (name='" + getSynonym(i) + "')";
-                            result = pool.request(pool.getStatement(), sql);
+                            result = pool.request(SqlQuery.SYNONYM_NAME_EXISTS, getSynonym(i));
                             
-                            if (DbPoolConnect.getRowCount(result) != 0)
+                            if (DbPoolConnect.hasRow(result))
                             {
                                 tempExist2 = true;
                                 break;
@@ -196,21 +201,19 @@ public class DataTypeHibernate extends DataCollection
                         if (! tempExist2)
                         {
                             // query to test the uniqueness of the URIs
-                            sql = "SELECT uri FROM mir_uri WHERE ((uri='" + getURL() + "') OR (uri='" + getURN()  + "'))";
-                            result = pool.request(pool.getStatement(), sql);
+                            result = pool.request(SqlQuery.URI_PAIR_EXISTS, getURL(), getURN());
                             
                             // no URI of existing data types is equivalent to one of the URIs of the new data type 
-                            if (DbPoolConnect.getRowCount(result) == 0)
+                            if (! DbPoolConnect.hasRow(result))
                             {
                                 boolean tempExist3 = false;
                                 
                                 // queries to test the uniqueness of the deprecated URI(s)
                                 for (int i=0; i<getDeprecatedURIs().size(); ++i)
                                 {
-                                    sql = "SELECT uri FROM mir_uri WHERE (uri='" + getDeprecatedURI(i) + "')";
-                                    result = pool.request(pool.getStatement(), sql);
+                                    result = pool.request(SqlQuery.URI_EXISTS, getDeprecatedURI(i));
                                     
-                                    if (DbPoolConnect.getRowCount(result) != 0)
+                                    if (DbPoolConnect.hasRow(result))
                                     {
                                         tempExist3 = true;
                                         break;
@@ -232,11 +235,10 @@ public class DataTypeHibernate extends DataCollection
         {
             logger.debug("Simple test of existence.");
             
-    		sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + getId() + "')";
-    		result = pool.request(pool.getStatement(), sql);
+    		result = pool.request(SqlQuery.DATATYPE_NAME_BY_ID, getId());
     		
     		// one and only one data type already existing
-    		if (DbPoolConnect.getRowCount(result) < 1)
+    		if (! DbPoolConnect.hasRow(result))
     		{
     			exist = false;
     		}
@@ -260,7 +262,6 @@ public class DataTypeHibernate extends DataCollection
     {
         DbPoolConnect pool;
         ResultSet result = null;
-        String sql = new String();
         boolean exist = true;   // defaut: we need to proof the uniqueness
         
         // connection to the database pool
@@ -272,29 +273,26 @@ public class DataTypeHibernate extends DataCollection
         logger.debug("Complex test of existence (curation pipeline).");
         
         // query to test the uniqueness of the name (part one)
-        sql = "SELECT name FROM cura_datatype WHERE (name='" + getName() + "')";
-        result = pool.request(pool.getStatement(), sql);
+        result = pool.request(SqlQuery.CURA_DATATYPE_NAME_EXISTS, getName());
         
         // no name of existing data types is equivalent of the name of the data type
-        if (DbPoolConnect.getRowCount(result) == 0)
+        if (! DbPoolConnect.hasRow(result))
         {
             // query to test the uniqueness of the name (part two)
-            sql = "SELECT name FROM cura_synonym WHERE (name='" + getName() + "')";
-            result = pool.request(pool.getStatement(), sql);
+            result = pool.request(SqlQuery.CURA_SYNONYM_NAME_EXISTS, getName());
             
             // no synonym of existing data types is equivalent to the name of the new data type  
-            if (DbPoolConnect.getRowCount(result) == 0)
+            if (! DbPoolConnect.hasRow(result))
             {
                 boolean tempExist1 = false;
                 
                 // queries to test the uniqueness of the synonyms (part one)
                 for (int i=0; i<getSynonyms().size(); ++i)
                 {
-                    sql = "SELECT name FROM cura_datatype WHERE (name='" + getSynonym(i) + "')";
-                    result = pool.request(pool.getStatement(), sql);
+                    result = pool.request(SqlQuery.CURA_DATATYPE_NAME_EXISTS, getSynonym(i));
                     
                     // one of the synonyms of the new data type is equivalent to the name of an existing data type
-                    if (DbPoolConnect.getRowCount(result) != 0)
+                    if (DbPoolConnect.hasRow(result))
                     {
                         tempExist1 = true;
                         break;
@@ -309,10 +307,9 @@ public class DataTypeHibernate extends DataCollection
                     // queries to test the uniqueness of the synonyms (part two)
                     for (int i=0; i<getSynonyms().size(); ++i)
                     {
-                        sql = "SELECT name FROM cura_synonym WHERE (name='" + getSynonym(i) + "')";
-                        result = pool.request(pool.getStatement(), sql);
+                        result = pool.request(SqlQuery.CURA_SYNONYM_NAME_EXISTS, getSynonym(i));
                         
-                        if (DbPoolConnect.getRowCount(result) != 0)
+                        if (DbPoolConnect.hasRow(result))
                         {
                             tempExist2 = true;
                             break;
@@ -323,21 +320,19 @@ public class DataTypeHibernate extends DataCollection
                     if (! tempExist2)
                     {
                         // query to test the uniqueness of the URIs
-                        sql = "SELECT uri FROM cura_uri WHERE ((uri='" + getURL() + "') OR (uri='" + getURN()  + "'))";
-                        result = pool.request(pool.getStatement(), sql);
+                        result = pool.request(SqlQuery.CURA_URI_PAIR_EXISTS, getURL(), getURN());
                         
                         // no URI of existing data types is equivalent to one of the URIs of the new data type 
-                        if (DbPoolConnect.getRowCount(result) == 0)
+                        if (! DbPoolConnect.hasRow(result))
                         {
                             boolean tempExist3 = false;
                             
                             // queries to test the uniqueness of the deprecated URI(s)
                             for (int i=0; i<getDeprecatedURIs().size(); ++i)
                             {
-                                sql = "SELECT uri FROM cura_uri WHERE (uri='" + getDeprecatedURI(i) + "')";
-                                result = pool.request(pool.getStatement(), sql);
+                                result = pool.request(SqlQuery.CURA_URI_EXISTS, getDeprecatedURI(i));
                                 
-                                if (DbPoolConnect.getRowCount(result) != 0)
+                                if (DbPoolConnect.hasRow(result))
                                 {
                                     tempExist3 = true;
                                     break;
@@ -732,6 +727,7 @@ public class DataTypeHibernate extends DataCollection
 		
 		// without closing the statements, let's see...
 		pool.closeConnection();
+		ChangeLog.record(poolName, ChangeLog.COLLECTION, index);   // notifies all the nodes
 		
 		logger.debug("... end of the adding of a new data collection (GLOBAL RESULT: " + resultGlobal + ")");
 		
@@ -751,7 +747,7 @@ public class DataTypeHibernate extends DataCollection
 		ResultSet rs = null;
 		
 		// connexion pool management
-		pool = new DbPoolConnect(poolName);
+		pool = new DbPoolConnect(poolName, true);
 		
 		// test without 'newConnection()' before, let's see...
 		pool.getConnection();
@@ -888,382 +884,19 @@ public class DataTypeHibernate extends DataCollection
 	 */
 	public void retrieveData(String poolName, String index)
 	{
-		DbPoolConnect pool;
-		String sql = new String();
-		ResultSet rs = null;
-		
-		// connexion pool management
-		pool = new DbPoolConnect(poolName);
-		
-		// test without 'newConnection()' before, let's see...
-		pool.getConnection();
-		
 		// is the 'index' parameter a name or an ID?
-		if (index.indexOf("MIR:") != -1)   // the parameter is an ID
-		{
-			// set the internal ID
-			setId(index);
-			
-			// search the name
-			sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + index + "')";
-			rs = pool.request(pool.getStatement(), sql);
-			String name = MiriamUtilities.StringConvert(rs);
-			setName(name);
-		}
-		else   // the parameter is a name
+		if (index.indexOf("MIR:") == -1)   // the parameter is a name: searches the ID
 		{
-			// set the name
-			setName(index);
-			
-			// search the ID
-			sql = "SELECT datatype_id FROM mir_datatype WHERE (name='" + index + "')";
-			rs = pool.request(pool.getStatement(), sql);
+			DbPoolConnect pool = new DbPoolConnect(poolName, true);
+			pool.getConnection();
+			ResultSet rs = pool.request(SqlQuery.DATATYPE_ID_BY_NAME, index);
 			index = MiriamUtilities.StringConvert(rs);
-			setId(index);
-		}
-		
-		// sets the HTML name
-		setNameURL(MiriamUtilities.nameTrans(getName()));
-		
-		// searches the synonyms
-		sql = "SELECT ms.name FROM mir_datatype md, mir_synonym ms WHERE ((ms.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "'))";
-        rs = pool.request(pool.getStatement(), sql);
-		ArrayList<String> syn = new ArrayList<String>();
-		syn = (ArrayList<String>) MiriamUtilities.ArrayConvert(rs);
-        setSynonyms(syn);
-		
-		// searches the official URL
-		sql = "SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "') AND (mu.uri_type = 'URL') AND (mu.deprecated = '0'))";
-		rs = pool.request(pool.getStatement(), sql);
-		String url = MiriamUtilities.StringConvert(rs);
-		setURL(url);
-		
-		// searches the official URN
-		sql = "SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "') AND (mu.uri_type = 'URN') AND (mu.deprecated = '0'))";
-		rs = pool.request(pool.getStatement(), sql);
-		String urn = MiriamUtilities.StringConvert(rs);
-		setURN(urn);
-		
-		// searches for deprecated URIs (all, without taking care of the type -URN or URL-)
-		sql = "SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "') AND (mu.deprecated = '1'))";
-		rs = pool.request(pool.getStatement(), sql);
-		ArrayList<String> deprecated = (ArrayList<String>) MiriamUtilities.ArrayConvert(rs);
-        setDeprecatedURIs(deprecated);
-        
-        // searches for deprecated URNs
-        sql = "SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "') AND (mu.deprecated = '1') AND (mu.uri_type = 'URN'))";
-        rs = pool.request(pool.getStatement(), sql);
-        ArrayList<String> deprecatedUrns = (ArrayList<String>) MiriamUtilities.ArrayConvert(rs);
-        setDeprecatedURNs(deprecatedUrns);
-        
-        // searches for deprecated URLs
-        sql = "SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "') AND (mu.deprecated = '1') AND (mu.uri_type = 'URL'))";
-        rs = pool.request(pool.getStatement(), sql);
-        ArrayList<String> deprecatedUrls = (ArrayList<String>) MiriamUtilities.ArrayConvert(rs);
-        setDeprecatedURLs(deprecatedUrls);
-
-        //Retrieves URI schemes
-        sql = "SELECT mu.uri, mu.uri_type, mu.convertPrefix, mu.deprecated FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = '" + index + "'))";
-        rs = pool.request(pool.getStatement(), sql);
-        try {
-            while(rs.next()){
-                URI uri = new URI();
-                uri.setValue(rs.getString("uri"));
-                uri.setConvertPrefix(rs.getString("convertPrefix"));
-                uri.setType(rs.getString("uri_type"));
-                uri.setDeprecated(rs.getInt("deprecated"));
-                getUris().add(uri);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-
-        // searches the definition, regular expression, restrictions, obsolescence, ...
-		sql = "SELECT * FROM mir_datatype WHERE (datatype_id = '" + index + "')";
-		rs = pool.request(pool.getStatement(), sql);
-		setDefinition(MiriamUtilities.StringConvert(rs, "definition"));
-		setRegexp(MiriamUtilities.StringConvert(rs, "pattern"));
-		
-		// searches if there are any limitations on the usage of this data set
-		if (MiriamUtilities.intConvert(rs, "restriction") != 0)
-		{
-		    // retrieves all existing restrictions
-		    sql = "SELECT t.id AS rid, t.id AS tid, r.desc, r.link, r.link_text, t.short_desc, t.long_desc FROM mir_restriction r, mir_restriction_type t WHERE ((r.ptr_datatype = '" + index + "') AND (r.ptr_restriction = t.id))";
-	        try
-	        {
-	            ResultSet rs2 = pool.request(pool.getStatement(), sql);
-    	        boolean notEmpty = rs2.next();
-                while (notEmpty)
-                {
-                    Restriction temp = new Restriction();
-                    temp.setId(rs2.getInt("rid"));
-                    temp.getType().setId(rs2.getInt("tid"));
-                    temp.getType().setCategory(rs2.getString("short_desc"));
-                    temp.getType().setDesc(rs2.getString("long_desc"));
-                    temp.setInfo(rs2.getString("desc"));
-                    temp.setLink(rs2.getString("link"));
-                    temp.setLinkText(rs2.getString("link_text"));
-                    // add the restriction to the data collection
-                    addRestriction(temp);
-                    // next resource (if it exists)
-                    notEmpty = rs2.next();
-                }
-                rs2.close();
-	        }
-	        catch (SQLException e)
-	        {
-	            logger.error("Error while searching the restrictions!");
-	            logger.error("SQLException raised: " + e.getMessage());
-	        }
-		}
-		
-		// searches if obsolete
-        setObsolete(MiriamUtilities.intConvert(rs, "obsolete"));
-        
-		// searches replacement and comment (if obsolete)
-		if (isObsolete())
-		{
-		    String replacement = MiriamUtilities.StringConvert(rs, "replacement");
-		    if ((null != replacement) && (!replacement.isEmpty()) && (!replacement.matches("\\s*")))
-		    {
-		        setReplacedBy(replacement);
-		    }
-		    else
-		    {
-		        setReplacedBy(null);
-		    }
-		    setObsoleteComment(MiriamUtilities.StringConvert(rs, "obsolete_comment"));
-		}
-		else
-		{
-		    setReplacedBy(null);
-		    setObsoleteComment(null);
-		}
-		
-		// searches the resources (physical locations)
-		sql = "SELECT mr.resource_id, mr.url_element_prefix, mr.url_element_suffix, mr.url_resource, mr.info, mr.institution, mr.location, mr.example, mr.obsolete, mr.official, mr.convertPrefix FROM mir_datatype mdt, mir_resource mr WHERE ((mr.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = '" + index + "'))";
-		rs = pool.request(pool.getStatement(), sql);
-		try
-		{
-			boolean notEmpty = rs.next();
-			while (notEmpty)
-			{
-				Resource temp = new Resource();
-				temp.setId(rs.getString("resource_id"));
-				temp.setUrl_prefix(rs.getString("url_element_prefix"));
-				temp.setUrl_suffix(rs.getString("url_element_suffix"));
-				temp.setUrl_root(rs.getString("url_resource"));
-				temp.setInfo(rs.getString("info"));
-				temp.setInstitution(rs.getString("institution"));
-				temp.setLocation(rs.getString("location"));
-				temp.setExample(rs.getString("example"));
-                temp.setConvert_prefix(rs.getString("convertPrefix"));
-				if (rs.getInt("obsolete") == 0)
-				{
-					temp.setObsolete(false);
-				}
-				else
-				{
-					temp.setObsolete(true);
-				}
-				if (rs.getInt("official") == 0)
-				{
-					temp.setPrimary(false);
-				}
-				else
-				{
-					temp.setPrimary(true);
-				}
-
-				// retrieves the percentage of reliability of the current resource
-				String sql2 = "SELECT * FROM mir_url_check WHERE (resource_id = '" + rs.getString("resource_id") + "')";
-                ResultSet rs2 = pool.request(pool.getStatement(), sql2);
-                if (DbPoolConnect.getRowCount(rs2) == 1)
-                {
-                    int uptime = rs2.getInt("uptime");
-                    int downtime = rs2.getInt("downtime");
-                    //int unknown = rs2.getInt("unknown");
-                    int totalDays = uptime + downtime;
-                    if (totalDays > 0)
-                    {
-                        temp.setReliability(uptime * 100 / totalDays);   // 'unknown' not part of the uptime percent computation
-                    }
-                    else
-                    {
-                        temp.setReliability(0);
-                    }
-                }
-                else
-                {
-                    logger.error("Something went wrong while retrieving health information about the resource: " + rs.getString("resource_id"));
-                    temp.setReliability(0);
-                }
-                rs2.close();
-				
-				// add the resource to the data collection
-				addResource(temp);
-				// next resource (if it exists)
-				notEmpty = rs.next();
-			}
-		}				
-		catch (SQLException e)
-		{
-	    	logger.error("Error while searching the resources!");
-	    	logger.error("SQL Exception raised: " + e.getMessage());
+			pool.closeConnection();
 		}
-
-        //retrieves all mimeTypes
-        sql = "SELECT * FROM mir_mimetype";
-        rs = pool.request(pool.getStatement(), sql);
-        try
-        {
-            while (rs.next())
-            {
-                int id = rs.getInt("id");
-                MimeType mimeType = new MimeType(id,rs.getString("mimetype"),rs.getString("displaytext"));
-                addMimeType(mimeType);
-            }
-        }
-        catch (SQLException e)
-        {
-            logger.error("Error during the retrieving mime types");
-            logger.error("SQL Exception raised: " + e.getMessage());
-        }
-
-        //retrieves all formats for resources
-        for(Resource resource : getResources()){
-            String id = resource.getId();
-            sql = "SELECT * FROM mir_res_formats WHERE ptr_resource = '" +id+"'";
-            rs = pool.request(pool.getStatement(), sql);
-            try
-            {
-                while (rs.next())
-                {
-                    Format format = new Format(rs.getInt("id"),rs.getString("url_prefix"),rs.getString("url_suffix"),getMimeType(rs.getInt("ptr_mimetype")), rs.getInt("deprecated"));
-                    resource.addFormat(format);
-                }
-            }
-            catch (SQLException e)
-            {
-                logger.error("Error during the retrieving mime types");
-                logger.error("SQL Exception raised: " + e.getMessage());
-            }
-        }
-
-
-        retrieveOwnersForResources();
-		// search documentation information (URLs) linked to the data collection
-		sql = "SELECT md.uri FROM mir_datatype mdt, mir_doc md WHERE ((md.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = '" + index + "') AND (md.ptr_type = 'data') AND (md.uri_type = 'URL'))";
-		rs = pool.request(pool.getStatement(), sql);
-		ArrayList<String> docs_url = null;
-		docs_url = (ArrayList<String>) MiriamUtilities.ArrayConvert(rs, true);
-		setDocumentationURLs(docs_url);
+		setId(index);
 		
-		// search documentation information (MIRIAM URIs) linked to the data collection
-		sql = "SELECT md.uri, md.uri_type FROM mir_datatype mdt, mir_doc md WHERE ((md.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = '" + index + "') AND (md.ptr_type = 'data') AND (md.uri_type != 'URL'))";
-		rs = pool.request(pool.getStatement(), sql);
-		try
-        {
-            boolean notEmpty = rs.next();
-            while (notEmpty)
-            {
-                addDocumentationID(rs.getString("md.uri"));
-                addDocumentationIDType(rs.getString("md.uri_type"));
-                
-                notEmpty = rs.next();
-            }
-        }
-        catch (SQLException e)
-        {
-            logger.error("Error during the transformation URIs to URLs (for display)!");
-            logger.error("SQL Exception raised: " + e.getMessage());
-        }
-		
-		// modifies the MIRIAM URIs into URLS using the Registry itself (isn't it a beautiful recursive process?) and stores them into 'docHtmlURLs'
-		ArrayList<String> temp = new ArrayList<String>(docs_url);   // by default, the URLs are already ready to be put in this list
-		for (int i=0; i<getDocumentationIDs().size(); ++i)
-		{
-			String uri = (String) getDocumentationID(i);
-			// retrieves the physical location(s) corresponding to this URI
-			String uriElement = MiriamUtilities.getElementPart(uri);
-		    // transforms the URI into a URL
-		    String[] result = transDocumentationURLs(pool, docResources.get(getDocumentationIDType(i)), uriElement);   // depends on the type: PMID, DOI, ...
-		    
-		    // checks the answer
-		    if ((result == null) || (result.length == 0))
-		    {
-		    	logger.warn("A Miriam URI (" + uri + ") corresponding to a piece of documentation has no physical location");
-		    }
-		    else
-		    {
-			    for (int j=0; j<result.length; ++j)
-			    {
-			    	temp.add(MiriamUtilities.transURL(result[j], '&', "&amp;"));
-		    	}
-		    }
-		}
-		setDocHtmlURLs(temp);
-
-		// searches for the date of creation
-		sql = "SELECT date_creation FROM mir_datatype WHERE datatype_id = '" + index + "'";
-		rs = pool.request(pool.getStatement(), sql);
-		String dateCreationStr = MiriamUtilities.StringConvert(rs);
-		Date dateCreation = new Date();
-		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-		try
-		{
-		  dateCreation = format.parse(dateCreationStr);
-		}
-		catch (Exception e)
-		{
-			logger.error("Date conversion error (" + dateCreationStr + ")" + e);
-			dateCreation = new Date(0);   // 1st January 1970
-		}
-		setDateCreation(dateCreation);
-		
-		// search for the date of last modification
-		sql = "SELECT date_modif FROM mir_datatype WHERE datatype_id = '" + index + "'";
-		rs = pool.request(pool.getStatement(), sql);
-		String dateModifStr = MiriamUtilities.StringConvert(rs);
-		Date dateModif = new Date();
-		SimpleDateFormat format2 = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-		try
-		{
-			dateModif = format2.parse(dateModifStr);
-		}
-		catch (Exception e)
-		{
-			logger.error("Date conversion error (" + dateModifStr + ")" + e);
-			dateModif = new Date(0);   // 1st January 1970
-		}
-		setDateModification(dateModif);
-		
-		// retrieves the list of tags
-		sql = "SELECT t.id, t.tag, t.info FROM mir_tag_link l, mir_tag t WHERE ((l.ptr_datatype = '" + index + "') AND (l.ptr_tag = t.id))";
-		rs = pool.request(pool.getStatement(), sql);
-		try
-        {
-            boolean notEmpty = rs.next();
-            while (notEmpty)
-            {
-            	Tag tmp = new Tag();
-            	tmp.setId(rs.getString("id"));
-            	tmp.setName(rs.getString("tag"));
-            	tmp.setInfo(rs.getString("info"));
-            	
-            	addTag(tmp);
-                notEmpty = rs.next();
-            }
-        }
-        catch (SQLException e)
-        {
-            logger.error("Error during the retrieval of the tag(s)!");
-            logger.error("SQL Exception raised: " + e.getMessage());
-        }
-		
-		// without closing the statement, let's see...
-		pool.closeConnection();
+		// all the information (URIs, resources, documentation, tags, ...) is retrieved with a few set-based queries
+		new DataCollectionLoader(poolName).load(this);
 	}
 
     public void retrieveOwnersForResources() {
@@ -1386,7 +1019,7 @@ public class DataTypeHibernate extends DataCollection
 			// synonym(s): removes all the previous one(s), if necessary
 			sql = "SELECT * FROM mir_synonym WHERE (ptr_datatype='" + getId() + "')";
 			rs = pool.request(pool.getStatement(), sql);
-			if (DbPoolConnect.getRowCount(rs) > 0)
+			if (DbPoolConnect.hasRow(rs))
 			{
 				sql = "DELETE FROM mir_synonym WHERE (ptr_datatype='" + getId() + "')";
 				resultStatus = pool.requestUpdate(pool.getStatement(), sql);
@@ -1868,7 +1501,7 @@ public class DataTypeHibernate extends DataCollection
             // documentation IDs and URLs: removes all the previous one(s), if necessary (means if any stored)
 			sql = "SELECT * FROM mir_doc WHERE (ptr_datatype='" + getId() + "')";
 			rs = pool.request(pool.getStatement(), sql);
-			if (DbPoolConnect.getRowCount(rs) > 0)
+			if (DbPoolConnect.hasRow(rs))
 			{
 				sql = "DELETE FROM mir_doc WHERE (ptr_datatype='" + getId() + "')";
 				resultStatus = pool.requestUpdate(pool.getStatement(), sql);
@@ -1959,6 +1592,7 @@ public class DataTypeHibernate extends DataCollection
 		
 		// without closing the statement, let's see...
 		pool.closeConnection();
+		ChangeLog.record(poolName, ChangeLog.COLLECTION, getId());
 		
 		logger.debug("... end of the update of a data type (GLOBAL RESULT: " + resultGlobal + ")");
 		
@@ -2068,6 +1702,7 @@ public class DataTypeHibernate extends DataCollection
         }
 
         pool.closeConnection();
+        ChangeLog.record(poolName, ChangeLog.COLLECTION, getId());
 
         logger.debug("... end of the update of a data type (GLOBAL RESULT: " + resultGlobal + ")");
 
@@ -2093,22 +1728,22 @@ public class DataTypeHibernate extends DataCollection
 		if (type == DATATYPE)
 		{
 			id = "MIR:000";
-			sql = "SELECT datatype_id FROM mir_datatype";
+			sql = "SELECT COUNT(*) FROM mir_datatype";
 		}
 		if (type == RESOURCE)
 		{
 			id = "MIR:001";
-			sql = "SELECT resource_id FROM mir_resource";
+			sql = "SELECT COUNT(*) FROM mir_resource";
 		}
 		if (type == CURA_DATATYPE)
 		{
 		    id = "MIR:009";
-		    sql = "SELECT datatype_id FROM cura_datatype";
+		    sql = "SELECT COUNT(*) FROM cura_datatype";
 		}
 		
 		
 		rs = pool.request(pool.getStatement(), sql);
-		size = MiriamUtilities.getRowCount(rs);
+		size = MiriamUtilities.intConvert(rs);
 		size += 1;
 		
 		if (size < 10)
@@ -2191,17 +1826,14 @@ public class DataTypeHibernate extends DataCollection
 		ResultSet sqlResult;
 		String[] result = null;
 		
-		String query = "SELECT url_element_prefix, url_element_suffix FROM mir_resource WHERE (ptr_datatype = '"+ uriDataType + "')";
-		sqlResult = pool.request(pool.getStatement(), query);
+		sqlResult = pool.request(SqlQuery.DATATYPE_RESOURCE_URL_PARTS, uriDataType);
 		
-		int nbRows = MiriamUtilities.getRowCount(sqlResult);
-		result = new String[nbRows];
+		List<String> urls = new ArrayList<String>();
 		try
 		{
-			for (int i=1; i<=nbRows; ++i)
+			while ((null != sqlResult) && (sqlResult.next()))
 			{
-				result[i-1] = sqlResult.getString("url_element_prefix") + uriElement + sqlResult.getString("url_element_suffix"); 
-				sqlResult.next();
+				urls.add(sqlResult.getString("url_element_prefix") + uriElement + sqlResult.getString("url_element_suffix"));
 			}
 		}
 	    catch (SQLException e)
@@ -2212,6 +1844,7 @@ public class DataTypeHibernate extends DataCollection
 		
 	    //pool.closeConnection();
 	    
+	    result = urls.toArray(new String[urls.size()]);
 		return result;
 	}
     
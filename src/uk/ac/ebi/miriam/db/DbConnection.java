@@ -32,7 +32,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.EnumMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import org.apache.log4j.Logger;
 
 
@@ -64,14 +67,17 @@ import org.apache.log4j.Logger;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20090529
+ * @version 20261017
  */
 abstract class DbConnection
 {
   private static Logger logger = Logger.getLogger(DbConnection.class);   // should not be static
   private Connection connection = null;
+  private boolean shared = false;   // connection owned by a unit of work (must not be closed here)
   private LinkedList<Statement> statements = new LinkedList<Statement>();
   private LinkedList<PreparedStatement> preparedStatements = new LinkedList<PreparedStatement>();
+  private Map<SqlQuery, PreparedStatement> namedStatements = new EnumMap<SqlQuery, PreparedStatement>(SqlQuery.class);   // reused for each execution of a named query
+  private Map<SqlQuery, ResultSet> namedResults = new EnumMap<SqlQuery, ResultSet>(SqlQuery.class);   // last result returned by each of these statements
   
   
   /**
@@ -85,8 +91,20 @@ abstract class DbConnection
    * Setter: update the connection
    */
   protected void setConnection(Connection conn)
+  {
+    setConnection(conn, false);
+  }
+
+
+  /**
+   * Setter: update the connection
+   * @param conn connection
+   * @param shared true if the connection is owned by someone else (a <code>UnitOfWork</code>) and must not be closed here
+   */
+  protected void setConnection(Connection conn, boolean shared)
   {
     this.connection = conn;
+    this.shared = shared;
   }
 
 
@@ -123,16 +141,29 @@ abstract class DbConnection
             closePreparedStatements();
         }
 
-    // now we close the connection
+        // we close the statements of the named queries, if needed
+        if (! this.namedStatements.isEmpty())
+        {
+            closeNamedStatements();
+        }
+
+    // now we close the connection (unless it is shared by a unit of work, which will close it)
     try
     {
-      this.connection.close();
+      if ((null != this.connection) && (! this.shared))
+      {
+        this.connection.close();
+      }
     }
     catch (SQLException e)
     {
       logger.warn("An exception occured during the closing of the connection!");
       logger.warn("SQL Exception raised: " + e.getMessage());
     }
+    finally
+    {
+      this.connection = null;
+    }
   }
 
 
@@ -148,7 +179,7 @@ abstract class DbConnection
     {
       try
       {
-        stmt = connection.createStatement();
+        stmt = QueryMonitor.monitor(connection.createStatement());
         //logger.debug("successful creation of a new statement");
       }
       catch (SQLException e)
@@ -222,7 +253,7 @@ abstract class DbConnection
         {
             try
             {
-                stmt = connection.prepareStatement(sql);
+                stmt = QueryMonitor.monitor(connection.prepareStatement(sql), sql);
                 //logger.debug("successful creation of a new prepared statement");
             }
             catch (SQLException e)
@@ -288,6 +319,28 @@ abstract class DbConnection
     }
 
 
+    /**
+     * Closes the <code>PreparedStatements</code> of the named queries
+     */
+    private void closeNamedStatements()
+    {
+        for (PreparedStatement stmt: this.namedStatements.values())
+        {
+            try
+            {
+                stmt.close();
+            }
+            catch (SQLException e)
+            {
+                logger.warn("An exception occured during the closing of a prepared statement!");
+                logger.warn("SQL Exception raised: " + e.getMessage());
+            }
+        }
+        this.namedStatements.clear();
+        this.namedResults.clear();
+    }
+
+
   /**
    * Closes all the useless open things (connection, statements, prepared statements, the door behind you, ...)
    */
@@ -309,7 +362,10 @@ abstract class DbConnection
   {
     try
     {
-      logger.debug("SQL query: " + query);
+      if (logger.isDebugEnabled())
+      {
+        logger.debug("SQL query: " + query);
+      }
       return stmt.executeQuery(query);
     }
     catch (SQLException e)
@@ -332,7 +388,10 @@ abstract class DbConnection
   {
     try
     {
-      logger.debug("SQL update query: " + query);
+      if (logger.isDebugEnabled())
+      {
+        logger.debug("SQL update query: " + query);
+      }
       return stmt.executeUpdate(query);
     }
     catch (SQLException e)
@@ -345,29 +404,129 @@ abstract class DbConnection
   }
 
 
+    /**
+     * Performs a named query from the catalogue (<code>SqlQuery</code>).
+     * The <code>PreparedStatement</code> of each named query is created once per connection and reused afterwards, as long as
+     * the <code>ResultSet</code> it previously returned has been closed: if it is still open (the same query is executed while
+     * its previous result is read), a new statement is prepared, so the previous result stays valid.
+     * @param query named query
+     * @param params values of the parameters, in order
+     * @return ResultSet result of the query (null if an error occurred)
+     */
+    public ResultSet request(SqlQuery query, Object... params)
+    {
+        try
+        {
+            PreparedStatement stmt = this.namedStatements.get(query);
+            ResultSet previous = this.namedResults.get(query);
+            boolean named = true;
+            if (null == stmt)
+            {
+                stmt = query.prepare(getConnection(), params);
+                this.namedStatements.put(query, stmt);
+            }
+            else if ((null != previous) && (! previous.isClosed()))
+            {
+                stmt = query.prepare(getConnection(), params);   // re-executing the named statement would close the previous result
+                this.preparedStatements.add(stmt);   // closed with the connection
+                named = false;
+            }
+            else
+            {
+                Rows.bind(stmt, params);
+                query.executed();
+            }
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("SQL query: " + query.name());
+            }
+            ResultSet rs = stmt.executeQuery();
+            if (named)
+            {
+                this.namedResults.put(query, rs);
+            }
+            return rs;
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error during the execution of a query!");
+            logger.error("Query: " + query.name());
+            logger.error("SQL Exception raised: " + e.getMessage());
+            return null;
+        }
+    }
+
+
   /**
-   * Counts the number of rows in a ResultSet (like 'getColumnCount()', via 'getMetaData()', for the columns)
-   * @param ResultSet object already created
-   * @return int number of rows in the ResultSet object
+   * Moves the cursor of a (forward-only) <code>ResultSet</code> to its first row, if there is any.
+   * The <code>ResultSet</code> must not have been read before.
+   *
+   * @param data result of a SQL query
+   * @return true if the result contains at least one row (the cursor is then on this row)
    */
-  public static int getRowCount(ResultSet data)
+  public static boolean hasRow(ResultSet data)
   {
-    int result = -1;
+    boolean result = false;
 
     try
     {
-      data.last();
-      result = data.getRow();
-      data.first();
+      result = (null != data) && data.next();
     }
     catch (SQLException e)
     {
-      logger.error("An exception occurred while counting the number of rows in a ResultSet!");
+      logger.error("An exception occurred while reading the first row of a ResultSet!");
       logger.error("SQLException raised: " + e.getMessage());
     }
 
     return result;
   }
+
+
+    /**
+     * Executes a (forward-only, read-only) query and converts all the rows returned into a list of objects.
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return list of objects (never null)
+     * @throws SQLException
+     */
+    public <T> List<T> queryForList(String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        return Rows.list(getConnection(), sql, mapper, params);
+    }
+    
+    
+    /**
+     * Executes a (forward-only, read-only) query and converts the first row returned into an object.
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return the object built from the first row, or null if no row is returned
+     * @throws SQLException
+     */
+    public <T> T queryForObject(String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        return Rows.first(getConnection(), sql, mapper, params);
+    }
+    
+    
+    /**
+     * Executes a query and processes all the rows returned by a handler (for large results, like exports).
+     * The rows are only streamed if the connection is not shared with a <code>UnitOfWork</code>: otherwise they are read first,
+     * so the other users of the connection (possibly called by the handler) can still execute queries.
+     * While the rows are streamed, no other query can be executed on the same connection.
+     * @param sql SQL query, including place holders '?'
+     * @param handler processing of a row
+     * @param params values of the parameters, in order
+     * @return number of rows processed
+     * @throws SQLException
+     */
+    public int queryForEach(String sql, RowHandler handler, Object... params) throws SQLException
+    {
+        Connection connection = getConnection();
+        
+        return Rows.forEach(connection, (! this.shared), sql, handler, params);
+    }
     
     
     /**
@@ -29,10 +29,6 @@ package uk.ac.ebi.miriam.db;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import javax.naming.Context;
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
-import javax.sql.DataSource;
 import org.apache.log4j.Logger;
 
 
@@ -70,6 +66,7 @@ public class DbPoolConnect extends DbConnection
 {
     private Logger logger = Logger.getLogger(DbPoolConnect.class);
     private String poolName = new String();
+    private boolean readOnly = false;   // only used for read-only queries (can use the read replica of the pool)
     
     
     /**
@@ -81,72 +78,35 @@ public class DbPoolConnect extends DbConnection
     }
     
     
+    /**
+     * Constructor
+     * @param poolName name of the database pool
+     * @param readOnly true if the connection is only used for read-only queries, which can then be sent to the read replica of the pool
+     */
+    public DbPoolConnect(String poolName, boolean readOnly)
+    {
+        this.poolName = poolName;
+        this.readOnly = readOnly;
+    }
+    
+    
     /**
      * Recover a connection from the pool
      */
     public void newConnection()
     {
-        Context initContext = null;
-        Context envContext = null;
-        DataSource dataSource = null;
         Connection connection = null;
+        ConnectionContext context = this.readOnly ? UnitOfWork.getReadContext(this.poolName) : UnitOfWork.getContext(this.poolName);
         
         try
         {
-            // initalisation of the connection
-            try
+            if (null != context)
             {
-                initContext = new InitialContext();
-            }
-            catch (NamingException e)
-            {
-                logger.error("Connection to the database pool: failure, no initial context!");
-                logger.error("NamingException: " + e.getMessage());
-            }
-            
-            if (null == initContext)
-            {
-                logger.error("Connection to the database pool: failed to retrieve the initial context.");
+                connection = context.getConnection();   // shared with all the DAOs of the unit of work
             }
             else
             {
-                try
-                {
-                    envContext = (Context) initContext.lookup("java:/comp/env");
-                }
-                catch (NamingException e)
-                {
-                    logger.error("Connection to the database pool: failure, no environment context!");
-                    logger.error("NamingException: " + e.getMessage());
-                }
-                
-                if (null == envContext)
-                {
-                    logger.error("Connection to the database pool: failed to retrieve the environment context.");
-                }
-                else
-                {
-                    try
-                    {
-                        // look up a DataSource, which represents a connection pool
-                        dataSource = (DataSource) envContext.lookup("jdbc/" + this.poolName+ DbServer.getDbServerText());
-                    }
-                    catch (NamingException e)
-                    {
-                        logger.error("Connection to the database pool: failure, no data source!");
-                        logger.error("NamingException: " + e.getMessage());
-                    }
-                    
-                    if (null == dataSource)
-                    {
-                        logger.error("Connection to the database pool: failed to retrieve the data source.");
-                    }
-                }
-            }
-            
-            synchronized (dataSource)
-            {
-                connection = dataSource.getConnection();
+                connection = this.readOnly ? DbPoolRegistry.getReadConnection(this.poolName) : DbPoolRegistry.getConnection(this.poolName);
             }
             
             if (null == connection)
@@ -155,11 +115,8 @@ public class DbPoolConnect extends DbConnection
             }
             else
             {
-                setConnection(connection);
+                setConnection(connection, (null != context));
             }
-            
-            //setConnection(DriverManager.getConnection("jdbc:apache:commons:dbcp:" + poolName));
-            //logger.debug("Successful recovery of a connection from the pool");
         }
         catch (SQLException e)
         {
@@ -0,0 +1,363 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs.
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Process-wide registry of the database pools (<code>DataSource</code>) provided by the container.
+ *
+ * <p>Each pool is looked up only once in JNDI (ideally at start up, cf. <code>DbPoolListener</code>), afterwards the
+ * <code>DataSource</code> is directly handed out, without any naming lookup or lock. The pool itself (DBCP) is thread safe.
+ *
+ * <p>A pool can have a read replica (cf. <code>registerReplica()</code>): the read-only queries then use connections
+ * from the replica (cf. <code>getReadConnection()</code>), unless it is unavailable or lagging too much behind the
+ * primary, in which case they fall back to the primary for a while.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class DbPoolRegistry
+{
+    private static Logger logger = Logger.getLogger(DbPoolRegistry.class);
+    private static final String ENV_CONTEXT = "java:/comp/env";
+    private static final long RETRY_DELAY = 60000;   // in milliseconds, before using again a replica which failed
+    private static final long LAG_CHECK_INTERVAL = 10000;   // in milliseconds
+    private static final ConcurrentMap<String, DataSource> dataSources = new ConcurrentHashMap<String, DataSource>();
+    private static final ConcurrentMap<String, Replica> replicas = new ConcurrentHashMap<String, Replica>();
+    private static volatile int maxReplicaLag = 30;   // in seconds
+
+
+    /**
+     * Default constructor: no instance needed.
+     */
+    private DbPoolRegistry()
+    {
+        // nothing here
+    }
+
+
+    /**
+     * Resolves and registers the given database pools (usually called once, at start up).
+     * @param poolNames names of the pools (for example: 'miriam' or 'auth')
+     * @return true if all the pools are available
+     */
+    public static boolean init(String... poolNames)
+    {
+        boolean success = true;
+
+        for (String poolName: poolNames)
+        {
+            if (null == getDataSource(poolName))
+            {
+                success = false;
+            }
+        }
+
+        return success;
+    }
+
+
+    /**
+     * Retrieves the <code>DataSource</code> of a database pool.
+     * The JNDI lookup is only performed the first time a given pool is requested.
+     * @param poolName name of the pool (for example: 'miriam' or 'auth')
+     * @return the data source or null if it is not available
+     */
+    public static DataSource getDataSource(String poolName)
+    {
+        DataSource dataSource = dataSources.get(poolName);
+
+        if (null == dataSource)
+        {
+            dataSource = lookup(poolName);
+            if (null != dataSource)
+            {
+                DataSource previous = dataSources.putIfAbsent(poolName, dataSource);
+                if (null != previous)
+                {
+                    dataSource = previous;
+                }
+            }
+        }
+
+        return dataSource;
+    }
+
+
+    /**
+     * Retrieves a connection from a database pool.
+     * The caller is responsible for returning it to the pool (by calling <code>close()</code>).
+     * @param poolName name of the pool (for example: 'miriam' or 'auth')
+     * @return a pooled connection
+     * @throws SQLException if the pool is not available or has no connection to give
+     */
+    public static Connection getConnection(String poolName) throws SQLException
+    {
+        DataSource dataSource = getDataSource(poolName);
+
+        if (null == dataSource)
+        {
+            throw new SQLException("No data source 'jdbc/" + poolName + DbServer.getDbServerText() + "' available!");
+        }
+
+        return dataSource.getConnection();
+    }
+
+
+    /**
+     * Registers the read replica of a database pool (usually called once, at start up).
+     * @param poolName name of the primary pool (for example: 'miriam')
+     * @param replicaPoolName name of the replica pool (for example: 'miriam_replica')
+     * @return true if the replica is available
+     */
+    public static boolean registerReplica(String poolName, String replicaPoolName)
+    {
+        if (null == getDataSource(replicaPoolName))
+        {
+            logger.warn("No read replica available for the pool '" + poolName + "': all the queries will use the primary.");
+            return false;
+        }
+        
+        replicas.put(poolName, new Replica(replicaPoolName));
+        logger.info("Read-only queries on the pool '" + poolName + "' will use the replica '" + replicaPoolName + "'.");
+        
+        return true;
+    }
+    
+    
+    /**
+     * Sets the maximum replication lag tolerated before the read-only queries fall back to the primary.
+     * @param seconds maximum lag (in seconds)
+     */
+    public static void setMaxReplicaLag(int seconds)
+    {
+        maxReplicaLag = seconds;
+    }
+    
+    
+    /**
+     * Retrieves a connection for read-only queries: from the replica of the pool if there is one and it is usable,
+     * otherwise from the pool itself.
+     * The caller is responsible for returning it to the pool (by calling <code>close()</code>).
+     * @param poolName name of the (primary) pool (for example: 'miriam')
+     * @return a pooled connection
+     * @throws SQLException if no pool is available or has a connection to give
+     */
+    public static Connection getReadConnection(String poolName) throws SQLException
+    {
+        Replica replica = replicas.get(poolName);
+        
+        if ((null != replica) && replica.isUsable())
+        {
+            Connection connection = null;
+            try
+            {
+                connection = getConnection(replica.poolName);
+                if (replica.isUpToDate(connection))
+                {
+                    return connection;
+                }
+            }
+            catch (SQLException e)
+            {
+                replica.disable("SQLException raised: " + e.getMessage());
+            }
+            
+            if (null != connection)
+            {
+                try
+                {
+                    connection.close();
+                }
+                catch (SQLException e)
+                {
+                    logger.debug("Unable to return a connection to the replica pool '" + replica.poolName + "'!");
+                }
+            }
+        }
+        
+        return getConnection(poolName);
+    }
+    
+    
+    /**
+     * Forgets all the registered pools (usually when the application is stopped).
+     */
+    public static void clear()
+    {
+        dataSources.clear();
+        replicas.clear();
+    }
+
+
+    /**
+     * Looks up the <code>DataSource</code> of a pool in the environment context of the container.
+     * @param poolName name of the pool
+     * @return the data source or null if it is not available
+     */
+    private static DataSource lookup(String poolName)
+    {
+        DataSource dataSource = null;
+        String name = "jdbc/" + poolName + DbServer.getDbServerText();
+
+        try
+        {
+            Context initContext = new InitialContext();
+            Context envContext = (Context) initContext.lookup(ENV_CONTEXT);
+            // look up a DataSource, which represents a connection pool
+            dataSource = (DataSource) envContext.lookup(name);
+        }
+        catch (NamingException e)
+        {
+            logger.error("Connection to the database pool: failure, no data source '" + name + "' available!");
+            logger.error("NamingException raised: " + e.getMessage());
+        }
+
+        if (null == dataSource)
+        {
+            logger.error("Connection to the database pool: failed to retrieve the data source '" + name + "'.");
+        }
+        else
+        {
+            logger.info("Database pool '" + name + "' registered.");
+        }
+
+        return dataSource;
+    }
+    
+    
+    /**
+     * Status of a read replica.
+     */
+    private static class Replica
+    {
+        private final String poolName;
+        private volatile long disabledUntil = 0;
+        private volatile long lagCheckedAt = 0;
+        
+        
+        Replica(String poolName)
+        {
+            this.poolName = poolName;
+        }
+        
+        
+        /**
+         * Checks if the replica can be used (not disabled after a failure or an excessive lag).
+         */
+        boolean isUsable()
+        {
+            return (System.currentTimeMillis() >= this.disabledUntil);
+        }
+        
+        
+        /**
+         * Stops using the replica for a while.
+         */
+        void disable(String reason)
+        {
+            this.disabledUntil = System.currentTimeMillis() + RETRY_DELAY;
+            logger.warn("Read replica '" + this.poolName + "' disabled for " + (RETRY_DELAY / 1000) + " s: " + reason);
+        }
+        
+        
+        /**
+         * Checks the replication lag (at most once every LAG_CHECK_INTERVAL, using the given connection).
+         * @return false if the replication is stopped or lagging too much (the replica is then disabled)
+         */
+        boolean isUpToDate(Connection connection) throws SQLException
+        {
+            long now = System.currentTimeMillis();
+            if (now - this.lagCheckedAt < LAG_CHECK_INTERVAL)
+            {
+                return true;
+            }
+            this.lagCheckedAt = now;
+            
+            Statement stmt = connection.createStatement();
+            try
+            {
+                ResultSet rs = stmt.executeQuery("SHOW SLAVE STATUS");
+                if (rs.next())
+                {
+                    long lag = rs.getLong("Seconds_Behind_Master");
+                    if (rs.wasNull())
+                    {
+                        disable("replication stopped");
+                        return false;
+                    }
+                    if (lag > maxReplicaLag)
+                    {
+                        disable("replication lag of " + lag + " s");
+                        return false;
+                    }
+                }
+                rs.close();
+            }
+            finally
+            {
+                stmt.close();
+            }
+            
+            return true;
+        }
+    }
+}
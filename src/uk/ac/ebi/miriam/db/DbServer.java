@@ -10,7 +10,14 @@ package uk.ac.ebi.miriam.db;
 public class DbServer {
 
     //TODO: Remove this once the DB is in the new infrastrcture
+    private static final String DB_SERVER_TEXT = readDbServerText();
+
+    // the environment does not change while the application is running: only read once
     public static String getDbServerText(){
+        return DB_SERVER_TEXT;
+    }
+
+    private static String readDbServerText(){
         String datacenter = System.getenv("DATACENTRE");
         //for local testing
         if(datacenter == null){
@@ -0,0 +1,704 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>Reverse classification of identifiers: which data collections could a bare identifier (for example 'P12345' or 'CHEBI:17790') belong to?
+ *
+ * <p>Each pattern is analysed once (cf. <code>Signature</code>): literal prefix, minimum and maximum lengths, and classes of characters
+ * it can accept (digits, upper case letters, lower case letters, others). An identifier is only matched against the patterns whose
+ * signature is compatible with its own, the patterns with a literal prefix being indexed by their first character:
+ * only a handful of regular expressions are run per query. The analysis is conservative: a construct it does not understand
+ * makes the pattern accept anything, so that the prefilter never hides a data collection.
+ *
+ * <p>The data collections found are ranked: current ones first, then the most specific patterns (longest literal prefix,
+ * narrowest range of lengths, fewest classes of characters), then the healthiest resources.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class IdentifierClassifier
+{
+    static final int DIGIT = 1;
+    static final int UPPER = 2;
+    static final int LOWER = 4;
+    static final int OTHER = 8;
+    static final int ANY = DIGIT | UPPER | LOWER | OTHER;
+    static final int UNBOUNDED = Integer.MAX_VALUE;
+    private final IdentifierPatterns patterns;
+    private final List<Candidate> unprefixed = new ArrayList<Candidate>();
+    private final Map<Character, List<Candidate>> prefixed = new HashMap<Character, List<Candidate>>();
+    
+    
+    /**
+     * Constructor: analyses the patterns of the data collections.
+     * @param collections data collections
+     * @param patterns compiled patterns of the data collections
+     */
+    IdentifierClassifier(List<? extends DataCollection> collections, IdentifierPatterns patterns)
+    {
+        Map<String, Signature> signatures = new HashMap<String, Signature>(collections.size());
+        
+        this.patterns = patterns;
+        for (DataCollection collection: collections)
+        {
+            String regexp = collection.getRegexp();
+            if ((null == regexp) || (regexp.length() == 0))
+            {
+                continue;
+            }
+            
+            Signature signature = signatures.get(regexp);
+            if (null == signature)
+            {
+                signature = Signature.of(regexp);
+                signatures.put(regexp, signature);
+            }
+            Candidate candidate = new Candidate(collection, signature);
+            if (signature.prefix.length() == 0)
+            {
+                this.unprefixed.add(candidate);
+            }
+            else
+            {
+                Character first = Character.valueOf(signature.prefix.charAt(0));
+                List<Candidate> list = this.prefixed.get(first);
+                if (null == list)
+                {
+                    list = new ArrayList<Candidate>();
+                    this.prefixed.put(first, list);
+                }
+                list.add(candidate);
+            }
+        }
+    }
+    
+    
+    /**
+     * Finds all the data collections whose pattern accepts an identifier.
+     * @param id bare identifier (for example: 'CHEBI:17790')
+     * @return data collections (shared objects of the snapshot: must not be modified), the most relevant first
+     */
+    List<DataCollection> classify(String id)
+    {
+        if ((null == id) || (id.length() == 0))
+        {
+            return Collections.emptyList();
+        }
+        
+        int mask = mask(id);
+        List<Candidate> found = new ArrayList<Candidate>();
+        List<Candidate> withPrefix = this.prefixed.get(Character.valueOf(id.charAt(0)));
+        if (null != withPrefix)
+        {
+            for (Candidate candidate: withPrefix)
+            {
+                if (id.startsWith(candidate.signature.prefix) && candidate.signature.accepts(id.length(), mask) && this.patterns.matches(candidate.collection, id))
+                {
+                    found.add(candidate);
+                }
+            }
+        }
+        for (Candidate candidate: this.unprefixed)
+        {
+            if (candidate.signature.accepts(id.length(), mask) && this.patterns.matches(candidate.collection, id))
+            {
+                found.add(candidate);
+            }
+        }
+        Collections.sort(found, Candidate.BY_RELEVANCE);
+        
+        List<DataCollection> collections = new ArrayList<DataCollection>(found.size());
+        for (Candidate candidate: found)
+        {
+            collections.add(candidate.collection);
+        }
+        
+        return collections;
+    }
+    
+    
+    /**
+     * Computes the classes of the characters of a String.
+     */
+    static int mask(CharSequence value)
+    {
+        int mask = 0;
+        
+        for (int i = 0; i < value.length(); ++i)
+        {
+            mask |= mask(value.charAt(i));
+        }
+        
+        return mask;
+    }
+    
+    
+    /**
+     * Computes the class of a character.
+     */
+    static int mask(char c)
+    {
+        if ((c >= '0') && (c <= '9'))
+        {
+            return DIGIT;
+        }
+        if ((c >= 'A') && (c <= 'Z'))
+        {
+            return UPPER;
+        }
+        if ((c >= 'a') && (c <= 'z'))
+        {
+            return LOWER;
+        }
+        return OTHER;
+    }
+    
+    
+    /**
+     * Data collection which can be proposed, with the signature of its pattern.
+     */
+    private static final class Candidate
+    {
+        private static final Comparator<Candidate> BY_RELEVANCE = new Comparator<Candidate>()
+        {
+            public int compare(Candidate first, Candidate second)
+            {
+                if (first.collection.isObsolete() != second.collection.isObsolete())
+                {
+                    return first.collection.isObsolete() ? 1 : -1;
+                }
+                int result = second.signature.specificity() - first.signature.specificity();
+                if (result == 0)
+                {
+                    result = second.health - first.health;
+                }
+                if (result == 0)
+                {
+                    result = String.CASE_INSENSITIVE_ORDER.compare(first.collection.getName(), second.collection.getName());
+                }
+                return result;
+            }
+        };
+        private final DataCollection collection;
+        private final Signature signature;
+        private final int health;   // best reliability of the current resources
+        
+        private Candidate(DataCollection collection, Signature signature)
+        {
+            int best = 0;
+            for (Resource resource: collection.getResources())
+            {
+                if (! Boolean.TRUE.equals(resource.isObsolete()) && (null != resource.getReliability()) && (resource.getReliability().intValue() > best))
+                {
+                    best = resource.getReliability().intValue();
+                }
+            }
+            
+            this.collection = collection;
+            this.signature = signature;
+            this.health = best;
+        }
+    }
+    
+    
+    /**
+     * What any identifier accepted by a pattern looks like: literal prefix, range of lengths and classes of characters.
+     */
+    static final class Signature
+    {
+        private static final Signature ANYTHING = new Signature("", 0, UNBOUNDED, ANY);
+        final String prefix;
+        final int minLength;
+        final int maxLength;
+        final int mask;
+        
+        Signature(String prefix, int minLength, int maxLength, int mask)
+        {
+            this.prefix = prefix;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.mask = mask;
+        }
+        
+        /**
+         * Analyses a pattern.
+         * @param regexp pattern
+         * @return signature of the pattern (accepting anything if the pattern cannot be analysed)
+         */
+        static Signature of(String regexp)
+        {
+            try
+            {
+                Parser parser = new Parser(regexp);
+                int[] shape = parser.parse();
+                int mask = shape[2];
+                if (parser.caseInsensitive && ((mask & (UPPER | LOWER)) != 0))
+                {
+                    mask |= UPPER | LOWER;
+                }
+                return new Signature(parser.caseInsensitive ? "" : prefix(regexp), shape[0], shape[1], mask);
+            }
+            catch (RuntimeException e)
+            {
+                return ANYTHING;
+            }
+        }
+        
+        /**
+         * Checks if an identifier can be accepted by the pattern.
+         * @param length length of the identifier
+         * @param mask classes of the characters of the identifier
+         */
+        boolean accepts(int length, int mask)
+        {
+            return (length >= this.minLength) && (length <= this.maxLength) && ((mask & ~this.mask) == 0);
+        }
+        
+        /**
+         * Computes the specificity of the pattern: the higher, the fewer identifiers it accepts.
+         */
+        int specificity()
+        {
+            int score = this.prefix.length() * 16;
+            if (this.maxLength != UNBOUNDED)
+            {
+                score += Math.max(0, 8 - (this.maxLength - this.minLength));
+            }
+            score += 4 - Integer.bitCount(this.mask);
+            return score;
+        }
+        
+        /**
+         * Extracts the literal prefix of a pattern (empty if the pattern has a top level alternative).
+         */
+        static String prefix(String regexp)
+        {
+            int depth = 0;
+            boolean inClass = false;
+            for (int i = 0; i < regexp.length(); ++i)
+            {
+                char c = regexp.charAt(i);
+                if (c == '\\')
+                {
+                    i++;
+                }
+                else if (inClass)
+                {
+                    inClass = (c != ']');
+                }
+                else if (c == '[')
+                {
+                    inClass = true;
+                }
+                else if (c == '(')
+                {
+                    depth++;
+                }
+                else if (c == ')')
+                {
+                    depth--;
+                }
+                else if ((c == '|') && (depth == 0))
+                {
+                    return "";
+                }
+            }
+            
+            StringBuilder prefix = new StringBuilder();
+            int i = regexp.startsWith("^") ? 1 : 0;
+            while (i < regexp.length())
+            {
+                char c = regexp.charAt(i);
+                int next;
+                if (c == '\\')
+                {
+                    if ((i + 1 >= regexp.length()) || Character.isLetterOrDigit(regexp.charAt(i + 1)))
+                    {
+                        break;   // class of characters (\d, \w, ...), back reference, ...
+                    }
+                    c = regexp.charAt(i + 1);
+                    next = i + 2;
+                }
+                else if (".[](){}?*+|^$".indexOf(c) >= 0)
+                {
+                    break;
+                }
+                else
+                {
+                    next = i + 1;
+                }
+                if ((next < regexp.length()) && ("?*{".indexOf(regexp.charAt(next)) >= 0))
+                {
+                    break;   // optional or repeated character
+                }
+                prefix.append(c);
+                i = next;
+            }
+            
+            return prefix.toString();
+        }
+    }
+    
+    
+    /**
+     * Minimal parser of regular expressions computing, for each part of a pattern: minimum length, maximum length and classes of characters.
+     * Throws an exception on any construct it does not understand.
+     */
+    private static final class Parser
+    {
+        private final String regexp;
+        private int position = 0;
+        private boolean caseInsensitive = false;
+        
+        private Parser(String regexp)
+        {
+            this.regexp = regexp;
+        }
+        
+        private int[] parse()
+        {
+            int[] shape = alternation();
+            if (this.position != this.regexp.length())
+            {
+                throw new IllegalArgumentException("Unexpected character at " + this.position);
+            }
+            return shape;
+        }
+        
+        private int[] alternation()
+        {
+            int[] shape = sequence();
+            while ((this.position < this.regexp.length()) && (this.regexp.charAt(this.position) == '|'))
+            {
+                this.position++;
+                int[] other = sequence();
+                shape = new int[] {Math.min(shape[0], other[0]), Math.max(shape[1], other[1]), shape[2] | other[2]};
+            }
+            return shape;
+        }
+        
+        private int[] sequence()
+        {
+            int[] shape = {0, 0, 0};
+            while ((this.position < this.regexp.length()) && (this.regexp.charAt(this.position) != '|') && (this.regexp.charAt(this.position) != ')'))
+            {
+                int[] atom = quantified(atom());
+                shape[0] = add(shape[0], atom[0]);
+                shape[1] = add(shape[1], atom[1]);
+                shape[2] |= atom[2];
+            }
+            return shape;
+        }
+        
+        private int[] atom()
+        {
+            char c = this.regexp.charAt(this.position++);
+            switch (c)
+            {
+                case '^':
+                case '$':
+                    return new int[] {0, 0, 0};
+                case '.':
+                    return new int[] {1, 1, ANY};
+                case '[':
+                    return new int[] {1, 1, characterClass()};
+                case '(':
+                    return group();
+                case '\\':
+                    return escape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case ')':
+                    throw new IllegalArgumentException("Unexpected '" + c + "'");
+                default:
+                    return new int[] {1, 1, mask(c)};
+            }
+        }
+        
+        private int[] group()
+        {
+            boolean lookaround = false;
+            if (this.regexp.startsWith("?", this.position))
+            {
+                if (this.regexp.startsWith("?:", this.position) || this.regexp.startsWith("?>", this.position))
+                {
+                    this.position += 2;
+                }
+                else if (this.regexp.startsWith("?=", this.position) || this.regexp.startsWith("?!", this.position))
+                {
+                    this.position += 2;
+                    lookaround = true;
+                }
+                else if (this.regexp.startsWith("?<=", this.position) || this.regexp.startsWith("?<!", this.position))
+                {
+                    this.position += 3;
+                    lookaround = true;
+                }
+                else if (this.regexp.startsWith("?<", this.position))
+                {
+                    this.position = this.regexp.indexOf('>', this.position) + 1;   // named group
+                }
+                else
+                {
+                    // inline flags: '(?i)' or '(?i:...)'
+                    int end = this.position + 1;
+                    while ((end < this.regexp.length()) && Character.isLetter(this.regexp.charAt(end)) || ((end < this.regexp.length()) && (this.regexp.charAt(end) == '-')))
+                    {
+                        end++;
+                    }
+                    String flags = this.regexp.substring(this.position + 1, end);
+                    String enabled = (flags.indexOf('-') < 0) ? flags : flags.substring(0, flags.indexOf('-'));
+                    if (enabled.indexOf('x') >= 0)
+                    {
+                        throw new IllegalArgumentException("Unsupported comments mode");   // white spaces and comments ignored: no signature
+                    }
+                    if (enabled.indexOf('i') >= 0)
+                    {
+                        this.caseInsensitive = true;
+                    }
+                    this.position = end + 1;
+                    if (this.regexp.charAt(end) == ')')
+                    {
+                        return new int[] {0, 0, 0};
+                    }
+                }
+            }
+            
+            int[] shape = alternation();
+            if ((this.position >= this.regexp.length()) || (this.regexp.charAt(this.position) != ')'))
+            {
+                throw new IllegalArgumentException("Unbalanced group");
+            }
+            this.position++;
+            
+            return lookaround ? new int[] {0, 0, 0} : shape;
+        }
+        
+        private int[] escape()
+        {
+            char c = this.regexp.charAt(this.position++);
+            switch (c)
+            {
+                case 'd':
+                    return new int[] {1, 1, DIGIT};
+                case 'w':
+                    return new int[] {1, 1, ANY};   // includes '_'
+                case 's':
+                case 't':
+                case 'n':
+                case 'r':
+                case 'f':
+                    return new int[] {1, 1, OTHER};
+                case 'b':
+                case 'B':
+                case 'A':
+                case 'z':
+                case 'Z':
+                case 'G':
+                    return new int[] {0, 0, 0};
+                default:
+                    if (Character.isLetterOrDigit(c))
+                    {
+                        throw new IllegalArgumentException("Unsupported escape '\\" + c + "'");   // \D, \p{...}, back references, ...
+                    }
+                    return new int[] {1, 1, mask(c)};
+            }
+        }
+        
+        private int characterClass()
+        {
+            int mask = 0;
+            boolean negated = this.regexp.startsWith("^", this.position);
+            if (negated)
+            {
+                this.position++;
+            }
+            boolean first = true;
+            while (true)
+            {
+                char c = this.regexp.charAt(this.position++);
+                if ((c == ']') && ! first)
+                {
+                    break;
+                }
+                first = false;
+                if (c == '[' || this.regexp.startsWith("&&", this.position - 1))
+                {
+                    throw new IllegalArgumentException("Unsupported nested class");
+                }
+                if (c == '\\')
+                {
+                    char e = this.regexp.charAt(this.position++);
+                    if (e == 'd')
+                    {
+                        mask |= DIGIT;
+                        continue;
+                    }
+                    if ((e == 'w') || Character.isLetterOrDigit(e) && (e != 's') && (e != 't') && (e != 'n') && (e != 'r'))
+                    {
+                        mask |= ANY;
+                        continue;
+                    }
+                    c = Character.isLetter(e) ? ' ' : e;
+                }
+                if ((this.regexp.charAt(this.position) == '-') && (this.regexp.charAt(this.position + 1) != ']'))
+                {
+                    char end = this.regexp.charAt(this.position + 1);
+                    this.position += 2;
+                    if (end == '\\')
+                    {
+                        end = this.regexp.charAt(this.position++);
+                    }
+                    mask |= range(c, end);
+                }
+                else
+                {
+                    mask |= mask(c);
+                }
+            }
+            
+            return negated ? ANY : mask;
+        }
+        
+        private int[] quantified(int[] atom)
+        {
+            if (this.position >= this.regexp.length())
+            {
+                return atom;
+            }
+            
+            int min;
+            int max;
+            char c = this.regexp.charAt(this.position);
+            if (c == '?')
+            {
+                min = 0;
+                max = 1;
+                this.position++;
+            }
+            else if (c == '*')
+            {
+                min = 0;
+                max = UNBOUNDED;
+                this.position++;
+            }
+            else if (c == '+')
+            {
+                min = 1;
+                max = UNBOUNDED;
+                this.position++;
+            }
+            else if (c == '{')
+            {
+                int end = this.regexp.indexOf('}', this.position);
+                String[] bounds = this.regexp.substring(this.position + 1, end).split(",", -1);
+                min = Integer.parseInt(bounds[0].trim());
+                max = (bounds.length == 1) ? min : ((bounds[1].trim().length() == 0) ? UNBOUNDED : Integer.parseInt(bounds[1].trim()));
+                this.position = end + 1;
+            }
+            else
+            {
+                return atom;
+            }
+            if ((this.position < this.regexp.length()) && ((this.regexp.charAt(this.position) == '?') || (this.regexp.charAt(this.position) == '+')))
+            {
+                this.position++;   // reluctant or possessive
+            }
+            
+            return new int[] {multiply(atom[0], min), multiply(atom[1], max), (max == 0) ? 0 : atom[2]};
+        }
+        
+        private static int range(char start, char end)
+        {
+            int mask = 0;
+            if ((start <= '9') && (end >= '0'))
+            {
+                mask |= DIGIT;
+            }
+            if ((start <= 'Z') && (end >= 'A'))
+            {
+                mask |= UPPER;
+            }
+            if ((start <= 'z') && (end >= 'a'))
+            {
+                mask |= LOWER;
+            }
+            if ((start < '0') || (end > 'z') || ((start <= '@') && (end >= ':')) || ((start <= '`') && (end >= '[')))
+            {
+                mask |= OTHER;
+            }
+            return mask;
+        }
+        
+        private static int add(int first, int second)
+        {
+            return ((first == UNBOUNDED) || (second == UNBOUNDED)) ? UNBOUNDED : (int) Math.min((long) first + second, UNBOUNDED);
+        }
+        
+        private static int multiply(int length, int times)
+        {
+            if ((length == 0) || (times == 0))
+            {
+                return 0;
+            }
+            return ((length == UNBOUNDED) || (times == UNBOUNDED)) ? UNBOUNDED : (int) Math.min((long) length * times, UNBOUNDED);
+        }
+    }
+}
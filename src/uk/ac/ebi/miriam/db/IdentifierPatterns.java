@@ -0,0 +1,424 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Compiled patterns of the identifiers of all the data collections, built with each snapshot of the Registry (cf. <code>RegistrySnapshot</code>).
+ *
+ * <p>The patterns are provided by the curators and the identifiers by anybody: each match is given a budget (number of characters read
+ * by the regular expression engine, and time), so that a pattern prone to catastrophic backtracking cannot hold a thread for long.
+ * An identifier exceeding the budget, or the stack of the engine (which recurses on repeated groups), is considered invalid.
+ * The pattern is then flagged, unless only the time was exceeded (which can be caused by a pause of the virtual machine): it is then only flagged
+ * after {@value #MAX_OVERRUNS} such matches in a row.
+ * The identifiers are also limited in length, before any match.
+ * The patterns are also audited in the background, each time a new snapshot is installed (cf. <code>SnapshotManager</code>),
+ * against inputs designed to trigger backtracking (with no time limit, as it does not hold any request): the ones whose cost grows
+ * faster than the length of the input are logged and listed on the debug page.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class IdentifierPatterns
+{
+    private static Logger logger = Logger.getLogger(IdentifierPatterns.class);
+    private static final long MAX_STEPS = 1000000;   // characters read by the engine for one match
+    private static final long MAX_TIME = 20000000L;   // in nanoseconds, for one match
+    private static final int CLOCK_INTERVAL = 256;   // steps between two checks of the time
+    private static final int MAX_OVERRUNS = 3;   // matches in a row exceeding the time budget before the pattern is flagged
+    private static final int MAX_LENGTH = 1024;   // longer identifiers are invalid, without even trying the pattern
+    private static final int PROBE_LENGTH = 256;   // the probes are also twice as long, to measure the growth of the cost
+    private static final int MAX_GROWTH = 3;   // doubling the length of an input should roughly double the cost of a match
+    private static final String[] PROBE_UNITS = {"a", "A", "0", "_", ".", ":", "-", " ", "a0", "aA", "a.", "0:"};
+    private static final String[] PROBE_ENDINGS = {"!", "\u0000", ""};
+    private static final ConcurrentMap<String, String> audited = new ConcurrentHashMap<String, String>();   // pattern -> problem ("" if none)
+    private static final ConcurrentMap<String, String> flagged = new ConcurrentHashMap<String, String>();   // pattern -> problem
+    private static final ConcurrentMap<String, AtomicInteger> overruns = new ConcurrentHashMap<String, AtomicInteger>();   // pattern -> matches in a row over the time budget
+    private final Map<String, Pattern> patterns;   // identifier of the data collection -> compiled pattern
+    
+    
+    /**
+     * Constructor: compiles the patterns (a pattern shared by several data collections is compiled once).
+     * @param collections data collections
+     */
+    IdentifierPatterns(List<? extends DataCollection> collections)
+    {
+        Map<String, Pattern> compiled = new HashMap<String, Pattern>(collections.size());
+        Map<String, Pattern> byCollection = new HashMap<String, Pattern>(collections.size() * 2);
+        
+        for (DataCollection collection: collections)
+        {
+            String regexp = collection.getRegexp();
+            if ((null == regexp) || (regexp.length() == 0))
+            {
+                continue;
+            }
+            
+            Pattern pattern = compiled.get(regexp);
+            if ((null == pattern) && ! compiled.containsKey(regexp))
+            {
+                try
+                {
+                    pattern = Pattern.compile(regexp);
+                }
+                catch (PatternSyntaxException e)
+                {
+                    logger.warn("Invalid pattern for the data collection " + collection.getId() + ": " + regexp);
+                }
+                compiled.put(regexp, pattern);
+            }
+            if (null != pattern)
+            {
+                byCollection.put(collection.getId(), pattern);
+            }
+        }
+        
+        this.patterns = byCollection;
+    }
+    
+    
+    /**
+     * Checks if an identifier follows the pattern of a data collection, within the budget.
+     * @param collection data collection
+     * @param id identifier of an entity
+     * @return true if the identifier is valid, false otherwise (including when the pattern is invalid, or the budget exceeded)
+     */
+    public boolean matches(DataCollection collection, String id)
+    {
+        Pattern pattern = (null == collection) ? null : this.patterns.get(collection.getId());
+        if ((null == pattern) || (null == id) || (id.length() > MAX_LENGTH))
+        {
+            return false;
+        }
+        
+        try
+        {
+            boolean valid = pattern.matcher(new BudgetedSequence(id, true)).matches();
+            if (! overruns.isEmpty())
+            {
+                overruns.remove(pattern.pattern());
+            }
+            return valid;
+        }
+        catch (BudgetExceededException e)
+        {
+            if (e.isTimeOnly())
+            {
+                overrun(collection, pattern, "time budget exceeded by " + MAX_OVERRUNS + " identifiers in a row (the last one of " + id.length() + " characters)");
+            }
+            else
+            {
+                flag(collection, pattern, "budget exceeded by an identifier of " + id.length() + " characters (" + e.getMessage() + ")");
+            }
+            return false;
+        }
+        catch (StackOverflowError e)
+        {
+            flag(collection, pattern, "stack overflow with an identifier of " + id.length() + " characters");
+            return false;
+        }
+    }
+    
+    
+    /**
+     * Flags a pattern which exceeded the budget with an actual identifier (logged only the first time).
+     */
+    private static void flag(DataCollection collection, Pattern pattern, String problem)
+    {
+        if (null == flagged.putIfAbsent(pattern.pattern(), problem))
+        {
+            logger.warn("Pattern of the data collection " + collection.getId() + " flagged as pathological: " + problem + ": " + pattern.pattern());
+        }
+    }
+    
+    
+    /**
+     * Records a match which exceeded the time budget: the pattern is only flagged after {@value #MAX_OVERRUNS} such matches in a row.
+     */
+    private static void overrun(DataCollection collection, Pattern pattern, String problem)
+    {
+        AtomicInteger count = overruns.get(pattern.pattern());
+        if (null == count)
+        {
+            AtomicInteger created = new AtomicInteger();
+            count = overruns.putIfAbsent(pattern.pattern(), created);
+            if (null == count)
+            {
+                count = created;
+            }
+        }
+        
+        if (count.incrementAndGet() >= MAX_OVERRUNS)
+        {
+            overruns.remove(pattern.pattern());
+            flag(collection, pattern, problem);
+        }
+        else
+        {
+            logger.info("Time budget exceeded with the pattern of the data collection " + collection.getId() + ": " + pattern.pattern());
+        }
+    }
+    
+    
+    /**
+     * Audits the patterns of the data collections of a snapshot which have not been audited yet (expected to be called in the background).
+     * @param snapshot snapshot of the Registry
+     */
+    static void audit(RegistrySnapshot snapshot)
+    {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        
+        for (DataCollection collection: snapshot.collections())
+        {
+            String regexp = collection.getRegexp();
+            if ((null == regexp) || (regexp.length() == 0) || audited.containsKey(regexp))
+            {
+                continue;
+            }
+            
+            String problem = audit(regexp);
+            audited.put(regexp, (null == problem) ? "" : problem);
+            count++;
+            if (null != problem)
+            {
+                flagged.put(regexp, problem);
+                logger.warn("Pattern of the data collection " + collection.getId() + " flagged as pathological: " + problem + ": " + regexp);
+            }
+        }
+        
+        if (count > 0)
+        {
+            logger.info(count + " identifier pattern(s) audited in " + (System.currentTimeMillis() - start) + " ms.");
+        }
+    }
+    
+    
+    /**
+     * Audits a pattern: it is matched against inputs designed to trigger catastrophic backtracking
+     * (repetitions of common characters, followed by a character which makes the match fail), of two different lengths.
+     * @param regexp pattern
+     * @return description of the problem, or null if the pattern is fine
+     */
+    public static String audit(String regexp)
+    {
+        Pattern pattern;
+        try
+        {
+            pattern = Pattern.compile(regexp);
+        }
+        catch (PatternSyntaxException e)
+        {
+            return "invalid pattern (" + e.getDescription() + ")";
+        }
+        
+        for (String unit: PROBE_UNITS)
+        {
+            StringBuilder probe = new StringBuilder(PROBE_LENGTH * 2 + 1);
+            while (probe.length() < PROBE_LENGTH)
+            {
+                probe.append(unit);
+            }
+            String shortProbe = probe.toString();
+            String longProbe = probe.append(shortProbe).toString();
+            for (String ending: PROBE_ENDINGS)
+            {
+                BudgetedSequence shortInput = new BudgetedSequence(shortProbe + ending, false);
+                BudgetedSequence longInput = new BudgetedSequence(longProbe + ending, false);
+                try
+                {
+                    pattern.matcher(shortInput).matches();
+                    pattern.matcher(longInput).matches();
+                }
+                catch (BudgetExceededException e)
+                {
+                    return "budget exceeded by " + describe(unit, ending) + " (" + e.getMessage() + ")";
+                }
+                catch (StackOverflowError e)
+                {
+                    return "stack overflow with " + describe(unit, ending);
+                }
+                if (longInput.steps > (MAX_GROWTH * shortInput.steps + PROBE_LENGTH))
+                {
+                    return "super-linear cost with " + describe(unit, ending) + " (" + shortInput.steps + " steps for " + shortProbe.length()
+                        + " characters, " + longInput.steps + " steps for " + longProbe.length() + ")";
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    
+    /**
+     * Describes a probe used by the audit.
+     */
+    private static String describe(String unit, String ending)
+    {
+        return "repetitions of '" + unit + "'" + ((ending.length() == 0) ? "" : " followed by '" + ending.replace("\u0000", "\\0") + "'");
+    }
+    
+    
+    /**
+     * Returns the patterns flagged as pathological so far (by the audit or by an actual identifier).
+     * @return problem of each pattern, ordered by pattern
+     */
+    public static Map<String, String> getFlagged()
+    {
+        return Collections.unmodifiableMap(new TreeMap<String, String>(flagged));
+    }
+    
+    
+    /**
+     * Returns a summary of the patterns flagged as pathological.
+     * @return summary (one line per pattern)
+     */
+    public static String getFlaggedSummary()
+    {
+        StringBuilder summary = new StringBuilder();
+        
+        for (Map.Entry<String, String> entry: getFlagged().entrySet())
+        {
+            summary.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+        }
+        
+        return summary.toString();
+    }
+    
+    
+    /**
+     * Input of the regular expression engine which counts the characters read, and gives up when the budget is exceeded.
+     */
+    private static final class BudgetedSequence implements CharSequence
+    {
+        private final String value;
+        private final long deadline;   // Long.MAX_VALUE if the time is not limited
+        private long steps = 0;
+        
+        private BudgetedSequence(String value, boolean timed)
+        {
+            this.value = value;
+            this.deadline = timed ? System.nanoTime() + MAX_TIME : Long.MAX_VALUE;
+        }
+        
+        public char charAt(int index)
+        {
+            if ((++this.steps % CLOCK_INTERVAL) == 0)
+            {
+                if (this.steps > MAX_STEPS)
+                {
+                    throw new BudgetExceededException(this.steps + " steps", false);
+                }
+                if ((Long.MAX_VALUE != this.deadline) && (System.nanoTime() > this.deadline))
+                {
+                    throw new BudgetExceededException((MAX_TIME / 1000000L) + " ms", true);
+                }
+            }
+            return this.value.charAt(index);
+        }
+        
+        public int length()
+        {
+            return this.value.length();
+        }
+        
+        public CharSequence subSequence(int start, int end)
+        {
+            return this.value.subSequence(start, end);
+        }
+        
+        @Override
+        public String toString()
+        {
+            return this.value;
+        }
+    }
+    
+    
+    /**
+     * Raised when a match exceeds its budget (no stack trace: this is not an error of the application).
+     */
+    private static final class BudgetExceededException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+        private final boolean timeOnly;
+        
+        private BudgetExceededException(String message, boolean timeOnly)
+        {
+            super(message);
+            this.timeOnly = timeOnly;
+        }
+        
+        /**
+         * Checks if only the time was exceeded (not the number of steps).
+         */
+        private boolean isTimeOnly()
+        {
+            return this.timeOnly;
+        }
+        
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Forward-only cursor over the rows of a query sorted by some key columns, for merge joins:
+ * several cursors sorted by the same key are read in parallel, each one being advanced to the key of the current parent row
+ * (cf. {@link #seek(String...)}), so that each table is only read once, whatever the number of parent rows.
+ *
+ * <p>The rows are streamed by the MySQL driver (flat memory usage). As a connection cannot stream more than one result at a time,
+ * each cursor uses its own read connection (cf. <code>DbPoolRegistry.getReadConnection()</code>), returned to the pool by {@link #close()}.
+ *
+ * <p>The keys are compared with <code>String.compareTo()</code>: the key columns must sort the same way in the database
+ * (identifiers with a fixed format, like 'MIR:00000001').
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class MergeCursor implements Closeable
+{
+    private static Logger logger = Logger.getLogger(MergeCursor.class);
+    private final Connection connection;
+    private final PreparedStatement stmt;
+    private final ResultSet rs;
+    private final String[] keyColumns;
+    private String[] key = null;   // key of the current row
+    private boolean started = false;
+    private boolean exhausted = false;
+    
+    
+    /**
+     * Constructor.
+     */
+    private MergeCursor(Connection connection, PreparedStatement stmt, ResultSet rs, String[] keyColumns)
+    {
+        this.connection = connection;
+        this.stmt = stmt;
+        this.rs = rs;
+        this.keyColumns = keyColumns;
+    }
+    
+    
+    /**
+     * Executes a named query (which must be sorted by the key columns) and opens a cursor on its rows.
+     * @param poolName name of the database pool
+     * @param query named query
+     * @param keyColumns labels of the columns making the key, in the order of the sort (can be empty: plain streaming)
+     * @param params values of the parameters, in order
+     * @return cursor positioned before the first row
+     * @throws SQLException
+     */
+    public static MergeCursor open(String poolName, SqlQuery query, String[] keyColumns, Object... params) throws SQLException
+    {
+        Connection connection = DbPoolRegistry.getReadConnection(poolName);
+        PreparedStatement stmt = null;
+        try
+        {
+            stmt = query.prepare(connection, params);
+            stmt.setFetchSize(Integer.MIN_VALUE);   // MySQL: streams the rows one by one
+            
+            return new MergeCursor(connection, stmt, stmt.executeQuery(), keyColumns);
+        }
+        catch (SQLException e)
+        {
+            if (null != stmt)
+            {
+                stmt.close();
+            }
+            connection.close();
+            throw e;
+        }
+    }
+    
+    
+    /**
+     * Skips all the rows with a key lower than the one given.
+     * @param target key to reach (one value per key column)
+     * @return true if the cursor is positioned on a row with this key
+     * @throws SQLException
+     */
+    public boolean seek(String... target) throws SQLException
+    {
+        if (! this.started)
+        {
+            advance();
+        }
+        while ((! this.exhausted) && (compare(target) < 0))
+        {
+            advance();
+        }
+        
+        return (! this.exhausted) && (compare(target) == 0);
+    }
+    
+    
+    /**
+     * Moves to the next row.
+     * @param target key expected (one value per key column)
+     * @return true if there is a next row and it has this key
+     * @throws SQLException
+     */
+    public boolean next(String... target) throws SQLException
+    {
+        if (! this.exhausted)
+        {
+            advance();
+        }
+        
+        return (! this.exhausted) && (compare(target) == 0);
+    }
+    
+    
+    /**
+     * Retrieves the current row.
+     * @return result set, positioned on the current row (must not be moved by the caller)
+     */
+    public ResultSet getRow()
+    {
+        return this.rs;
+    }
+    
+    
+    /**
+     * Closes the query and returns the connection to the pool.
+     */
+    public void close()
+    {
+        try
+        {
+            this.stmt.close();   // also closes the ResultSet (and drains the rows not read yet)
+        }
+        catch (SQLException e)
+        {
+            logger.debug("Unable to close a SQL PreparedStatement!");
+            logger.debug("SQLException raised: " + e.getMessage());
+        }
+        try
+        {
+            this.connection.close();
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Unable to close a previously opened database connection!");
+            logger.warn("SQLException raised: " + e.getMessage());
+        }
+    }
+    
+    
+    /**
+     * Moves to the next row and reads its key.
+     */
+    private void advance() throws SQLException
+    {
+        this.started = true;
+        if (! this.rs.next())
+        {
+            this.exhausted = true;
+            this.key = null;
+            return;
+        }
+        
+        if (null == this.key)
+        {
+            this.key = new String[this.keyColumns.length];
+        }
+        for (int i = 0; i < this.keyColumns.length; ++i)
+        {
+            String value = this.rs.getString(this.keyColumns[i]);
+            this.key[i] = (null == value) ? "" : value;
+        }
+    }
+    
+    
+    /**
+     * Compares the key of the current row with another one.
+     */
+    private int compare(String[] target)
+    {
+        for (int i = 0; i < this.key.length; ++i)
+        {
+            int result = this.key[i].compareTo(target[i]);
+            if (result != 0)
+            {
+                return result;
+            }
+        }
+        
+        return 0;
+    }
+}
@@ -9,8 +9,8 @@ package uk.ac.ebi.miriam.db;
  */
 public class MimeType {
     private int id;
-    private String mimetype = new String();
-    private String displayText = new String();
+    private String mimetype = "";
+    private String displayText = "";
 
     public MimeType(int id, String mimetype, String displayText) {
         this.id = id;
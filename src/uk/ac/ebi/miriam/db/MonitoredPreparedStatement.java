@@ -0,0 +1,454 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+
+/**
+ * <p>Prepared statement which times its executions (cf. <code>QueryMonitor</code>), under the template it has been prepared
+ * with: all the other calls (including the setting of the parameters) are passed as such to the underlying statement.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+final class MonitoredPreparedStatement extends MonitoredStatement implements PreparedStatement
+{
+    private final PreparedStatement target;
+    private final String template;
+    
+    
+    /**
+     * Constructor.
+     * @param target prepared statement monitored
+     * @param template query template
+     */
+    MonitoredPreparedStatement(PreparedStatement target, String template)
+    {
+        super(target);
+        this.target = target;
+        this.template = template;
+    }
+    
+    
+    /**
+     * Records an execution of the prepared query.
+     */
+    private QueryStatistics executed(long start)
+    {
+        return QueryMonitor.record(this.template, System.nanoTime() - start);
+    }
+    
+    
+    public ResultSet executeQuery() throws SQLException
+    {
+        long start = System.nanoTime();
+        ResultSet result = this.target.executeQuery();
+        executed(start);
+        return result;
+    }
+    
+    
+    public int executeUpdate() throws SQLException
+    {
+        long start = System.nanoTime();
+        int rows = this.target.executeUpdate();
+        return updated(executed(start), rows);
+    }
+    
+    
+    public boolean execute() throws SQLException
+    {
+        long start = System.nanoTime();
+        boolean result = this.target.execute();
+        executed(start);
+        return result;
+    }
+    
+    
+    @Override
+    public int[] executeBatch() throws SQLException
+    {
+        long start = System.nanoTime();
+        int[] rows = this.target.executeBatch();
+        return updated(executed(start), rows);
+    }
+    
+    
+    public void addBatch() throws SQLException
+    {
+        this.target.addBatch();
+    }
+    
+    
+    public void clearParameters() throws SQLException
+    {
+        this.target.clearParameters();
+    }
+    
+    
+    public ResultSetMetaData getMetaData() throws SQLException
+    {
+        return this.target.getMetaData();
+    }
+    
+    
+    public ParameterMetaData getParameterMetaData() throws SQLException
+    {
+        return this.target.getParameterMetaData();
+    }
+    
+    
+    public void setNull(int parameterIndex, int sqlType) throws SQLException
+    {
+        this.target.setNull(parameterIndex, sqlType);
+    }
+    
+    
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException
+    {
+        this.target.setNull(parameterIndex, sqlType, typeName);
+    }
+    
+    
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException
+    {
+        this.target.setBoolean(parameterIndex, x);
+    }
+    
+    
+    public void setByte(int parameterIndex, byte x) throws SQLException
+    {
+        this.target.setByte(parameterIndex, x);
+    }
+    
+    
+    public void setShort(int parameterIndex, short x) throws SQLException
+    {
+        this.target.setShort(parameterIndex, x);
+    }
+    
+    
+    public void setInt(int parameterIndex, int x) throws SQLException
+    {
+        this.target.setInt(parameterIndex, x);
+    }
+    
+    
+    public void setLong(int parameterIndex, long x) throws SQLException
+    {
+        this.target.setLong(parameterIndex, x);
+    }
+    
+    
+    public void setFloat(int parameterIndex, float x) throws SQLException
+    {
+        this.target.setFloat(parameterIndex, x);
+    }
+    
+    
+    public void setDouble(int parameterIndex, double x) throws SQLException
+    {
+        this.target.setDouble(parameterIndex, x);
+    }
+    
+    
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException
+    {
+        this.target.setBigDecimal(parameterIndex, x);
+    }
+    
+    
+    public void setString(int parameterIndex, String x) throws SQLException
+    {
+        this.target.setString(parameterIndex, x);
+    }
+    
+    
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException
+    {
+        this.target.setBytes(parameterIndex, x);
+    }
+    
+    
+    public void setDate(int parameterIndex, Date x) throws SQLException
+    {
+        this.target.setDate(parameterIndex, x);
+    }
+    
+    
+    public void setTime(int parameterIndex, Time x) throws SQLException
+    {
+        this.target.setTime(parameterIndex, x);
+    }
+    
+    
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException
+    {
+        this.target.setTimestamp(parameterIndex, x);
+    }
+    
+    
+    public void setRef(int parameterIndex, Ref x) throws SQLException
+    {
+        this.target.setRef(parameterIndex, x);
+    }
+    
+    
+    public void setBlob(int parameterIndex, Blob x) throws SQLException
+    {
+        this.target.setBlob(parameterIndex, x);
+    }
+    
+    
+    public void setClob(int parameterIndex, Clob x) throws SQLException
+    {
+        this.target.setClob(parameterIndex, x);
+    }
+    
+    
+    public void setArray(int parameterIndex, Array x) throws SQLException
+    {
+        this.target.setArray(parameterIndex, x);
+    }
+    
+    
+    public void setURL(int parameterIndex, URL x) throws SQLException
+    {
+        this.target.setURL(parameterIndex, x);
+    }
+    
+    
+    public void setRowId(int parameterIndex, RowId x) throws SQLException
+    {
+        this.target.setRowId(parameterIndex, x);
+    }
+    
+    
+    public void setNClob(int parameterIndex, NClob x) throws SQLException
+    {
+        this.target.setNClob(parameterIndex, x);
+    }
+    
+    
+    public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException
+    {
+        this.target.setSQLXML(parameterIndex, x);
+    }
+    
+    
+    public void setNString(int parameterIndex, String value) throws SQLException
+    {
+        this.target.setNString(parameterIndex, value);
+    }
+    
+    
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException
+    {
+        this.target.setDate(parameterIndex, x, cal);
+    }
+    
+    
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException
+    {
+        this.target.setTime(parameterIndex, x, cal);
+    }
+    
+    
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException
+    {
+        this.target.setTimestamp(parameterIndex, x, cal);
+    }
+    
+    
+    public void setObject(int parameterIndex, Object x) throws SQLException
+    {
+        this.target.setObject(parameterIndex, x);
+    }
+    
+    
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException
+    {
+        this.target.setObject(parameterIndex, x, targetSqlType);
+    }
+    
+    
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException
+    {
+        this.target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+    
+    
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException
+    {
+        this.target.setAsciiStream(parameterIndex, x);
+    }
+    
+    
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        this.target.setAsciiStream(parameterIndex, x, length);
+    }
+    
+    
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException
+    {
+        this.target.setAsciiStream(parameterIndex, x, length);
+    }
+    
+    
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException
+    {
+        this.target.setBinaryStream(parameterIndex, x);
+    }
+    
+    
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        this.target.setBinaryStream(parameterIndex, x, length);
+    }
+    
+    
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException
+    {
+        this.target.setBinaryStream(parameterIndex, x, length);
+    }
+    
+    
+    @SuppressWarnings("deprecation")
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        this.target.setUnicodeStream(parameterIndex, x, length);
+    }
+    
+    
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException
+    {
+        this.target.setCharacterStream(parameterIndex, reader);
+    }
+    
+    
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        this.target.setCharacterStream(parameterIndex, reader, length);
+    }
+    
+    
+    public void setNCharacterStream(int parameterIndex, Reader reader) throws SQLException
+    {
+        this.target.setNCharacterStream(parameterIndex, reader);
+    }
+    
+    
+    public void setNCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        this.target.setNCharacterStream(parameterIndex, reader, length);
+    }
+    
+    
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException
+    {
+        this.target.setCharacterStream(parameterIndex, reader, length);
+    }
+    
+    
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException
+    {
+        this.target.setBlob(parameterIndex, inputStream);
+    }
+    
+    
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException
+    {
+        this.target.setBlob(parameterIndex, inputStream, length);
+    }
+    
+    
+    public void setClob(int parameterIndex, Reader reader) throws SQLException
+    {
+        this.target.setClob(parameterIndex, reader);
+    }
+    
+    
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        this.target.setClob(parameterIndex, reader, length);
+    }
+    
+    
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException
+    {
+        this.target.setNClob(parameterIndex, reader);
+    }
+    
+    
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        this.target.setNClob(parameterIndex, reader, length);
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+
+/**
+ * <p>Statement which times its executions (cf. <code>QueryMonitor</code>): all the other calls are passed as such to the
+ * underlying statement, and the result sets are not wrapped.
+ *
+ * <p>The SQL of a plain statement is only known at execution time: its template is computed for a sample of the
+ * executions only (cf. {@link QueryMonitor#recordSql(String, long)}).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+class MonitoredStatement implements Statement
+{
+    private final Statement target;
+    
+    
+    /**
+     * Constructor.
+     * @param target statement monitored
+     */
+    MonitoredStatement(Statement target)
+    {
+        this.target = target;
+    }
+    
+    
+    /**
+     * Records an execution of a plain statement.
+     * @param sql SQL executed
+     * @param start beginning of the execution (cf. <code>System.nanoTime()</code>)
+     * @return statistics of the query
+     */
+    QueryStatistics executed(String sql, long start)
+    {
+        return QueryMonitor.recordSql(sql, System.nanoTime() - start);
+    }
+    
+    
+    /**
+     * Records the number of rows modified by an update.
+     */
+    static int updated(QueryStatistics stats, int rows)
+    {
+        stats.addRows(Math.max(0, rows));
+        return rows;
+    }
+    
+    
+    /**
+     * Records the number of rows modified by a batch.
+     */
+    static int[] updated(QueryStatistics stats, int[] rows)
+    {
+        for (int number: rows)
+        {
+            stats.addRows(Math.max(0, number));
+        }
+        return rows;
+    }
+    
+    
+    public ResultSet executeQuery(String sql) throws SQLException
+    {
+        long start = System.nanoTime();
+        ResultSet result = this.target.executeQuery(sql);
+        executed(sql, start);
+        return result;
+    }
+    
+    
+    public int executeUpdate(String sql) throws SQLException
+    {
+        long start = System.nanoTime();
+        int rows = this.target.executeUpdate(sql);
+        return updated(executed(sql, start), rows);
+    }
+    
+    
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+    {
+        long start = System.nanoTime();
+        int rows = this.target.executeUpdate(sql, autoGeneratedKeys);
+        return updated(executed(sql, start), rows);
+    }
+    
+    
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException
+    {
+        long start = System.nanoTime();
+        int rows = this.target.executeUpdate(sql, columnIndexes);
+        return updated(executed(sql, start), rows);
+    }
+    
+    
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException
+    {
+        long start = System.nanoTime();
+        int rows = this.target.executeUpdate(sql, columnNames);
+        return updated(executed(sql, start), rows);
+    }
+    
+    
+    public boolean execute(String sql) throws SQLException
+    {
+        long start = System.nanoTime();
+        boolean result = this.target.execute(sql);
+        executed(sql, start);
+        return result;
+    }
+    
+    
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException
+    {
+        long start = System.nanoTime();
+        boolean result = this.target.execute(sql, autoGeneratedKeys);
+        executed(sql, start);
+        return result;
+    }
+    
+    
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException
+    {
+        long start = System.nanoTime();
+        boolean result = this.target.execute(sql, columnIndexes);
+        executed(sql, start);
+        return result;
+    }
+    
+    
+    public boolean execute(String sql, String[] columnNames) throws SQLException
+    {
+        long start = System.nanoTime();
+        boolean result = this.target.execute(sql, columnNames);
+        executed(sql, start);
+        return result;
+    }
+    
+    
+    public int[] executeBatch() throws SQLException
+    {
+        long start = System.nanoTime();
+        int[] rows = this.target.executeBatch();
+        return updated(QueryMonitor.record(QueryMonitor.BATCHES, System.nanoTime() - start), rows);
+    }
+    
+    
+    public void addBatch(String sql) throws SQLException
+    {
+        this.target.addBatch(sql);
+    }
+    
+    
+    public void clearBatch() throws SQLException
+    {
+        this.target.clearBatch();
+    }
+    
+    
+    public void close() throws SQLException
+    {
+        this.target.close();
+    }
+    
+    
+    public boolean isClosed() throws SQLException
+    {
+        return this.target.isClosed();
+    }
+    
+    
+    public void cancel() throws SQLException
+    {
+        this.target.cancel();
+    }
+    
+    
+    public Connection getConnection() throws SQLException
+    {
+        return this.target.getConnection();
+    }
+    
+    
+    public ResultSet getResultSet() throws SQLException
+    {
+        return this.target.getResultSet();
+    }
+    
+    
+    public int getUpdateCount() throws SQLException
+    {
+        return this.target.getUpdateCount();
+    }
+    
+    
+    public boolean getMoreResults() throws SQLException
+    {
+        return this.target.getMoreResults();
+    }
+    
+    
+    public boolean getMoreResults(int current) throws SQLException
+    {
+        return this.target.getMoreResults(current);
+    }
+    
+    
+    public ResultSet getGeneratedKeys() throws SQLException
+    {
+        return this.target.getGeneratedKeys();
+    }
+    
+    
+    public int getMaxFieldSize() throws SQLException
+    {
+        return this.target.getMaxFieldSize();
+    }
+    
+    
+    public void setMaxFieldSize(int max) throws SQLException
+    {
+        this.target.setMaxFieldSize(max);
+    }
+    
+    
+    public int getMaxRows() throws SQLException
+    {
+        return this.target.getMaxRows();
+    }
+    
+    
+    public void setMaxRows(int max) throws SQLException
+    {
+        this.target.setMaxRows(max);
+    }
+    
+    
+    public void setEscapeProcessing(boolean enable) throws SQLException
+    {
+        this.target.setEscapeProcessing(enable);
+    }
+    
+    
+    public int getQueryTimeout() throws SQLException
+    {
+        return this.target.getQueryTimeout();
+    }
+    
+    
+    public void setQueryTimeout(int seconds) throws SQLException
+    {
+        this.target.setQueryTimeout(seconds);
+    }
+    
+    
+    public SQLWarning getWarnings() throws SQLException
+    {
+        return this.target.getWarnings();
+    }
+    
+    
+    public void clearWarnings() throws SQLException
+    {
+        this.target.clearWarnings();
+    }
+    
+    
+    public void setCursorName(String name) throws SQLException
+    {
+        this.target.setCursorName(name);
+    }
+    
+    
+    public void setFetchDirection(int direction) throws SQLException
+    {
+        this.target.setFetchDirection(direction);
+    }
+    
+    
+    public int getFetchDirection() throws SQLException
+    {
+        return this.target.getFetchDirection();
+    }
+    
+    
+    public void setFetchSize(int rows) throws SQLException
+    {
+        this.target.setFetchSize(rows);
+    }
+    
+    
+    public int getFetchSize() throws SQLException
+    {
+        return this.target.getFetchSize();
+    }
+    
+    
+    public int getResultSetConcurrency() throws SQLException
+    {
+        return this.target.getResultSetConcurrency();
+    }
+    
+    
+    public int getResultSetType() throws SQLException
+    {
+        return this.target.getResultSetType();
+    }
+    
+    
+    public int getResultSetHoldability() throws SQLException
+    {
+        return this.target.getResultSetHoldability();
+    }
+    
+    
+    public void setPoolable(boolean poolable) throws SQLException
+    {
+        this.target.setPoolable(poolable);
+    }
+    
+    
+    public boolean isPoolable() throws SQLException
+    {
+        return this.target.isPoolable();
+    }
+    
+    
+    public void closeOnCompletion() throws SQLException
+    {
+        this.target.closeOnCompletion();
+    }
+    
+    
+    public boolean isCloseOnCompletion() throws SQLException
+    {
+        return this.target.isCloseOnCompletion();
+    }
+    
+    
+    public <T> T unwrap(Class<T> iface) throws SQLException
+    {
+        return iface.isInstance(this) ? iface.cast(this) : this.target.unwrap(iface);
+    }
+    
+    
+    public boolean isWrapperFor(Class<?> iface) throws SQLException
+    {
+        return iface.isInstance(this) || this.target.isWrapperFor(iface);
+    }
+}
@@ -100,17 +100,13 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, profile);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-            
-            if (nbRows > 0)
+            if (rs.next())
             {
-                if (nbRows == 1)
-                {
-                    exist = true;
-                }
-                else   // more than one profile with the given shortname (this should never happen)
+                exist = true;
+                if (rs.next())   // more than one profile with the given shortname (this should never happen)
                 {
                     logger.error("More than one profile with the shortname '" + profile + "'!");
+                    exist = false;
                 }
             }
         }
@@ -144,17 +140,13 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setInt(1, profileId);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-            
-            if (nbRows > 0)
+            if (rs.next())
             {
-                if (nbRows == 1)
-                {
-                    exist = true;
-                }
-                else   // more than one profile with the given identifier (this should never happen)
+                exist = true;
+                if (rs.next())   // more than one profile with the given identifier (this should never happen)
                 {
                     logger.error("More than one profile with the identifier '" + profileId + "'!");
+                    exist = false;
                 }
             }
         }
@@ -190,22 +182,17 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, profile);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-            
-            if (nbRows > 0)
+            if (rs.next())
             {
-                // only one record (profile) found
-                if (nbRows == 1)
+                // the provided encoded key is the same as in the database 
+                if (key.equals(rs.getString("key")))
                 {
-                    // the provided encoded key is the same as in the database 
-                    if (key.equals(rs.getString("key")))
-                    {
-                        access = true;
-                    }
+                    access = true;
                 }
-                else   // more than one profile with the given shortname (this should never happen)
+                if (rs.next())   // more than one profile with the given shortname (this should never happen)
                 {
                     logger.error("More than one profile with the same shortname and key (" + profile + ")!");
+                    access = false;
                 }
             }
         }
@@ -649,7 +636,7 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, startBy);
             ResultSet rs = stmt.executeQuery();
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 SimpleDataType temp = new SimpleDataType();
@@ -684,13 +671,12 @@ public class MyMiriamDao extends Dao
     public List<MyMiriamResource> getResourcesAssociatedToDatatype(String datatypeId)
     {
         List<MyMiriamResource> resources = new ArrayList<MyMiriamResource>();
-        String sql = "SELECT * FROM mir_resource WHERE (ptr_datatype = '" + datatypeId + "')";
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         
         try
         {
-            stmt = openStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+            stmt = openReadOnlyPreparedStatement(SqlQuery.DATATYPE_RESOURCES_ALL_FIELDS, datatypeId);
+            ResultSet rs = stmt.executeQuery();
             boolean notEmpty = rs.next();
             while (notEmpty)
             {
@@ -721,7 +707,7 @@ public class MyMiriamDao extends Dao
         }
         finally
         {
-            closeStatement(stmt);
+            closePreparedStatement(stmt);
         }
         
         return resources;
@@ -744,32 +730,28 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setInt(1, profileId);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-            
-            if (nbRows > 0)
+            if (rs.next())
             {
-                if (nbRows == 1)
+                profile = new Profile();
+                profile.setId(rs.getInt("id"));
+                profile.setName(rs.getString("name"));
+                profile.setShortName(rs.getString("shortname"));
+                profile.setDesc(rs.getString("description"));
+                if (rs.getInt("public") == 0)
                 {
-                    profile = new Profile();
-                    profile.setId(rs.getInt("id"));
-                    profile.setName(rs.getString("name"));
-                    profile.setShortName(rs.getString("shortname"));
-                    profile.setDesc(rs.getString("description"));
-                    if (rs.getInt("public") == 0)
-                    {
-                        profile.setOpenAccess(false);
-                    }
-                    else
-                    {
-                        profile.setOpenAccess(true);
-                    }
-                    profile.setKey(rs.getString("key"));
-                    profile.setContactEmail(rs.getString("contact_email"));
-                    profile.setDateCreation(rs.getTimestamp("date_created"));
+                    profile.setOpenAccess(false);
+                }
+                else
+                {
+                    profile.setOpenAccess(true);
                 }
-                else   // more than one profile with the given identifier (this should never happen)
+                profile.setKey(rs.getString("key"));
+                profile.setContactEmail(rs.getString("contact_email"));
+                profile.setDateCreation(rs.getTimestamp("date_created"));
+                if (rs.next())   // more than one profile with the given identifier (this should never happen)
                 {
                     logger.error("More than one profile with the identifier '" + profileId + "'!");
+                    profile = null;
                 }
             }
         }
@@ -802,32 +784,28 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, profileName);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-
-            if (nbRows > 0)
+            if (rs.next())
             {
-                if (nbRows == 1)
+                profile = new Profile();
+                profile.setId(rs.getInt("id"));
+                profile.setName(rs.getString("name"));
+                profile.setShortName(rs.getString("shortname"));
+                profile.setDesc(rs.getString("description"));
+                if (rs.getInt("public") == 0)
                 {
-                    profile = new Profile();
-                    profile.setId(rs.getInt("id"));
-                    profile.setName(rs.getString("name"));
-                    profile.setShortName(rs.getString("shortname"));
-                    profile.setDesc(rs.getString("description"));
-                    if (rs.getInt("public") == 0)
-                    {
-                        profile.setOpenAccess(false);
-                    }
-                    else
-                    {
-                        profile.setOpenAccess(true);
-                    }
-                    profile.setKey(rs.getString("key"));
-                    profile.setContactEmail(rs.getString("contact_email"));
-                    profile.setDateCreation(rs.getTimestamp("date_created"));
+                    profile.setOpenAccess(false);
+                }
+                else
+                {
+                    profile.setOpenAccess(true);
                 }
-                else   // more than one profile with the given identifier (this should never happen)
+                profile.setKey(rs.getString("key"));
+                profile.setContactEmail(rs.getString("contact_email"));
+                profile.setDateCreation(rs.getTimestamp("date_created"));
+                if (rs.next())   // more than one profile with the given identifier (this should never happen)
                 {
                     logger.error("More than one profile with the name '" + profileName + "'!");
+                    profile = null;
                 }
             }
         }
@@ -861,23 +839,19 @@ public class MyMiriamDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setInt(1, profileId);
             ResultSet rs = stmt.executeQuery();
-            int nbRows = DbConnection.getRowCount(rs);
-            
-            if (nbRows > 0)
+            if (rs.next())
             {
-                if (nbRows == 1)
+                String dbKey = rs.getString("key");
+                
+                StrongPasswordEncryptor keyEncryptor = new StrongPasswordEncryptor();
+                if (keyEncryptor.checkPassword(key, dbKey))   // key are equal
                 {
-                    String dbKey = rs.getString("key");
-                    
-                    StrongPasswordEncryptor keyEncryptor = new StrongPasswordEncryptor();
-                    if (keyEncryptor.checkPassword(key, dbKey))   // key are equal
-                    {
-                        valid = true;
-                    }
+                    valid = true;
                 }
-                else   // more than one profile with the given identifier (this should never happen)
+                if (rs.next())   // more than one profile with the given identifier (this should never happen)
                 {
                     logger.error("More than one profile with the identifier '" + profileId + "'!");
+                    valid = false;
                 }
             }
         }
@@ -5,6 +5,11 @@ import org.apache.log4j.Logger;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by IntelliJ IDEA.
@@ -32,21 +37,18 @@ public class OwnershipDao extends Dao {
             stmt.setString(2, resource);
             rs = stmt.executeQuery();
 
-            int nbLines = DbPoolConnect.getRowCount(rs);
-            if (nbLines == 1){
+            if (rs.next()){
                 status = rs.getInt("status");
-            }
-            else
-            {
-                if (nbLines > 1)
+                if (rs.next())
                 {
                     logger.warn("The ownership of resource '" + resource + "' owned by '"+user+"' is recorded several times in the database!");
-                }
-                else
-                {
-                    logger.warn("The resource '"+ resource+ "' is not owned by the user '" + user + "'");
+                    status = -1;
                 }
             }
+            else
+            {
+                logger.warn("The resource '"+ resource+ "' is not owned by the user '" + user + "'");
+            }
         }
         catch (SQLException e)
         {
@@ -97,5 +99,54 @@ public class OwnershipDao extends Dao {
         return state;
     }
 
+    /**
+     * Retrieves the owners (validated ownerships) of a set of resources, in one query.
+     * @param resourceIds identifiers of the resources (null for all the resources)
+     * @return owners of each resource, per resource identifier (the resources without owner are not included)
+     */
+    public Map<String, List<User>> retrieveOwners(Collection<String> resourceIds)
+    {
+        final Map<String, List<User>> owners = new HashMap<String, List<User>>();
+        StringBuilder sql = new StringBuilder("SELECT o.ptr_resource, u.login, u.firstname, u.lastname FROM auth_user u, user_ownership o WHERE ((u.login = o.ptr_user) AND (o.status = 1))");
+        Object[] params = new Object[0];
+
+        if (null != resourceIds)
+        {
+            if (resourceIds.isEmpty())
+            {
+                return owners;
+            }
+            sql.append(" AND ").append(Rows.in("o.ptr_resource", resourceIds.size()));
+            params = resourceIds.toArray();
+        }
+
+        try
+        {
+            queryForEach(sql.toString(), new RowHandler()
+            {
+                public void processRow(ResultSet rs) throws SQLException
+                {
+                    String resource = rs.getString("ptr_resource");
+                    List<User> users = owners.get(resource);
+                    if (null == users)
+                    {
+                        users = new ArrayList<User>(2);
+                        owners.put(resource, users);
+                    }
+                    User user = new User();
+                    user.setLogin(rs.getString("login"));
+                    user.setFirstName(rs.getString("firstname"));
+                    user.setLastName(rs.getString("lastname"));
+                    users.add(user);
+                }
+            }, params);
+        }
+        catch (SQLException e)
+        {
+            logger.error("Error during the retrieval of the owners of the resources!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+        }
 
+        return owners;
+    }
 }
@@ -237,7 +237,7 @@ public class QualifiersDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 existing = true;
             }
@@ -274,7 +274,7 @@ public class QualifiersDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())            
+            if (rs.next())            
             {
                 result = rs.getInt("t.id");
             }
@@ -0,0 +1,343 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Times every statement executed by the data access layer and attributes it to its query template. The DAO method which
+ * issued a query is only looked for (from the call stack) for a sample of the executions, for the slow queries and when the
+ * debug level is enabled. At most {@value #MAX_TEMPLATES} templates are tracked: the executions of any other query are gathered
+ * under a single entry.
+ *
+ * <p>The statements handed out by <code>Dao</code> and <code>DbConnection</code> are wrapped (cf. <code>monitor()</code>):
+ * each call to one of the <code>execute*()</code> methods is timed and the rows modified by the updates are counted
+ * (the result sets are not wrapped: the rows read are not counted). The template of a prepared statement is computed once,
+ * when it is prepared; the one of a plain statement, whose SQL is only known at execution time, is only computed for a sample
+ * of the executions (the other ones are gathered under a single entry).
+ * The queries slower than a configurable threshold are logged (logger <code>uk.ac.ebi.miriam.db.SlowQueries</code>).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class QueryMonitor
+{
+    private static Logger logger = Logger.getLogger(QueryMonitor.class);
+    private static Logger slowLogger = Logger.getLogger("uk.ac.ebi.miriam.db.SlowQueries");
+    private static final long DEFAULT_SLOW_THRESHOLD = 1000;   // in milliseconds
+    private static final int MAX_TEMPLATE_LENGTH = 300;
+    private static final Pattern QUOTED_VALUE = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_VALUE = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final int MAX_TEMPLATES = 1000;   // number of query templates tracked (approximate bound)
+    private static final String OTHER_QUERIES = "(other queries)";   // entry gathering the queries beyond this bound
+    private static final String PLAIN_QUERIES = "(plain statements, not sampled)";   // entry gathering the plain statements whose template is not computed
+    static final String BATCHES = "(batches of plain statements)";
+    private static final int SAMPLING_INTERVAL = 64;   // the caller of one execution out of ... is retrieved (stack trace)
+    private static final ConcurrentMap<String, QueryStatistics> statistics = new ConcurrentHashMap<String, QueryStatistics>();
+    private static final AtomicLong executions = new AtomicLong();
+    private static volatile long slowThreshold = DEFAULT_SLOW_THRESHOLD * 1000000L;   // in nanoseconds
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private QueryMonitor()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Sets the threshold above which a query is logged as slow.
+     * @param millis threshold (in milliseconds)
+     */
+    public static void setSlowQueryThreshold(long millis)
+    {
+        slowThreshold = millis * 1000000L;
+        logger.info("Slow query threshold set to " + millis + " ms.");
+    }
+    
+    
+    /**
+     * Returns the threshold above which a query is logged as slow.
+     * @return threshold (in milliseconds)
+     */
+    public static long getSlowQueryThreshold()
+    {
+        return slowThreshold / 1000000L;
+    }
+    
+    
+    /**
+     * Wraps a <code>Statement</code>: the template of a sample of the queries is computed from the SQL given at execution time.
+     * @param stmt statement to monitor (can be null)
+     * @return monitored statement
+     */
+    public static Statement monitor(Statement stmt)
+    {
+        if (null == stmt)
+        {
+            return null;
+        }
+        
+        RequestStatistics.statementCreated();
+        return new MonitoredStatement(stmt);
+    }
+    
+    
+    /**
+     * Wraps a <code>PreparedStatement</code>.
+     * @param stmt prepared statement to monitor (can be null)
+     * @param template query template (SQL with place holders, or name of the query in the catalogue)
+     * @return monitored prepared statement
+     */
+    public static PreparedStatement monitor(PreparedStatement stmt, String template)
+    {
+        if (null == stmt)
+        {
+            return null;
+        }
+        
+        RequestStatistics.statementCreated();
+        return new MonitoredPreparedStatement(stmt, template(template));
+    }
+    
+    
+    /**
+     * Records one execution of a query.
+     * The caller is only retrieved (which requires a stack trace) for the first execution of the query, for a sample of the
+     * following ones, for the slow executions and when the debug level is enabled.
+     * @param template query template
+     * @param nanos time spent (in nanoseconds)
+     * @return statistics of the query
+     */
+    public static QueryStatistics record(String template, long nanos)
+    {
+        return record(template, nanos, isSampled());
+    }
+    
+    
+    /**
+     * Records one execution of a plain statement.
+     * The template of the query (which requires to go through the whole SQL) is only computed when the execution is sampled,
+     * when it is slow, when the debug level is enabled or when the statements of the current request are counted:
+     * the other executions are recorded under a single entry.
+     * @param sql SQL query executed
+     * @param nanos time spent (in nanoseconds)
+     * @return statistics of the query (or of the entry gathering the plain statements)
+     */
+    static QueryStatistics recordSql(String sql, long nanos)
+    {
+        boolean sampled = isSampled();
+        boolean detailed = sampled || (nanos >= slowThreshold) || logger.isDebugEnabled() || RequestStatistics.isCounting();
+        
+        return record(detailed ? template(sql) : PLAIN_QUERIES, nanos, sampled);
+    }
+    
+    
+    /**
+     * Records one execution of a query.
+     */
+    private static QueryStatistics record(String template, long nanos, boolean sampled)
+    {
+        QueryStatistics stats = getStatistics(template);
+        stats.record(nanos);
+        RequestStatistics.executed(template, nanos);
+        
+        boolean slow = (nanos >= slowThreshold);
+        if (slow || sampled || (null == stats.getCaller()) || logger.isDebugEnabled())
+        {
+            String caller = findCaller();
+            stats.setCaller(caller);
+            if (slow)
+            {
+                slowLogger.warn("Slow query (" + (nanos / 1000000L) + " ms) from " + caller + ": " + template);
+            }
+        }
+        
+        return stats;
+    }
+    
+    
+    /**
+     * Checks if the current execution is part of the sample (one execution out of {@value #SAMPLING_INTERVAL}).
+     */
+    private static boolean isSampled()
+    {
+        return (executions.incrementAndGet() % SAMPLING_INTERVAL) == 0;
+    }
+    
+    
+    /**
+     * Returns the statistics of the queries, the most expensive ones (total time) first.
+     * @param max maximum number of queries returned
+     * @return statistics of the top queries
+     */
+    public static List<QueryStatistics> getTopQueries(int max)
+    {
+        List<QueryStatistics> top = new ArrayList<QueryStatistics>(statistics.values());
+        Collections.sort(top, new Comparator<QueryStatistics>()
+        {
+            public int compare(QueryStatistics first, QueryStatistics second)
+            {
+                return Double.compare(second.getTotalTime(), first.getTotalTime());
+            }
+        });
+        
+        return (top.size() > max) ? top.subList(0, max) : top;
+    }
+    
+    
+    /**
+     * Forgets all the statistics gathered so far.
+     */
+    public static void reset()
+    {
+        statistics.clear();
+    }
+    
+    
+    /**
+     * Computes the template of a query: the literal values are replaced by '?' and the white spaces are normalised.
+     * @param sql SQL query
+     * @return template of the query
+     */
+    public static String template(String sql)
+    {
+        if (null == sql)
+        {
+            return "?";
+        }
+        
+        String template = QUOTED_VALUE.matcher(sql).replaceAll("?");
+        template = NUMBER_VALUE.matcher(template).replaceAll("?");
+        template = SPACES.matcher(template).replaceAll(" ").trim();
+        if (template.length() > MAX_TEMPLATE_LENGTH)
+        {
+            template = template.substring(0, MAX_TEMPLATE_LENGTH) + "...";
+        }
+        
+        return template;
+    }
+    
+    
+    /**
+     * Retrieves (or creates) the statistics of a query.
+     * Once {@value #MAX_TEMPLATES} templates are tracked (the bound can be slightly exceeded by concurrent executions),
+     * the new ones are all recorded under the same entry.
+     */
+    private static QueryStatistics getStatistics(String template)
+    {
+        QueryStatistics stats = statistics.get(template);
+        
+        if (null == stats)
+        {
+            String key = (statistics.size() < MAX_TEMPLATES) ? template : OTHER_QUERIES;
+            stats = new QueryStatistics(key);
+            QueryStatistics previous = statistics.putIfAbsent(key, stats);
+            if (null != previous)
+            {
+                stats = previous;
+            }
+        }
+        
+        return stats;
+    }
+    
+    
+    /**
+     * Finds the first method of the call stack which is not part of the data access infrastructure.
+     * @return class (simple name) and method, for example: 'TagDao.retrieveTags'
+     */
+    private static String findCaller()
+    {
+        for (StackTraceElement frame: new Throwable().getStackTrace())
+        {
+            String className = frame.getClassName();
+            if (! isInfrastructure(className))
+            {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        
+        return "unknown";
+    }
+    
+    
+    /**
+     * Checks if a class belongs to the data access infrastructure (or to the JDK).
+     */
+    private static boolean isInfrastructure(String className)
+    {
+        return className.equals(QueryMonitor.class.getName())
+            || className.startsWith(QueryMonitor.class.getName() + "$")
+            || className.equals(Dao.class.getName())
+            || className.equals(ConnectionContext.class.getName())
+            || className.equals(DbConnection.class.getName())
+            || className.equals(DbPoolConnect.class.getName())
+            || className.equals(MonitoredStatement.class.getName())
+            || className.equals(MonitoredPreparedStatement.class.getName())
+            || className.equals(Rows.class.getName())
+            || className.equals(SqlQuery.class.getName())
+            || className.startsWith("java.")
+            || className.startsWith("sun.");
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.Arrays;
+
+
+/**
+ * <p>Execution statistics of one query template, with the latest caller (DAO method) found to have issued it.
+ *
+ * <p>The latencies of the most recent executions are kept in a fixed size window, from which the percentiles are computed
+ * (rolling histogram). The counters (executions, rows, total and maximum time) cover the whole life of the application.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class QueryStatistics
+{
+    private static final int WINDOW = 1024;   // number of latest executions used to compute the percentiles
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private final String template;
+    private volatile String caller = null;   // only retrieved for a sample of the executions (cf. QueryMonitor)
+    private final long[] latencies = new long[WINDOW];   // in nanoseconds
+    private int next = 0;   // next slot of the window
+    private long count = 0;
+    private long rows = 0;
+    private long totalTime = 0;   // in nanoseconds
+    private long maxTime = 0;   // in nanoseconds
+    
+    
+    /**
+     * Constructor.
+     * @param template query template (values replaced by '?', or name of the query in the catalogue)
+     */
+    public QueryStatistics(String template)
+    {
+        this.template = template;
+    }
+    
+    
+    /**
+     * Records one execution of the query.
+     * @param nanos time spent executing the query (in nanoseconds)
+     */
+    public synchronized void record(long nanos)
+    {
+        this.latencies[this.next] = nanos;
+        this.next = (this.next + 1) % WINDOW;
+        this.count++;
+        this.totalTime += nanos;
+        if (nanos > this.maxTime)
+        {
+            this.maxTime = nanos;
+        }
+    }
+    
+    
+    /**
+     * Records a number of rows modified by the query.
+     * @param number number of rows
+     */
+    public synchronized void addRows(long number)
+    {
+        this.rows += number;
+    }
+    
+    
+    /**
+     * Computes a percentile of the latencies of the latest executions.
+     * @param percentile percentile to compute (between 0 and 100)
+     * @return latency (in milliseconds)
+     */
+    public double getPercentile(double percentile)
+    {
+        long[] sorted;
+        synchronized (this)
+        {
+            sorted = Arrays.copyOf(this.latencies, (int) Math.min(this.count, WINDOW));
+        }
+        
+        if (sorted.length == 0)
+        {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / NANOS_PER_MILLI;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the query template
+     */
+    public String getTemplate()
+    {
+        return this.template;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the class and method which issued the query the last time it was sampled (null if unknown)
+     */
+    public String getCaller()
+    {
+        return this.caller;
+    }
+    
+    
+    /**
+     * Setter
+     * @param caller class and method which issued the query
+     */
+    public void setCaller(String caller)
+    {
+        this.caller = caller;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the number of executions
+     */
+    public synchronized long getCount()
+    {
+        return this.count;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the number of rows modified (the rows read are not counted)
+     */
+    public synchronized long getRows()
+    {
+        return this.rows;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the total time spent executing the query (in milliseconds)
+     */
+    public synchronized double getTotalTime()
+    {
+        return this.totalTime / NANOS_PER_MILLI;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the longest execution (in milliseconds)
+     */
+    public synchronized double getMaxTime()
+    {
+        return this.maxTime / NANOS_PER_MILLI;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the average execution time (in milliseconds)
+     */
+    public synchronized double getMeanTime()
+    {
+        return (this.count == 0) ? 0 : (this.totalTime / NANOS_PER_MILLI / this.count);
+    }
+    
+    
+    /**
+     * Getter
+     * @return the median latency of the latest executions (in milliseconds)
+     */
+    public double getP50()
+    {
+        return getPercentile(50);
+    }
+    
+    
+    /**
+     * Getter
+     * @return the 95th percentile of the latency of the latest executions (in milliseconds)
+     */
+    public double getP95()
+    {
+        return getPercentile(95);
+    }
+    
+    
+    /**
+     * Getter
+     * @return the 99th percentile of the latency of the latest executions (in milliseconds)
+     */
+    public double getP99()
+    {
+        return getPercentile(99);
+    }
+}
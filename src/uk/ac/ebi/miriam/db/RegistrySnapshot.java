@@ -0,0 +1,690 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * <p>Immutable snapshot of the whole Registry (data collections, with their URIs, synonyms, resources, health, tags, restrictions, ...).
+ *
+ * <p>The snapshot is built once (cf. <code>SnapshotManager</code>) and never modified afterwards: it can be read by any number
+ * of threads without locking. The <code>DataCollection</code> objects it holds are shared and must not be modified; all the other
+ * objects returned (<code>SimpleDataType</code>, <code>Resource</code>, <code>Tag</code>, lists, ...) are new copies.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class RegistrySnapshot
+{
+    private static final Comparator<DataCollection> BY_NAME = new Comparator<DataCollection>()
+    {
+        public int compare(DataCollection first, DataCollection second)
+        {
+            String name1 = (null == first.getName()) ? "" : first.getName();
+            String name2 = (null == second.getName()) ? "" : second.getName();
+            return String.CASE_INSENSITIVE_ORDER.compare(name1, name2);   // same order as the database collation
+        }
+    };
+    private static final Comparator<Resource> BY_HEALTH = new Comparator<Resource>()
+    {
+        public int compare(Resource first, Resource second)
+        {
+            int result = tier(first) - tier(second);
+            if (result == 0)
+            {
+                result = (Boolean.TRUE.equals(second.isPrimary()) ? 1 : 0) - (Boolean.TRUE.equals(first.isPrimary()) ? 1 : 0);
+            }
+            if (result == 0)
+            {
+                result = reliability(second) - reliability(first);
+            }
+            return result;
+        }
+    };
+    private static final Comparator<DataCollection> BY_ID = new Comparator<DataCollection>()
+    {
+        public int compare(DataCollection first, DataCollection second)
+        {
+            return first.getId().compareTo(second.getId());
+        }
+    };
+    private final Date version;   // date of the last modification of the data collections included
+    private final Date buildDate;
+    private final List<DataCollection> collections;   // ordered by identifier
+    private final List<DataCollection> collectionsByName;
+    private final Map<String, DataCollection> collectionsById;
+    private final Map<String, Resource> resources;
+    private final Map<String, List<DataCollection>> collectionsByTag;   // ordered by name
+    private final Map<String, DataCollection> collectionsByNickname;   // names and synonyms, in lower case
+    private final Map<String, DataCollection> collectionsByUri;   // official and deprecated URIs
+    private final UriTrie uriTrie;   // URIs and prefixes of the physical locations, for the resolution of any URI
+    private final IdentifierPatterns patterns;
+    private final IdentifierClassifier classifier;
+    private final Map<String, List<Resource>> rankedResources;   // current resources of each data collection, the best first
+    private final int nbObsoleteCollections;
+    private final int nbObsoleteResources;
+    
+    
+    /**
+     * Constructor.
+     * @param collections all the data collections of the Registry, ordered by identifier (must not be modified afterwards)
+     */
+    public RegistrySnapshot(List<? extends DataCollection> collections)
+    {
+        Date lastModif = new Date(0);
+        int obsoleteCollections = 0;
+        int obsoleteResources = 0;
+        Map<String, DataCollection> byId = new HashMap<String, DataCollection>(collections.size() * 2);
+        Map<String, Resource> byResource = new HashMap<String, Resource>(collections.size() * 4);
+        Map<String, List<DataCollection>> byTag = new HashMap<String, List<DataCollection>>();
+        
+        for (DataCollection collection: collections)
+        {
+            byId.put(collection.getId(), collection);
+            if (collection.isObsolete())
+            {
+                obsoleteCollections++;
+            }
+            if (collection.getDateModification().after(lastModif))
+            {
+                lastModif = collection.getDateModification();
+            }
+            for (Resource resource: collection.getResources())
+            {
+                byResource.put(resource.getId(), resource);
+                if (resource.isObsolete())
+                {
+                    obsoleteResources++;
+                }
+            }
+            if (null != collection.getTags())
+            {
+                for (Tag tag: collection.getTags())
+                {
+                    List<DataCollection> tagged = byTag.get(tag.getId());
+                    if (null == tagged)
+                    {
+                        tagged = new ArrayList<DataCollection>();
+                        byTag.put(tag.getId(), tagged);
+                    }
+                    tagged.add(collection);
+                }
+            }
+        }
+        for (List<DataCollection> tagged: byTag.values())
+        {
+            Collections.sort(tagged, BY_NAME);
+        }
+        
+        List<DataCollection> byName = new ArrayList<DataCollection>(collections);
+        Collections.sort(byName, BY_NAME);
+        
+        // the names have priority over the synonyms, and the current data collections over the obsolete ones
+        Map<String, DataCollection> byNickname = new HashMap<String, DataCollection>(collections.size() * 4);
+        Map<String, DataCollection> byUri = new HashMap<String, DataCollection>(collections.size() * 8);
+        UriTrie trie = new UriTrie();
+        for (DataCollection collection: collections)
+        {
+            if (null != collection.getName())
+            {
+                DataCollection other = byNickname.get(collection.getName().toLowerCase());
+                if ((null == other) || (other.isObsolete() && ! collection.isObsolete()))
+                {
+                    byNickname.put(collection.getName().toLowerCase(), collection);
+                }
+            }
+            putUri(byUri, collection.getURN(), collection);
+            putUri(byUri, collection.getURL(), collection);
+            trie.addUrn(collection.getURN(), collection, false);
+            trie.addUrl(collection.getURL(), collection, false);
+            for (String uri: collection.getDeprecatedURIs())
+            {
+                putUri(byUri, uri, collection);
+                if (uri.startsWith("urn:"))
+                {
+                    trie.addUrn(uri, collection, true);
+                }
+                else
+                {
+                    trie.addUrl(uri, collection, true);
+                }
+            }
+        }
+        // the URIs have priority over the prefixes of the physical locations, and the current resources over the obsolete ones
+        for (DataCollection collection: collections)
+        {
+            for (Resource resource: collection.getResources())
+            {
+                if (! resource.isObsolete())
+                {
+                    trie.addResource(resource, collection);
+                }
+            }
+        }
+        for (DataCollection collection: collections)
+        {
+            for (Resource resource: collection.getResources())
+            {
+                if (resource.isObsolete())
+                {
+                    trie.addResource(resource, collection);
+                }
+            }
+            for (String synonym: collection.getSynonyms())
+            {
+                if ((null != synonym) && ! byNickname.containsKey(synonym.toLowerCase()))
+                {
+                    byNickname.put(synonym.toLowerCase(), collection);
+                }
+            }
+        }
+        
+        this.version = lastModif;
+        this.buildDate = new Date();
+        this.collections = Collections.unmodifiableList(new ArrayList<DataCollection>(collections));
+        this.collectionsByName = Collections.unmodifiableList(byName);
+        this.collectionsById = Collections.unmodifiableMap(byId);
+        this.resources = Collections.unmodifiableMap(byResource);
+        this.collectionsByTag = Collections.unmodifiableMap(byTag);
+        this.collectionsByNickname = Collections.unmodifiableMap(byNickname);
+        this.collectionsByUri = Collections.unmodifiableMap(byUri);
+        this.uriTrie = trie;
+        this.patterns = new IdentifierPatterns(collections);
+        this.classifier = new IdentifierClassifier(collections, this.patterns);
+        this.rankedResources = rank(collections);
+        this.nbObsoleteCollections = obsoleteCollections;
+        this.nbObsoleteResources = obsoleteResources;
+    }
+    
+    
+    /**
+     * Creates a new snapshot in which some data collections have been replaced (this snapshot is not modified).
+     * @param ids identifiers of the data collections to replace (those which are not reloaded are removed)
+     * @param reloaded new version of the data collections
+     * @return new snapshot
+     */
+    public RegistrySnapshot update(Set<String> ids, List<? extends DataCollection> reloaded)
+    {
+        List<DataCollection> updated = new ArrayList<DataCollection>(this.collections.size() + reloaded.size());
+        
+        for (DataCollection collection: this.collections)
+        {
+            if (! ids.contains(collection.getId()))
+            {
+                updated.add(collection);
+            }
+        }
+        updated.addAll(reloaded);
+        Collections.sort(updated, BY_ID);
+        
+        return new RegistrySnapshot(updated);
+    }
+    
+    
+    /**
+     * Retrieves a data collection.
+     * @param id identifier of the data collection (for example: 'MIR:00000008')
+     * @return a copy of the data collection (can be modified), or null if it doesn't exist
+     */
+    public DataCollection getCollection(String id)
+    {
+        DataCollection collection = this.collectionsById.get(id);
+        
+        return (null == collection) ? null : new DataCollection(collection);
+    }
+    
+    
+    /**
+     * Retrieves a data collection from its name or one of its synonyms, ignoring the case.
+     * Only for the resolution (cf. <code>Resolver</code>): the data collection returned is shared and must not be modified.
+     * @param name name or synonym of the data collection (for example: 'UniProt')
+     * @return the data collection, or null if none has this name
+     */
+    DataCollection getCollectionByName(String name)
+    {
+        return (null == name) ? null : this.collectionsByNickname.get(name.toLowerCase());
+    }
+    
+    
+    /**
+     * Retrieves a data collection from one of its URIs, official or deprecated.
+     * Only for the resolution (cf. <code>Resolver</code>): the data collection returned is shared and must not be modified.
+     * @param uri URI (URN or URL) of the data collection (for example: 'urn:miriam:uniprot')
+     * @return the data collection, or null if none has this URI
+     */
+    DataCollection getCollectionByUri(String uri)
+    {
+        return (null == uri) ? null : this.collectionsByUri.get(uri);
+    }
+    
+    
+    /**
+     * Retrieves the compiled patterns of the identifiers of the data collections.
+     * @return patterns of the identifiers
+     */
+    public IdentifierPatterns getIdentifierPatterns()
+    {
+        return this.patterns;
+    }
+    
+    
+    /**
+     * Retrieves the reverse classifier of identifiers (which data collections could an identifier belong to?).
+     * @return classifier of identifiers
+     */
+    public IdentifierClassifier getIdentifierClassifier()
+    {
+        return this.classifier;
+    }
+    
+    
+    /**
+     * Retrieves the current resources of a data collection, ranked by health: up during the last check, primary, reliability.
+     * @param collectionId identifier of the data collection
+     * Only for the resolution (cf. <code>Resolver</code>).
+     * @return resources (unmodifiable list of shared objects, which must not be modified), the best first; empty if the data collection doesn't exist
+     */
+    List<Resource> getRankedResources(String collectionId)
+    {
+        List<Resource> resources = this.rankedResources.get(collectionId);
+        
+        return (null == resources) ? Collections.<Resource>emptyList() : resources;
+    }
+    
+    
+    /**
+     * Resolves any URI: of a data collection (official or deprecated) or of an entity (URN, URL or physical location).
+     * @param uri URI (for example: 'urn:miriam:obo.go:GO%3A0045202')
+     * Only for the resolution (cf. <code>Resolver</code>): the data collection of the match is shared and must not be modified.
+     * @return data collection, deprecation status and identifier, or null if the URI is not recognised
+     */
+    UriTrie.Match resolveUri(String uri)
+    {
+        return this.uriTrie.resolve(uri);
+    }
+    
+    
+    /**
+     * Retrieves a set of data collections.
+     * @param ids identifiers of the data collections (null for all of them)
+     * @return copies of the data collections found (can be modified), ordered by identifier
+     */
+    public List<DataCollection> getCollections(Collection<String> ids)
+    {
+        List<DataCollection> result = new ArrayList<DataCollection>((null == ids) ? this.collections.size() : ids.size());
+        for (DataCollection collection: this.collections)
+        {
+            if ((null == ids) || ids.contains(collection.getId()))
+            {
+                result.add(new DataCollection(collection));
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves all the data collections, without copying them (for the read-only processing of the package, like the audit of the patterns).
+     * @return unmodifiable list of the data collections (shared objects: must not be modified), ordered by identifier
+     */
+    List<DataCollection> collections()
+    {
+        return this.collections;
+    }
+    
+    
+    /**
+     * Retrieves the identifiers of all the data collections.
+     * @return identifiers, ordered
+     */
+    public List<String> getCollectionIds()
+    {
+        List<String> ids = new ArrayList<String>(this.collections.size());
+        for (DataCollection collection: this.collections)
+        {
+            ids.add(collection.getId());
+        }
+        
+        return ids;
+    }
+    
+    
+    /**
+     * Retrieves the name of a data collection.
+     * @param id identifier of the data collection
+     * @return name of the data collection, or null if it doesn't exist
+     */
+    public String getCollectionName(String id)
+    {
+        DataCollection collection = this.collectionsById.get(id);
+        
+        return (null == collection) ? null : collection.getName();
+    }
+    
+    
+    /**
+     * Retrieves a data collection (simple version, including its official URN).
+     * @param id identifier of the data collection
+     * @return the data collection, or null if it doesn't exist (or has no official URN)
+     */
+    public SimpleDataType getSimpleDataType(String id)
+    {
+        DataCollection collection = this.collectionsById.get(id);
+        if ((null == collection) || (null == collection.getURN()) || collection.getURN().isEmpty())
+        {
+            return null;
+        }
+        SimpleDataType data = toSimpleDataType(collection);
+        data.setUri(collection.getURN());
+        
+        return data;
+    }
+    
+    
+    /**
+     * Retrieves the data collections (simple version, without URI), ordered by name.
+     * @param obsolete true for the obsolete data collections only, false for the others only, null for all of them
+     * @return list of data collections
+     */
+    public List<SimpleDataType> getSimpleDataTypes(Boolean obsolete)
+    {
+        List<SimpleDataType> result = new ArrayList<SimpleDataType>(this.collectionsByName.size());
+        for (DataCollection collection: this.collectionsByName)
+        {
+            if ((null == obsolete) || (obsolete.booleanValue() == collection.isObsolete()))
+            {
+                result.add(toSimpleDataType(collection));
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves the data collections associated with a tag (simple version, without URI), ordered by name.
+     * @param tagId identifier of the tag (for example: 'MIR:00600001')
+     * @return list of data collections (can be empty)
+     */
+    public List<SimpleDataType> getSimpleDataTypesByTag(String tagId)
+    {
+        List<SimpleDataType> result = new ArrayList<SimpleDataType>();
+        List<DataCollection> tagged = this.collectionsByTag.get(tagId);
+        if (null != tagged)
+        {
+            for (DataCollection collection: tagged)
+            {
+                result.add(toSimpleDataType(collection));
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves the tags associated with a data collection.
+     * @param id identifier of the data collection
+     * @return list of tags (can be empty)
+     */
+    public List<Tag> getTags(String id)
+    {
+        List<Tag> result = new ArrayList<Tag>();
+        DataCollection collection = this.collectionsById.get(id);
+        if ((null != collection) && (null != collection.getTags()))
+        {
+            for (Tag tag: collection.getTags())
+            {
+                result.add(new Tag(tag.getId(), tag.getName(), tag.getInfo()));
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Retrieves a resource (without its health, formats and owners).
+     * @param id identifier of the resource (for example: 'MIR:00100008')
+     * @return the resource, or null if it doesn't exist
+     */
+    public Resource getResource(String id)
+    {
+        Resource resource = this.resources.get(id);
+        
+        return (null == resource) ? null : copyOf(resource);
+    }
+    
+    
+    /**
+     * Retrieves the resources of a data collection (without their health, formats and owners).
+     * @param id identifier of the data collection
+     * @param all true to include the obsolete resources
+     * @return list of resources (can be empty)
+     */
+    public List<Resource> getResources(String id, boolean all)
+    {
+        List<Resource> result = new ArrayList<Resource>();
+        DataCollection collection = this.collectionsById.get(id);
+        if (null != collection)
+        {
+            for (Resource resource: collection.getResources())
+            {
+                if (all || (! resource.isObsolete()))
+                {
+                    result.add(copyOf(resource));
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Returns the number of data collections.
+     * @param obsolete true for the obsolete data collections only, false for the others only, null for all of them
+     * @return number of data collections
+     */
+    public int countCollections(Boolean obsolete)
+    {
+        if (null == obsolete)
+        {
+            return this.collections.size();
+        }
+        
+        return obsolete ? this.nbObsoleteCollections : (this.collections.size() - this.nbObsoleteCollections);
+    }
+    
+    
+    /**
+     * Returns the number of resources.
+     * @param obsolete true for the obsolete resources only, false for the others only, null for all of them
+     * @return number of resources
+     */
+    public int countResources(Boolean obsolete)
+    {
+        if (null == obsolete)
+        {
+            return this.resources.size();
+        }
+        
+        return obsolete ? this.nbObsoleteResources : (this.resources.size() - this.nbObsoleteResources);
+    }
+    
+    
+    /**
+     * Builds the simple version of a data collection (identifier, name and definition).
+     */
+    private static SimpleDataType toSimpleDataType(DataCollection collection)
+    {
+        SimpleDataType data = new SimpleDataType();
+        data.setId(collection.getId());
+        data.setName(collection.getName());
+        data.setDefinition(collection.getDefinition());
+        
+        return data;
+    }
+    
+    
+    /**
+     * Indexes a URI of a data collection (the empty URIs are ignored).
+     */
+    private static void putUri(Map<String, DataCollection> byUri, String uri, DataCollection collection)
+    {
+        if ((null != uri) && (uri.length() > 0) && ! byUri.containsKey(uri))
+        {
+            byUri.put(uri, collection);
+        }
+    }
+    
+    
+    /**
+     * Ranks the current resources of each data collection: those up during the last health check first, then the primary ones,
+     * then the most reliable ones.
+     */
+    private static Map<String, List<Resource>> rank(List<? extends DataCollection> collections)
+    {
+        Map<String, List<Resource>> ranked = new HashMap<String, List<Resource>>(collections.size() * 2);
+        
+        for (DataCollection collection: collections)
+        {
+            List<Resource> resources = new ArrayList<Resource>(collection.getResources().size());
+            for (Resource resource: collection.getResources())
+            {
+                if (! Boolean.TRUE.equals(resource.isObsolete()))
+                {
+                    resources.add(resource);
+                }
+            }
+            Collections.sort(resources, BY_HEALTH);
+            ranked.put(collection.getId(), Collections.unmodifiableList(resources));
+        }
+        
+        return ranked;
+    }
+    
+    
+    /**
+     * Computes the tier of a resource, from its state during the last health check: up, unknown, down.
+     */
+    private static int tier(Resource resource)
+    {
+        switch (resource.getState())
+        {
+            case ResourceDao.STATE_SUCCESS:
+            case ResourceDao.STATE_PROBABLY:
+                return 0;
+            case ResourceDao.STATE_FAILURE:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+    
+    
+    /**
+     * Returns the reliability of a resource (0 if unknown).
+     */
+    private static int reliability(Resource resource)
+    {
+        return (null == resource.getReliability()) ? 0 : resource.getReliability().intValue();
+    }
+    
+    
+    /**
+     * Copies the general information of a resource (the same as the one retrieved by <code>ResourceDao</code>).
+     */
+    private static Resource copyOf(Resource resource)
+    {
+        Resource copy = new Resource();
+        copy.setId(resource.getId());
+        copy.setInfo(resource.getInfo());
+        copy.setInstitution(resource.getInstitution());
+        copy.setLocation(resource.getLocation());
+        copy.setObsolete(resource.isObsolete());
+        copy.setUrl_root(resource.getUrl_root());
+        copy.setUrl_prefix(resource.getUrl_prefix());
+        copy.setUrl_suffix(resource.getUrl_suffix());
+        copy.setExample(resource.getExample());
+        copy.setCollectionId(resource.getCollectionId());
+        
+        return copy;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the date of the last modification of the data collections included in the snapshot
+     */
+    public Date getVersion()
+    {
+        return new Date(this.version.getTime());
+    }
+    
+    
+    /**
+     * Getter
+     * @return the date when the snapshot was built
+     */
+    public Date getBuildDate()
+    {
+        return new Date(this.buildDate.getTime());
+    }
+}
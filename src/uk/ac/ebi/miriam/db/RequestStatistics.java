@@ -0,0 +1,252 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>Counts the SQL statements issued while processing a request (bound to the current thread, like <code>UnitOfWork</code>).
+ *
+ * <p>Records the number of statements created, of round trips to the database (executions) and the total time spent,
+ * as well as the number of executions of each query template, in order to detect the N+1 query patterns
+ * (cf. <code>QueryCounterFilter</code>).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class RequestStatistics
+{
+    private static final ThreadLocal<RequestStatistics> current = new ThreadLocal<RequestStatistics>();
+    private final String owner;
+    private final int maxRepeats;
+    private int statements = 0;
+    private int roundTrips = 0;
+    private long totalTime = 0;   // in nanoseconds
+    private final Map<String, Integer> executions = new HashMap<String, Integer>();
+    private final Map<String, String> repeated = new HashMap<String, String>();   // template -> servlet
+    
+    
+    /**
+     * Constructor.
+     * @param owner name of the process (for example the URI of the request)
+     * @param maxRepeats number of executions of a query template above which the template is reported as repeated
+     */
+    private RequestStatistics(String owner, int maxRepeats)
+    {
+        this.owner = owner;
+        this.maxRepeats = maxRepeats;
+    }
+    
+    
+    /**
+     * Starts counting the statements of the current thread, unless it is already done.
+     * @param owner name of the process (for example the URI of the request)
+     * @param maxRepeats number of executions of a query template above which the template is reported as repeated
+     * @return true if the counting has been started (the caller is then responsible for calling {@link #end()})
+     */
+    public static boolean begin(String owner, int maxRepeats)
+    {
+        if (null != current.get())
+        {
+            return false;
+        }
+        current.set(new RequestStatistics(owner, maxRepeats));
+        
+        return true;
+    }
+    
+    
+    /**
+     * Stops counting the statements of the current thread.
+     * @return statistics of the request (null if no counting was active)
+     */
+    public static RequestStatistics end()
+    {
+        RequestStatistics stats = current.get();
+        current.remove();
+        
+        return stats;
+    }
+    
+    
+    /**
+     * Checks if the statements of the current thread are counted.
+     */
+    static boolean isCounting()
+    {
+        return null != current.get();
+    }
+    
+    
+    /**
+     * Records the creation of a statement (if the counting is active for the current thread).
+     */
+    static void statementCreated()
+    {
+        RequestStatistics stats = current.get();
+        if (null != stats)
+        {
+            stats.statements++;
+        }
+    }
+    
+    
+    /**
+     * Records the execution of a query (if the counting is active for the current thread).
+     * @param template query template
+     * @param nanos time spent (in nanoseconds)
+     */
+    static void executed(String template, long nanos)
+    {
+        RequestStatistics stats = current.get();
+        if (null != stats)
+        {
+            stats.record(template, nanos);
+        }
+    }
+    
+    
+    /**
+     * Records the execution of a query.
+     */
+    private void record(String template, long nanos)
+    {
+        this.roundTrips++;
+        this.totalTime += nanos;
+        
+        Integer count = this.executions.get(template);
+        int number = (null == count) ? 1 : count + 1;
+        this.executions.put(template, number);
+        if (number == this.maxRepeats + 1)
+        {
+            this.repeated.put(template, findServlet());   // the call stack is only inspected once per repeated template
+        }
+    }
+    
+    
+    /**
+     * Finds the servlet processing the request, from the call stack.
+     * @return simple name of the class of the servlet, or the owner of the statistics if it cannot be found
+     */
+    private String findServlet()
+    {
+        StackTraceElement[] frames = new Throwable().getStackTrace();
+        for (int i = frames.length - 1; i >= 0; --i)
+        {
+            String className = frames[i].getClassName();
+            String method = frames[i].getMethodName();
+            if (className.startsWith("uk.ac.ebi.") && (method.equals("doGet") || method.equals("doPost") || method.equals("service")))
+            {
+                return className.substring(className.lastIndexOf('.') + 1);
+            }
+        }
+        
+        return this.owner;
+    }
+    
+    
+    /**
+     * Returns the query templates executed more times than allowed during the request.
+     * @return descriptions of the repeated queries: number of executions, servlet and template
+     */
+    public List<String> getRepeatedQueries()
+    {
+        List<String> list = new ArrayList<String>(this.repeated.size());
+        for (Map.Entry<String, String> entry: this.repeated.entrySet())
+        {
+            list.add(this.executions.get(entry.getKey()) + " executions in " + entry.getValue() + ": " + entry.getKey());
+        }
+        
+        return list;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the name of the process (for example the URI of the request)
+     */
+    public String getOwner()
+    {
+        return this.owner;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the number of statements created
+     */
+    public int getStatements()
+    {
+        return this.statements;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the number of round trips to the database (executions of queries)
+     */
+    public int getRoundTrips()
+    {
+        return this.roundTrips;
+    }
+    
+    
+    /**
+     * Getter
+     * @return the total time spent executing queries (in milliseconds)
+     */
+    public long getTotalTime()
+    {
+        return this.totalTime / 1000000L;
+    }
+}
@@ -0,0 +1,997 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * <p>Resolution engine of the Registry, running in-process: it answers the same questions as the Web Services
+ * (cf. <code>uk.ac.ebi.miriam.lib.MiriamLink</code>), with the same semantics, from the indexes of a <code>RegistrySnapshot</code>
+ * (names and synonyms, official and deprecated URIs, resources), without any SOAP call nor database query.
+ *
+ * <p>If the snapshot of the Registry is disabled, a private one is loaded from the database and kept for a minute.
+ * The answers about identifiers (URIs, physical locations, validity) are kept in a <code>ResolverCache</code>.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class Resolver
+{
+    private static final long FALLBACK_MAX_AGE = 60000;   // in milliseconds
+    private static final String NAMESPACE_URL = "http://identifiers.org/";
+    private static final String NAMESPACE_URN = "urn:miriam:";
+    private static volatile RegistrySnapshot fallback = null;   // used when the shared snapshot is disabled
+    private static final ReentrantLock fallbackLock = new ReentrantLock();   // held by the thread rebuilding the fallback snapshot
+    private final RegistrySnapshot snapshot;
+    private final ResolverCache cache;
+    
+    
+    /**
+     * Constructor.
+     * @param snapshot snapshot of the Registry used to answer the queries
+     */
+    public Resolver(RegistrySnapshot snapshot)
+    {
+        this(snapshot, new ResolverCache(snapshot));
+    }
+    
+    
+    /**
+     * Constructor.
+     * @param snapshot snapshot of the Registry used to answer the queries
+     * @param cache cache of the answers computed from this snapshot
+     */
+    private Resolver(RegistrySnapshot snapshot, ResolverCache cache)
+    {
+        this.snapshot = snapshot;
+        this.cache = cache;
+    }
+    
+    
+    /**
+     * Retrieves a resolver working on the latest state of the Registry.
+     * @param pool name of the database pool of the Registry
+     * @return resolver
+     */
+    public static Resolver get(String pool)
+    {
+        RegistrySnapshot current = SnapshotManager.get(pool);
+        
+        if (null == current)
+        {
+            current = getFallback(pool);
+        }
+        
+        return new Resolver(current, ResolverCache.forSnapshot(current));
+    }
+    
+    
+    /**
+     * Retrieves the fallback snapshot (used when the shared snapshot is disabled), rebuilding it if it has expired.
+     * Only one thread rebuilds it: meanwhile the others keep using the expired one (or wait, if there is none yet).
+     * @param pool name of the database pool of the Registry
+     * @return snapshot of the Registry
+     */
+    private static RegistrySnapshot getFallback(String pool)
+    {
+        RegistrySnapshot current = fallback;
+        
+        if ((null != current) && ! isExpired(current))
+        {
+            return current;
+        }
+        if (null == current)
+        {
+            fallbackLock.lock();   // nothing to answer with yet
+        }
+        else if (! fallbackLock.tryLock())
+        {
+            return current;   // already being rebuilt
+        }
+        
+        try
+        {
+            current = fallback;   // possibly rebuilt while waiting for the lock
+            if ((null == current) || isExpired(current))
+            {
+                List<DataTypeHibernate> collections = new DataCollectionLoader(pool).loadAll();
+                if (! collections.isEmpty() || (null == current))
+                {
+                    current = new RegistrySnapshot(collections);
+                    fallback = current;
+                }
+            }
+        }
+        finally
+        {
+            fallbackLock.unlock();
+        }
+        
+        return current;
+    }
+    
+    
+    /**
+     * Checks if the fallback snapshot must be rebuilt.
+     */
+    private static boolean isExpired(RegistrySnapshot snapshot)
+    {
+        return (System.currentTimeMillis() - snapshot.getBuildDate().getTime()) > FALLBACK_MAX_AGE;
+    }
+    
+    
+    /**
+     * Returns a summary of the use of the cache of the answers (hit ratio, resolution time).
+     * @return summary (one line)
+     */
+    public static String getCacheSummary()
+    {
+        return ResolverCache.getSummary();
+    }
+    
+    
+    /**
+     * Getter of the snapshot used by this resolver.
+     * @return snapshot of the Registry
+     */
+    public RegistrySnapshot getSnapshot()
+    {
+        return this.snapshot;
+    }
+    
+    
+    /**
+     * Retrieves a data collection from its name, one of its synonyms or one of its URIs.
+     * @param nickname name, synonym or URI (URN or URL) of a data collection
+     * @return the data collection (shared object of the snapshot: must not be modified), or null if it is not recognised
+     */
+    DataCollection findCollection(String nickname)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(nickname);
+        
+        return (null != collection) ? collection : this.snapshot.getCollectionByUri(nickname);
+    }
+    
+    
+    /**
+     * Retrieves a data collection from its namespace (as in its official URL or URN), or else from its name or one of its synonyms.
+     * @param namespace namespace of a data collection (for example: 'obo.go')
+     * @return the data collection (shared object of the snapshot: must not be modified), or null if it is not recognised
+     */
+    DataCollection findNamespace(String namespace)
+    {
+        if ((null == namespace) || (namespace.length() == 0))
+        {
+            return null;
+        }
+        
+        DataCollection collection = this.snapshot.getCollectionByUri(NAMESPACE_URL + namespace + "/");
+        if (null == collection)
+        {
+            collection = this.snapshot.getCollectionByUri(NAMESPACE_URN + namespace);
+        }
+        
+        return (null != collection) ? collection : this.snapshot.getCollectionByName(namespace);
+    }
+    
+    
+    /**
+     * Retrieves the official URI (URN) of a data collection.
+     * @param name name or synonym of a data collection (for example: 'UniProt')
+     * @return official URN, or null if the data collection is not recognised
+     */
+    public String getDataTypeURI(String name)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        
+        return (null == collection) ? null : collection.getURN();
+    }
+    
+    
+    /**
+     * Retrieves the official URL (URI, not a physical location) of a data collection.
+     * @param name name or synonym of a data collection
+     * @return official URL, or null if the data collection is not recognised
+     */
+    public String getDataTypeURL(String name)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        
+        return (null == collection) ? null : collection.getURL();
+    }
+    
+    
+    /**
+     * Retrieves all the URIs of a data collection: the official URN and URL first, then the deprecated ones.
+     * @param name name or synonym of a data collection
+     * @return all the URIs, or null if the data collection is not recognised
+     */
+    public String[] getDataTypeURIs(String name)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        if (null == collection)
+        {
+            return null;
+        }
+        
+        List<String> uris = new ArrayList<String>();
+        addIfNotEmpty(uris, collection.getURN());
+        addIfNotEmpty(uris, collection.getURL());
+        uris.addAll(collection.getDeprecatedURIs());
+        
+        return uris.toArray(new String[uris.size()]);
+    }
+    
+    
+    /**
+     * Retrieves all the URIs of a given type of a data collection: the official one first, then the deprecated ones.
+     * @param name name or synonym of a data collection
+     * @param type type of the URIs: 'URN' or 'URL'
+     * @return URIs of the given type, or null if the data collection is not recognised (or the type is unknown)
+     */
+    public String[] getDataTypeURIs(String name, String type)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        if (null == collection)
+        {
+            return null;
+        }
+        
+        List<String> uris = new ArrayList<String>();
+        if ("URN".equalsIgnoreCase(type))
+        {
+            addIfNotEmpty(uris, collection.getURN());
+            uris.addAll(collection.getDeprecatedURNs());
+        }
+        else if ("URL".equalsIgnoreCase(type))
+        {
+            addIfNotEmpty(uris, collection.getURL());
+            uris.addAll(collection.getDeprecatedURLs());
+        }
+        else
+        {
+            return null;
+        }
+        
+        return uris.toArray(new String[uris.size()]);
+    }
+    
+    
+    /**
+     * Retrieves the MIRIAM URI (URN) of an entity: the official URN of its data collection followed by its encoded identifier.
+     * @param name name or synonym of a data collection (for example: 'UniProt')
+     * @param id identifier of an entity within the data collection (for example: 'P62158')
+     * @return URI of the entity, an empty String if the data collection is not recognised, or null if the identifier is invalid
+     */
+    public String getURI(String name, String id)
+    {
+        String key = "URI\u0000" + name + "\u0000" + id;
+        Object answer = this.cache.get(key);
+        if (null == answer)
+        {
+            long start = System.nanoTime();
+            answer = resolveURI(name, id);
+            this.cache.put(key, answer, start);
+        }
+        
+        return (String) ResolverCache.value(answer);
+    }
+    
+    
+    /**
+     * Computes the MIRIAM URI (URN) of an entity.
+     * @see #getURI(String, String)
+     */
+    private String resolveURI(String name, String id)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        if (null == collection)
+        {
+            return "";
+        }
+        if (! matches(collection, id))
+        {
+            return null;
+        }
+        
+        return collection.getURN() + ":" + encode(id);
+    }
+    
+    
+    /**
+     * Retrieves the URL-based URI of an entity (old scheme: official URL of its data collection, '#' and the identifier).
+     * @param name name or synonym of a data collection
+     * @param id identifier of an entity within the data collection
+     * @return URI of the entity, an empty String if the data collection is not recognised, or null if the identifier is invalid
+     */
+    public String getURL(String name, String id)
+    {
+        String key = "URL\u0000" + name + "\u0000" + id;
+        Object answer = this.cache.get(key);
+        if (null == answer)
+        {
+            long start = System.nanoTime();
+            answer = resolveURL(name, id);
+            this.cache.put(key, answer, start);
+        }
+        
+        return (String) ResolverCache.value(answer);
+    }
+    
+    
+    /**
+     * Computes the URL-based URI of an entity.
+     * @see #getURL(String, String)
+     */
+    private String resolveURL(String name, String id)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(name);
+        if ((null == collection) || isEmpty(collection.getURL()))
+        {
+            return "";
+        }
+        if (! matches(collection, id))
+        {
+            return null;
+        }
+        
+        return collection.getURL() + "#" + id;
+    }
+    
+    
+    /**
+     * Retrieves the physical locations (URLs) of the web pages about an entity, from all the current resources of its data collection.
+     * @param uri URI of an entity (for example: 'urn:miriam:obo.go:GO%3A0045202')
+     * @return physical locations, an empty array if the data collection is not recognised, or null if the identifier is invalid
+     */
+    public String[] getLocations(String uri)
+    {
+        if (null == uri)
+        {
+            return new String[0];
+        }
+        
+        String key = "LOC\u0000" + uri;
+        Object answer = this.cache.get(key);
+        if (null == answer)
+        {
+            long start = System.nanoTime();
+            UriTrie.Match match = this.snapshot.resolveUri(uri);
+            answer = (null == match) ? new String[0] : locations(match.getCollection(), match.getIdentifier());
+            this.cache.put(key, answer, start);
+        }
+        
+        return copy(ResolverCache.value(answer));
+    }
+    
+    
+    /**
+     * Retrieves the physical locations (URLs) of the web pages about an entity, from all the current resources of its data collection.
+     * @param nickname name, synonym or URI of a data collection
+     * @param id identifier of an entity within the data collection
+     * @return physical locations, an empty array if the data collection is not recognised, or null if the identifier is invalid
+     */
+    public String[] getLocations(String nickname, String id)
+    {
+        String key = "LOC\u0000" + nickname + "\u0000" + id;
+        Object answer = this.cache.get(key);
+        if (null == answer)
+        {
+            long start = System.nanoTime();
+            answer = locations(findCollection(nickname), id);
+            this.cache.put(key, answer, start);
+        }
+        
+        return copy(ResolverCache.value(answer));
+    }
+    
+    
+    /**
+     * Retrieves the physical location (URL) of an entity in the best resource of its data collection
+     * (up during the last health check, primary, the most reliable), without any database query.
+     * @param namespace namespace of a data collection (for example: 'obo.go', as in 'http://identifiers.org/obo.go/'), or its name
+     * @param id identifier of an entity within the data collection
+     * @return physical location, an empty String if the data collection is not recognised (or has no current resource), or null if the identifier is invalid
+     */
+    public String getBestLocation(String namespace, String id)
+    {
+        DataCollection collection = findNamespace(namespace);
+        if (null == collection)
+        {
+            return "";
+        }
+        if (! matches(collection, id))
+        {
+            return null;
+        }
+        
+        List<Resource> ranked = this.snapshot.getRankedResources(collection.getId());
+        if (ranked.isEmpty())
+        {
+            return "";
+        }
+        Resource best = ranked.get(0);
+        
+        return best.getUrl_prefix() + encodeEntry(id) + ((null == best.getUrl_suffix()) ? "" : best.getUrl_suffix());
+    }
+    
+    
+    /**
+     * Retrieves the physical locations (URLs) of the main page of all the current resources of a data collection.
+     * @param nickname name, synonym or URI of a data collection
+     * @return physical locations, or null if the data collection is not recognised
+     */
+    public String[] getDataResources(String nickname)
+    {
+        DataCollection collection = findCollection(nickname);
+        if (null == collection)
+        {
+            return null;
+        }
+        
+        List<String> urls = new ArrayList<String>();
+        for (Resource resource: collection.getResources())
+        {
+            if (! Boolean.TRUE.equals(resource.isObsolete()))
+            {
+                urls.add(resource.getUrl_root());
+            }
+        }
+        
+        return urls.toArray(new String[urls.size()]);
+    }
+    
+    
+    /**
+     * Retrieves the definition of a data collection.
+     * @param nickname name, synonym or URI of a data collection
+     * @return definition, or null if the data collection is not recognised
+     */
+    public String getDataTypeDef(String nickname)
+    {
+        DataCollection collection = findCollection(nickname);
+        
+        return (null == collection) ? null : collection.getDefinition();
+    }
+    
+    
+    /**
+     * Retrieves the pattern (regular expression) of the identifiers of a data collection.
+     * @param nickname name, synonym or URI of a data collection
+     * @return pattern, or null if the data collection is not recognised
+     */
+    public String getDataTypePattern(String nickname)
+    {
+        DataCollection collection = findCollection(nickname);
+        
+        return (null == collection) ? null : collection.getRegexp();
+    }
+    
+    
+    /**
+     * Retrieves the name and all the synonyms of a data collection.
+     * @param name name or synonym of a data collection
+     * @return name followed by the synonyms, or null if the data collection is not recognised
+     */
+    public String[] getDataTypeSynonyms(String name)
+    {
+        return names(this.snapshot.getCollectionByName(name));
+    }
+    
+    
+    /**
+     * Retrieves the name of a data collection.
+     * @param uri URI (URN or URL) of a data collection, or of one of its entities
+     * @return name, or null if the URI is not recognised
+     */
+    public String getName(String uri)
+    {
+        DataCollection collection = collectionOf(uri);
+        
+        return (null == collection) ? null : collection.getName();
+    }
+    
+    
+    /**
+     * Retrieves the name and all the synonyms of a data collection.
+     * @param uri URI (URN or URL) of a data collection, or of one of its entities
+     * @return name followed by the synonyms, or null if the URI is not recognised
+     */
+    public String[] getNames(String uri)
+    {
+        return names(collectionOf(uri));
+    }
+    
+    
+    /**
+     * Retrieves the official URI (URN) of the data collection to which a (deprecated) URI belongs.
+     * @param uri URI (URN or URL) of a data collection, or of one of its entities
+     * @return official URN, or null if the URI is not recognised
+     */
+    public String getOfficialURI(String uri)
+    {
+        DataCollection collection = collectionOf(uri);
+        
+        return (null == collection) ? null : collection.getURN();
+    }
+    
+    
+    /**
+     * Checks if a URI is deprecated.
+     * @param uri URI (URN or URL) of a data collection, or of one of its entities
+     * @return true if the URI is based on a deprecated URI of a data collection, false otherwise (including when it is not recognised)
+     */
+    public boolean isDeprecated(String uri)
+    {
+        UriTrie.Match match = this.snapshot.resolveUri(uri);
+        
+        return (null != match) && match.isDeprecated();
+    }
+    
+    
+    /**
+     * Finds all the data collections an identifier could belong to.
+     * @param identifier bare identifier (for example: 'P12345' or 'CHEBI:17790')
+     * @return copies of the data collections whose pattern accepts the identifier, the most relevant first
+     */
+    public List<DataCollection> classify(String identifier)
+    {
+        List<DataCollection> found = this.snapshot.getIdentifierClassifier().classify(identifier);
+        List<DataCollection> result = new ArrayList<DataCollection>(found.size());
+        for (DataCollection collection: found)
+        {
+            result.add(new DataCollection(collection));   // the data collections of the snapshot are not exposed
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Validates an identifier against the pattern of a data collection, without going through the cache of the answers
+     * (meant for bulk validation, cf. <code>ServletBulkValidation</code>).
+     * @param nickname name, synonym or URI of a data collection
+     * @param id identifier of an entity within the data collection
+     * @return status of the identifier
+     */
+    public Status validate(String nickname, String id)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(nickname);
+        boolean deprecated = false;
+        if (null == collection)
+        {
+            UriTrie.Match match = this.snapshot.resolveUri(nickname);
+            if ((null == match) || ! match.isCollectionUri())
+            {
+                return Status.UNKNOWN;
+            }
+            collection = match.getCollection();
+            deprecated = match.isDeprecated();
+        }
+        
+        return status(collection, id, deprecated);
+    }
+    
+    
+    /**
+     * Validates the identifier of an entity URI (URN, URL or physical location).
+     * @param uri URI of an entity (for example: 'urn:miriam:obo.go:GO%3A0045202')
+     * @return status of the identifier
+     */
+    public Status validate(String uri)
+    {
+        UriTrie.Match match = this.snapshot.resolveUri(uri);
+        if (null == match)
+        {
+            return Status.UNKNOWN;
+        }
+        
+        return status(match.getCollection(), match.getIdentifier(), match.isDeprecated());
+    }
+    
+    
+    /**
+     * Checks if an identifier follows the pattern of a data collection.
+     * @param identifier identifier of an entity (for example: 'P62158')
+     * @param nickname name, synonym or URI of a data collection
+     * @return true if the identifier is valid, false otherwise (including when the data collection is not recognised)
+     */
+    public boolean checkRegExp(String identifier, String nickname)
+    {
+        String key = "REGEXP\u0000" + nickname + "\u0000" + identifier;
+        Object answer = this.cache.get(key);
+        if (null == answer)
+        {
+            long start = System.nanoTime();
+            DataCollection collection = findCollection(nickname);
+            answer = Boolean.valueOf((null != collection) && matches(collection, identifier));
+            this.cache.put(key, answer, start);
+        }
+        
+        return ((Boolean) answer).booleanValue();
+    }
+    
+    
+    /**
+     * Retrieves the data collection to which a URI, of a data collection or of an entity, belongs.
+     */
+    private DataCollection collectionOf(String uri)
+    {
+        UriTrie.Match match = this.snapshot.resolveUri(uri);
+        
+        return (null == match) ? null : match.getCollection();
+    }
+    
+    
+    /**
+     * Builds the physical locations of an entity.
+     * @return empty array if the data collection is null, null if the identifier is invalid
+     */
+    private String[] locations(DataCollection collection, String id)
+    {
+        if (null == collection)
+        {
+            return new String[0];
+        }
+        if (! matches(collection, id))
+        {
+            return null;
+        }
+        
+        String entry = encodeEntry(id);
+        List<String> urls = new ArrayList<String>();
+        for (Resource resource: collection.getResources())
+        {
+            if (! Boolean.TRUE.equals(resource.isObsolete()))
+            {
+                urls.add(resource.getUrl_prefix() + entry + ((null == resource.getUrl_suffix()) ? "" : resource.getUrl_suffix()));
+            }
+        }
+        
+        return urls.toArray(new String[urls.size()]);
+    }
+    
+    
+    /**
+     * Resolves an entity URI (URN, URL or physical location) in a single lookup: status, official URI and physical locations
+     * (meant for batch resolution, cf. <code>ServletBatchResolution</code>).
+     * @param uri URI of an entity (for example: 'urn:miriam:obo.go:GO%3A0045202')
+     * @return resolution of the entity
+     */
+    public Resolution resolve(String uri)
+    {
+        UriTrie.Match match = this.snapshot.resolveUri(uri);
+        if (null == match)
+        {
+            return new Resolution(Status.UNKNOWN, null, null, null, new String[0]);
+        }
+        
+        return resolution(match.getCollection(), match.getIdentifier(), match.isDeprecated());
+    }
+    
+    
+    /**
+     * Resolves an entity given by its data collection and its identifier.
+     * @param nickname name, synonym or URI of a data collection
+     * @param id identifier of an entity within the data collection
+     * @return resolution of the entity
+     */
+    public Resolution resolve(String nickname, String id)
+    {
+        DataCollection collection = this.snapshot.getCollectionByName(nickname);
+        boolean deprecated = false;
+        if (null == collection)
+        {
+            UriTrie.Match match = this.snapshot.resolveUri(nickname);
+            if ((null == match) || ! match.isCollectionUri())
+            {
+                return new Resolution(Status.UNKNOWN, null, id, null, new String[0]);
+            }
+            collection = match.getCollection();
+            deprecated = match.isDeprecated();
+        }
+        
+        return resolution(collection, id, deprecated);
+    }
+    
+    
+    /**
+     * Builds the resolution of an entity: its physical locations are given by the current resources, the healthiest first.
+     */
+    private Resolution resolution(DataCollection collection, String id, boolean deprecatedUri)
+    {
+        Status status = status(collection, id, deprecatedUri);
+        if (Status.INVALID == status)
+        {
+            return new Resolution(status, collection, id, null, new String[0]);
+        }
+        
+        String entry = encodeEntry(id);
+        List<Resource> ranked = this.snapshot.getRankedResources(collection.getId());
+        String[] locations = new String[ranked.size()];
+        for (int i = 0; i < locations.length; ++i)
+        {
+            Resource resource = ranked.get(i);
+            locations[i] = resource.getUrl_prefix() + entry + ((null == resource.getUrl_suffix()) ? "" : resource.getUrl_suffix());
+        }
+        
+        return new Resolution(status, collection, id, collection.getURN() + ":" + encode(id), locations);
+    }
+    
+    
+    /**
+     * Computes the status of an identifier of a data collection.
+     */
+    private Status status(DataCollection collection, String id, boolean deprecatedUri)
+    {
+        if (! matches(collection, id))
+        {
+            return Status.INVALID;
+        }
+        
+        return (deprecatedUri || collection.isObsolete()) ? Status.DEPRECATED : Status.VALID;
+    }
+    
+    
+    /**
+     * Copies a cached array of answers, which must not be modified by the callers.
+     */
+    private static String[] copy(Object answer)
+    {
+        return (null == answer) ? null : ((String[]) answer).clone();
+    }
+    
+    
+    /**
+     * Retrieves the name and all the synonyms of a data collection.
+     * @return null if the data collection is null
+     */
+    private static String[] names(DataCollection collection)
+    {
+        if (null == collection)
+        {
+            return null;
+        }
+        
+        List<String> names = new ArrayList<String>(collection.getSynonyms().size() + 1);
+        names.add(collection.getName());
+        names.addAll(collection.getSynonyms());
+        
+        return names.toArray(new String[names.size()]);
+    }
+    
+    
+    /**
+     * Checks if an identifier follows the pattern of a data collection (within the budget of a match).
+     */
+    private boolean matches(DataCollection collection, String id)
+    {
+        return this.snapshot.getIdentifierPatterns().matches(collection, id);
+    }
+    
+    
+    /**
+     * Encodes an identifier to be part of a URN (for example: 'GO:0045202' becomes 'GO%3A0045202').
+     */
+    static String encode(String id)
+    {
+        try
+        {
+            return URLEncoder.encode(id, "UTF-8").replace("+", "%20");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            return id;   // UTF-8 is always supported
+        }
+    }
+    
+    
+    /**
+     * Decodes the identifier part of a URN or of a physical location (UTF-8): a '+' is kept as such (not turned into a space).
+     */
+    static String decode(String id)
+    {
+        try
+        {
+            return URLDecoder.decode(id.replace("+", "%2B"), "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            return id;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return id;   // not encoded (for example a literal '%')
+        }
+    }
+    
+    
+    /**
+     * Encodes the characters of an identifier which are not allowed in a URL (the reserved characters, such as ':' or '/', are kept).
+     */
+    static String encodeEntry(String id)
+    {
+        StringBuilder entry = new StringBuilder(id.length() + 8);
+        
+        for (char c: id.toCharArray())
+        {
+            if ((c > 0x20) && (c < 0x7F) && ("\"<>\\^`{|}%#".indexOf(c) < 0))
+            {
+                entry.append(c);
+            }
+            else
+            {
+                entry.append(encode(String.valueOf(c)));
+            }
+        }
+        
+        return entry.toString();
+    }
+    
+    
+    /**
+     * Adds a value to a list, unless it is null or empty.
+     */
+    private static void addIfNotEmpty(List<String> list, String value)
+    {
+        if (! isEmpty(value))
+        {
+            list.add(value);
+        }
+    }
+    
+    
+    /**
+     * Checks if a value is empty (or null).
+     */
+    private static boolean isEmpty(String value)
+    {
+        return (null == value) || (value.length() == 0);
+    }
+    
+    
+    /**
+     * Status of an identifier, as computed by <code>validate()</code>.
+     */
+    public enum Status
+    {
+        /** the identifier follows the pattern of the data collection */
+        VALID,
+        /** the identifier doesn't follow the pattern of the data collection */
+        INVALID,
+        /** the data collection is not recognised */
+        UNKNOWN,
+        /** the identifier is valid, but the data collection (or the URI used) is deprecated */
+        DEPRECATED
+    }
+    
+    
+    /**
+     * Result of the resolution of an entity, as computed by <code>resolve()</code>.
+     */
+    public static final class Resolution
+    {
+        private final Status status;
+        private final String collectionId;
+        private final String collectionName;
+        private final String identifier;
+        private final String uri;
+        private final String[] locations;
+        
+        private Resolution(Status status, DataCollection collection, String identifier, String uri, String[] locations)
+        {
+            this.status = status;
+            this.collectionId = (null == collection) ? null : collection.getId();   // the data collections of the snapshot are not exposed
+            this.collectionName = (null == collection) ? null : collection.getName();
+            this.identifier = identifier;
+            this.uri = uri;
+            this.locations = locations;
+        }
+        
+        /**
+         * Getter
+         * @return status of the identifier
+         */
+        public Status getStatus()
+        {
+            return this.status;
+        }
+        
+        /**
+         * Getter
+         * @return identifier of the data collection, or null if not recognised
+         */
+        public String getCollectionId()
+        {
+            return this.collectionId;
+        }
+        
+        /**
+         * Getter
+         * @return name of the data collection, or null if not recognised
+         */
+        public String getCollectionName()
+        {
+            return this.collectionName;
+        }
+        
+        /**
+         * Getter
+         * @return identifier of the entity (decoded), or null if unknown
+         */
+        public String getIdentifier()
+        {
+            return this.identifier;
+        }
+        
+        /**
+         * Getter
+         * @return official URI (URN) of the entity, or null if the identifier is not valid
+         */
+        public String getUri()
+        {
+            return this.uri;
+        }
+        
+        /**
+         * Getter
+         * @return physical locations of the entity, the healthiest resources first
+         */
+        public String[] getLocations()
+        {
+            return (null == this.locations) ? null : this.locations.clone();   // the resolutions are cached and shared
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * <p>Bounded LRU cache of the answers of the <code>Resolver</code>, keyed by method and parameters.
+ * The cache is split into independent stripes (selected by the hash of the key), each with its own lock and its own LRU order,
+ * so concurrent lookups of different keys seldom wait for each other; the eviction order is therefore only approximately global.
+ * A cache belongs to one snapshot of the Registry: any modification of the Registry produces a new snapshot, hence a new (empty) cache.
+ * The entries also expire after a while, and the hit ratio and the time spent computing the answers are reported (cf. debug page).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+final class ResolverCache
+{
+    /** Marker of a cached null answer. */
+    static final Object NONE = new Object();
+    private static final int CAPACITY = 10000;
+    private static final int STRIPES = 16;   // power of 2
+    private static final long TTL = 600000L;   // in milliseconds
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong computeTime = new AtomicLong();   // in nanoseconds
+    private static volatile ResolverCache shared = null;
+    private final RegistrySnapshot snapshot;
+    private final Map<String, Answer>[] stripes;
+    
+    
+    /**
+     * Constructor.
+     * @param snapshot snapshot of the Registry the answers are computed from
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ResolverCache(RegistrySnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; ++i)
+        {
+            this.stripes[i] = new LinkedHashMap<String, Answer>(64, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Answer> eldest)
+                {
+                    return size() > (CAPACITY / STRIPES);
+                }
+            };
+        }
+    }
+    
+    
+    /**
+     * Selects the stripe of a key.
+     */
+    private Map<String, Answer> stripe(String key)
+    {
+        int hash = key.hashCode();
+        
+        return this.stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+    
+    
+    /**
+     * Retrieves the shared cache of a snapshot of the Registry (the cache of any previous snapshot is dropped).
+     * @param snapshot current snapshot of the Registry
+     * @return cache of the answers computed from this snapshot
+     */
+    static ResolverCache forSnapshot(RegistrySnapshot snapshot)
+    {
+        ResolverCache cache = shared;
+        if ((null == cache) || (cache.snapshot != snapshot))
+        {
+            cache = new ResolverCache(snapshot);
+            shared = cache;
+        }
+        
+        return cache;
+    }
+    
+    
+    /**
+     * Retrieves a cached answer.
+     * @param key method and parameters
+     * @return the answer (<code>NONE</code> for a null one), or null if not cached (or expired)
+     */
+    Object get(String key)
+    {
+        Answer entry;
+        Map<String, Answer> entries = stripe(key);
+        synchronized (entries)
+        {
+            entry = entries.get(key);
+            if ((null != entry) && (entry.expiry < System.currentTimeMillis()))
+            {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        
+        if (null == entry)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+    
+    
+    /**
+     * Stores an answer.
+     * @param key method and parameters
+     * @param value answer (can be null)
+     * @param start time when the computation of the answer started (cf. <code>System.nanoTime()</code>)
+     */
+    void put(String key, Object value, long start)
+    {
+        computeTime.addAndGet(System.nanoTime() - start);
+        Answer entry = new Answer((null == value) ? NONE : value, System.currentTimeMillis() + TTL);
+        Map<String, Answer> entries = stripe(key);
+        synchronized (entries)
+        {
+            entries.put(key, entry);
+        }
+    }
+    
+    
+    /**
+     * Returns the number of cached answers.
+     * @return size of the cache
+     */
+    int size()
+    {
+        int size = 0;
+        for (Map<String, Answer> entries: this.stripes)
+        {
+            synchronized (entries)
+            {
+                size += entries.size();
+            }
+        }
+        
+        return size;
+    }
+    
+    
+    /**
+     * Converts a cached answer back (<code>NONE</code> becomes null).
+     * @param value cached answer
+     * @return actual answer
+     */
+    static Object value(Object value)
+    {
+        return (NONE == value) ? null : value;
+    }
+    
+    
+    /**
+     * Returns a summary of the use of the cache since start up: hit ratio and average time spent computing an answer.
+     * @return summary (one line)
+     */
+    static String getSummary()
+    {
+        long hit = hits.get();
+        long miss = misses.get();
+        ResolverCache cache = shared;
+        
+        StringBuilder summary = new StringBuilder();
+        summary.append("hits: ").append(hit).append(", misses: ").append(miss);
+        if ((hit + miss) > 0)
+        {
+            summary.append(", hit ratio: ").append((hit * 100) / (hit + miss)).append("%");
+        }
+        if (miss > 0)
+        {
+            summary.append(", average resolution time: ").append((computeTime.get() / miss) / 1000).append(" microseconds");
+        }
+        summary.append(", cached answers: ").append((null == cache) ? 0 : cache.size());
+        
+        return summary.toString();
+    }
+    
+    
+    /**
+     * Cached answer and its expiry date.
+     */
+    private static final class Answer
+    {
+        private final Object value;
+        private final long expiry;   // in milliseconds
+        
+        private Answer(Object value, long expiry)
+        {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
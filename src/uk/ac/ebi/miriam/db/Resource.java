@@ -60,36 +60,38 @@ import java.util.ArrayList;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20130807
+ * @version 20261017
  */
 public class Resource implements Comparable<Object>
 {
     /* stable identifier of the resource (something starting by 'MIR:001' and followed by 5 digits) */
-    private String id = new String();
+    private String id = "";
     /* prefix part of the physical location (URL) */
-    private String url_prefix = new String();
+    private String url_prefix = "";
     /* suffix part of the physical location (URL) */
-    private String url_suffix = new String();
+    private String url_suffix = "";
     /* address of the front page of the resource */
-    private String url_root = new String();
+    private String url_root = "";
     /* some useful information about the resource */
-    private String info = new String();
+    private String info = "";
     /* institution which manage the resource */
-    private String institution = new String();
+    private String institution = "";
     /* country of the institution */
-    private String location = new String();   // optional
+    private String location = "";   // optional
     /* example of an identifier used by this resource */
-    private String example = new String();
+    private String example = "";
     /* is the resource obsolete or not? */
     private Boolean obsolete;
     /* percentage of reliability (uptime) */
     private Integer reliability;
+    /* state of the resource during the last health check (cf. ResourceDao.STATE_*) */
+    private int state = ResourceDao.STATE_NA;
     /* identifier of the associated data collection */
-    private String collectionId = new String();
+    private String collectionId = "";
     /* whether or not this resource is the primary one for the data collection */
     private Boolean primary;
     /* converet prefix for conversion between uris*/
-    private String convert_prefix = new String();
+    private String convert_prefix = "";
 
     private ArrayList<Format> formatList = new ArrayList<Format>();
 
@@ -109,6 +111,33 @@ public class Resource implements Comparable<Object>
     }
     
     
+    /**
+     * <p>
+     * Copy constructor (the lists of formats and owners are copied, not their elements).
+     * @param resource resource to copy
+     */
+    public Resource(Resource resource)
+    {
+        this.id = resource.id;
+        this.url_prefix = resource.url_prefix;
+        this.url_suffix = resource.url_suffix;
+        this.url_root = resource.url_root;
+        this.info = resource.info;
+        this.institution = resource.institution;
+        this.location = resource.location;
+        this.example = resource.example;
+        this.obsolete = resource.obsolete;
+        this.reliability = resource.reliability;
+        this.state = resource.state;
+        this.collectionId = resource.collectionId;
+        this.primary = resource.primary;
+        this.convert_prefix = resource.convert_prefix;
+        this.formatList = new ArrayList<Format>(resource.formatList);
+        this.ownership_status = resource.ownership_status;
+        this.ownerList = new ArrayList<User>(resource.ownerList);
+    }
+    
+    
     /**
      * Overrides the 'toString()' method for the 'Resource' object
      * @return a string which contains all the information about the resource
@@ -542,6 +571,26 @@ public class Resource implements Comparable<Object>
     }
     
     
+    /**
+     * Getter
+     * @return the state of the resource during the last health check (cf. <code>ResourceDao.STATE_*</code>)
+     */
+    public int getState()
+    {
+        return this.state;
+    }
+    
+    
+    /**
+     * Setter
+     * @param state the state of the resource during the last health check
+     */
+    public void setState(int state)
+    {
+        this.state = state;
+    }
+    
+    
     /**
      * Setter
      * @param collectionId the collectionId to set
@@ -621,4 +670,14 @@ public class Resource implements Comparable<Object>
     public void addOwner(User owner) {
         ownerList.add(owner);
     }
+    
+    
+    /**
+     * Releases the unused capacity of the lists of formats and owners (once fully loaded).
+     */
+    public void compact()
+    {
+        this.formatList.trimToSize();
+        this.ownerList.trimToSize();
+    }
 }
@@ -46,6 +46,7 @@ import org.apache.log4j.Logger;
 /**
  * <p>Handles some database connections for manipulating <code>Resource</code>.
  * <p>Information: the states and associated colours are also duplicated in the CSS.
+ * <p>The counts and the basic retrieval of resources use the <code>RegistrySnapshot</code> when it is available.
  * 
  * <p>
  * <dl>
@@ -117,6 +118,12 @@ public class ResourceDao extends Dao
      */
     public int getNbResources()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countResources(false);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(resource_id) AS number FROM mir_resource WHERE (obsolete=0)";
@@ -125,7 +132,7 @@ public class ResourceDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -150,6 +157,12 @@ public class ResourceDao extends Dao
      */
     public int getNbObsoleteResources()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countResources(true);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(resource_id) AS number FROM mir_resource WHERE (obsolete=1)";
@@ -158,7 +171,7 @@ public class ResourceDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -183,6 +196,12 @@ public class ResourceDao extends Dao
      */
     public int getNbAllResources()
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.countResources(null);
+        }
+        
         Statement stmt = null;
         int nb = 0;
         String sql = "SELECT COUNT(resource_id) AS number FROM mir_resource";
@@ -191,7 +210,7 @@ public class ResourceDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -217,6 +236,12 @@ public class ResourceDao extends Dao
      */
     public Resource getResource(String identifier)
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getResource(identifier);
+        }
+        
         Resource res = null;
         String sql = "SELECT * FROM mir_resource WHERE (resource_id = ?)";
         PreparedStatement stmt = null;
@@ -227,7 +252,7 @@ public class ResourceDao extends Dao
             stmt.setString(1, identifier);
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())   // there is at least one result returned (we don't check if more than one result is returned)
+            if (rs.next())   // there is at least one result returned (we don't check if more than one result is returned)
             {
                 res = new Resource();
                 res.setId(rs.getString("resource_id"));
@@ -271,6 +296,12 @@ public class ResourceDao extends Dao
      */
     public List<Resource> getResources(String identifier, Boolean all)
     {
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getResources(identifier, all);
+        }
+        
         PreparedStatement stmt = null;
         List<Resource> resources = new ArrayList<Resource>(230);   // ArrayList increases its array size by 50 percent when full
         String sql = null;
@@ -367,7 +398,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, identifier);
             ResultSet rs = stmt.executeQuery();
-            result = rs.first();
+            result = rs.next();
         }
         catch (SQLException e)
         {
@@ -443,7 +474,7 @@ public class ResourceDao extends Dao
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 keyword = rs.getString("keyword");
             }
@@ -667,7 +698,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, id);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 details = new ResourceCheckDetails(rs.getString("resource_id"), rs.getString("info"), rs.getString("datatype_id"), rs.getString("name"), rs.getInt("state"), rs.getTimestamp("date_last_check"), rs.getTimestamp("date_last_check_success"), rs.getTimestamp("date_last_check_failure"), rs.getTimestamp("begin_uptime_period"), rs.getTimestamp("begin_downtime_period"), rs.getInt("uptime"), rs.getInt("downtime"), rs.getInt("unknown"), rs.getInt("ajax"), rs.getInt("frame_deny"), rs.getInt("binary"), rs.getString("keyword"), rs.getString("comment"), rs.getString("errors"), rs.getString("url_element_prefix") + rs.getString("example") + rs.getString("url_element_suffix"));
                 if (rs.getInt("obsolete") == 0)
@@ -885,7 +916,7 @@ public class ResourceDao extends Dao
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = true;
             }
@@ -926,7 +957,7 @@ public class ResourceDao extends Dao
                 logger.debug("SQL prepared query: " + stmt.toString());
                 ResultSet rs = stmt.executeQuery();
                 
-                if (rs.first())
+                if (rs.next())
                 {
                     result = true;
                 }
@@ -1067,7 +1098,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 if (rs.getInt("ajax") == 1)
                 {
@@ -1105,7 +1136,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 if (rs.getInt("binary") > 0)
                 {
@@ -1237,7 +1268,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 if (rs.getInt("ptr_restriction") == 3)
                 {
@@ -1275,7 +1306,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 state = rs.getInt("state");
             }
@@ -1432,7 +1463,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getInt("state");
             }
@@ -1490,7 +1521,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getInt("uptime");
             }
@@ -1526,7 +1557,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getInt("downtime");
             }
@@ -1562,7 +1593,7 @@ public class ResourceDao extends Dao
             stmt = openPreparedStatement(sql);
             stmt.setString(1, resourceId);
             ResultSet rs = stmt.executeQuery();
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getInt("unknown");
             }
@@ -95,7 +95,7 @@ public class RestrictionDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 RestrictionType temp = new RestrictionType();
@@ -201,7 +201,7 @@ public class RestrictionDao extends Dao
         {
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
-            if (rs.first())
+            if (rs.next())
             {
                 type = new RestrictionType();
                 type.setId(rs.getInt("id"));
@@ -0,0 +1,327 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * <p>Forward-only, read-only execution of SQL queries, with the conversion of the rows returned into objects
+ * (cf. <code>RowMapper</code>) or their processing one at a time (cf. <code>RowHandler</code>).
+ *
+ * <p>None of the methods needs a scrollable cursor: the rows are only read once, in order.
+ * With {@link #forEach(Connection, String, RowHandler, Object...)} the rows are streamed by the MySQL driver
+ * instead of being all loaded in memory (suitable for large exports).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class Rows
+{
+    /** Maps the first column of a row to a <code>String</code>. */
+    public static final RowMapper<String> STRING = new RowMapper<String>()
+    {
+        public String mapRow(ResultSet rs) throws SQLException
+        {
+            return rs.getString(1);
+        }
+    };
+    
+    /** Maps the first column of a row to an <code>Integer</code>. */
+    public static final RowMapper<Integer> INTEGER = new RowMapper<Integer>()
+    {
+        public Integer mapRow(ResultSet rs) throws SQLException
+        {
+            return rs.getInt(1);
+        }
+    };
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private Rows()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Creates a forward-only, read-only <code>PreparedStatement</code> and binds its parameters.
+     * @param connection database connection
+     * @param sql SQL query, including place holders '?'
+     * @param params values of the parameters, in order
+     * @return PreparedStatement ready to be executed
+     * @throws SQLException
+     */
+    public static PreparedStatement prepare(Connection connection, String sql, Object... params) throws SQLException
+    {
+        return create(connection, sql, sql, params);
+    }
+    
+    
+    /**
+     * Creates a forward-only, read-only <code>PreparedStatement</code> for a named query and binds its parameters.
+     * The executions of the statement are reported under the name of the query (cf. <code>QueryMonitor</code>).
+     * @param connection database connection
+     * @param query named query
+     * @param params values of the parameters, in order
+     * @return PreparedStatement ready to be executed
+     * @throws SQLException
+     */
+    static PreparedStatement prepare(Connection connection, SqlQuery query, Object... params) throws SQLException
+    {
+        return create(connection, query.getSql(), query.name(), params);
+    }
+    
+    
+    /**
+     * Creates a forward-only, read-only and monitored <code>PreparedStatement</code>, and binds its parameters.
+     */
+    private static PreparedStatement create(Connection connection, String sql, String template, Object... params) throws SQLException
+    {
+        PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try
+        {
+            bind(stmt, params);
+        }
+        catch (SQLException e)
+        {
+            stmt.close();
+            throw e;
+        }
+        
+        return QueryMonitor.monitor(stmt, template);
+    }
+    
+    
+    /**
+     * Builds an <code>IN</code> condition with place holders, for example: "(ptr_datatype IN (?, ?, ?))".
+     * @param column name of the column
+     * @param size number of values (at least one)
+     * @return SQL condition
+     */
+    public static String in(String column, int size)
+    {
+        StringBuilder condition = new StringBuilder(column.length() + 8 + (size * 3));
+        condition.append('(').append(column).append(" IN (");
+        for (int i = 0; i < size; ++i)
+        {
+            condition.append((i == 0) ? "?" : ", ?");
+        }
+        condition.append("))");
+        
+        return condition.toString();
+    }
+    
+    
+    /**
+     * Binds the parameters of a <code>PreparedStatement</code> (the previous values, if any, are cleared).
+     * @param stmt prepared statement
+     * @param params values of the parameters, in order
+     * @throws SQLException
+     */
+    public static void bind(PreparedStatement stmt, Object... params) throws SQLException
+    {
+        stmt.clearParameters();
+        for (int i = 0; i < params.length; ++i)
+        {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+    
+    
+    /**
+     * Converts all the (remaining) rows of a <code>ResultSet</code> into a list of objects.
+     * @param rs result set (not closed by this method)
+     * @param mapper conversion of a row
+     * @return list of objects (never null)
+     * @throws SQLException
+     */
+    public static <T> List<T> toList(ResultSet rs, RowMapper<T> mapper) throws SQLException
+    {
+        List<T> list = new ArrayList<T>();
+        
+        if (null != rs)
+        {
+            while (rs.next())
+            {
+                list.add(mapper.mapRow(rs));
+            }
+        }
+        
+        return list;
+    }
+    
+    
+    /**
+     * Converts the next row of a <code>ResultSet</code> into an object.
+     * @param rs result set (not closed by this method)
+     * @param mapper conversion of a row
+     * @return the object built from the row, or null if there is no more row
+     * @throws SQLException
+     */
+    public static <T> T toObject(ResultSet rs, RowMapper<T> mapper) throws SQLException
+    {
+        T result = null;
+        
+        if ((null != rs) && (rs.next()))
+        {
+            result = mapper.mapRow(rs);
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Executes a query and converts all the rows returned into a list of objects.
+     * @param connection database connection
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return list of objects (never null)
+     * @throws SQLException
+     */
+    public static <T> List<T> list(Connection connection, String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        PreparedStatement stmt = prepare(connection, sql, params);
+        try
+        {
+            return toList(stmt.executeQuery(), mapper);
+        }
+        finally
+        {
+            stmt.close();   // also closes the ResultSet
+        }
+    }
+    
+    
+    /**
+     * Executes a query and converts the first row returned into an object.
+     * @param connection database connection
+     * @param sql SQL query, including place holders '?'
+     * @param mapper conversion of a row
+     * @param params values of the parameters, in order
+     * @return the object built from the first row, or null if no row is returned
+     * @throws SQLException
+     */
+    public static <T> T first(Connection connection, String sql, RowMapper<T> mapper, Object... params) throws SQLException
+    {
+        PreparedStatement stmt = prepare(connection, sql, params);
+        try
+        {
+            stmt.setMaxRows(1);
+            return toObject(stmt.executeQuery(), mapper);
+        }
+        finally
+        {
+            stmt.close();   // also closes the ResultSet
+        }
+    }
+    
+    
+    /**
+     * Executes a query and streams all the rows returned to a handler, without loading them all in memory.
+     * While the rows are streamed, no other query can be executed on the same connection.
+     * @param connection database connection
+     * @param sql SQL query, including place holders '?'
+     * @param handler processing of a row
+     * @param params values of the parameters, in order
+     * @return number of rows processed
+     * @throws SQLException
+     */
+    public static int forEach(Connection connection, String sql, RowHandler handler, Object... params) throws SQLException
+    {
+        return forEach(connection, true, sql, handler, params);
+    }
+    
+    
+    /**
+     * Executes a query and processes all the rows returned by a handler.
+     * If the rows are not streamed, they are all read by the driver before the first one is processed, so the handler
+     * (or anyone else sharing the connection, like the other DAOs of a <code>UnitOfWork</code>) can execute other queries on the same connection.
+     * @param connection database connection
+     * @param stream true to stream the rows one by one (the connection is then unusable until the last row is processed)
+     * @param sql SQL query, including place holders '?'
+     * @param handler processing of a row
+     * @param params values of the parameters, in order
+     * @return number of rows processed
+     * @throws SQLException
+     */
+    public static int forEach(Connection connection, boolean stream, String sql, RowHandler handler, Object... params) throws SQLException
+    {
+        int count = 0;
+        PreparedStatement stmt = prepare(connection, sql, params);
+        try
+        {
+            if (stream)
+            {
+                stmt.setFetchSize(Integer.MIN_VALUE);   // MySQL: streams the rows one by one
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next())
+            {
+                handler.processRow(rs);
+                count++;
+            }
+        }
+        finally
+        {
+            stmt.close();   // also closes the ResultSet
+        }
+        
+        return count;
+    }
+}
@@ -99,7 +99,7 @@ public class ServicesDao extends Dao
             stmt.setInt(1, Integer.parseInt(id));
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 service = new WebService();
                 service.setId(rs.getString("w.id"));
@@ -153,7 +153,7 @@ public class ServicesDao extends Dao
             stmt.setString(1, datatypeId);
             ResultSet rs = stmt.executeQuery();
             
-            boolean notEmpty = rs.first();
+            boolean notEmpty = rs.next();
             while (notEmpty)
             {
                 WebService temp = new WebService();
@@ -200,7 +200,7 @@ public class ServicesDao extends Dao
         {
             stmt = openStatement();
             ResultSet sqlResult = stmt.executeQuery(sql);
-            boolean notEmpty = sqlResult.first();
+            boolean notEmpty = sqlResult.next();
             while (notEmpty)
             {
                 result.add(sqlResult.getString("type"));
@@ -0,0 +1,347 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Holds the current <code>RegistrySnapshot</code> and keeps it up to date.
+ *
+ * <p>A background thread checks regularly the date of the last modification of the data collections
+ * (cf. <code>DataTypeDao.getLastModifDate()</code>): when it changes, a new snapshot is built (cf. <code>DataCollectionLoader</code>)
+ * and atomically replaces the previous one. The readers never wait: they use the snapshot available at the time
+ * (or the database if there is none yet, cf. {@link #get()}).
+ * The snapshot is also rebuilt after some time without any modification, to refresh the health of the resources.
+ *
+ * <p>The modifications notified by the <code>ChangeLog</code> (made by this node or by another one) are applied as soon as possible:
+ * only the data collections modified are reloaded, from the primary database.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class SnapshotManager
+{
+    private static Logger logger = Logger.getLogger(SnapshotManager.class);
+    private static final long MAX_AGE = 3600000;   // in milliseconds, maximum age of a snapshot (health of the resources)
+    private static final AtomicReference<RegistrySnapshot> current = new AtomicReference<RegistrySnapshot>();
+    private static ScheduledExecutorService scheduler = null;
+    private static volatile String poolName = null;
+    private static final Set<String> pending = new HashSet<String>();   // data collections waiting to be reloaded
+    private static final ChangeListener listener = new ChangeListener()
+    {
+        public void changed(String kind, Set<String> ids)
+        {
+            SnapshotManager.changed(kind, ids);
+        }
+    };
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private SnapshotManager()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Starts building and refreshing the snapshot in the background (usually called once, at start up).
+     * @param pool name of the database pool of the Registry
+     * @param interval time between two checks of the last modification date (in seconds)
+     */
+    public static synchronized void start(String pool, long interval)
+    {
+        if (null != scheduler)
+        {
+            return;
+        }
+        poolName = pool;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "registry-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    refresh();
+                }
+                catch (RuntimeException e)
+                {
+                    logger.error("Unable to refresh the snapshot of the Registry!", e);
+                }
+            }
+        }, 0, interval, TimeUnit.SECONDS);
+        ChangeLog.addListener(listener);
+        logger.info("Snapshot of the Registry checked every " + interval + " s.");
+    }
+    
+    
+    /**
+     * Stops refreshing the snapshot and forgets it (usually when the application is stopped).
+     */
+    public static synchronized void stop()
+    {
+        ChangeLog.removeListener(listener);
+        if (null != scheduler)
+        {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        current.set(null);
+    }
+    
+    
+    /**
+     * Retrieves the current snapshot of the Registry.
+     * @return the snapshot, or null if none is available (not built yet or disabled): the database needs to be queried
+     */
+    public static RegistrySnapshot get()
+    {
+        return current.get();
+    }
+    
+    
+    /**
+     * Retrieves the current snapshot of the Registry, if it has been built from the given database pool.
+     * @param pool name of the database pool used by the caller
+     * @return the snapshot, or null if none is available for this pool: the database needs to be queried
+     */
+    public static RegistrySnapshot get(String pool)
+    {
+        RegistrySnapshot snapshot = current.get();
+        
+        return ((null != snapshot) && (null != pool) && pool.equals(poolName)) ? snapshot : null;
+    }
+    
+    
+    /**
+     * Rebuilds the snapshot as soon as possible (for example after a modification of the Registry), without waiting for it.
+     */
+    public static synchronized void invalidate()
+    {
+        if (null != scheduler)
+        {
+            scheduler.execute(new Runnable()
+            {
+                public void run()
+                {
+                    build();
+                }
+            });
+        }
+    }
+    
+    
+    /**
+     * Processes some modifications of the Registry (cf. <code>ChangeListener</code>).
+     * @param kind kind of entity modified
+     * @param ids identifiers of the entities modified (null for any entity of this kind)
+     */
+    private static void changed(String kind, Set<String> ids)
+    {
+        RegistrySnapshot snapshot = current.get();
+        
+        if (ChangeLog.ANNOTATION.equals(kind) || (null == snapshot))
+        {
+            return;   // not part of the snapshot, or nothing to update yet
+        }
+        if (ChangeLog.COLLECTION.equals(kind) && (null != ids))
+        {
+            reload(ids);
+        }
+        else if (ChangeLog.TAG.equals(kind) && (null != ids))
+        {
+            Set<String> tagged = new HashSet<String>();
+            for (String tagId: ids)
+            {
+                for (SimpleDataType collection: snapshot.getSimpleDataTypesByTag(tagId))
+                {
+                    tagged.add(collection.getId());
+                }
+            }
+            if (! tagged.isEmpty())
+            {
+                reload(tagged);
+            }
+        }
+        else
+        {
+            invalidate();
+        }
+    }
+    
+    
+    /**
+     * Reloads some data collections as soon as possible, without waiting for it.
+     * The requests received before the reload starts are merged.
+     * @param ids identifiers of the data collections to reload
+     */
+    private static synchronized void reload(Set<String> ids)
+    {
+        if (null == scheduler)
+        {
+            return;
+        }
+        
+        boolean scheduled;
+        synchronized (pending)
+        {
+            scheduled = ! pending.isEmpty();
+            pending.addAll(ids);
+        }
+        if (! scheduled)
+        {
+            scheduler.execute(new Runnable()
+            {
+                public void run()
+                {
+                    Set<String> ids;
+                    synchronized (pending)
+                    {
+                        ids = new HashSet<String>(pending);
+                        pending.clear();
+                    }
+                    update(ids);
+                }
+            });
+        }
+    }
+    
+    
+    /**
+     * Checks if the snapshot is still up to date, and rebuilds it if it is not.
+     */
+    static void refresh()
+    {
+        RegistrySnapshot snapshot = current.get();
+        
+        if (null != snapshot)
+        {
+            DataTypeDao dao = new DataTypeDao(poolName);
+            Date lastModif = dao.getLastModifDate();
+            dao.clean();
+            
+            boolean modified = (null != lastModif) && (lastModif.getTime() > snapshot.getVersion().getTime());
+            boolean expired = (System.currentTimeMillis() - snapshot.getBuildDate().getTime()) > MAX_AGE;
+            if ((! modified) && (! expired))
+            {
+                return;
+            }
+        }
+        
+        build();
+    }
+    
+    
+    /**
+     * Reloads some data collections and replaces the current snapshot by an updated copy.
+     * @param ids identifiers of the data collections to reload
+     */
+    private static void update(Set<String> ids)
+    {
+        RegistrySnapshot snapshot = current.get();
+        if (null == snapshot)
+        {
+            return;   // the next check builds a complete snapshot
+        }
+        
+        long start = System.currentTimeMillis();
+        List<DataTypeHibernate> reloaded = new DataCollectionLoader(poolName).loadFromPrimary(ids);
+        if (reloaded.isEmpty())
+        {
+            build();   // most probably an error: the data collections are not removed from the snapshot
+            return;
+        }
+        snapshot = snapshot.update(ids, reloaded);
+        current.set(snapshot);
+        logger.info("Snapshot of the Registry updated in " + (System.currentTimeMillis() - start) + " ms (data collections reloaded: " + ids + ").");
+        IdentifierPatterns.audit(snapshot);
+    }
+    
+    
+    /**
+     * Builds a new snapshot and replaces the current one.
+     * The version of the snapshot is computed from the data actually loaded: if it comes from a lagging replica, it will be rebuilt again later.
+     */
+    private static void build()
+    {
+        long start = System.currentTimeMillis();
+        List<DataTypeHibernate> collections = new DataCollectionLoader(poolName).loadAll();
+        
+        if (collections.isEmpty())
+        {
+            logger.warn("No data collection loaded: the snapshot of the Registry is not updated.");
+            return;
+        }
+        
+        RegistrySnapshot snapshot = new RegistrySnapshot(collections);
+        current.set(snapshot);
+        logger.info("Snapshot of the Registry built in " + (System.currentTimeMillis() - start) + " ms (" + collections.size() + " data collections, last modification: " + snapshot.getVersion() + ").");
+        IdentifierPatterns.audit(snapshot);   // only the new patterns
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * <p>Catalogue of the named, parameterised queries used by the data access objects.
+ *
+ * <p>Each query is always sent with exactly the same text (the values are bound to the place holders '?'), which allows the
+ * driver to cache and reuse the server-side prepared statement of each connection (cf. <code>cachePrepStmts</code> and
+ * <code>useServerPrepStmts</code> in the configuration of the <code>jdbc/miriam</code> pool). It also keeps the user input
+ * away from the SQL text.
+ *
+ * <p>Every execution is counted, per query, for monitoring purposes (cf. <code>/debug</code>).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public enum SqlQuery
+{
+    // existence of a data collection (public registry)
+    DATATYPE_NAME_EXISTS("SELECT name FROM mir_datatype WHERE (name=?)"),
+    SYNONYM_NAME_EXISTS("SELECT name FROM mir_synonym WHERE (name=?)"),
+    URI_PAIR_EXISTS("SELECT uri FROM mir_uri WHERE ((uri=?) OR (uri=?))"),
+    URI_EXISTS("SELECT uri FROM mir_uri WHERE (uri=?)"),
+    
+    // existence of a data collection (curation pipeline)
+    CURA_DATATYPE_NAME_EXISTS("SELECT name FROM cura_datatype WHERE (name=?)"),
+    CURA_SYNONYM_NAME_EXISTS("SELECT name FROM cura_synonym WHERE (name=?)"),
+    CURA_URI_PAIR_EXISTS("SELECT uri FROM cura_uri WHERE ((uri=?) OR (uri=?))"),
+    CURA_URI_EXISTS("SELECT uri FROM cura_uri WHERE (uri=?)"),
+    
+    // details of a data collection
+    DATATYPE_NAME_BY_ID("SELECT name FROM mir_datatype WHERE (datatype_id=?)"),
+    DATATYPE_ID_BY_NAME("SELECT datatype_id FROM mir_datatype WHERE (name=?)"),
+    DATATYPE_BY_ID("SELECT * FROM mir_datatype WHERE (datatype_id=?)"),
+    DATATYPE_SYNONYMS("SELECT ms.name FROM mir_datatype md, mir_synonym ms WHERE ((ms.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?))"),
+    DATATYPE_OFFICIAL_URL("SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?) AND (mu.uri_type = 'URL') AND (mu.deprecated = '0'))"),
+    DATATYPE_OFFICIAL_URN("SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?) AND (mu.uri_type = 'URN') AND (mu.deprecated = '0'))"),
+    DATATYPE_DEPRECATED_URIS("SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?) AND (mu.deprecated = '1'))"),
+    DATATYPE_DEPRECATED_URNS("SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?) AND (mu.deprecated = '1') AND (mu.uri_type = 'URN'))"),
+    DATATYPE_DEPRECATED_URLS("SELECT mu.uri FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?) AND (mu.deprecated = '1') AND (mu.uri_type = 'URL'))"),
+    DATATYPE_URIS("SELECT mu.uri, mu.uri_type, mu.convertPrefix, mu.deprecated FROM mir_datatype md, mir_uri mu WHERE ((mu.ptr_datatype = md.datatype_id) AND (md.datatype_id = ?))"),
+    DATATYPE_RESTRICTIONS("SELECT t.id AS rid, t.id AS tid, r.desc, r.link, r.link_text, t.short_desc, t.long_desc FROM mir_restriction r, mir_restriction_type t WHERE ((r.ptr_datatype = ?) AND (r.ptr_restriction = t.id))"),
+    DATATYPE_RESOURCES("SELECT mr.resource_id, mr.url_element_prefix, mr.url_element_suffix, mr.url_resource, mr.info, mr.institution, mr.location, mr.example, mr.obsolete, mr.official, mr.convertPrefix FROM mir_datatype mdt, mir_resource mr WHERE ((mr.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = ?))"),
+    DATATYPE_DOC_URLS("SELECT md.uri FROM mir_datatype mdt, mir_doc md WHERE ((md.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = ?) AND (md.ptr_type = 'data') AND (md.uri_type = 'URL'))"),
+    DATATYPE_DOC_IDS("SELECT md.uri, md.uri_type FROM mir_datatype mdt, mir_doc md WHERE ((md.ptr_datatype = mdt.datatype_id) AND (mdt.datatype_id = ?) AND (md.ptr_type = 'data') AND (md.uri_type != 'URL'))"),
+    DATATYPE_DATE_CREATION("SELECT date_creation FROM mir_datatype WHERE (datatype_id=?)"),
+    DATATYPE_DATE_MODIF("SELECT date_modif FROM mir_datatype WHERE (datatype_id=?)"),
+    DATATYPE_TAGS("SELECT t.id, t.tag, t.info FROM mir_tag t, mir_tag_link l WHERE ((l.ptr_datatype=?) AND (l.ptr_tag=t.id))"),
+    DATATYPE_RESOURCE_URL_PARTS("SELECT url_element_prefix, url_element_suffix FROM mir_resource WHERE (ptr_datatype=?)"),
+    DATATYPE_RESOURCES_ALL_FIELDS("SELECT * FROM mir_resource WHERE (ptr_datatype=?)"),
+    
+    // details of a resource
+    RESOURCE_HEALTH("SELECT * FROM mir_url_check WHERE (resource_id=?)"),
+    RESOURCE_FORMATS("SELECT * FROM mir_res_formats WHERE (ptr_resource=?)"),
+    
+    // tags
+    TAG_NAME_BY_ID("SELECT tag FROM mir_tag WHERE (id=?)"),
+    TAG_BY_ID("SELECT id, tag, info FROM mir_tag WHERE (id=?)"),
+    TAG_ID_BY_NAME("SELECT id FROM mir_tag WHERE (tag=?)"),
+    TAG_BY_NAME("SELECT id, tag, info FROM mir_tag WHERE (tag=?)"),
+    TAG_DATATYPES("SELECT d.datatype_id, d.name, d.definition FROM mir_datatype d, mir_tag_link l WHERE ((l.ptr_tag=?) AND (d.datatype_id=l.ptr_datatype)) ORDER BY d.name"),
+    TAG_LINK_EXISTS("SELECT id FROM mir_tag_link WHERE ((ptr_tag=?) AND (ptr_datatype=?))"),
+    TAG_LINK_INSERT("INSERT INTO mir_tag_link (ptr_tag, ptr_datatype) VALUES (?, ?)"),
+    TAG_LINK_DELETE("DELETE FROM mir_tag_link WHERE ((ptr_datatype=?) AND (ptr_tag=?))"),
+    TAG_INSERT("INSERT INTO mir_tag (id, tag, info) VALUES (?, ?, ?)"),
+    TAG_UPDATE("UPDATE mir_tag SET tag=?, info=? WHERE (id=?)"),
+    
+    // examples of annotation
+    ANNOTATION_BY_ID("SELECT id, name, information, format FROM mir_annotation WHERE (id=?)"),
+    
+    // log of the modifications (invalidation of the caches of all the nodes)
+    CHANGE_CREATE_TABLE("CREATE TABLE IF NOT EXISTS mir_change_log (change_id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT, kind VARCHAR(16) NOT NULL, entity_id VARCHAR(64) NULL, node VARCHAR(64) NOT NULL, date_change DATETIME NOT NULL, PRIMARY KEY (change_id), KEY (date_change)) ENGINE=MyISAM"),
+    CHANGE_INSERT("INSERT INTO mir_change_log (kind, entity_id, node, date_change) VALUES (?, ?, ?, NOW())"),
+    CHANGE_LAST_ID("SELECT MAX(change_id) FROM mir_change_log"),
+    CHANGE_SINCE("SELECT change_id, kind, entity_id, node FROM mir_change_log WHERE (change_id > ?) ORDER BY change_id LIMIT ?"),
+    CHANGE_PURGE("DELETE FROM mir_change_log WHERE (date_change < DATE_SUB(NOW(), INTERVAL ? HOUR))"),
+    
+    // XML export
+    EXPORT_COLLECTIONS("SELECT datatype_id, name, definition, pattern, obsolete, obsolete_comment, replacement, restriction, date_creation, date_modif FROM mir_datatype ORDER BY datatype_id"),
+    EXPORT_PROJECT_COLLECTIONS("SELECT d.datatype_id, d.name, d.definition, d.pattern, d.obsolete, d.obsolete_comment, d.replacement, d.restriction, m.ptr_preferred_resource FROM mir_datatype d, mir_profiles p, mir_my_miriam m WHERE ((p.shortname = ?) AND (p.id = m.ptr_my_project) AND (m.ptr_datatype = d.datatype_id)) ORDER BY d.datatype_id"),
+    EXPORT_SYNONYMS("SELECT ptr_datatype, name FROM mir_synonym ORDER BY ptr_datatype"),
+    EXPORT_URIS("SELECT ptr_datatype, uri, uri_type, deprecated FROM mir_uri ORDER BY ptr_datatype"),
+    EXPORT_DATATYPE_DOCS("SELECT ptr_datatype, uri, uri_type FROM mir_doc WHERE (ptr_type = 'data') ORDER BY ptr_datatype"),
+    EXPORT_RESOURCES("SELECT r.ptr_datatype, r.obsolete, r.resource_id, r.url_element_prefix, r.url_element_suffix, r.url_resource, r.info, r.institution, r.location, r.`example`, r.official, c.resource_id AS checked, c.uptime, c.downtime, c.state FROM mir_resource r LEFT JOIN mir_url_check c ON (c.resource_id = r.resource_id) ORDER BY r.ptr_datatype, r.obsolete, r.resource_id"),
+    EXPORT_RESOURCE_DOCS("SELECT r.ptr_datatype, r.obsolete, r.resource_id, d.uri, d.uri_type FROM mir_doc d, mir_resource r WHERE ((d.ptr_type = 'loc') AND (d.ptr_resource = r.resource_id)) ORDER BY r.ptr_datatype, r.obsolete, r.resource_id"),
+    EXPORT_RESTRICTIONS("SELECT r.ptr_datatype, t.id, t.short_desc, r.`desc`, r.link, r.link_text FROM mir_restriction r, mir_restriction_type t WHERE (r.ptr_restriction = t.id) ORDER BY r.ptr_datatype"),
+    EXPORT_TAGS("SELECT l.ptr_datatype, t.tag FROM mir_tag t, mir_tag_link l WHERE (t.id = l.ptr_tag) ORDER BY l.ptr_datatype, t.tag"),
+    EXPORT_ANNOTATIONS("SELECT link.ptr_datatype, anno.format, anno.name FROM mir_annotation anno, mir_anno_link link WHERE (link.ptr_annotation = anno.id) ORDER BY link.ptr_datatype, anno.format"),
+    EXPORT_TAG_DEFINITIONS("SELECT DISTINCT t.tag, t.info FROM mir_tag t, mir_tag_link l WHERE (t.id = l.ptr_tag) ORDER BY t.tag");
+    
+    
+    private final String sql;
+    private final AtomicLong executions = new AtomicLong();
+    
+    
+    /**
+     * Constructor.
+     * @param sql SQL query, including place holders '?'
+     */
+    private SqlQuery(String sql)
+    {
+        this.sql = sql;
+    }
+    
+    
+    /**
+     * Getter of the SQL text of the query.
+     * @return SQL query, including place holders '?'
+     */
+    public String getSql()
+    {
+        return this.sql;
+    }
+    
+    
+    /**
+     * Returns how many times the query has been executed since the application started.
+     * @return number of executions
+     */
+    public long getExecutionCount()
+    {
+        return this.executions.get();
+    }
+    
+    
+    /**
+     * Records one execution of the query.
+     */
+    void executed()
+    {
+        this.executions.incrementAndGet();
+    }
+    
+    
+    /**
+     * Creates a (forward-only, read-only) <code>PreparedStatement</code> for this query, binds its parameters and records the execution.
+     * The caller is expected to execute the statement once and to close it afterwards.
+     * @param connection database connection
+     * @param params values of the parameters, in order
+     * @return PreparedStatement ready to be executed
+     * @throws SQLException
+     */
+    PreparedStatement prepare(Connection connection, Object... params) throws SQLException
+    {
+        PreparedStatement stmt = Rows.prepare(connection, this, params);
+        executed();
+        
+        return stmt;
+    }
+    
+    
+    /**
+     * Returns a summary of the number of executions of each query (one query per line, unused ones omitted).
+     * @return summary of the executions
+     */
+    public static String getExecutionSummary()
+    {
+        StringBuilder summary = new StringBuilder();
+        
+        for (SqlQuery query: values())
+        {
+            long count = query.getExecutionCount();
+            if (count > 0)
+            {
+                summary.append(query.name()).append(": ").append(count).append("\n");
+            }
+        }
+        
+        return summary.toString();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * <p>Deduplicates the strings read from the database: every distinct value is kept only once
+ * (for example the institutions and locations of the resources, or the types of URIs, which are repeated on many rows).
+ *
+ * <p>Unlike <code>String.intern()</code>, the values are only kept as long as the pool itself (usually the loading of the data collections),
+ * and not in the permanent generation. Not thread safe.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class StringPool
+{
+    private final Map<String, String> values = new HashMap<String, String>();
+    
+    
+    /**
+     * Retrieves the canonical instance of a string.
+     * @param value string (can be null)
+     * @return the instance of the string already in the pool, if any, the given string otherwise (null if the value is null)
+     */
+    public String get(String value)
+    {
+        if (null == value)
+        {
+            return null;
+        }
+        
+        String canonical = this.values.get(value);
+        if (null == canonical)
+        {
+            this.values.put(value, value);
+            canonical = value;
+        }
+        
+        return canonical;
+    }
+    
+    
+    /**
+     * Getter of the number of distinct strings in the pool.
+     * @return number of distinct strings
+     */
+    public int size()
+    {
+        return this.values.size();
+    }
+    
+    
+    /**
+     * Empties the pool.
+     */
+    public void clear()
+    {
+        this.values.clear();
+    }
+}
@@ -69,9 +69,9 @@ public class Tag
      */
     public Tag()
     {
-        this.id = new String();
-        this.name = new String();
-        this.info = new String();
+        this.id = "";
+        this.name = "";
+        this.info = "";
     }
     
     
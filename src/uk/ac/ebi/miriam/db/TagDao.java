@@ -39,6 +39,7 @@ import org.apache.log4j.Logger;
 
 /**
  * <p>Handles all the database connections for the retrieval, upgrade and addition of tags.
+ * The tags of a data collection, and the data collections of a tag, are read from the <code>RegistrySnapshot</code> if there is one.
  * 
  * <p>TODO: the creation of a new tag is not thread safe!
  * 
@@ -193,14 +194,19 @@ public class TagDao extends Dao
      */
     public List<Tag> retrieveTags(String id)
     {
-        Statement stmt = null;
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getTags(id);
+        }
+        
+        PreparedStatement stmt = null;
         List<Tag> result = new ArrayList<Tag>();
-        String sql = "SELECT t.id, t.tag, t.info FROM mir_tag t, mir_tag_link l WHERE ((l.ptr_datatype='" + id + "') AND (l.ptr_tag=t.id))";
         
         try
         {
-            stmt = openStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+            stmt = openReadOnlyPreparedStatement(SqlQuery.DATATYPE_TAGS, id);
+            ResultSet rs = stmt.executeQuery();
             
             boolean notEmpty = rs.next();
             while (notEmpty)
@@ -221,7 +227,7 @@ public class TagDao extends Dao
         }
         finally
         {
-            closeStatement(stmt);
+            closePreparedStatement(stmt);
         }
         
         return result;
@@ -254,16 +260,14 @@ public class TagDao extends Dao
     {
         PreparedStatement stmt = null;
         boolean result = false;
-        String sql = "SELECT tag FROM mir_tag WHERE (id=?)";
         
         try
         {
-            stmt = openPreparedStatement(sql);
-            stmt.setString(1, id);
+            stmt = openPreparedStatement(SqlQuery.TAG_NAME_BY_ID, id);
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = true;
             }
@@ -290,19 +294,18 @@ public class TagDao extends Dao
      */
     public Tag getTagFromId(String id)
     {
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         Tag tag = null;
         
         // a tag with this id exists in the database
         if (exists(id))
         {
-            String sql = "SELECT id, tag, info FROM mir_tag WHERE (id='" + id + "')";
             try
             {
-                stmt = openStatement();
-                ResultSet rs = stmt.executeQuery(sql);
+                stmt = openReadOnlyPreparedStatement(SqlQuery.TAG_BY_ID, id);
+                ResultSet rs = stmt.executeQuery();
                 
-                if (rs.first())
+                if (rs.next())
                 {
                     String identifier = rs.getString("id");
                     String name = rs.getString("tag");
@@ -321,7 +324,7 @@ public class TagDao extends Dao
             }
             finally
             {
-                closeStatement(stmt);
+                closePreparedStatement(stmt);
             }
         }
         
@@ -337,16 +340,21 @@ public class TagDao extends Dao
      */
     public List<SimpleDataType> getDataTypesFromTagId(String id)
     {
-        Statement stmt = null;
+        RegistrySnapshot snapshot = SnapshotManager.get(getPoolName());
+        if (null != snapshot)
+        {
+            return snapshot.getSimpleDataTypesByTag(id);
+        }
+        
+        PreparedStatement stmt = null;
         List<SimpleDataType> result = new ArrayList<SimpleDataType>();
         
         if (exists(id))
         {
-            String sql = "SELECT d.datatype_id, d.name, d.definition FROM mir_datatype d, mir_tag_link l WHERE ((l.ptr_tag='" + id + "') AND (d.datatype_id=l.ptr_datatype)) ORDER BY d.name";
             try
             {
-                stmt = openStatement();
-                ResultSet rs = stmt.executeQuery(sql);
+                stmt = openReadOnlyPreparedStatement(SqlQuery.TAG_DATATYPES, id);
+                ResultSet rs = stmt.executeQuery();
                 
                 boolean notEmpty = rs.next();
                 while (notEmpty)
@@ -371,7 +379,7 @@ public class TagDao extends Dao
             }
             finally
             {
-                closeStatement(stmt);
+                closePreparedStatement(stmt);
             }
         }
         
@@ -458,18 +466,17 @@ public class TagDao extends Dao
      */
     public boolean removeTag(String tag, String dataType)
     {
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         boolean exists = false;
         boolean success = false;
         
         // test if the association to remove actually exists
-        String sql = "SELECT id FROM mir_tag_link WHERE ((ptr_tag='" + tag + "') AND (ptr_datatype='" + dataType + "'))";
         try
         {
-            stmt = openStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+            stmt = openPreparedStatement(SqlQuery.TAG_LINK_EXISTS, tag, dataType);
+            ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 exists = true;
             }
@@ -481,23 +488,23 @@ public class TagDao extends Dao
         }
         finally
         {
-            closeStatement(stmt);
+            closePreparedStatement(stmt);
         }
         
         // the association exists, therefore we can remove it
         if (exists)
         {
-            String sql2 = "DELETE FROM mir_tag_link WHERE ((ptr_datatype='" + dataType + "') AND (ptr_tag='" + tag + "'))";
             try
             {
-                stmt = openStatement();
-                int state = stmt.executeUpdate(sql2);
+                stmt = openPreparedStatement(SqlQuery.TAG_LINK_DELETE, dataType, tag);
+                int state = stmt.executeUpdate();
                 logger.info("Result of the deletion of the association " + dataType + "/" + tag + ": " + state);
                 
                 // success
                 if (state == 1)
                 {
                     success = true;
+                    ChangeLog.record(getPoolName(), ChangeLog.COLLECTION, dataType);
                 }
             }
             catch (SQLException e)
@@ -507,7 +514,7 @@ public class TagDao extends Dao
             }
             finally
             {
-                closeStatement(stmt);
+                closePreparedStatement(stmt);
             }
         }
         
@@ -523,19 +530,18 @@ public class TagDao extends Dao
      */
     public String getTagName(String tagId)
     {
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         String tagName = null;
         
         // a tag with this id exists in the database
         if (exists(tagId))
         {
-            String sql = "SELECT tag FROM mir_tag WHERE (id='" + tagId + "')";
             try
             {
-                stmt = openStatement();
-                ResultSet rs = stmt.executeQuery(sql);
+                stmt = openReadOnlyPreparedStatement(SqlQuery.TAG_NAME_BY_ID, tagId);
+                ResultSet rs = stmt.executeQuery();
                 
-                if (rs.first())
+                if (rs.next())
                 {
                     tagName = rs.getString("tag");
                 }
@@ -551,7 +557,7 @@ public class TagDao extends Dao
             }
             finally
             {
-                closeStatement(stmt);
+                closePreparedStatement(stmt);
             }
         }
         
@@ -575,7 +581,7 @@ public class TagDao extends Dao
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = rs.getInt("result");
             }
@@ -608,16 +614,13 @@ public class TagDao extends Dao
         boolean existing = false;
         
         // checks if the association doesn't exist already
-        String sql1 = "SELECT id FROM mir_tag_link WHERE ((ptr_tag=?) AND (ptr_datatype=?))";
         try
         {
-            stmt1 = openPreparedStatement(sql1);
-            stmt1.setString(1, tagId);
-            stmt1.setString(2, dataTypeId);
+            stmt1 = openPreparedStatement(SqlQuery.TAG_LINK_EXISTS, tagId, dataTypeId);
             logger.debug("SQL prepared query: " + stmt1.toString());
             ResultSet rs = stmt1.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 existing = true;
             }
@@ -635,15 +638,13 @@ public class TagDao extends Dao
         // creates the new association
         if (! existing)
         {
-            String sql2 = "INSERT INTO mir_tag_link (ptr_tag, ptr_datatype) VALUES (?, ?)";
             try
             {
-                stmt2 = openPreparedStatement(sql2);
-                stmt2.setString(1, tagId);
-                stmt2.setString(2, dataTypeId);
+                stmt2 = openPreparedStatement(SqlQuery.TAG_LINK_INSERT, tagId, dataTypeId);
                 logger.debug("SQL prepared query: " + stmt2.toString());
                 stmt2.executeUpdate();
                 state = true;
+                ChangeLog.record(getPoolName(), ChangeLog.COLLECTION, dataTypeId);
             }
             catch (SQLException e)
             {
@@ -669,16 +670,14 @@ public class TagDao extends Dao
     {
         PreparedStatement stmt = null;
         boolean result = false;
-        String sql = "SELECT id FROM mir_tag WHERE (tag=?)";
         
         try
         {
-            stmt = openPreparedStatement(sql);
-            stmt.setString(1, tag);
+            stmt = openPreparedStatement(SqlQuery.TAG_ID_BY_NAME, tag);
             logger.debug("SQL prepared query: " + stmt.toString());
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.first())
+            if (rs.next())
             {
                 result = true;
             }
@@ -705,7 +704,6 @@ public class TagDao extends Dao
     {
         PreparedStatement stmt = null;
         Tag tag = null;
-        String sql = "SELECT id, tag, info FROM mir_tag WHERE (tag=?)";
         
         if (null != name)
         {
@@ -713,12 +711,11 @@ public class TagDao extends Dao
             
             try
             {
-                stmt = openPreparedStatement(sql);
-                stmt.setString(1, name);
+                stmt = openReadOnlyPreparedStatement(SqlQuery.TAG_BY_NAME, name);
                 logger.debug("SQL prepared query: " + stmt.toString());
                 ResultSet rs = stmt.executeQuery();
                 
-                if (rs.first())
+                if (rs.next())
                 {
                     String identifier = rs.getString("id");
                     String tagName = rs.getString("tag");
@@ -751,7 +748,6 @@ public class TagDao extends Dao
     {
         PreparedStatement stmt = null;
         boolean result = false;
-        String sql = "INSERT INTO mir_tag (id, tag, info) VALUES (?, ?, ?)";
         
         if ((null != name) && (null != definition))
         {
@@ -760,13 +756,12 @@ public class TagDao extends Dao
             
             try
             {
-                stmt = openPreparedStatement(sql);
-                stmt.setString(1, generateId());
-                stmt.setString(2, name);
-                stmt.setString(3, definition);
+                String id = generateId();
+                stmt = openPreparedStatement(SqlQuery.TAG_INSERT, id, name, definition);
                 logger.debug("SQL prepared query: " + stmt.toString());
                 stmt.executeUpdate();
                 result = true;
+                ChangeLog.record(getPoolName(), ChangeLog.TAG, id);
             }
             catch (SQLException e)
             {
@@ -800,7 +795,7 @@ public class TagDao extends Dao
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
             
-            if (rs.first())
+            if (rs.next())
             {
                 String lastId = rs.getString("maxId");
                 String subLastId = lastId.substring(7);
@@ -879,7 +874,7 @@ public class TagDao extends Dao
             stmt = openStatement();
             ResultSet rs = stmt.executeQuery(sql);
             
-            if (rs.first())
+            if (rs.next())
             {
                 nb = rs.getInt("number");
             }
@@ -903,15 +898,10 @@ public class TagDao extends Dao
     {
         PreparedStatement stmt = null;
         int state = 0;   // default value: failure
-        String sql = null;
-        sql = "UPDATE mir_tag SET tag=?, info=? WHERE (id=?)";
         
         try
         {
-            stmt = openPreparedStatement(sql);
-            stmt.setString(1, tag.getName());
-            stmt.setString(2, tag.getInfo());
-            stmt.setString(3, tag.getId());
+            stmt = openPreparedStatement(SqlQuery.TAG_UPDATE, tag.getName(), tag.getInfo(), tag.getId());
             logger.debug("SQL prepared query: " + stmt.toString());
             state = stmt.executeUpdate();
         }
@@ -941,6 +931,11 @@ public class TagDao extends Dao
         dataDao.clean();
         */
         
+        if (state == 1)
+        {
+            ChangeLog.record(getPoolName(), ChangeLog.TAG, tag.getId());   // the data collections linked are reloaded by the caches
+        }
+        
         return (state == 1);
     }
     
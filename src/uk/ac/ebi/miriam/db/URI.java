@@ -57,7 +57,7 @@ package uk.ac.ebi.miriam.db;
  */
 public class URI implements Comparable <URI>{
     public enum URItype {URN, URL};
-    private String value = new String();
+    private String value = "";
     private URItype type = URItype.URL;
     private String convertPrefix = "";
     // three allowed values on deprecated field (hack to sort out official uri issue)
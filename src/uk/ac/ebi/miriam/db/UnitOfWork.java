@@ -0,0 +1,203 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.log4j.Logger;
+
+
+/**
+ * <p>Unit of work bound to the thread processing a request.
+ *
+ * <p>While a unit of work is active, all the DAOs (<code>Dao</code>, <code>DbPoolConnect</code>) and the
+ * <code>ServletTemplate</code> share at most one connection per database pool, checked out the first time it is needed.
+ * The connections are only returned to the pool when the unit of work ends (cf. <code>UnitOfWorkFilter</code>).
+ * The read-only queries can use a separate connection, from the read replica of the pool (cf. {@link #getReadContext(String)}).
+ *
+ * <p>Usage:
+ * <pre>
+ * boolean started = UnitOfWork.begin("my process");
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     if (started)
+ *     {
+ *         UnitOfWork.end();
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class UnitOfWork
+{
+    private static Logger logger = Logger.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<UnitOfWork>();
+    private final String owner;
+    private static final String READ_SUFFIX = "#read";
+    private final Map<String, ConnectionContext> contexts = new HashMap<String, ConnectionContext>(4);
+    
+    
+    /**
+     * Constructor.
+     * @param owner name of the process (for example the URI of the request), only used in the logs
+     */
+    private UnitOfWork(String owner)
+    {
+        this.owner = owner;
+    }
+    
+    
+    /**
+     * Starts a unit of work for the current thread, unless one is already active.
+     * @param owner name of the process (for example the URI of the request), only used in the logs
+     * @return true if a new unit of work has been started (the caller is then responsible for calling {@link #end()})
+     */
+    public static boolean begin(String owner)
+    {
+        if (null != current.get())
+        {
+            return false;
+        }
+        current.set(new UnitOfWork(owner));
+        
+        return true;
+    }
+    
+    
+    /**
+     * Ends the unit of work of the current thread: all the connections it holds are returned to the pool.
+     */
+    public static void end()
+    {
+        UnitOfWork work = current.get();
+        current.remove();
+        
+        if (null != work)
+        {
+            for (ConnectionContext context: work.contexts.values())
+            {
+                context.release();
+            }
+            work.contexts.clear();
+        }
+    }
+    
+    
+    /**
+     * Checks if a unit of work is active for the current thread.
+     * @return true if a unit of work is active
+     */
+    public static boolean isActive()
+    {
+        return (null != current.get());
+    }
+    
+    
+    /**
+     * Retrieves the connection context shared by the current unit of work for a given pool.
+     * The connection is only checked out from the pool when first used.
+     * @param poolName name of the database pool
+     * @return the shared context, or null if there is no active unit of work
+     */
+    public static ConnectionContext getContext(String poolName)
+    {
+        UnitOfWork work = current.get();
+        ConnectionContext context = null;
+        
+        if (null != work)
+        {
+            context = work.contexts.get(poolName);
+            if (null == context)
+            {
+                context = new ConnectionContext(poolName, work.owner);
+                work.contexts.put(poolName, context);
+                logger.debug("Unit of work '" + work.owner + "' uses the pool '" + poolName + "'.");
+            }
+        }
+        
+        return context;
+    }
+    
+    
+    /**
+     * Retrieves the connection context shared by the current unit of work for the read-only queries on a given pool.
+     * Once the unit of work has used the primary connection of the pool (which may have been used for updates), the
+     * read-only queries use it as well, so that they always see the changes made during the same request.
+     * @param poolName name of the database pool
+     * @return the shared context, or null if there is no active unit of work
+     */
+    public static ConnectionContext getReadContext(String poolName)
+    {
+        UnitOfWork work = current.get();
+        ConnectionContext context = null;
+        
+        if (null != work)
+        {
+            context = work.contexts.get(poolName);
+            if ((null == context) || (! context.isConnected()))
+            {
+                context = work.contexts.get(poolName + READ_SUFFIX);
+                if (null == context)
+                {
+                    context = new ConnectionContext(poolName, work.owner, true);
+                    work.contexts.put(poolName + READ_SUFFIX, context);
+                    logger.debug("Unit of work '" + work.owner + "' uses the pool '" + poolName + "' for read-only queries.");
+                }
+            }
+        }
+        
+        return context;
+    }
+}
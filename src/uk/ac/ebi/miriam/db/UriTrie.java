@@ -0,0 +1,362 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.db;
+
+
+import java.util.Arrays;
+
+
+/**
+ * <p>Prefix tree of all the URIs (official and deprecated, URNs and URLs) of the data collections and of the prefixes of the physical
+ * locations of their resources, used to resolve any URI, of a data collection or of an entity, in a single walk.
+ *
+ * <p>The longest known prefix wins, as long as it is followed by a valid separator: ':' after a URN, '#' after a URL
+ * (or nothing if the URL already ends with '/'), the identifier itself after the prefix of a resource.
+ * For example 'urn:miriam:obo.go:GO:0045202' gives the Gene Ontology and the identifier 'GO:0045202', where splitting at the last ':' would fail.
+ *
+ * <p>The tree is built once, then only read (cf. <code>RegistrySnapshot</code>): a lookup doesn't lock nor allocate anything, apart from its result.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class UriTrie
+{
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private final Node root = new Node();
+    private int size = 0;
+    
+    
+    /**
+     * Adds a URN of a data collection (the first data collection added for a given URI wins).
+     * @param urn URN (for example: 'urn:miriam:uniprot')
+     * @param collection data collection
+     * @param deprecated whether the URN is deprecated
+     */
+    void addUrn(String urn, DataCollection collection, boolean deprecated)
+    {
+        add(urn, new Target(Target.URN, collection, null, deprecated));
+    }
+    
+    
+    /**
+     * Adds a URL of a data collection (the first data collection added for a given URI wins).
+     * @param url URL (for example: 'http://identifiers.org/uniprot/')
+     * @param collection data collection
+     * @param deprecated whether the URL is deprecated
+     */
+    void addUrl(String url, DataCollection collection, boolean deprecated)
+    {
+        add(url, new Target(Target.URL, collection, null, deprecated));
+    }
+    
+    
+    /**
+     * Adds the prefix of the physical locations of a resource (ignored if the prefix is already known).
+     * @param resource resource
+     * @param collection data collection of the resource
+     */
+    void addResource(Resource resource, DataCollection collection)
+    {
+        add(resource.getUrl_prefix(), new Target(Target.RESOURCE, collection, resource, false));
+    }
+    
+    
+    /**
+     * Returns the number of prefixes stored.
+     * @return number of URIs and prefixes of resources
+     */
+    public int size()
+    {
+        return this.size;
+    }
+    
+    
+    /**
+     * Resolves a URI, of a data collection or of an entity.
+     * @param uri URI (for example: 'urn:miriam:obo.go:GO%3A0045202', 'http://identifiers.org/obo.go/' or 'http://www.ebi.ac.uk/QuickGO/GTerm?id=GO:0045202')
+     * @return the result of the resolution, or null if no prefix of the URI is known
+     */
+    public Match resolve(String uri)
+    {
+        if ((null == uri) || (uri.length() == 0))
+        {
+            return null;
+        }
+        
+        Node node = this.root;
+        Target best = null;
+        int bestEnd = 0;
+        int length = uri.length();
+        for (int i = 0; i < length; ++i)
+        {
+            node = node.child(uri.charAt(i));
+            if (null == node)
+            {
+                break;
+            }
+            if ((null != node.target) && node.target.accepts(uri, i + 1))
+            {
+                best = node.target;
+                bestEnd = i + 1;
+            }
+        }
+        
+        return (null == best) ? null : new Match(best, uri, bestEnd);
+    }
+    
+    
+    /**
+     * Adds a prefix.
+     */
+    private void add(String prefix, Target target)
+    {
+        if ((null == prefix) || (prefix.length() == 0))
+        {
+            return;
+        }
+        
+        Node node = this.root;
+        for (int i = 0; i < prefix.length(); ++i)
+        {
+            node = node.getOrCreateChild(prefix.charAt(i));
+        }
+        if (null == node.target)
+        {
+            node.target = target;
+            this.size++;
+        }
+    }
+    
+    
+    /**
+     * Node of the tree: the children are stored in arrays ordered by character.
+     */
+    private static final class Node
+    {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Target target = null;
+        
+        private Node child(char c)
+        {
+            int index = Arrays.binarySearch(this.keys, c);
+            return (index < 0) ? null : this.children[index];
+        }
+        
+        private Node getOrCreateChild(char c)
+        {
+            int index = Arrays.binarySearch(this.keys, c);
+            if (index >= 0)
+            {
+                return this.children[index];
+            }
+            
+            index = -(index + 1);
+            char[] keys = new char[this.keys.length + 1];
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.children, 0, children, 0, index);
+            System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+            System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+            keys[index] = c;
+            children[index] = new Node();
+            this.keys = keys;
+            this.children = children;
+            
+            return children[index];
+        }
+    }
+    
+    
+    /**
+     * What a prefix stands for.
+     */
+    private static final class Target
+    {
+        private static final int URN = 0;
+        private static final int URL = 1;
+        private static final int RESOURCE = 2;
+        private final int type;
+        private final DataCollection collection;
+        private final Resource resource;
+        private final boolean deprecated;
+        
+        private Target(int type, DataCollection collection, Resource resource, boolean deprecated)
+        {
+            this.type = type;
+            this.collection = collection;
+            this.resource = resource;
+            this.deprecated = deprecated;
+        }
+        
+        /**
+         * Checks if the prefix can end at a given position of a URI.
+         */
+        private boolean accepts(String uri, int end)
+        {
+            if (end == uri.length())
+            {
+                return (RESOURCE != this.type);
+            }
+            
+            char next = uri.charAt(end);
+            switch (this.type)
+            {
+                case URN:
+                    return (':' == next);
+                case URL:
+                    return ('#' == next) || ('/' == uri.charAt(end - 1));
+                default:
+                    return true;
+            }
+        }
+    }
+    
+    
+    /**
+     * Result of the resolution of a URI.
+     */
+    public static final class Match
+    {
+        private final Target target;
+        private final String uri;
+        private final int end;
+        
+        private Match(Target target, String uri, int end)
+        {
+            this.target = target;
+            this.uri = uri;
+            this.end = end;
+        }
+        
+        /**
+         * Returns the data collection the URI belongs to (shared object of the snapshot, only used within this package).
+         * @return data collection
+         */
+        DataCollection getCollection()
+        {
+            return this.target.collection;
+        }
+        
+        /**
+         * Returns the resource whose prefix matched, if the URI is a physical location.
+         * @return resource (shared object of the snapshot, only used within this package), or null if the URI is a URN or a URL of the data collection
+         */
+        Resource getResource()
+        {
+            return this.target.resource;
+        }
+        
+        /**
+         * Returns the known URI (or prefix of a resource) which matched.
+         * @return prefix of the resolved URI
+         */
+        public String getPrefix()
+        {
+            return this.uri.substring(0, this.end);
+        }
+        
+        /**
+         * Returns the official URI (URN) of the data collection.
+         * @return official URN
+         */
+        public String getOfficialUri()
+        {
+            return this.target.collection.getURN();
+        }
+        
+        /**
+         * Checks if the URI which matched is deprecated.
+         * @return true if the URI of the data collection is deprecated
+         */
+        public boolean isDeprecated()
+        {
+            return this.target.deprecated;
+        }
+        
+        /**
+         * Checks if the URI is the one of a data collection (as opposed to the one of an entity).
+         * @return true if no identifier follows the URI of the data collection
+         */
+        public boolean isCollectionUri()
+        {
+            return (this.end == this.uri.length());
+        }
+        
+        /**
+         * Returns the identifier of the entity, decoded for URNs and physical locations (and without the suffix for the latter).
+         * @return identifier, or null if the URI is the one of a data collection
+         */
+        public String getIdentifier()
+        {
+            if (isCollectionUri())
+            {
+                return null;
+            }
+            
+            switch (this.target.type)
+            {
+                case Target.URN:
+                    String id = this.uri.substring(this.end + 1);
+                    return (id.indexOf('%') < 0) ? id : Resolver.decode(id);
+                case Target.URL:
+                    return ('#' == this.uri.charAt(this.end)) ? this.uri.substring(this.end + 1) : this.uri.substring(this.end);
+                default:
+                    String suffix = this.target.resource.getUrl_suffix();
+                    int idEnd = this.uri.length();
+                    if ((null != suffix) && (suffix.length() > 0) && this.uri.endsWith(suffix) && (idEnd - suffix.length() > this.end))
+                    {
+                        idEnd -= suffix.length();
+                    }
+                    id = this.uri.substring(this.end, idEnd);
+                    return (id.indexOf('%') < 0) ? id : Resolver.decode(id);   // encoded again when a location is built
+            }
+        }
+    }
+}
@@ -102,8 +102,7 @@ public class UserDao extends Dao
             stmt.setString(1, login);
             rs = stmt.executeQuery();
 
-            int nbLines = DbPoolConnect.getRowCount(rs);
-            if (nbLines == 1)
+            if (rs.next())
             {
             	user = new User();
                 user.setLogin(login);
@@ -112,17 +111,16 @@ public class UserDao extends Dao
                 user.setEmail(rs.getString("email"));
                 user.setPassword(rs.getString("password"));
                 user.setOrganisation(rs.getString("organisation"));
-            }
-            else
-            {
-                if (nbLines > 1)
+                
+                if (rs.next())
                 {
                     logger.warn("The user '" + login + "' is recorded several times in the database!");
+                    user = null;
                 }
-                else
-                {
-                    logger.warn("The user '" + login + "' is not recoded in the database!");
-                }
+            }
+            else
+            {
+                logger.warn("The user '" + login + "' is not recoded in the database!");
             }
         }
         catch (SQLException e)
@@ -160,8 +158,8 @@ public class UserDao extends Dao
     		stmt.setString(4, app);
     		rs = stmt.executeQuery();
 
-    		int nbLines = DbPoolConnect.getRowCount(rs);
-    		if (nbLines == 1)
+    		// exactly one row expected
+    		if ((rs.next()) && (! rs.next()))
     		{
     			hasAccess = true;
     		}
@@ -201,7 +199,7 @@ public class UserDao extends Dao
             rs = stmt.executeQuery();
 
             // retrieves the role of the user
-            rs.first();
+            rs.next();
             role = rs.getString(1);
         }
         catch (SQLException e)
@@ -0,0 +1,254 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.tools;
+
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import uk.ac.ebi.miriam.db.DataCollection;
+import uk.ac.ebi.miriam.db.Format;
+import uk.ac.ebi.miriam.db.MimeType;
+import uk.ac.ebi.miriam.db.Resource;
+import uk.ac.ebi.miriam.db.StringPool;
+import uk.ac.ebi.miriam.db.Tag;
+import uk.ac.ebi.miriam.db.URI;
+
+
+/**
+ * <p>Compares the heap footprint of the in-memory view of the Registry, as it used to be loaded and in its compact form
+ * (cf. <code>DataCollectionLoader</code>: deduplicated strings, shared tags and mime types, trimmed lists, dates formatted on demand).
+ *
+ * <p>The data collections are generated, with the same kind of repetitions as in the database (institutions, locations, URL patterns, ...),
+ * so that the tool can run without any database:
+ * <pre>
+ * java -cp ... uk.ac.ebi.miriam.tools.HeapFootprint [nb of data collections] [nb of resources per data collection]
+ * </pre>
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class HeapFootprint
+{
+    private static final String[] INSTITUTIONS = {"European Bioinformatics Institute", "National Center for Biotechnology Information", "Swiss Institute of Bioinformatics", "DNA Data Bank of Japan", "Kyoto University Bioinformatics Center", "University of Cambridge", "Stanford University", "Wellcome Trust Sanger Institute"};
+    private static final String[] LOCATIONS = {"United Kingdom", "USA", "Switzerland", "Japan", "Germany", "France", "Canada", "China"};
+    private static final String[] MIME_TYPES = {"text/html", "application/xml", "application/json", "text/plain", "application/rdf+xml", "text/turtle"};
+    private static final int NB_TAGS = 40;
+    
+    
+    /**
+     * Generates the data collections and prints the heap used by each form.
+     * @param args number of data collections (default: 700) and number of resources per data collection (default: 3)
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        int nbCollections = (args.length > 0) ? Integer.parseInt(args[0]) : 700;
+        int nbResources = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+        
+        long before = usedMemory();
+        List<Object> plain = generate(nbCollections, nbResources, false);
+        long plainSize = usedMemory() - before;
+        plain = null;
+        
+        before = usedMemory();
+        List<Object> compact = generate(nbCollections, nbResources, true);
+        long compactSize = usedMemory() - before;
+        
+        System.out.println("Data collections:  " + compact.size() + " (" + nbResources + " resources each)");
+        System.out.println("Previous form:     " + (plainSize / 1024) + " KiB");
+        System.out.println("Compact form:      " + (compactSize / 1024) + " KiB");
+        System.out.println("Saved:             " + ((plainSize > 0) ? (100 * (plainSize - compactSize) / plainSize) : 0) + " %");
+    }
+    
+    
+    /**
+     * Generates a view of the Registry.
+     * @param compact whether the compact form is built, or the previous one
+     * @return data collections (and, for the previous form, the String copies of the dates it used to keep)
+     */
+    private static List<Object> generate(int nbCollections, int nbResources, boolean compact)
+    {
+        List<Object> registry = new ArrayList<Object>(nbCollections * 3);
+        StringPool strings = new StringPool();
+        List<MimeType> mimeTypes = new ArrayList<MimeType>();
+        for (int i = 0; i < MIME_TYPES.length; ++i)
+        {
+            mimeTypes.add(new MimeType(i + 1, MIME_TYPES[i], MIME_TYPES[i]));
+        }
+        List<Tag> tags = new ArrayList<Tag>();
+        for (int i = 0; i < NB_TAGS; ++i)
+        {
+            tags.add(tag(i));
+        }
+        
+        for (int i = 0; i < nbCollections; ++i)
+        {
+            DataCollection collection = new DataCollection();
+            String id = copy("MIR:00" + (100000 + i));
+            collection.setId(id);
+            collection.setName(copy("Data collection " + i));
+            collection.setDefinition(copy("Definition of the data collection number " + i + ", as provided by its curators."));
+            collection.setRegexp(copy("^\\d{" + (1 + (i % 9)) + "}$"));
+            collection.setURL(copy("http://identifiers.org/collection" + i + "/"));
+            collection.setURN(copy("urn:miriam:collection" + i));
+            collection.getSynonyms().add(copy("collection" + i));
+            collection.getDeprecatedURIs().add(copy("http://www.ebi.ac.uk/miriam/collection" + i));
+            collection.getDeprecatedURLs().add(copy("http://www.ebi.ac.uk/miriam/collection" + i));
+            collection.getDocumentationURLs().add(copy("http://www.example.org/doc/collection" + i));
+            collection.addDocumentationID(copy("urn:miriam:pubmed:" + (10000000 + i)));
+            collection.addDocumentationIDType(pooled(strings, copy("PubMed"), compact));
+            collection.setDateCreation(new Date(1136073600000L + i * 86400000L));
+            collection.setDateModification(new Date(1388534400000L + i * 3600000L));
+            if (! compact)
+            {
+                registry.add(collection.getDateCreationStr());
+                registry.add(collection.getDateModificationStr());
+            }
+            
+            URI uri = new URI();
+            uri.setValue(collection.getURL());
+            uri.setType(pooled(strings, copy("URL"), compact));
+            collection.getUris().add(uri);
+            
+            for (int j = 0; j < nbResources; ++j)
+            {
+                int n = i * nbResources + j;
+                Resource resource = new Resource();
+                resource.setId(copy("MIR:00" + (200000 + n)));
+                resource.setCollectionId(id);
+                resource.setUrl_prefix(pooled(strings, copy("http://www.resource" + (n % 50) + ".org/entry?id="), compact));
+                resource.setUrl_suffix(pooled(strings, copy(""), compact));
+                resource.setUrl_root(pooled(strings, copy("http://www.resource" + (n % 50) + ".org/"), compact));
+                resource.setInfo(pooled(strings, copy("Resource " + (n % 50)), compact));
+                resource.setInstitution(pooled(strings, copy(INSTITUTIONS[n % INSTITUTIONS.length]), compact));
+                resource.setLocation(pooled(strings, copy(LOCATIONS[n % LOCATIONS.length]), compact));
+                resource.setExample(copy(String.valueOf(12345 + n)));
+                resource.setConvert_prefix(pooled(strings, copy(""), compact));
+                resource.setObsolete(false);
+                resource.setPrimary(0 == j);
+                resource.setReliability(90 + (n % 10));
+                resource.addFormat(new Format(n, pooled(strings, copy("http://www.resource" + (n % 50) + ".org/"), compact), pooled(strings, copy(".xml"), compact), mimeTypes.get(1), 0));
+                collection.addResource(resource);
+            }
+            
+            for (int k = 0; k < 3; ++k)
+            {
+                int t = (i + k * 7) % NB_TAGS;
+                collection.addTag(compact ? tags.get(t) : tag(t));
+            }
+            
+            if (compact)
+            {
+                collection.setMimeTypeList(mimeTypes);
+                collection.compact();
+            }
+            else
+            {
+                for (MimeType mimeType: mimeTypes)
+                {
+                    collection.addMimeType(mimeType);
+                }
+            }
+            registry.add(collection);
+        }
+        
+        return registry;
+    }
+    
+    
+    /**
+     * Creates a tag.
+     * @param index
+     * @return tag
+     */
+    private static Tag tag(int index)
+    {
+        Tag tag = new Tag();
+        tag.setId(copy("MIR:00600" + (100 + index)));
+        tag.setName(copy("tag " + index));
+        tag.setInfo(copy("Information about the tag number " + index));
+        return tag;
+    }
+    
+    
+    /**
+     * Creates a distinct instance of a string, as each value read from a <code>ResultSet</code>.
+     * @param value
+     * @return copy of the value
+     */
+    private static String copy(String value)
+    {
+        return new String(value.toCharArray());
+    }
+    
+    
+    /**
+     * Deduplicates a string, in the compact form only.
+     */
+    private static String pooled(StringPool strings, String value, boolean compact)
+    {
+        return compact ? strings.get(value) : value;
+    }
+    
+    
+    /**
+     * Retrieves the amount of heap currently used, after a few garbage collections.
+     * @return used heap (in bytes)
+     */
+    private static long usedMemory() throws InterruptedException
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; ++i)
+        {
+            System.gc();
+            Thread.sleep(100);
+        }
+        
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
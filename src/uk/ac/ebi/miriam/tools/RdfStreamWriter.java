@@ -0,0 +1,311 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.tools;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.regex.Pattern;
+import com.hp.hpl.jena.datatypes.RDFDatatype;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.vocabulary.RDF;
+
+
+/**
+ * <p>Writes RDF statements as soon as they are provided (N-Triples or Turtle), without building any model:
+ * the memory used does not depend on the number of statements.
+ *
+ * <p>With Turtle, the prefixes are declared at the beginning, and consecutive statements about the same subject are grouped.
+ * The IRIs and literals are escaped as required by both syntaxes (UTF-8 output).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class RdfStreamWriter
+{
+    /**
+     * Supported syntaxes.
+     */
+    public static enum Syntax {NTRIPLES, TURTLE};
+    private static final Pattern LOCAL_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*");   // simplest form of the local part of a prefixed name
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    
+    private final Writer out;
+    private final Syntax syntax;
+    private final Map<String, String> prefixes;   // prefix -> namespace
+    private String subject = null;   // subject of the current group of statements (Turtle)
+    
+    
+    /**
+     * Constructor.
+     * @param out where the statements are written (buffered by the caller)
+     * @param syntax syntax of the output
+     * @param prefixes prefixes of the namespaces (only used with Turtle)
+     */
+    public RdfStreamWriter(Writer out, Syntax syntax, Map<String, String> prefixes)
+    {
+        this.out = out;
+        this.syntax = syntax;
+        this.prefixes = prefixes;
+    }
+    
+    
+    /**
+     * Begins the document (declaration of the prefixes, with Turtle).
+     */
+    public void start() throws IOException
+    {
+        if (this.syntax == Syntax.TURTLE)
+        {
+            for (Map.Entry<String, String> prefix: this.prefixes.entrySet())
+            {
+                this.out.write("@prefix " + prefix.getKey() + ": <" + escapeIri(prefix.getValue()) + "> .\n");
+            }
+            this.out.write("\n");
+        }
+    }
+    
+    
+    /**
+     * Ends the document (the writer is flushed, not closed).
+     */
+    public void end() throws IOException
+    {
+        if (null != this.subject)
+        {
+            this.out.write(" .\n");
+            this.subject = null;
+        }
+        this.out.flush();
+    }
+    
+    
+    /**
+     * Writes a statement which object is a resource.
+     * @param subject IRI of the subject
+     * @param predicate
+     * @param object IRI of the object (nothing written if null)
+     */
+    public void resource(String subject, Property predicate, String object) throws IOException
+    {
+        if (null != object)
+        {
+            predicate(subject, predicate);
+            this.out.write(iri(object));
+            statementEnd();
+        }
+    }
+    
+    
+    /**
+     * Writes a statement which object is a resource.
+     */
+    public void resource(String subject, Property predicate, Resource object) throws IOException
+    {
+        resource(subject, predicate, object.getURI());
+    }
+    
+    
+    /**
+     * Writes a statement which object is a typed literal.
+     * @param subject IRI of the subject
+     * @param predicate
+     * @param value lexical form of the literal (nothing written if null)
+     * @param datatype
+     */
+    public void literal(String subject, Property predicate, String value, RDFDatatype datatype) throws IOException
+    {
+        if (null != value)
+        {
+            predicate(subject, predicate);
+            this.out.write('"');
+            this.out.write(escapeLiteral(value));
+            this.out.write("\"^^");
+            this.out.write(iri(datatype.getURI()));
+            statementEnd();
+        }
+    }
+    
+    
+    /**
+     * Writes the subject (if needed) and the predicate of a statement.
+     */
+    private void predicate(String subject, Property predicate) throws IOException
+    {
+        if (this.syntax == Syntax.TURTLE)
+        {
+            if (subject.equals(this.subject))
+            {
+                this.out.write(" ;\n\t");
+            }
+            else
+            {
+                if (null != this.subject)
+                {
+                    this.out.write(" .\n\n");
+                }
+                this.out.write(iri(subject));
+                this.out.write("\n\t");
+                this.subject = subject;
+            }
+            this.out.write(predicate.equals(RDF.type) ? "a" : iri(predicate.getURI()));
+        }
+        else
+        {
+            this.out.write(iri(subject));
+            this.out.write(' ');
+            this.out.write(iri(predicate.getURI()));
+        }
+        this.out.write(' ');
+    }
+    
+    
+    /**
+     * Ends a statement (with Turtle, the end depends on the next statement).
+     */
+    private void statementEnd() throws IOException
+    {
+        if (this.syntax == Syntax.NTRIPLES)
+        {
+            this.out.write(" .\n");
+        }
+    }
+    
+    
+    /**
+     * Writes an IRI: as a prefixed name if possible (Turtle), otherwise in full.
+     */
+    private String iri(String uri)
+    {
+        if (this.syntax == Syntax.TURTLE)
+        {
+            for (Map.Entry<String, String> prefix: this.prefixes.entrySet())
+            {
+                if (uri.startsWith(prefix.getValue()) && LOCAL_NAME.matcher(uri.substring(prefix.getValue().length())).matches())
+                {
+                    return prefix.getKey() + ":" + uri.substring(prefix.getValue().length());
+                }
+            }
+        }
+        
+        return "<" + escapeIri(uri) + ">";
+    }
+    
+    
+    /**
+     * Percent-encodes the characters not allowed in an IRI reference (the numeric escapes of N-Triples and Turtle
+     * would only produce the same invalid IRI).
+     * The URLs coming from the database are expected to be encoded beforehand (cf. <code>RdfUtilities</code>): this is a last safeguard.
+     */
+    static String escapeIri(String uri)
+    {
+        StringBuilder escaped = null;
+        for (int i = 0; i < uri.length(); ++i)
+        {
+            char c = uri.charAt(i);
+            if ((c <= 0x20) || ("<>\"{}|^`\\".indexOf(c) >= 0))
+            {
+                if (null == escaped)
+                {
+                    escaped = new StringBuilder(uri.length() + 16).append(uri, 0, i);
+                }
+                escaped.append('%').append(HEX[c >> 4]).append(HEX[c & 0x0F]);
+            }
+            else if (null != escaped)
+            {
+                escaped.append(c);
+            }
+        }
+        
+        return (null == escaped) ? uri : escaped.toString();
+    }
+    
+    
+    /**
+     * Escapes the characters not allowed in a (double quoted) literal.
+     */
+    static String escapeLiteral(String value)
+    {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        escaped.append(String.format("\\u%04X", (int) c));
+                    }
+                    else
+                    {
+                        escaped.append(c);
+                    }
+            }
+        }
+        
+        return escaped.toString();
+    }
+}
@@ -28,40 +28,106 @@ package uk.ac.ebi.miriam.tools;
 
 import uk.ac.ebi.compneur.util.DatetimeProcessor;
 import uk.ac.ebi.miriam.db.DataCollection;
+import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.ResourceDao;
 import uk.ac.ebi.miriam.db.Tag;
 
 import org.apache.http.client.utils.URIBuilder;
 import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
 import com.hp.hpl.jena.rdf.model.Model;
-import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Resource;
 import com.hp.hpl.jena.vocabulary.DCTerms;
 import com.hp.hpl.jena.vocabulary.RDF;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.DCAT;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.FOAF;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.IDOT;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.VOID;
 import com.hp.hpl.jena.vocabulary.VCARD;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Date;
+import java.util.List;
 
 
 /**
  * Utilities methods for RDF handling.
  * 
  * @author Camille Laibe
- * @version 20130827
+ * @version 20261017
  */
 public class RdfUtilities
 {
 	private static final String IDENTIFIER_TOKEN_1 = "_*_TOKEN-IDENTIFIER_*_";
 	private static final String IDENTIFIER_TOKEN_2 = "$id";
-	public static enum FORMAT {rdfxml, turtle};
+	public static enum FORMAT {rdfxml, turtle, ntriples};
+	
+	/**
+	 * Creates the RDF model of the whole Registry (description of the Registry and all the data collections).
+	 * @param format requested format for the RDF: RDF/XML, Turtle, ...
+	 * @param version version of the application running (demo, main, ...)
+	 * @param dbPool database pool name
+	 * @return RDF model
+	 */
+	public static Model generateRegistryRdfModel(FORMAT format, String version, String dbPool)
+	{
+		DataTypeDao dao = new DataTypeDao(dbPool);
+		Date lastUpdateDate = dao.getLastModifDate();
+		Model model = ModelFactory.createDefaultModel();
+		
+		// defines namespaces
+		model.setNsPrefixes(RdfVocabulary.PREFIXES);
+		
+		Resource uriRequest = null;
+		switch(format)
+		{
+			case turtle:
+				uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/turtle");
+				break;
+			case ntriples:
+				uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/ntriples");
+				break;
+			case rdfxml:
+				uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/rdfxml");
+				break;
+			default:
+				uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/rdfxml");
+				break;
+		}
+		Resource registry = model.createResource("http://identifiers.org/registry/");
+		
+		// requested URI (includes the format): root element
+		uriRequest.addProperty(RDF.type, FOAF.Document);
+		uriRequest.addProperty(FOAF.primaryTopic, registry);
+		
+		// root URI (no format info)
+		// metadata about the Registry/Identifiers.org
+		registry.addProperty(RDF.type, DCAT.Catalog);
+		registry.addProperty(DCTerms.title, model.createTypedLiteral("Identifiers.org's Registry", XSDDatatype.XSDstring));
+		registry.addProperty(DCTerms.description, model.createTypedLiteral("Identifiers.org is a system providing resolvable persistent URIs used to identify data for the scientific community. It relies on the information stored in the Registry (a list of data collections and the physical locations where information can be accessed).", XSDDatatype.XSDstring));
+		registry.addProperty(DCTerms.license, model.createTypedLiteral("TBD", XSDDatatype.XSDstring));
+		registry.addProperty(DCTerms.modified, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(lastUpdateDate), XSDDatatype.XSDdateTime));
+		registry.addProperty(DCTerms.publisher, model.createResource("http://identifiers.org/"));
+		
+		// list all collections
+		List<DataCollection> collections = dao.getDataCollections(dbPool);
+		for (DataCollection collection: collections)
+		{
+			Resource collectionURI = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/collections/" + collection.getId());   // maybe later replace that URI by http://identifiers.org/[namespace]
+			
+			generateCollectionRdfModel(model, collection, format, version, dbPool);
+			
+			collectionURI.addProperty(VOID.inDataset, registry);
+		}
+		
+		// cleaning
+		dao.clean();
+		
+		return model;
+	}
 	
-	/* Should we consider the following approach?
-	private static Model model = ModelFactory.createDefaultModel();
-	public static final Property foafDocument = model.createProperty("http://xmlns.com/foaf/0.1/", "Document");
-    public static final Property foafPrimaryTopic = model.createProperty("http://xmlns.com/foaf/0.1/", "primaryTopic");
-	*/
 	
 	/**
 	 * Creates the RDF model of a data collection.
@@ -69,53 +135,25 @@ public class RdfUtilities
 	 * @param collection data collection
 	 * @param format requested format for the RDF: RDF/XML, Turtle, ...
 	 * @param version version of the application running (demo, main, ...)
-	 * @param dbPool database pool name
+	 * @param dbPool database pool name (not used anymore: the health of the resources is loaded with the data collection)
 	 * @return
 	 */
 	public static void generateCollectionRdfModel(Model model, DataCollection collection, FORMAT format, String version, String dbPool)
 	{
-		ResourceDao resDao = new ResourceDao(dbPool);
-    	
         // defines namespaces
-     	model.setNsPrefix("void", "http://rdfs.org/ns/void#");
-     	model.setNsPrefix("dcterms", DCTerms.getURI());   // "http://purl.org/dc/terms/"
-     	model.setNsPrefix("dcat", "http://www.w3.org/ns/dcat#");
-     	model.setNsPrefix("idot", "http://identifiers.org/terms#");
-     	model.setNsPrefix("foaf", "http://xmlns.com/foaf/0.1/");
+     	model.setNsPrefixes(RdfVocabulary.PREFIXES);
      	
      	// metadata about the Registry/Identifiers.org
      	Resource collectionRdf = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/collections/" + collection.getId());   // maybe later replace that URI by http://identifiers.org/[namespace]
-     	//Property dcatCatalog = model.createProperty("http://www.w3.org/ns/dcat#", "Catalog");
-     	Resource dcatCatalogRecord = model.createResource("http://www.w3.org/ns/dcat#" + "CatalogRecord");   // 'Dataset' represents the actual dataset as published by the dataset publisher
-     	Property dcatTitle = model.createProperty("http://www.w3.org/ns/dcat#", "title");
-     	Property dcatDescription = model.createProperty("http://www.w3.org/ns/dcat#", "description");
-     	Property dcatIssued = model.createProperty("http://www.w3.org/ns/dcat#", "issued");
-     	Property dcatModified = model.createProperty("http://www.w3.org/ns/dcat#", "modified");
-     	Property dcatIdentifier = model.createProperty("http://www.w3.org/ns/dcat#", "identifier");
-     	Property dcatKeyword = model.createProperty("http://www.w3.org/ns/dcat#", "keyword");
-     	Property dcatdistribution = model.createProperty("http://www.w3.org/ns/dcat#", "distribution");
-     	Property dcatDistribution = model.createProperty("http://www.w3.org/ns/dcat#", "Distribution");
-     	Property dcatAccessURL = model.createProperty("http://www.w3.org/ns/dcat#", "accessURL");
-     	Property dcatMediaType = model.createProperty("http://www.w3.org/ns/dcat#", "mediaType");
-     	Property dcatPublisher = model.createProperty("http://www.w3.org/ns/dcat#", "publisher");
-     	Property dcatLandingPage = model.createProperty("http://www.w3.org/ns/dcat#", "landingPage");
-     	Property voidUriSpace = model.createProperty("http://rdfs.org/ns/void#", "uriSpace");
-     	Property voidExampleResource = model.createProperty("http://rdfs.org/ns/void#", "exampleResource");
-     	
-     	Property idotNamespace = model.createProperty("http://identifiers.org/terms#", "namespace");
-     	Property idotIdRegexPattern = model.createProperty("http://identifiers.org/terms#", "idRegexPattern");
-     	Property idotIdObsolete = model.createProperty("http://identifiers.org/terms#", "obsolete");
-     	Property idotState = model.createProperty("http://identifiers.org/terms#", "state");
-     	Property idotReliability = model.createProperty("http://identifiers.org/terms#", "reliability");
      	
      	// root URI (no format info)
-     	collectionRdf.addProperty(RDF.type, dcatCatalogRecord);
+     	collectionRdf.addProperty(RDF.type, DCAT.CatalogRecord);
      	
-     	collectionRdf.addProperty(dcatIdentifier, model.createTypedLiteral(collection.getId(), XSDDatatype.XSDstring));
-     	collectionRdf.addProperty(dcatTitle, model.createTypedLiteral(collection.getName(), XSDDatatype.XSDstring));
-     	collectionRdf.addProperty(dcatDescription, model.createTypedLiteral(collection.getDefinition(), XSDDatatype.XSDstring));
-     	collectionRdf.addProperty(dcatIssued, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(collection.getDateCreation()), XSDDatatype.XSDdateTime));
-     	collectionRdf.addProperty(dcatModified, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(collection.getDateModification()), XSDDatatype.XSDdateTime));
+     	collectionRdf.addProperty(DCAT.identifier, model.createTypedLiteral(collection.getId(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(DCAT.title, model.createTypedLiteral(collection.getName(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(DCAT.description, model.createTypedLiteral(collection.getDefinition(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(DCAT.issued, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(collection.getDateCreation()), XSDDatatype.XSDdateTime));
+     	collectionRdf.addProperty(DCAT.modified, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(collection.getDateModification()), XSDDatatype.XSDdateTime));
 			/* TODO:
 			 dct:publisher
 			 dcat:landingPage
@@ -124,14 +162,14 @@ public class RdfUtilities
 			 dcat:contactPoint
 			 dcterms:subject (using EDAM?)
 			*/
-     	collectionRdf.addProperty(idotNamespace, model.createTypedLiteral(collection.getNamespace(), XSDDatatype.XSDstring));
-     	collectionRdf.addProperty(voidUriSpace, model.createResource("http://identifiers.org/" + collection.getNamespace() + "/"));
-     	collectionRdf.addProperty(idotIdRegexPattern, model.createTypedLiteral(collection.getRegexp(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(IDOT.namespace, model.createTypedLiteral(collection.getNamespace(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(VOID.uriSpace, model.createResource("http://identifiers.org/" + collection.getNamespace() + "/"));
+     	collectionRdf.addProperty(IDOT.idRegexPattern, model.createTypedLiteral(collection.getRegexp(), XSDDatatype.XSDstring));
      	if (collection.isObsolete())
      	{
-     		collectionRdf.addProperty(idotIdObsolete, model.createTypedLiteral(true, XSDDatatype.XSDboolean));
+     		collectionRdf.addProperty(IDOT.obsolete, model.createTypedLiteral(true, XSDDatatype.XSDboolean));
      	}
-     	collectionRdf.addProperty(voidExampleResource, model.createTypedLiteral(collection.getResource(0).getExample(), XSDDatatype.XSDstring));
+     	collectionRdf.addProperty(VOID.exampleResource, model.createTypedLiteral(collection.getResource(0).getExample(), XSDDatatype.XSDstring));
      	for (String synonym: collection.getSynonyms())
      	{
      		collectionRdf.addProperty(DCTerms.alternative, model.createTypedLiteral(synonym, XSDDatatype.XSDstring));
@@ -140,7 +178,7 @@ public class RdfUtilities
      	{
          	for (Tag tag: collection.getTags())
          	{
-         		collectionRdf.addProperty(dcatKeyword, model.createTypedLiteral(tag.getName(), XSDDatatype.XSDstring));
+         		collectionRdf.addProperty(DCAT.keyword, model.createTypedLiteral(tag.getName(), XSDDatatype.XSDstring));
          	}
      	}
      	if (null != collection.getResources())
@@ -150,7 +188,7 @@ public class RdfUtilities
          		if (! res.isObsolete())
          		{
          			Resource accessURI = model.createResource("http://identifiers.org/miriam.resource/" + res.getId() + "#application/xhtml+xml");
-         			collectionRdf.addProperty(dcatdistribution, accessURI);
+         			collectionRdf.addProperty(DCAT.distribution, accessURI);
          		}
          		// TODO: obsolete resources?
          	}
@@ -168,12 +206,10 @@ public class RdfUtilities
          			Resource resourceURI = model.createResource("http://identifiers.org/miriam.resource/" + res.getId());
          			
          			// access details
-         			accessURI.addProperty(RDF.type, dcatDistribution);
-         			String accessURL = encodeUrl4Rdf(res.getUrl_prefix() + IDENTIFIER_TOKEN_1 + res.getUrl_suffix());
-         			accessURL = accessURL.replace(IDENTIFIER_TOKEN_1, IDENTIFIER_TOKEN_2);   // if using '$id' during the encoding, it would get encoded
-         			accessURI.addProperty(dcatAccessURL, model.createResource(accessURL));
-         			accessURI.addProperty(dcatMediaType, model.createTypedLiteral("application/xhtml+xml", XSDDatatype.XSDstring));
-         			accessURI.addProperty(dcatPublisher, resourceURI);
+         			accessURI.addProperty(RDF.type, DCAT.Distribution);
+         			accessURI.addProperty(DCAT.accessURL, model.createResource(accessUrl(res)));
+         			accessURI.addProperty(DCAT.mediaType, model.createTypedLiteral("application/xhtml+xml", XSDDatatype.XSDstring));
+         			accessURI.addProperty(DCAT.publisher, resourceURI);
          			
          			// resource details
          			Resource resourceDetails = model.createResource("http://identifiers.org/miriam.resource/" + res.getId());
@@ -183,23 +219,48 @@ public class RdfUtilities
          			{
          				resourceDetails.addProperty(VCARD.Country, model.createTypedLiteral(res.getLocation(), XSDDatatype.XSDstring));
          			}
-         			resourceDetails.addProperty(dcatLandingPage, model.createResource(res.getUrl_root()));
-         			resourceDetails.addProperty(idotState, model.createTypedLiteral(ResourceDao.getStateDesc(resDao.getState(res.getId())), XSDDatatype.XSDstring));
-         			resourceDetails.addProperty(idotReliability, model.createTypedLiteral(res.getReliability(), XSDDatatype.XSDdecimal));
+         			String landingPage = landingPage(res);
+         			if (null != landingPage)
+         			{
+         				resourceDetails.addProperty(DCAT.landingPage, model.createResource(landingPage));
+         			}
+         			resourceDetails.addProperty(IDOT.state, model.createTypedLiteral(ResourceDao.getStateDesc(res.getState()), XSDDatatype.XSDstring));
+         			resourceDetails.addProperty(IDOT.reliability, model.createTypedLiteral(res.getReliability(), XSDDatatype.XSDdecimal));
          		}
          		// TODO: obsolete resources?
          	}
      	}
-     	
-     	// cleaning
-     	resDao.clean();
+	}
+	
+	
+	/**
+	 * Builds the access URL of a resource, with a placeholder for the identifier ('$id').
+	 * @param res resource (physical location)
+	 * @return valid URI for use in a RDF file, or null if the URL of the resource is invalid
+	 */
+	public static String accessUrl(uk.ac.ebi.miriam.db.Resource res)
+	{
+		String accessURL = encodeUrl4Rdf(res.getUrl_prefix() + IDENTIFIER_TOKEN_1 + res.getUrl_suffix());
+		
+		return (null == accessURL) ? null : accessURL.replace(IDENTIFIER_TOKEN_1, IDENTIFIER_TOKEN_2);   // if using '$id' during the encoding, it would get encoded
+	}
+	
+	
+	/**
+	 * Builds the landing page (home page) of a resource, with the characters not allowed in a URI percent-encoded.
+	 * @param res resource (physical location)
+	 * @return valid URI for use in a RDF file, or null if the URL of the resource is missing or invalid
+	 */
+	public static String landingPage(uk.ac.ebi.miriam.db.Resource res)
+	{
+		return ((null == res.getUrl_root()) || res.getUrl_root().isEmpty()) ? null : encodeUrl4Rdf(res.getUrl_root());
 	}
 	
 	
 	/**
 	 * Performs all the necessary encoding to have a fully valid URL to be used in a RDF/XML file.
 	 * @param url potentially invalid URL
-	 * @return valid URI for use in a RDF/XML file.
+	 * @return valid URI for use in a RDF/XML file, or null if the URL is invalid
 	 */
 	private static String encodeUrl4Rdf(String url)
     {
@@ -231,7 +292,10 @@ public class RdfUtilities
 			System.out.println(e.getMessage());
 		}
 		
-		encodedUrl = tmpUri.toASCIIString();
+		if (null != tmpUri)
+		{
+			encodedUrl = tmpUri.toASCIIString();
+		}
 		
         return encodedUrl;
     }
@@ -0,0 +1,178 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.tools;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.ResourceFactory;
+import com.hp.hpl.jena.vocabulary.DCTerms;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.VCARD;
+
+
+/**
+ * <p>Vocabularies used by the RDF exports of the Registry, defined once for all of them
+ * (the terms are created without any model, and can be used with any model or with <code>RdfStreamWriter</code>).
+ *
+ * <p>The terms follow the naming of the vocabularies provided by Jena: classes start with an upper case, properties with a lower case.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class RdfVocabulary
+{
+    /** Prefixes of the namespaces used in the exports (in the order they are declared). */
+    public static final Map<String, String> PREFIXES;
+    static
+    {
+        Map<String, String> prefixes = new LinkedHashMap<String, String>();
+        prefixes.put("rdf", RDF.getURI());
+        prefixes.put("xsd", XSDDatatype.XSD + "#");
+        prefixes.put("void", VOID.NS);
+        prefixes.put("dcterms", DCTerms.getURI());
+        prefixes.put("dcat", DCAT.NS);
+        prefixes.put("idot", IDOT.NS);
+        prefixes.put("foaf", FOAF.NS);
+        prefixes.put("vcard", VCARD.getURI());
+        PREFIXES = Collections.unmodifiableMap(prefixes);
+    }
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private RdfVocabulary()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Data Catalog Vocabulary.
+     */
+    public static final class DCAT
+    {
+        public static final String NS = "http://www.w3.org/ns/dcat#";
+        public static final Resource Catalog = ResourceFactory.createResource(NS + "Catalog");
+        public static final Resource CatalogRecord = ResourceFactory.createResource(NS + "CatalogRecord");   // 'Dataset' represents the actual dataset as published by the dataset publisher
+        public static final Resource Distribution = ResourceFactory.createResource(NS + "Distribution");
+        public static final Property title = ResourceFactory.createProperty(NS, "title");
+        public static final Property description = ResourceFactory.createProperty(NS, "description");
+        public static final Property issued = ResourceFactory.createProperty(NS, "issued");
+        public static final Property modified = ResourceFactory.createProperty(NS, "modified");
+        public static final Property identifier = ResourceFactory.createProperty(NS, "identifier");
+        public static final Property keyword = ResourceFactory.createProperty(NS, "keyword");
+        public static final Property distribution = ResourceFactory.createProperty(NS, "distribution");
+        public static final Property accessURL = ResourceFactory.createProperty(NS, "accessURL");
+        public static final Property mediaType = ResourceFactory.createProperty(NS, "mediaType");
+        public static final Property publisher = ResourceFactory.createProperty(NS, "publisher");
+        public static final Property landingPage = ResourceFactory.createProperty(NS, "landingPage");
+        
+        private DCAT()
+        {
+            // nothing here
+        }
+    }
+    
+    
+    /**
+     * Vocabulary of Interlinked Datasets.
+     */
+    public static final class VOID
+    {
+        public static final String NS = "http://rdfs.org/ns/void#";
+        public static final Property inDataset = ResourceFactory.createProperty(NS, "inDataset");
+        public static final Property uriSpace = ResourceFactory.createProperty(NS, "uriSpace");
+        public static final Property exampleResource = ResourceFactory.createProperty(NS, "exampleResource");
+        
+        private VOID()
+        {
+            // nothing here
+        }
+    }
+    
+    
+    /**
+     * Friend of a Friend.
+     */
+    public static final class FOAF
+    {
+        public static final String NS = "http://xmlns.com/foaf/0.1/";
+        public static final Resource Document = ResourceFactory.createResource(NS + "Document");
+        public static final Property primaryTopic = ResourceFactory.createProperty(NS, "primaryTopic");
+        
+        private FOAF()
+        {
+            // nothing here
+        }
+    }
+    
+    
+    /**
+     * Identifiers.org terms.
+     */
+    public static final class IDOT
+    {
+        public static final String NS = "http://identifiers.org/terms#";
+        public static final Property namespace = ResourceFactory.createProperty(NS, "namespace");
+        public static final Property idRegexPattern = ResourceFactory.createProperty(NS, "idRegexPattern");
+        public static final Property obsolete = ResourceFactory.createProperty(NS, "obsolete");
+        public static final Property state = ResourceFactory.createProperty(NS, "state");
+        public static final Property reliability = ResourceFactory.createProperty(NS, "reliability");
+        
+        private IDOT()
+        {
+            // nothing here
+        }
+    }
+}
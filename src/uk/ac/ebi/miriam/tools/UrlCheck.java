@@ -26,6 +26,7 @@
 package uk.ac.ebi.miriam.tools;
 
 
+import uk.ac.ebi.miriam.db.ChangeLog;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.Resource;
 import uk.ac.ebi.miriam.db.ResourceDao;
@@ -318,6 +319,7 @@ public class UrlCheck
 		resDao.clean();
 		
 		logger.debug("Resources Health Check finished.");
+		ChangeLog.record(this.poolName, ChangeLog.HEALTH, null);   // the health of the resources is cached by all the nodes
 		
 		// retrieve the time of the end of the process
 		GregorianCalendar calEnd = new GregorianCalendar();
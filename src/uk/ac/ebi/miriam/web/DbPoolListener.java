@@ -0,0 +1,181 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.web;
+
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import org.apache.log4j.Logger;
+import uk.ac.ebi.miriam.db.ChangeLog;
+import uk.ac.ebi.miriam.db.DbPoolRegistry;
+import uk.ac.ebi.miriam.db.QueryMonitor;
+import uk.ac.ebi.miriam.db.SnapshotManager;
+import uk.ac.ebi.miriam.xml.ExportManager;
+
+
+/**
+ * <p>Resolves the database pools used by the application once, when the application starts
+ * (the names of the pools are provided by the context parameters 'miriam_db_pool' and 'auth_db_pool').
+ * The read replica of the main pool, if any, is provided by 'miriam_db_replica_pool' (and its maximum replication lag,
+ * in seconds, by 'replica_max_lag').
+ * Starts the in-memory snapshot of the Registry (refreshed every 'snapshot_refresh_interval' seconds, 0 to disable it)
+ * and the polling of the modifications made by the other nodes (every 'change_poll_interval' seconds, 0 to disable it).
+ * The XML export of the Registry is generated in the background, its version checked every 'export_refresh_interval' seconds
+ * (0 to generate it only when requested).
+ * Also sets the threshold of the slow query log (context parameter 'slow_query_threshold', in milliseconds).
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class DbPoolListener implements ServletContextListener
+{
+    private Logger logger = Logger.getLogger(DbPoolListener.class);
+    
+    
+    /**
+     * @see javax.servlet.ServletContextListener#contextInitialized(ServletContextEvent)
+     */
+    public void contextInitialized(ServletContextEvent event)
+    {
+        ServletContext context = event.getServletContext();
+        String miriamPool = context.getInitParameter("miriam_db_pool");
+        String authPool = context.getInitParameter("auth_db_pool");
+        
+        if (! DbPoolRegistry.init(miriamPool, authPool))
+        {
+            logger.error("Unable to register all the database pools ('" + miriamPool + "' and '" + authPool + "')!");
+        }
+        
+        String replicaPool = context.getInitParameter("miriam_db_replica_pool");
+        if ((null != replicaPool) && (replicaPool.trim().length() > 0))
+        {
+            String maxLag = context.getInitParameter("replica_max_lag");
+            if (null != maxLag)
+            {
+                try
+                {
+                    DbPoolRegistry.setMaxReplicaLag(Integer.parseInt(maxLag.trim()));
+                }
+                catch (NumberFormatException e)
+                {
+                    logger.warn("Invalid maximum replication lag: '" + maxLag + "'!");
+                }
+            }
+            DbPoolRegistry.registerReplica(miriamPool, replicaPool.trim());
+        }
+        
+        String threshold = context.getInitParameter("slow_query_threshold");
+        if (null != threshold)
+        {
+            try
+            {
+                QueryMonitor.setSlowQueryThreshold(Long.parseLong(threshold.trim()));
+            }
+            catch (NumberFormatException e)
+            {
+                logger.warn("Invalid slow query threshold: '" + threshold + "' (default value used: " + QueryMonitor.getSlowQueryThreshold() + " ms)!");
+            }
+        }
+        
+        String interval = context.getInitParameter("snapshot_refresh_interval");
+        try
+        {
+            long seconds = (null == interval) ? 0 : Long.parseLong(interval.trim());
+            if (seconds > 0)
+            {
+                SnapshotManager.start(miriamPool, seconds);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            logger.warn("Invalid refresh interval of the snapshot: '" + interval + "' (snapshot disabled)!");
+        }
+        
+        ChangeLog.init(miriamPool);
+        String poll = context.getInitParameter("change_poll_interval");
+        try
+        {
+            long seconds = (null == poll) ? 0 : Long.parseLong(poll.trim());
+            if (seconds > 0)
+            {
+                ChangeLog.start(miriamPool, seconds);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            logger.warn("Invalid polling interval of the modifications: '" + poll + "' (modifications made by the other nodes ignored)!");
+        }
+        
+        String export = context.getInitParameter("export_refresh_interval");
+        try
+        {
+            long seconds = (null == export) ? 0 : Long.parseLong(export.trim());
+            if (seconds > 0)
+            {
+                ExportManager.start(miriamPool, context.getInitParameter("exportDir"), context.getInitParameter("version"), seconds);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            logger.warn("Invalid refresh interval of the exports: '" + export + "' (generated when requested)!");
+        }
+    }
+    
+    
+    /**
+     * @see javax.servlet.ServletContextListener#contextDestroyed(ServletContextEvent)
+     */
+    public void contextDestroyed(ServletContextEvent event)
+    {
+        ExportManager.stop();
+        ChangeLog.stop();
+        SnapshotManager.stop();
+        DbPoolRegistry.clear();
+    }
+}
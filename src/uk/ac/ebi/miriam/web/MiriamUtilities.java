@@ -26,8 +26,6 @@
 package uk.ac.ebi.miriam.web;
 
 
-import uk.ac.ebi.miriam.db.DbPoolConnect;
-
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.sql.ResultSet;
@@ -187,65 +185,23 @@ public class MiriamUtilities
     }
     
     
-    /**
-     * Counts the number of rows in a <code>ResultSet</code> (like 'getColumnCount()' for the columns)
-     * 
-     * @param <code>ResultSet</code> object already created
-     * @return int number of rows in the <code>ResultSet</code> object
-     */
-    public static int getRowCount(ResultSet data)
-    {
-        int result = -1;
-        
-        try
-        {
-            data.last();
-            result = data.getRow();
-            data.first();
-        }
-        catch (SQLException e)
-        {
-            logger.info("An error occurred while counting the rows of a ResultSet!");
-            logger.info("SQLException exception raised: " + e.getMessage());
-        }
-        
-        return result;
-    }
-    
-    
     /**
      * Converts a <code>ResultSet</code> (from a SQL query) to a <code>List</code>
+     * The rows are read forward only: the <code>ResultSet</code> must not have been read before.
      * 
      * @param result result of a SQL query
      * @return a <code>List</code> object with all the elements in the first field (column) of the <code>ResultSet</code>
      */
     public static List<String> ArrayConvert(ResultSet result)
     {
-        List<String> conv = new ArrayList<String>();
-        
-        int nbLines = DbPoolConnect.getRowCount(result);
-        
-        for (int i = 1; i <= nbLines; ++i)
-        {
-            try
-            {
-                conv.add(result.getString(1));
-                result.next();
-            }
-            catch (SQLException e)
-            {
-                logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
-                logger.warn("SQL Exception raised: " + e.getMessage());
-            }
-        }
-        
-        return conv;
+        return ArrayConvert(result, false);
     }
     
     
     /**
      * Converts a <code>ResultSet</code> (from a SQL query) to a <code>List</code>, with a transformation of the elements (for example,if
      * they are designed to be included in a physical URL, for valid XHTML links)
+     * The rows are read forward only: the <code>ResultSet</code> must not have been read before.
      * 
      * @param result result of a SQL query
      * @return a <code>List</code> object with all the elements in the first field (column) of the <code>ResultSet</code>
@@ -254,10 +210,9 @@ public class MiriamUtilities
     {
         List<String> conv = new ArrayList<String>();
         
-        int nbLines = DbPoolConnect.getRowCount(result);
-        for (int i = 1; i <= nbLines; ++i)
+        try
         {
-            try
+            while ((null != result) && (result.next()))
             {
                 if (URL)
                 {
@@ -267,14 +222,13 @@ public class MiriamUtilities
                 {
                     conv.add(result.getString(1));
                 }
-                result.next();
-            }
-            catch (SQLException e)
-            {
-                logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
-                logger.warn("SQL Exception raised: " + e.getMessage());
             }
         }
+        catch (SQLException e)
+        {
+            logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
+            logger.warn("SQL Exception raised: " + e.getMessage());
+        }
         
         return conv;
     }
@@ -282,6 +236,7 @@ public class MiriamUtilities
     
     /**
      * Converts a <code>ResultSet</code> (from a SQL query) to a <code>List</code>
+     * The rows are read forward only: the <code>ResultSet</code> must not have been read before.
      * 
      * @param result result of a SQL query
      * @param nbCol number of columns in the ResultSet to convert
@@ -289,44 +244,14 @@ public class MiriamUtilities
      */
     public static List ArrayConvert(ResultSet result, int nbCol)
     {
-        List conv = new ArrayList();
-        List[] temp = new ArrayList[nbCol];
-        
-        for (int i = 0; i < nbCol; ++i)
-        {
-            temp[i] = new ArrayList<String>();
-        }
-        
-        int nbLines = DbPoolConnect.getRowCount(result);
-        for (int i = 0; i < nbLines; ++i)
-        {
-            try
-            {
-                for (int j = 0; j < nbCol; ++j)
-                {
-                    temp[j].add(result.getString(j + 1));
-                }
-                result.next();
-            }
-            catch (SQLException e)
-            {
-                logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
-                logger.warn("SQL Exception raised: " + e.getMessage());
-            }
-        }
-        
-        for (int i = 0; i < nbCol; ++i)
-        {
-            conv.add(temp[i]);
-        }
-        
-        return conv;
+        return ArrayConvert(result, nbCol, false);
     }
     
     
     /**
      * Converts a <code>ResultSet</code> (from a SQL query) to a <code>List</code>, with a transformation of the elements (for example,if
      * they are designed to be included in a physical URL, for valid XHTML links)
+     * The rows are read forward only: the <code>ResultSet</code> must not have been read before.
      * 
      * @param result result of a SQL query
      * @param nbCol number of columns in the ResultSet to convert
@@ -343,10 +268,9 @@ public class MiriamUtilities
             temp[i] = new ArrayList();
         }
         
-        int nbLines = DbPoolConnect.getRowCount(result);
-        for (int i = 0; i < nbLines; ++i)
+        try
         {
-            try
+            while ((null != result) && (result.next()))
             {
                 for (int j = 0; j < nbCol; ++j)
                 {
@@ -359,14 +283,13 @@ public class MiriamUtilities
                         temp[j].add(result.getString(j + 1));
                     }
                 }
-                result.next();
-            }
-            catch (SQLException e)
-            {
-                logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
-                logger.warn("SQL Exception raised: " + e.getMessage());
             }
         }
+        catch (SQLException e)
+        {
+            logger.warn("An exception occured during the conversion of a ResultSet to an ArrayList!");
+            logger.warn("SQL Exception raised: " + e.getMessage());
+        }
         
         for (int i = 0; i < nbCol; ++i)
         {
@@ -379,6 +302,7 @@ public class MiriamUtilities
     
     /**
      * Converts a <code>ResultSet</code> from a SQL query (only the first element) to a <code>String</code>
+     * The <code>ResultSet</code> must not have been read before (its cursor is moved to the first row).
      * 
      * @param result result of a SQL query
      * @return a <code>String</code> object with the first element (first column, first row) of the <code>ResultSet</code>
@@ -389,7 +313,7 @@ public class MiriamUtilities
         
         try
         {
-            if (result.first())
+            if ((null != result) && (result.next()))
             {
                 conv = result.getString(1);
             }
@@ -406,6 +330,7 @@ public class MiriamUtilities
     
     /**
      * Converts a <code>ResultSet</code> from a SQL query (only the first element) to a <code>String</code>
+     * The <code>ResultSet</code> must not have been read before (its cursor is moved to the first row).
      * 
      * @param result result of a SQL query
      * @param field name of the field to retrieve the value from
@@ -417,7 +342,7 @@ public class MiriamUtilities
         
         try
         {
-            if (result.first())
+            if ((null != result) && (result.next()))
             {
                 conv = result.getString(field);
             }
@@ -434,6 +359,7 @@ public class MiriamUtilities
     
     /**
      * Converts a <code>ResultSet</code> from a SQL query (only the first element) to a <code>int</code>
+     * The <code>ResultSet</code> must not have been read before (its cursor is moved to the first row).
      * 
      * @param result result of a SQL query
      * @return an <code>int</code> with the first element (first column, first row) of the <code>ResultSet</code>
@@ -444,7 +370,7 @@ public class MiriamUtilities
         
         try
         {
-            if (result.first())
+            if ((null != result) && (result.next()))
             {
                 conv = result.getInt(1);
             }
@@ -461,6 +387,7 @@ public class MiriamUtilities
     
     /**
      * Converts a <code>ResultSet</code> from a SQL query (only the first element) to a <code>int</code>
+     * The <code>ResultSet</code> must not have been read before (its cursor is moved to the first row).
      * 
      * @param result result of a SQL query
      * @param field name of the field to retrieve the value from
@@ -472,7 +399,7 @@ public class MiriamUtilities
         
         try
         {
-            if (result.first())
+            if ((null != result) && (result.next()))
             {
                 conv = result.getInt(field);
             }
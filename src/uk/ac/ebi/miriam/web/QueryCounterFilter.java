@@ -0,0 +1,127 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.web;
+
+
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.log4j.Logger;
+import uk.ac.ebi.miriam.db.RequestStatistics;
+
+
+/**
+ * <p>Counts the SQL statements issued while processing each request (cf. <code>RequestStatistics</code>).
+ * A warning is logged when the same query template is executed more than 'max_repeated_queries' times (init parameter,
+ * default: 10) during one request, which is usually the sign of a N+1 query pattern.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class QueryCounterFilter implements Filter
+{
+    private static final int DEFAULT_MAX_REPEATS = 10;
+    private Logger logger = Logger.getLogger(QueryCounterFilter.class);
+    private int maxRepeats = DEFAULT_MAX_REPEATS;
+    
+    public QueryCounterFilter()
+    {
+        // nothing here
+    }
+    
+    public void destroy()
+    {
+        // nothing here
+    }
+    
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+    {
+        String owner = (request instanceof HttpServletRequest) ? ((HttpServletRequest) request).getRequestURI() : request.getRemoteAddr();
+        boolean started = RequestStatistics.begin(owner, this.maxRepeats);
+        try
+        {
+            chain.doFilter(request, response);
+        }
+        finally
+        {
+            if (started)
+            {
+                RequestStatistics stats = RequestStatistics.end();
+                for (String query: stats.getRepeatedQueries())
+                {
+                    logger.warn("Query repeated during the request '" + owner + "': " + query);
+                }
+                if (logger.isDebugEnabled() && (stats.getRoundTrips() > 0))
+                {
+                    logger.debug("Request '" + owner + "': " + stats.getStatements() + " statements, " + stats.getRoundTrips() + " round trips, " + stats.getTotalTime() + " ms.");
+                }
+            }
+        }
+    }
+    
+    public void init(FilterConfig filterconfig) throws ServletException
+    {
+        String param = filterconfig.getInitParameter("max_repeated_queries");
+        if (null != param)
+        {
+            try
+            {
+                this.maxRepeats = Integer.parseInt(param.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                logger.warn("Invalid maximum number of repeated queries: '" + param + "' (default value used: " + DEFAULT_MAX_REPEATS + ")!");
+            }
+        }
+    }
+}
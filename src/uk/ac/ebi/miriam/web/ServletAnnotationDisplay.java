@@ -29,6 +29,7 @@ package uk.ac.ebi.miriam.web;
 import uk.ac.ebi.miriam.db.Annotation;
 import uk.ac.ebi.miriam.db.AnnotationDao;
 import uk.ac.ebi.miriam.db.AnnotationTag;
+import uk.ac.ebi.miriam.db.ConnectionContext;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.SimpleDataType;
 
@@ -73,7 +74,7 @@ public class ServletAnnotationDisplay extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         boolean exist = false;
         AnnoDisplay result = new AnnoDisplay();
@@ -105,7 +106,7 @@ public class ServletAnnotationDisplay extends ServletTemplate
      
                     try
                     {
-                        stmt = this.connection.createStatement();
+                        stmt = context.createStatement();
                         String sql = "SELECT anno.id, anno.format, anno.name, anno.information FROM mir_annotation anno, mir_anno_link link WHERE ((link.ptr_datatype = '" + id + "') AND (link.ptr_annotation = anno.id)) ORDER BY anno.format, anno.name";
                         ResultSet rs = stmt.executeQuery(sql);
                         boolean notEmpty;
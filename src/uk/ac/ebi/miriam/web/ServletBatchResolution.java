@@ -0,0 +1,292 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.web;
+
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uk.ac.ebi.miriam.db.Resolver;
+
+
+/**
+ * <p>Batch resolution: the body of the POST request is a list of entities, one per line (same syntax as <code>ServletBulkValidation</code>:
+ * URI of an entity, 'collection:identifier' or 'collection&lt;TAB&gt;identifier'), and the resolution of each one (status, data collection,
+ * official URI and physical locations, the healthiest resources first) is streamed back as newline delimited JSON, in the same order.
+ *
+ * <p>The requests are limited in size (body and number of entities); the entities repeated within a request are only resolved once.
+ * The size of the body is checked from the bytes actually read, since the length of a chunked request is not known in advance.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ServletBatchResolution extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
+{
+    private static final long serialVersionUID = 5492716680341108329L;
+    private static final int MAX_ENTRIES = 10000;
+    private static final int MAX_BODY_SIZE = 4 * 1024 * 1024;   // in bytes
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#HttpServlet()
+     */
+    public ServletBatchResolution()
+    {
+        super();
+    }
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+    {
+        response.setHeader("Allow", "POST");
+        response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, "The entities to resolve must be posted, one per line.");
+    }
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#doPost(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+    {
+        if (request.getContentLength() > MAX_BODY_SIZE)
+        {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "At most " + MAX_BODY_SIZE + " bytes and " + MAX_ENTRIES + " entities per request.");
+            return;
+        }
+        // no (or a wrong) content length, for example with a chunked request: the bytes are counted while reading
+        
+        if (null == request.getCharacterEncoding())
+        {
+            request.setCharacterEncoding("UTF-8");
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setStatus(HttpServletResponse.SC_OK);
+        
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));   // the same snapshot for the whole request
+        Map<String, Resolver.Resolution> resolved = new HashMap<String, Resolver.Resolution>();
+        LimitedInputStream body = new LimitedInputStream(request.getInputStream(), MAX_BODY_SIZE);
+        ServletBulkValidation.LineReader in = new ServletBulkValidation.LineReader(new InputStreamReader(body, request.getCharacterEncoding()));
+        Writer out = response.getWriter();
+        StringBuilder result = new StringBuilder(512);
+        int count = 0;
+        
+        String line;
+        while ((null != (line = in.readLine())) && ! body.isExceeded())
+        {
+            result.setLength(0);
+            if (++count > MAX_ENTRIES)
+            {
+                result.append("{\"error\":\"Too many entities: at most ").append(MAX_ENTRIES).append(" per request.\"}\n");
+                out.write(result.toString());
+                break;
+            }
+            
+            String entry = line.trim();
+            Resolver.Resolution resolution = in.isTruncated() ? null : resolved.get(entry);
+            if ((null == resolution) && ! in.isTruncated())
+            {
+                resolution = resolve(resolver, entry);
+                resolved.put(entry, resolution);
+            }
+            
+            result.append("{\"line\":").append(count).append(",\"input\":\"");
+            ServletBulkValidation.appendJson(result, line);
+            result.append("\",\"status\":\"");
+            if (null == resolution)
+            {
+                result.append("invalid\"}\n");   // line too long
+            }
+            else
+            {
+                append(result, resolution);
+            }
+            out.write(result.toString());
+        }
+        
+        if (body.isExceeded())
+        {
+            if (! response.isCommitted())
+            {
+                response.resetBuffer();
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "At most " + MAX_BODY_SIZE + " bytes and " + MAX_ENTRIES + " entities per request.");
+                return;
+            }
+            out.write("{\"error\":\"Request too large: at most " + MAX_BODY_SIZE + " bytes per request.\"}\n");   // the status has already been sent
+        }
+        out.flush();
+    }
+    
+    
+    /**
+     * Resolves one line of the input.
+     * @param resolver resolver working on a snapshot of the Registry
+     * @param line 'collection:identifier', 'collection&lt;TAB&gt;identifier' or URI of an entity
+     * @return resolution of the entity
+     */
+    private static Resolver.Resolution resolve(Resolver resolver, String line)
+    {
+        if (ServletBulkValidation.isUri(line))
+        {
+            return resolver.resolve(line);
+        }
+        
+        int separator = ServletBulkValidation.separator(line);
+        if (separator <= 0)
+        {
+            return resolver.resolve("", line);   // unknown data collection
+        }
+        
+        return resolver.resolve(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+    }
+    
+    
+    /**
+     * Appends the resolution of an entity to a JSON object (from its status to the end of the object).
+     */
+    private static void append(StringBuilder json, Resolver.Resolution resolution)
+    {
+        json.append(resolution.getStatus().name().toLowerCase()).append('"');
+        if (null != resolution.getCollectionId())
+        {
+            json.append(",\"collection\":\"").append(resolution.getCollectionId()).append("\",\"name\":\"");
+            ServletBulkValidation.appendJson(json, resolution.getCollectionName());
+            json.append('"');
+        }
+        if (null != resolution.getUri())
+        {
+            json.append(",\"uri\":\"");
+            ServletBulkValidation.appendJson(json, resolution.getUri());
+            json.append("\",\"locations\":[");
+            String[] locations = resolution.getLocations();
+            for (int i = 0; i < locations.length; ++i)
+            {
+                json.append((i == 0) ? "\"" : ",\"");
+                ServletBulkValidation.appendJson(json, locations[i]);
+                json.append('"');
+            }
+            json.append(']');
+        }
+        json.append("}\n");
+    }
+    
+    
+    /**
+     * Input stream which counts the bytes read and stops (end of stream) once more than a given number of them have been read.
+     */
+    private static final class LimitedInputStream extends FilterInputStream
+    {
+        private final long limit;
+        private long count = 0;
+        
+        private LimitedInputStream(InputStream in, long limit)
+        {
+            super(in);
+            this.limit = limit;
+        }
+        
+        /**
+         * Checks if the stream is longer than the limit (in which case its end has not been read).
+         * @return true if more bytes than allowed have been sent
+         */
+        boolean isExceeded()
+        {
+            return this.count > this.limit;
+        }
+        
+        @Override
+        public int read() throws IOException
+        {
+            if (isExceeded())
+            {
+                return -1;
+            }
+            int read = super.read();
+            if (read >= 0)
+            {
+                this.count++;
+            }
+            
+            return isExceeded() ? -1 : read;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            if (isExceeded())
+            {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, this.limit + 1 - this.count));   // at most one byte beyond the limit
+            if (read > 0)
+            {
+                this.count += read;
+            }
+            
+            return isExceeded() ? -1 : read;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException
+        {
+            return 0;   // all the bytes must be counted
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.web;
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+
+import uk.ac.ebi.miriam.db.Resolver;
+
+
+/**
+ * <p>Bulk validation of identifiers: the body of the POST request is a list of identifiers, one per line, and the status of each one
+ * is streamed back as soon as it is computed (neither the input nor the output is kept in memory).
+ *
+ * <p>Each line is either a pair 'collection:identifier' (split at the first ':'), a pair 'collection&lt;TAB&gt;identifier',
+ * or the URI of an entity (URN, URL or physical location); the collection is given by its name, one of its synonyms or one of its URIs.
+ * The status is one of: 'valid', 'invalid', 'unknown' (collection not recognised) or 'deprecated' (valid identifier, but deprecated collection or URI).
+ *
+ * <p>The output is either tab separated values (line number, status, input), the default, or newline delimited JSON
+ * (parameter 'format=ndjson' or header 'Accept: application/x-ndjson').
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ServletBulkValidation extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
+{
+    private static final long serialVersionUID = -2871640358917266413L;
+    private static Logger logger = Logger.getLogger(ServletBulkValidation.class);
+    private static final int MAX_LINE_LENGTH = 4096;   // longer lines are reported as invalid
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String TSV = "text/tab-separated-values";
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#HttpServlet()
+     */
+    public ServletBulkValidation()
+    {
+        super();
+    }
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+    {
+        response.setHeader("Allow", "POST");
+        response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, "The identifiers to validate must be posted, one per line.");
+    }
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#doPost(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+    {
+        String format = request.getParameter("format");
+        String accept = request.getHeader("Accept");
+        boolean json = (null != format) ? format.trim().equalsIgnoreCase("ndjson") : ((null != accept) && accept.contains(NDJSON));
+        
+        if (null == request.getCharacterEncoding())
+        {
+            request.setCharacterEncoding("UTF-8");
+        }
+        response.setContentType(json ? NDJSON : TSV);
+        response.setCharacterEncoding("UTF-8");
+        response.setStatus(HttpServletResponse.SC_OK);
+        
+        long start = System.currentTimeMillis();
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));   // the same snapshot for the whole request
+        LineReader in = new LineReader(request.getReader());
+        Writer out = response.getWriter();
+        StringBuilder result = new StringBuilder(128);
+        long count = 0;
+        
+        String line;
+        while (null != (line = in.readLine()))
+        {
+            count++;
+            Resolver.Status status = in.isTruncated() ? Resolver.Status.INVALID : validate(resolver, line.trim());
+            
+            result.setLength(0);
+            if (json)
+            {
+                result.append("{\"line\":").append(count).append(",\"status\":\"").append(status.name().toLowerCase()).append("\",\"input\":\"");
+                appendJson(result, line);
+                result.append("\"}\n");
+            }
+            else
+            {
+                result.append(count).append('\t').append(status.name().toLowerCase()).append('\t').append(line).append('\n');
+            }
+            out.write(result.toString());
+        }
+        out.flush();
+        
+        logger.info("Bulk validation of " + count + " identifiers in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+    
+    
+    /**
+     * Validates one line of the input.
+     * @param resolver resolver working on a snapshot of the Registry
+     * @param line 'collection:identifier', 'collection&lt;TAB&gt;identifier' or URI of an entity
+     * @return status of the identifier
+     */
+    static Resolver.Status validate(Resolver resolver, String line)
+    {
+        if (isUri(line))
+        {
+            return resolver.validate(line);
+        }
+        
+        int separator = separator(line);
+        if (separator <= 0)
+        {
+            return Resolver.Status.UNKNOWN;
+        }
+        
+        return resolver.validate(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+    }
+    
+    
+    /**
+     * Checks if a line of the input is the URI of an entity.
+     * @param line line of the input (trimmed)
+     * @return true if the line is a URN or a URL
+     */
+    static boolean isUri(String line)
+    {
+        return line.startsWith("urn:") || line.startsWith("http://") || line.startsWith("https://");
+    }
+    
+    
+    /**
+     * Finds the separator between the data collection and the identifier in a line of the input: the first tab, else the first ':'.
+     * @param line line of the input (trimmed)
+     * @return position of the separator, or -1 if none
+     */
+    static int separator(String line)
+    {
+        int separator = line.indexOf('\t');
+        
+        return (separator < 0) ? line.indexOf(':') : separator;
+    }
+    
+    
+    /**
+     * Appends a value to a JSON string (the quotes, backslashes and control characters are escaped).
+     */
+    static void appendJson(StringBuilder json, String value)
+    {
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+            if ((c == '"') || (c == '\\'))
+            {
+                json.append('\\').append(c);
+            }
+            else if (c < 0x20)
+            {
+                json.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                json.append(c);
+            }
+        }
+    }
+    
+    
+    /**
+     * Reads lines from a stream, keeping at most <code>MAX_LINE_LENGTH</code> characters of each one.
+     */
+    static final class LineReader
+    {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder(128);
+        private int position = 0;
+        private int limit = 0;
+        private boolean truncated = false;
+        
+        LineReader(Reader reader)
+        {
+            this.reader = reader;
+        }
+        
+        /**
+         * Reads the next line (without its end of line).
+         * @return the line (truncated if too long), or null at the end of the stream
+         */
+        String readLine() throws IOException
+        {
+            this.line.setLength(0);
+            this.truncated = false;
+            boolean empty = true;
+            
+            while (true)
+            {
+                if (this.position == this.limit)
+                {
+                    this.limit = this.reader.read(this.buffer);
+                    this.position = 0;
+                    if (this.limit <= 0)
+                    {
+                        this.limit = 0;
+                        return empty ? null : this.line.toString();
+                    }
+                }
+                
+                char c = this.buffer[this.position++];
+                empty = false;
+                if (c == '\n')
+                {
+                    int length = this.line.length();
+                    if ((length > 0) && (this.line.charAt(length - 1) == '\r'))
+                    {
+                        this.line.setLength(length - 1);
+                    }
+                    return this.line.toString();
+                }
+                if (this.line.length() < MAX_LINE_LENGTH)
+                {
+                    this.line.append(c);
+                }
+                else
+                {
+                    this.truncated = true;
+                }
+            }
+        }
+        
+        /**
+         * Checks if the last line read was too long.
+         * @return true if the last line has been truncated
+         */
+        boolean isTruncated()
+        {
+            return this.truncated;
+        }
+    }
+}
@@ -26,6 +26,7 @@
 package uk.ac.ebi.miriam.web;
 
 
+import uk.ac.ebi.miriam.db.ConnectionContext;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.SimpleDataType;
 
@@ -70,7 +71,7 @@ public class ServletDataCollectionDeprecate extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         // retrieves the user logged who asked for the action
         HttpSession session = request.getSession();
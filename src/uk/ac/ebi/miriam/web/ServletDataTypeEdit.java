@@ -74,7 +74,7 @@ public class ServletDataTypeEdit extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         Statement stmt = null;
         boolean exist = false;
@@ -92,10 +92,10 @@ public class ServletDataTypeEdit extends ServletTemplate
             {
                 try
                 {
-                    stmt = this.connection.createStatement();
+                    stmt = context.createStatement();
                     String sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + param + "')";
                     ResultSet rs = stmt.executeQuery(sql);
-                    if (rs.first())
+                    if (rs.next())
                     {
                         exist = true;
                     }
@@ -73,7 +73,7 @@ public class ServletDataTypeInfo extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         Statement stmt = null;
         DataTypeHibernate data = new DataTypeHibernate();
@@ -90,10 +90,10 @@ public class ServletDataTypeInfo extends ServletTemplate
         	{
         	    try
                 {
-                    stmt = this.connection.createStatement();
+                    stmt = context.createStatement();
                     String sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + id + "')";
                     ResultSet rs = stmt.executeQuery(sql);
-                    if (rs.first())
+                    if (rs.next())
                     {
                         exist = true;
                     }
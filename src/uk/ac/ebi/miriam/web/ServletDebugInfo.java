@@ -36,12 +36,16 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import uk.ac.ebi.miriam.db.IdentifierPatterns;
+import uk.ac.ebi.miriam.db.Resolver;
+import uk.ac.ebi.miriam.db.SqlQuery;
+
 
 /**
 * Gathers and displays some information about the code running, for testing and debug purposes.
 *
 * @author Camille Laibe
-* @version 20100319
+* @version 20261017
 */
 public class ServletDebugInfo extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
 {
@@ -78,6 +82,16 @@ public class ServletDebugInfo extends javax.servlet.http.HttpServlet implements
         }
         
         request.setAttribute("server", hostName);
+        
+        // the internals of the Registry (including the patterns provided by the curators) are only displayed to the curators
+        boolean curator = MiriamUtilities.isUserCurator(request.getSession());
+        request.setAttribute("curator", curator);
+        if (curator)
+        {
+            request.setAttribute("statements", SqlQuery.getExecutionSummary());
+            request.setAttribute("resolver", Resolver.getCacheSummary());
+            request.setAttribute("patterns", IdentifierPatterns.getFlaggedSummary());
+        }
         view = request.getRequestDispatcher("debug.jsp");
         view.forward(request, response);
     }
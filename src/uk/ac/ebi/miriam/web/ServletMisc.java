@@ -36,6 +36,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import uk.ac.ebi.miriam.db.Annotation;
 import uk.ac.ebi.miriam.db.AnnotationDao;
+import uk.ac.ebi.miriam.db.ConnectionContext;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.DataTypeHibernate;
 
@@ -75,7 +76,7 @@ public class ServletMisc extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         Statement stmt = null;
         DataTypeHibernate data = new DataTypeHibernate();
@@ -93,10 +94,10 @@ public class ServletMisc extends ServletTemplate
             {
                 try
                 {
-                    stmt = this.connection.createStatement();
+                    stmt = context.createStatement();
                     String sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + id + "')";
                     ResultSet rs = stmt.executeQuery(sql);
-                    if (rs.first())
+                    if (rs.next())
                     {
                         exist = true;
                     }
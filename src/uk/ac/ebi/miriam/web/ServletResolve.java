@@ -0,0 +1,113 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.web;
+
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uk.ac.ebi.miriam.db.Resolver;
+
+
+/**
+ * <p>Resolution of an entity to the best physical location available: '/resolve/{namespace}/{identifier}' (for example '/resolve/obo.go/GO:0045202')
+ * is redirected (302) to the resource of the data collection which was up during the last health check, primary, and the most reliable.
+ *
+ * <p>The ranking of the resources is part of the snapshot of the Registry, rebuilt after each health check (cf. <code>UrlCheck</code>):
+ * no database query is performed here.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ServletResolve extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
+{
+    private static final long serialVersionUID = 3874105926648212045L;
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#HttpServlet()
+     */
+    public ServletResolve()
+    {
+        super();
+    }
+    
+    
+    /*
+     * @see javax.servlet.http.HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+    {
+        String path = request.getPathInfo();   // '/{namespace}/{identifier}', already decoded
+        int separator = (null == path) ? -1 : path.indexOf('/', 1);
+        if ((separator < 0) || (separator == path.length() - 1))
+        {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected: /resolve/{namespace}/{identifier}");
+            return;
+        }
+        String namespace = path.substring(1, separator);
+        String id = path.substring(separator + 1);
+        
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
+        String location = resolver.getBestLocation(namespace, id);
+        if (null == location)
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Invalid identifier for the data collection '" + namespace + "'.");
+        }
+        else if (location.length() == 0)
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown data collection (or without any resource): '" + namespace + "'.");
+        }
+        else
+        {
+            response.sendRedirect(location);   // 302
+        }
+    }
+}
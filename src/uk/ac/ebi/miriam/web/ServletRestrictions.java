@@ -33,6 +33,7 @@ import java.sql.Statement;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import uk.ac.ebi.miriam.db.ConnectionContext;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 import uk.ac.ebi.miriam.db.DataTypeHibernate;
 
@@ -73,7 +74,7 @@ public class ServletRestrictions extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         DataTypeHibernate data = new DataTypeHibernate();
         Statement stmt = null;
@@ -91,10 +92,10 @@ public class ServletRestrictions extends ServletTemplate
             {
                 try
                 {
-                    stmt = this.connection.createStatement();
+                    stmt = context.createStatement();
                     String sql = "SELECT name FROM mir_datatype WHERE (datatype_id='" + id + "')";
                     ResultSet rs = stmt.executeQuery(sql);
-                    if (rs.first())
+                    if (rs.next())
                     {
                         exist = true;
                     }
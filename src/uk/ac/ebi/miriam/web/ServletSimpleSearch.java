@@ -37,6 +37,7 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import uk.ac.ebi.miriam.db.ConnectionContext;
 
 
 /**
@@ -74,7 +75,7 @@ public class ServletSimpleSearch extends ServletTemplate
     
     
     @Override
-    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page)
+    protected void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context)
     {
         ResultSet rs = null;
         String message = null;
@@ -113,13 +114,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	        try
 	        {
 	            // search in the 'data type' table
-	            stmt1 = this.connection.prepareStatement("SELECT name, definition, datatype_id FROM mir_datatype WHERE ((datatype_id LIKE ?) OR (name LIKE ?) OR (definition LIKE ?))");
+	            stmt1 = context.prepareStatement("SELECT name, definition, datatype_id FROM mir_datatype WHERE ((datatype_id LIKE ?) OR (name LIKE ?) OR (definition LIKE ?))");
 	            // search in the 'synonym' table
-	            stmt2 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_synonym s WHERE ((d.datatype_id = s.ptr_datatype) AND (s.name LIKE ?))");
+	            stmt2 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_synonym s WHERE ((d.datatype_id = s.ptr_datatype) AND (s.name LIKE ?))");
 	            // search in the 'resource' table
-	            stmt3 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_resource r WHERE ((d.datatype_id = r.ptr_datatype) AND ((r.resource_id LIKE ?) OR (r.info LIKE ?) OR (r.institution LIKE ?) OR (r.location LIKE ?)))");
+	            stmt3 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_resource r WHERE ((d.datatype_id = r.ptr_datatype) AND ((r.resource_id LIKE ?) OR (r.info LIKE ?) OR (r.institution LIKE ?) OR (r.location LIKE ?)))");
 	            // search in the 'uri' table
-	            stmt4 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_uri u WHERE ((d.datatype_id = u.ptr_datatype) AND (u.uri LIKE ?))");
+	            stmt4 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id FROM mir_datatype d, mir_uri u WHERE ((d.datatype_id = u.ptr_datatype) AND (u.uri LIKE ?))");
 	            
 	            // from 'data type' table
 	            stmt1.setString(1, "%" + words + "%");
@@ -128,15 +129,12 @@ public class ServletSimpleSearch extends ServletTemplate
 	            logger.debug("SQL query: " + stmt1.toString());
 	            rs = stmt1.executeQuery();
 	            
-	            int nbLines = MiriamUtilities.getRowCount(rs);
-	            for (int i=1; i<=nbLines; ++i)
+	            while (rs.next())
 	            {
 	                ArrayList<String> temp = new ArrayList<String>();
 	                temp.add(rs.getString("datatype_id"));
 	                temp.add(shortDef(rs.getString("definition")));
 	                resultsPublished.put(rs.getString("name"), temp);
-	                
-	                rs.next();
 	            }
 	            stmt1.close();
 	            
@@ -144,15 +142,12 @@ public class ServletSimpleSearch extends ServletTemplate
 	            stmt2.setString(1, "%" + words + "%");
 	            logger.debug("SQL query: " + stmt2.toString());
 	            rs = stmt2.executeQuery();
-	            nbLines = MiriamUtilities.getRowCount(rs);
-	            for (int i=1; i<=nbLines; ++i)
+	            while (rs.next())
 	            {
 	                ArrayList<String> temp = new ArrayList<String>();
 	                temp.add(rs.getString("datatype_id"));
 	                temp.add(shortDef(rs.getString("definition")));
 	                resultsPublished.put(rs.getString("name"), temp);
-	                
-	                rs.next();
 	            }
 	            stmt2.close();
 	            
@@ -163,15 +158,12 @@ public class ServletSimpleSearch extends ServletTemplate
 	            stmt3.setString(4, "%" + words + "%");
 	            logger.debug("SQL query: " + stmt3.toString());
 	            rs = stmt3.executeQuery();
-	            nbLines = MiriamUtilities.getRowCount(rs);
-	            for (int i=1; i<=nbLines; ++i)
+	            while (rs.next())
 	            {
 	                ArrayList<String> temp = new ArrayList<String>();
 	                temp.add(rs.getString("datatype_id"));
 	                temp.add(shortDef(rs.getString("definition")));
 	                resultsPublished.put(rs.getString("name"), temp);
-	                
-	                rs.next();
 	            }
 	            stmt3.close();
 	            
@@ -179,15 +171,12 @@ public class ServletSimpleSearch extends ServletTemplate
 	            stmt4.setString(1, "%" + words + "%");
 	            logger.debug("SQL query: " + stmt4.toString());
 	            rs = stmt4.executeQuery();
-	            nbLines = MiriamUtilities.getRowCount(rs);
-	            for (int i=1; i<=nbLines; ++i)
+	            while (rs.next())
 	            {
 	                ArrayList<String> temp = new ArrayList<String>();
 	                temp.add(rs.getString("datatype_id"));
 	                temp.add(shortDef(rs.getString("definition")));
 	                resultsPublished.put(rs.getString("name"), temp);
-	                
-	                rs.next();
 	            }
 	            stmt4.close();
 	        }
@@ -215,13 +204,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	            try
 	            {
 	                // search in the 'data type' table
-	                stmt5 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_material m WHERE (((d.datatype_id LIKE ?) OR (d.name LIKE ?) OR (d.definition LIKE ?)) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
+	                stmt5 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_material m WHERE (((d.datatype_id LIKE ?) OR (d.name LIKE ?) OR (d.definition LIKE ?)) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
 	                // search in the 'synonym' table
-	                stmt6 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_synonym s, cura_material m WHERE ((d.datatype_id = s.ptr_datatype) AND (s.name LIKE ?) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
+	                stmt6 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_synonym s, cura_material m WHERE ((d.datatype_id = s.ptr_datatype) AND (s.name LIKE ?) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
 	                // search in the 'resource' table
-	                stmt7 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_resource r, cura_material m WHERE ((d.datatype_id = r.ptr_datatype) AND ((r.resource_id LIKE ?) OR (r.info LIKE ?) OR (r.institution LIKE ?) OR (r.location LIKE ?)) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
+	                stmt7 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_resource r, cura_material m WHERE ((d.datatype_id = r.ptr_datatype) AND ((r.resource_id LIKE ?) OR (r.info LIKE ?) OR (r.institution LIKE ?) OR (r.location LIKE ?)) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
 	                // search in the 'uri' table
-	                stmt8 = this.connection.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_uri u, cura_material m WHERE ((d.datatype_id = u.ptr_datatype) AND (u.uri LIKE ?) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
+	                stmt8 = context.prepareStatement("SELECT d.name, d.definition, d.datatype_id, m.state FROM cura_datatype d, cura_uri u, cura_material m WHERE ((d.datatype_id = u.ptr_datatype) AND (u.uri LIKE ?) AND (d.datatype_id = m.ptr_datatype) AND ((m.state = 'Submitted') OR (m.state = 'Pending') OR (m.state = 'Curation') OR (m.state = 'Canceled')))");
 	                
 	            
 	                // from 'data type' table
@@ -231,16 +220,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	                logger.debug("SQL query: " + stmt5.toString());
 	                rs = stmt5.executeQuery();
 	                
-	                int nbLines = MiriamUtilities.getRowCount(rs);
-	                for (int i=1; i<=nbLines; ++i)
+	                while (rs.next())
 	                {
 	                    ArrayList<String> temp = new ArrayList<String>();
 	                    temp.add(rs.getString("datatype_id"));
 	                    temp.add(shortDef(rs.getString("definition")));
 	                    temp.add(rs.getString("state"));
 	                    resultsUnderCuration.put(rs.getString("name"), temp);
-	                    
-	                    rs.next();
 	                }
 	                stmt5.close();
 	                
@@ -248,16 +234,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	                stmt6.setString(1, "%" + words + "%");
 	                logger.debug("SQL query: " + stmt6.toString());
 	                rs = stmt6.executeQuery();
-	                nbLines = MiriamUtilities.getRowCount(rs);
-	                for (int i=1; i<=nbLines; ++i)
+	                while (rs.next())
 	                {
 	                    ArrayList<String> temp = new ArrayList<String>();
 	                    temp.add(rs.getString("datatype_id"));
 	                    temp.add(shortDef(rs.getString("definition")));
 	                    temp.add(rs.getString("state"));
 	                    resultsUnderCuration.put(rs.getString("name"), temp);
-	                    
-	                    rs.next();
 	                }
 	                stmt6.close();
 	                
@@ -268,16 +251,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	                stmt7.setString(4, "%" + words + "%");
 	                logger.debug("SQL query: " + stmt7.toString());
 	                rs = stmt7.executeQuery();
-	                nbLines = MiriamUtilities.getRowCount(rs);
-	                for (int i=1; i<=nbLines; ++i)
+	                while (rs.next())
 	                {
 	                    ArrayList<String> temp = new ArrayList<String>();
 	                    temp.add(rs.getString("datatype_id"));
 	                    temp.add(shortDef(rs.getString("definition")));
 	                    temp.add(rs.getString("state"));
 	                    resultsUnderCuration.put(rs.getString("name"), temp);
-	                    
-	                    rs.next();
 	                }
 	                stmt7.close();
 	                
@@ -285,16 +265,13 @@ public class ServletSimpleSearch extends ServletTemplate
 	                stmt8.setString(1, "%" + words + "%");
 	                logger.debug("SQL query: " + stmt8.toString());
 	                rs = stmt8.executeQuery();
-	                nbLines = MiriamUtilities.getRowCount(rs);
-	                for (int i=1; i<=nbLines; ++i)
+	                while (rs.next())
 	                {
 	                    ArrayList<String> temp = new ArrayList<String>();
 	                    temp.add(rs.getString("datatype_id"));
 	                    temp.add(shortDef(rs.getString("definition")));
 	                    temp.add(rs.getString("state"));
 	                    resultsUnderCuration.put(rs.getString("name"), temp);
-	                    
-	                    rs.next();
 	                }
 	                stmt8.close();
 	            }
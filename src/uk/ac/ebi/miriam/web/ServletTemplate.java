@@ -27,19 +27,18 @@
 package uk.ac.ebi.miriam.web;
 
 
+import uk.ac.ebi.miriam.db.ConnectionContext;
+import uk.ac.ebi.miriam.db.DbPoolRegistry;
 import uk.ac.ebi.miriam.db.DbServer;
+import uk.ac.ebi.miriam.db.UnitOfWork;
 import uk.ac.ebi.miriam.tools.PropertyLoader;
 
 import java.io.IOException;
-import java.sql.Connection;
 import java.sql.Statement;
 import java.sql.PreparedStatement;
 import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.util.Properties;
-import javax.naming.Context;
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -83,7 +82,6 @@ public abstract class ServletTemplate extends javax.servlet.http.HttpServlet imp
     protected Logger logger = Logger.getLogger(ServletTemplate.class);
     private DataSource dataSource = null;
     private String poolName = null;
-    protected Connection connection = null;
     
     
     /**
@@ -101,9 +99,7 @@ public abstract class ServletTemplate extends javax.servlet.http.HttpServlet imp
     @Override
     public void init(ServletConfig config) throws ServletException
     {
-        boolean failure = false;
-        Context initContext = null;
-        Context envContext = null;
+        super.init(config);
         
         // retrieves some info from the miriam.properties file
         PropertyLoader pl = new PropertyLoader();
@@ -111,67 +107,13 @@ public abstract class ServletTemplate extends javax.servlet.http.HttpServlet imp
         this.poolName = properties.getProperty("database_pool");
         properties.clear();   // a bit of cleaning
         
-        // Initialisation of the connection
-        try
-        {
-            initContext = new InitialContext();
-        }
-        catch (NamingException e)
-        {
-            logger.error("Connection to the database pool: failure, no initial context!");
-            logger.error("NamingException: " + e.getMessage());
-            failure = true;
-        }
-        
-        if (null == initContext)
-        {
-            logger.error("Connection to the database pool: failed to retrieve the initial context.");
-            failure = true;
-        }
-        else
-        {
-            try
-            {
-                envContext = (Context) initContext.lookup("java:/comp/env");
-            }
-            catch (NamingException e)
-            {
-                logger.error("Connection to the database pool: failure, no environment context!");
-                logger.error("NamingException: " + e.getMessage());
-                failure = true;
-            }
-            
-            if (null == envContext)
-            {
-                logger.error("Connection to the database pool: failed to retrieve the environment context.");
-                failure = true;
-            }
-            else
-            {
-                try
-                {
-                    // look up a DataSource, which represents a connection pool
-                    this.dataSource = (DataSource) envContext.lookup("jdbc/" + this.poolName + DbServer.getDbServerText());
-                }
-                catch (NamingException e)
-                {
-                    logger.error("Connection to the database pool '" + this.poolName + DbServer.getDbServerText()+ "': failure, no data source!");
-                    logger.error("NamingException: " + e.getMessage());
-                    failure = true;
-                }
-                
-                if (null == this.dataSource)
-                {
-                    logger.error("Connection to the database pool '" + this.poolName + "': failed to retrieve the data source.");
-                    failure = true;
-                }
-            }
-        }
+        // the data source is resolved once for the whole application
+        this.dataSource = DbPoolRegistry.getDataSource(this.poolName);
         
         // failure to setup the connection to the database pool
-        if (failure)
+        if (null == this.dataSource)
         {
-            logger.error("Connection to the database pool: failed.");
+            logger.error("Connection to the database pool '" + this.poolName + DbServer.getDbServerText() + "': failed.");
             throw new ServletException("Failure to connect to the database pool!");
         }
     }
@@ -194,44 +136,26 @@ public abstract class ServletTemplate extends javax.servlet.http.HttpServlet imp
         RequestDispatcher view = null;
         StringBuilder jsp = new StringBuilder();
         
-        try
-        {
-            synchronized (this.dataSource)
-            {
-              this.connection = this.dataSource.getConnection();
-            }
-        }
-        catch (Exception e)
-        {
-            logger.error("Unable to open a database connection!");
-            logger.error("Exception: " + e.getMessage());
-            logger.error("StackTrace: " + e.getStackTrace().toString());
-        }
-        
-        if (null == this.connection)
+        // the connection is bound to this request only (never shared between concurrent requests)
+        // if a unit of work is active, its connection is shared with the DAOs and released at the end of the request
+        ConnectionContext context = UnitOfWork.getContext(this.poolName);
+        boolean owned = (null == context);
+        if (owned)
         {
-            logger.error("Unable to get a connection from the database pool!");
+            context = new ConnectionContext(this.poolName, getServletName());
         }
-        else
+        try
         {
-            
             // custom work performed by the Servlet (implemented in the inherited class)
-            execute(request, response, jsp);
-            
+            execute(request, response, jsp, context);
         }
-        
-        try
+        finally
         {
-            if (null != null)
+            if (owned)
             {
-                this.connection.close();   // returns the connection to the pool
+                context.release();   // returns the connection to the pool
             }
         }
-        catch (Exception e)
-        {
-            logger.warn("Unable to close opened statements and/or database connection!");
-            logger.error("Exception: " + e.getMessage());
-        }
         
         // sends the data back to the 'view'
         view = request.getRequestDispatcher(jsp.toString());
@@ -241,9 +165,10 @@ public abstract class ServletTemplate extends javax.servlet.http.HttpServlet imp
     
     /**
      * Work needed to be performed by the Servlet.
-     * The object 'connection' can be used there to perform SQL queries.
+     * The object 'context' can be used there to perform SQL queries: its connection is returned to the pool once this
+     * method has returned (or thrown).
      */
-    protected abstract void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page);
+    protected abstract void execute(HttpServletRequest request, HttpServletResponse response, StringBuilder page, ConnectionContext context);
     //protected abstract void execute(String jsp, String message, Map<String, Object> data);
     
     
@@ -26,35 +26,22 @@
 package uk.ac.ebi.miriam.web;
 
 
-import uk.ac.ebi.compneur.util.DatetimeProcessor;
-import uk.ac.ebi.miriam.db.DataCollection;
-import uk.ac.ebi.miriam.db.DataTypeDao;
-import uk.ac.ebi.miriam.tools.RdfUtilities;
+import uk.ac.ebi.miriam.xml.ExportManager;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Date;
-import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
-import com.hp.hpl.jena.rdf.model.Model;
-import com.hp.hpl.jena.rdf.model.ModelFactory;
-import com.hp.hpl.jena.rdf.model.Property;
-import com.hp.hpl.jena.rdf.model.Resource;
-import com.hp.hpl.jena.vocabulary.DCTerms;
-import com.hp.hpl.jena.vocabulary.RDF;
 
 
 /**
- * <p>Servlet that handles the generation of the RDF exports (RDF/XML and Turtle) on the fly for the whole Registry.
+ * <p>Servlet that serves the RDF exports (RDF/XML, Turtle and N-Triples) of the whole Registry (generated once per version, cf. <code>ExportManager</code>).
  * <p>The export is available via a simple HTTP GET request.
  * <p>Optional parameters: format.
  * 
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20130827
+ * @version 20261017
 */
 public class ServletWholeRdfExport extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
 {
@@ -67,100 +54,28 @@ public class ServletWholeRdfExport extends javax.servlet.http.HttpServlet implem
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
     {
-        String jenaFormat = null;
-        String mime = null;
-        RdfUtilities.FORMAT format = null;
         String version = getServletContext().getInitParameter("version");
         String poolName = getServletContext().getInitParameter("miriam_db_pool");
-        DataTypeDao dao = new DataTypeDao(poolName);
-        Date lastUpdateDate = dao.getLastModifDate();
+        String path = getServletContext().getInitParameter("exportDir");
         
-        // request for a specific format
+        // request for a specific format (default: RDF/XML)
+        ExportManager.Format format = ExportManager.Format.RDF_XML;
         String formatParam = request.getParameter("format");
-        if (null != formatParam)
+        if ((null != formatParam) && formatParam.trim().equalsIgnoreCase("turtle"))
         {
-        	formatParam = formatParam.trim();
-        	if (formatParam.equalsIgnoreCase("turtle"))
-        	{
-        		jenaFormat = "TURTLE";   // could also be "TTL" (same result?)
-        		mime = "text/turtle";
-        		format = RdfUtilities.FORMAT.turtle;
-        	}
-        	else  // default: RDF/XML
-        	{
-        		jenaFormat = "RDF/XML";   // could also be "RDF/XML-ABBREV": not recommended for serialising large models from a persistent database
-        		mime = "application/rdf+xml";
-        		format = RdfUtilities.FORMAT.rdfxml;
-        	}
-        	// other possible values: "N-TRIPLE" and "N3"
+            format = ExportManager.Format.TURTLE;
         }
-        else  // default: RDF/XML
+        else if ((null != formatParam) && formatParam.trim().equalsIgnoreCase("ntriples"))
         {
-        	jenaFormat = "RDF/XML";   // could also be "RDF/XML-ABBREV": not recommended for serialising large models from a persistent database
-    		mime = "application/rdf+xml";
-    		format = RdfUtilities.FORMAT.rdfxml;
+            format = ExportManager.Format.NTRIPLES;
         }
         
-        Model model = ModelFactory.createDefaultModel();
-        
-        // defines namespaces
-     	model.setNsPrefix("void", "http://rdfs.org/ns/void#");
-     	model.setNsPrefix("dcterms", "http://purl.org/dc/terms/");
-     	model.setNsPrefix("dcat", "http://www.w3.org/ns/dcat#");
-     	model.setNsPrefix("foaf", "http://xmlns.com/foaf/0.1/");
-     	
-     	Resource uriRequest = null;
-     	switch(format)
-     	{
-     		case turtle:
-     			uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/turtle");         			
-     			break;
-     		case rdfxml:
-     			uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/rdfxml");
-     			break;
-     		default:
-     			uriRequest = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/export/rdfxml");
-     			break;
-     	}
-     	Resource registry = model.createResource("http://identifiers.org/registry/");
-     	Property dcatCatalog = model.createProperty("http://www.w3.org/ns/dcat#", "Catalog");
-     	Property foafDocument = model.createProperty("http://xmlns.com/foaf/0.1/", "Document");
-        Property foafPrimaryTopic = model.createProperty("http://xmlns.com/foaf/0.1/", "primaryTopic");
-        Property voidInDataset = model.createProperty("http://rdfs.org/ns/void#", "inDataset");
-        
-     	// requested URI (includes the format): root element
-     	uriRequest.addProperty(RDF.type, foafDocument);
-     	uriRequest.addProperty(foafPrimaryTopic, registry);
-     	
-     	// root URI (no format info)
-     	// metadata about the Registry/Identifiers.org
-     	registry.addProperty(RDF.type, dcatCatalog);
-     	registry.addProperty(DCTerms.title, model.createTypedLiteral("Identifiers.org's Registry", XSDDatatype.XSDstring));
-     	registry.addProperty(DCTerms.description, model.createTypedLiteral("Identifiers.org is a system providing resolvable persistent URIs used to identify data for the scientific community. It relies on the information stored in the Registry (a list of data collections and the physical locations where information can be accessed).", XSDDatatype.XSDstring));
-     	registry.addProperty(DCTerms.license, model.createTypedLiteral("TBD", XSDDatatype.XSDstring));
-     	registry.addProperty(DCTerms.modified, model.createTypedLiteral(DatetimeProcessor.instance.formatToW3CDTF(lastUpdateDate), XSDDatatype.XSDdateTime));
-     	registry.addProperty(DCTerms.publisher, model.createResource("http://identifiers.org/"));
-     	
-     	// list all collections
-     	List<DataCollection> collections = dao.getDataCollections(poolName);
-     	for (DataCollection collection: collections)
-     	{
-     		Resource collectionURI = model.createResource("http://www.ebi.ac.uk/miriam/" + version + "/collections/" + collection.getId());   // maybe later replace that URI by http://identifiers.org/[namespace]
-     		//Resource dcatCatalogRecord = model.createResource("http://www.w3.org/ns/dcat#" + "CatalogRecord");
-     		//collectionURI.addProperty(RDF.type, dcatCatalogRecord);
-     		
-     		RdfUtilities.generateCollectionRdfModel(model, collection, format, version, poolName);
-     		
-     		collectionURI.addProperty(voidInDataset, registry);
-     	}
-     	
-     	// cleaning
-     	dao.clean();
-     	
-     	response.setContentType(mime);
-        response.setCharacterEncoding("UTF-8");
-        response.setStatus(HttpServletResponse.SC_OK);
-        PrintWriter out = response.getWriter();
-        model.write(out, jenaFormat);   // possible values: "RDF/XML", "RDF/XML-ABBREV", "N-TRIPLE", "TURTLE", (and "TTL") and "N3"
+        ExportManager.Export export = ExportManager.get(format, poolName, path, version);
+        if (null == export)
+        {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Unable to generate the export of the Registry!");
+            return;
+        }
+        export.send(request, response, null);
     }
 }
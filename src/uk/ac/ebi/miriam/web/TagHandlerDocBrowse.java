@@ -127,7 +127,7 @@ public class TagHandlerDocBrowse extends SimpleTagSupport
         List<String> urlList = new ArrayList<String>();
 
         // connection pool management
-        dbPool = new DbPoolConnect(pool);
+        dbPool = new DbPoolConnect(pool, true);
 
         // test without 'newConnection()' before, let's see...
         dbPool.getConnection();
@@ -26,7 +26,7 @@
 package uk.ac.ebi.miriam.wsi;
 
 
-import uk.ac.ebi.miriam.lib.MiriamLink;
+import uk.ac.ebi.miriam.db.Resolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,7 +35,7 @@ import org.ajaxtags.servlets.BaseAjaxServlet;
 
 /**
  * <p>
- * "controller" part of the MIRIAM web application, client for the Web Services
+ * "controller" part of the MIRIAM web application, front-end of the resolution engine
  * <p>
  * Link to the function: checkRegExp
  *
@@ -92,13 +92,11 @@ public class ServletCheckRegExp extends BaseAjaxServlet
             identifier = identifier.trim();
         }
         
-        // retrieves the address to access to the Web Services
-        String endPoint = getServletContext().getInitParameter("webServicesEndpoint");
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
         
         // processing the request
-        MiriamLink mir = new MiriamLink();
-        mir.setAddress(endPoint);
-        boolean result = mir.checkRegExp(identifier, datatype);
+        boolean result = resolver.checkRegExp(identifier, datatype);
         
         // creates a beautiful (x)html output
         if (result)
@@ -0,0 +1,115 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.wsi;
+
+
+import java.util.List;
+
+import uk.ac.ebi.miriam.db.DataCollection;
+import uk.ac.ebi.miriam.db.Resolver;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.ajaxtags.servlets.BaseAjaxServlet;
+
+
+/**
+ * <p>
+ * "controller" part of the MIRIAM web application, front-end of the resolution engine
+ * <p>
+ * Link to the function: classify (which data collections could an identifier belong to?)
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class ServletClassifyIdentifier extends BaseAjaxServlet
+{
+    private static final long serialVersionUID = 6021583347125894713L;
+    
+    
+    /**
+     * 
+     * @return String containing the answer
+     */
+    public String getXmlContent(HttpServletRequest request, HttpServletResponse response) throws Exception
+    {
+        StringBuilder newResult = new StringBuilder();
+        
+        // recovery of the parameters
+        String identifier = request.getParameter("classifyParam");
+        
+        // cleans parameters
+        if (null != identifier)
+        {
+            identifier = identifier.trim();
+        }
+        
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
+        
+        // processing the request
+        List<DataCollection> result = resolver.classify(identifier);
+        
+        // checking of the answer
+        if (result.isEmpty())
+        {
+            newResult.append("<p>No data collection accepts this identifier!</p>");
+        }
+        else   // the most relevant data collections first
+        {
+            newResult.append("<ul>");
+            for (DataCollection collection: result)
+            {
+                newResult.append("<li>" + collection.getName() + " (" + collection.getURN() + ")" + (collection.isObsolete() ? " <i>deprecated</i>" : "") + "</li>");
+            }
+            newResult.append("</ul>");
+        }
+        
+        return newResult.toString();
+    }
+}
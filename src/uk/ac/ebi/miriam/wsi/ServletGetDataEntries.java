@@ -27,7 +27,7 @@
 package uk.ac.ebi.miriam.wsi;
 
 
-import uk.ac.ebi.miriam.lib.MiriamLink;
+import uk.ac.ebi.miriam.db.Resolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -36,7 +36,7 @@ import org.ajaxtags.servlets.BaseAjaxServlet;
 
 /**
  * <p>
- * "controller" part of the MIRIAM web application, client for the Web Services
+ * "controller" part of the MIRIAM web application, front-end of the resolution engine
  * <p>
  * Link to the function: getDataEntries
  *
@@ -93,13 +93,11 @@ public class ServletGetDataEntries extends BaseAjaxServlet
             id = id.trim();
         }
         
-        // retrieves the address to access to the Web Services
-        String endPoint = getServletContext().getInitParameter("webServicesEndpoint");
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
         
         // processing the request
-        MiriamLink mir = new MiriamLink();
-        mir.setAddress(endPoint);
-        String[] result = mir.getDataEntries(name, id);
+        String[] result = resolver.getLocations(name, id);
         
         // checking of the answer
         if ((null == result) || (result.length == 0))
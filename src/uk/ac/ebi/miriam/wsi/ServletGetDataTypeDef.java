@@ -27,7 +27,7 @@
 package uk.ac.ebi.miriam.wsi;
 
 
-import uk.ac.ebi.miriam.lib.MiriamLink;
+import uk.ac.ebi.miriam.db.Resolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -36,7 +36,7 @@ import org.ajaxtags.servlets.BaseAjaxServlet;
 
 /**
  * <p>
- * "controller" part of the MIRIAM web application, client for the Web Services
+ * "controller" part of the MIRIAM web application, front-end of the resolution engine
  * <p>
  * Link to the function: getDataTypeDef
  *
@@ -83,13 +83,11 @@ public class ServletGetDataTypeDef extends BaseAjaxServlet
             name = name.trim();
         }
         
-        // retrieves the address to access to the Web Services
-        String endPoint = getServletContext().getInitParameter("webServicesEndpoint");
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
         
         // processing the request
-        MiriamLink mir = new MiriamLink();
-        mir.setAddress(endPoint);
-        String result = mir.getDataTypeDef(name);
+        String result = resolver.getDataTypeDef(name);
 
         // checking of the answer
         if ((null == result) || (result.equalsIgnoreCase("")))
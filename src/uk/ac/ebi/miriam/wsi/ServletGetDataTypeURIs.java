@@ -27,7 +27,7 @@
 package uk.ac.ebi.miriam.wsi;
 
 
-import uk.ac.ebi.miriam.lib.MiriamLink;
+import uk.ac.ebi.miriam.db.Resolver;
 
 import javax.servlet.http.*;
 import org.ajaxtags.servlets.BaseAjaxServlet;
@@ -35,7 +35,7 @@ import org.ajaxtags.servlets.BaseAjaxServlet;
 
 /**
  * <p>
- * "controller" part of the MIRIAM web application, client for the Web Services
+ * "controller" part of the MIRIAM web application, front-end of the resolution engine
  * <p>
  * Link to the function: getDataTypeURIs
  *
@@ -88,13 +88,11 @@ public class ServletGetDataTypeURIs extends BaseAjaxServlet
             type = type.trim();
         }
         
-        // retrieves the address to access to the Web Services
-        String endPoint = getServletContext().getInitParameter("webServicesEndpoint");
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
         
         // processing the request
-        MiriamLink mir = new MiriamLink();
-        mir.setAddress(endPoint);
-        String[] result = mir.getDataTypeURIs(name, type);
+        String[] result = resolver.getDataTypeURIs(name, type);
         
         // checking of the answer
         if ((result == null) || (result.length == 0))
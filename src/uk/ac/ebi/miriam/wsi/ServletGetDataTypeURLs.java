@@ -27,7 +27,7 @@
 package uk.ac.ebi.miriam.wsi;
 
 
-import uk.ac.ebi.miriam.lib.MiriamLink;
+import uk.ac.ebi.miriam.db.Resolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -88,13 +88,11 @@ public class ServletGetDataTypeURLs extends BaseAjaxServlet
             name = name.trim();
         }
         
-        // retrieves the address to access to the Web Services (in the 'web.xml' file)
-        String endPoint = getServletContext().getInitParameter("webServicesEndpoint");
+        // retrieves the resolver, working on the current state of the Registry
+        Resolver resolver = Resolver.get(getServletContext().getInitParameter("miriam_db_pool"));
         
         // processing the request
-        MiriamLink mir = new MiriamLink();
-        mir.setAddress(endPoint);
-        String[] result = mir.getDataTypeURLs(name);
+        String[] result = resolver.getDataTypeURIs(name, "URL");
         
         // checking of the answer
         if ((result == null) || (result.length == 0))
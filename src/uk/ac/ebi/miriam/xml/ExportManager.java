@@ -0,0 +1,1083 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.xml;
+
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+import com.hp.hpl.jena.rdf.model.Model;
+import uk.ac.ebi.miriam.db.DataTypeDao;
+import uk.ac.ebi.miriam.tools.RdfStreamWriter;
+import uk.ac.ebi.miriam.tools.RdfUtilities;
+
+
+/**
+ * <p>Manages the exports of the whole Registry (XML, RDF/XML, Turtle and N-Triples): each one is generated once per version of the Registry
+ * (cf. <code>DataTypeDao.getLastModifDate()</code>), in the background, and then served as it is to all the clients,
+ * with the conditional GET requests answered by 304 (Not Modified).
+ *
+ * <p>Each export is written in a temporary file, then atomically renamed after the digest (SHA-1) of its content,
+ * which is also used as entity tag. A gzip and a deflate version are produced at the same time (best compression, only once),
+ * and sent as they are to the clients accepting them (cf. 'Accept-Encoding').
+ * The previous versions (and the exports left by older releases) are deleted once they are old enough to not being downloaded anymore.
+ *
+ * <p>The files are handed over to the container when it supports it (sendfile), and byte ranges can be requested,
+ * so that the interrupted downloads (large files, mirrors) can be resumed.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public final class ExportManager
+{
+    private static Logger logger = Logger.getLogger(ExportManager.class);
+    static final String PREFIX = "Identifiers-org_Registry";   // prefix of all the export files (including the ones of the older releases)
+    private static final long GRACE_PERIOD = 600000;   // in milliseconds, time during which an outdated export is kept (downloads in progress, other nodes)
+    private static final int BUFFER_SIZE = 65536;   // 64KB
+    private static final long SENDFILE_SIZE = 49152;   // 48KB, below which a plain copy is cheaper than handing the file over to the container
+    private static final int MAX_RANGES = 16;   // more ranges in a request: whole content sent instead
+    private static final Random random = new Random();   // boundaries of the multipart responses
+    private static final ConcurrentMap<Format, Export> current = new ConcurrentHashMap<Format, Export>();
+    private static final Map<Format, Object> locks = new EnumMap<Format, Object>(Format.class);   // one per format: each export is generated independently
+    static
+    {
+        for (Format format: Format.values())
+        {
+            locks.put(format, new Object());
+        }
+    }
+    private static ScheduledExecutorService scheduler = null;
+    private static volatile String poolName = null;
+    private static volatile String directory = null;
+    private static volatile String appVersion = null;
+    
+    
+    /**
+     * Formats of the exports.
+     */
+    public static enum Format
+    {
+        XML("xml", "application/xml"),
+        RDF_XML("rdf", "application/rdf+xml"),
+        TURTLE("ttl", "text/turtle"),
+        NTRIPLES("nt", "application/n-triples");
+        
+        private final String extension;
+        private final String mimeType;
+        
+        private Format(String extension, String mimeType)
+        {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+        
+        public String getExtension()
+        {
+            return this.extension;
+        }
+        
+        public String getMimeType()
+        {
+            return this.mimeType;
+        }
+    }
+    
+    
+    /**
+     * Content codings of the exports (cf. 'Accept-Encoding' and 'Content-Encoding').
+     */
+    public static enum Encoding
+    {
+        IDENTITY(null, ""),
+        GZIP("gzip", ".gz"),
+        DEFLATE("deflate", ".deflate");
+        
+        private final String coding;
+        private final String suffix;
+        
+        private Encoding(String coding, String suffix)
+        {
+            this.coding = coding;
+            this.suffix = suffix;
+        }
+        
+        /**
+         * Getter of the name of the content coding.
+         * @return name of the coding, or null for the identity
+         */
+        public String getCoding()
+        {
+            return this.coding;
+        }
+        
+        /**
+         * Wraps a stream in order to compress the data written into it (the returned stream must be closed, or finished).
+         * @param output
+         * @return stream applying this coding
+         */
+        public OutputStream wrap(OutputStream output) throws IOException
+        {
+            switch (this)
+            {
+                case GZIP:
+                    return new GZIPOutputStream(output, BUFFER_SIZE);
+                case DEFLATE:
+                    return new DeflaterOutputStream(output);
+                default:
+                    return output;
+            }
+        }
+        
+        /**
+         * Selects the coding to use for a response, from the 'Accept-Encoding' header of the request:
+         * the one with the highest quality value, gzip being preferred in case of tie.
+         * @param accept value of the 'Accept-Encoding' header (can be null)
+         * @return selected coding (identity if none of the compressed ones is accepted)
+         */
+        public static Encoding negotiate(String accept)
+        {
+            if (null == accept)
+            {
+                return IDENTITY;
+            }
+            
+            float gzip = -1;
+            float deflate = -1;
+            float any = -1;
+            for (String part: accept.toLowerCase().split(","))
+            {
+                String[] params = part.split(";");
+                String coding = params[0].trim();
+                float quality = 1;
+                for (int i = 1; i < params.length; ++i)
+                {
+                    String param = params[i].trim();
+                    if (param.startsWith("q="))
+                    {
+                        try
+                        {
+                            quality = Float.parseFloat(param.substring(2).trim());
+                        }
+                        catch (NumberFormatException e)
+                        {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (coding.equals("gzip") || coding.equals("x-gzip"))
+                {
+                    gzip = quality;
+                }
+                else if (coding.equals("deflate"))
+                {
+                    deflate = quality;
+                }
+                else if (coding.equals("*"))
+                {
+                    any = quality;
+                }
+            }
+            if (gzip < 0)
+            {
+                gzip = Math.max(any, 0);
+            }
+            if (deflate < 0)
+            {
+                deflate = Math.max(any, 0);
+            }
+            
+            if ((gzip > 0) && (gzip >= deflate))
+            {
+                return GZIP;
+            }
+            
+            return (deflate > 0) ? DEFLATE : IDENTITY;
+        }
+    }
+    
+    
+    /**
+     * Default constructor: no instance needed.
+     */
+    private ExportManager()
+    {
+        // nothing here
+    }
+    
+    
+    /**
+     * Starts generating all the exports in the background, each time the Registry is modified (usually called once, at start up).
+     * @param pool name of the database pool of the Registry
+     * @param dir directory where the exports are stored
+     * @param version version of the application running (demo, main, ...), used in the RDF exports
+     * @param interval time between two checks of the last modification date (in seconds)
+     */
+    public static synchronized void start(String pool, String dir, String version, long interval)
+    {
+        if (null != scheduler)
+        {
+            return;
+        }
+        poolName = pool;
+        directory = dir;
+        appVersion = version;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "registry-export");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    refresh();
+                }
+                catch (RuntimeException e)
+                {
+                    logger.error("Unable to refresh the exports of the Registry!", e);
+                }
+            }
+        }, 0, interval, TimeUnit.SECONDS);
+        logger.info("Exports of the Registry checked every " + interval + " s.");
+    }
+    
+    
+    /**
+     * Stops generating the exports in the background (usually when the application is stopped).
+     */
+    public static synchronized void stop()
+    {
+        if (null != scheduler)
+        {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    
+    /**
+     * Retrieves an export of the current version of the Registry.
+     * If the exports are not generated in the background, the last modification date of the Registry is checked first,
+     * and the export generated if needed (only once, the concurrent requests for the same format waiting for it).
+     * @param format format of the export
+     * @param pool name of the database pool of the Registry
+     * @param dir directory where the exports are stored
+     * @param version version of the application running (demo, main, ...), used in the RDF exports
+     * @return the export, or null if none could be generated
+     */
+    public static Export get(Format format, String pool, String dir, String version)
+    {
+        Export export = current.get(format);
+        if ((null != scheduler) && (null != export) && export.getFile().isFile())
+        {
+            return export;
+        }
+        
+        synchronized (ExportManager.class)
+        {
+            if (null == scheduler)
+            {
+                poolName = pool;
+                directory = dir;
+                appVersion = version;
+            }
+        }
+        
+        return refresh(format, lastModification());
+    }
+    
+    
+    /**
+     * Checks if all the exports are still up to date, and generates new ones if they are not (one format after the other,
+     * a format being available as soon as its own export is generated).
+     */
+    static void refresh()
+    {
+        Date lastModif = lastModification();
+        for (Format format: Format.values())
+        {
+            refresh(format, lastModif);
+        }
+    }
+    
+    
+    /**
+     * Checks if an export is still up to date, and generates a new one if it is not.
+     * Only the requests for the same format wait while it is generated.
+     * @param format format of the export
+     * @param lastModif last modification date of the Registry (null if unknown)
+     * @return the export of the current version of the Registry, or null if none could be generated
+     */
+    private static Export refresh(Format format, Date lastModif)
+    {
+        synchronized (locks.get(format))
+        {
+            return update(format, lastModif);
+        }
+    }
+    
+    
+    /*
+     * Generates a new export if the current one is outdated (the caller holds the lock of the format).
+     */
+    private static Export update(Format format, Date lastModif)
+    {
+        Export export = current.get(format);
+        if (null == lastModif)
+        {
+            return export;   // the database is not available: the latest export is better than nothing
+        }
+        if ((null != export) && (export.getVersion() == lastModif.getTime()) && export.getFile().isFile())
+        {
+            return export;
+        }
+        
+        long start = System.currentTimeMillis();
+        export = generate(format, lastModif);
+        if (null != export)
+        {
+            current.put(format, export);
+            logger.info(format + " export of the Registry generated in " + (System.currentTimeMillis() - start) + " ms (" + export.getFile().getName() + ", " + export.getFile().length() + " bytes, " + export.getFile(Encoding.GZIP).length() + " compressed, last modification: " + lastModif + ").");
+            collect(export.getFile().getParentFile());
+        }
+        
+        return (null != export) ? export : current.get(format);
+    }
+    
+    
+    /**
+     * Retrieves the last modification date of the Registry.
+     * @return last modification date, or null if the database is not available
+     */
+    private static Date lastModification()
+    {
+        DataTypeDao dao = new DataTypeDao(poolName);
+        Date lastModif = dao.getLastModifDate();
+        dao.clean();
+        
+        return lastModif;
+    }
+    
+    
+    /**
+     * Generates an export in a temporary file, with its compressed versions, and renames them after the content.
+     * @param format format of the export
+     * @param version last modification date of the Registry
+     * @return the new export, or null if an error occurred
+     */
+    private static Export generate(Format format, Date version)
+    {
+        File dir = new File(directory);
+        File temp = null;
+        File gzip = null;
+        File deflate = null;
+        try
+        {
+            temp = File.createTempFile("." + PREFIX + "_", ".tmp", dir);   // same file system: the renames are atomic
+            if (! write(format, temp))
+            {
+                logger.error("Unable to generate the " + format + " export of the Registry!");
+                return null;
+            }
+            gzip = File.createTempFile("." + PREFIX + "_", ".tmp", dir);
+            compress(temp, gzip, Encoding.GZIP);
+            deflate = File.createTempFile("." + PREFIX + "_", ".tmp", dir);
+            compress(temp, deflate, Encoding.DEFLATE);
+            
+            String digest = digest(temp);
+            Export export = new Export(format, new File(dir, PREFIX + "_" + digest + "." + format.getExtension()), digest, version.getTime());
+            move(gzip, export.getFile(Encoding.GZIP));
+            move(deflate, export.getFile(Encoding.DEFLATE));
+            move(temp, export.getFile());   // last: the export is complete once it exists
+            
+            return export;
+        }
+        catch (IOException e)
+        {
+            logger.error("Unable to store the " + format + " export of the Registry in '" + directory + "'!", e);
+            return null;
+        }
+        finally
+        {
+            for (File file: new File[] {temp, gzip, deflate})
+            {
+                if ((null != file) && file.exists() && ! file.delete())
+                {
+                    logger.warn("Unable to delete the temporary file: " + file);
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Writes an export of the whole Registry in a file.
+     * @return whether the export is a success or not
+     */
+    private static boolean write(Format format, File file) throws IOException
+    {
+        if (format == Format.XML)
+        {
+            return new Miriam2XML(poolName, file.getPath()).export(null);
+        }
+        
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        try
+        {
+            if (format == Format.RDF_XML)   // needs the whole model
+            {
+                Model model = RdfUtilities.generateRegistryRdfModel(RdfUtilities.FORMAT.rdfxml, appVersion, poolName);
+                model.write(output, "RDF/XML");   // UTF-8
+                return true;
+            }
+            
+            // statements written as they are read
+            RdfStreamWriter.Syntax syntax = (format == Format.TURTLE) ? RdfStreamWriter.Syntax.TURTLE : RdfStreamWriter.Syntax.NTRIPLES;
+            return new Miriam2Rdf(poolName, appVersion, syntax).export(output);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+    
+    
+    /**
+     * Compresses a file (best compression: done only once per version).
+     */
+    private static void compress(File source, File target, Encoding encoding) throws IOException
+    {
+        Deflater deflater = null;
+        OutputStream output = null;
+        InputStream input = new FileInputStream(source);
+        try
+        {
+            if (encoding == Encoding.GZIP)
+            {
+                output = new BestGzipOutputStream(new FileOutputStream(target));
+            }
+            else
+            {
+                deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                output = new DeflaterOutputStream(new FileOutputStream(target), deflater, BUFFER_SIZE);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) > 0)
+            {
+                output.write(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            input.close();
+            if (null != output)
+            {
+                output.close();
+            }
+            if (null != deflater)
+            {
+                deflater.end();   // not released by the stream, as provided
+            }
+        }
+    }
+    
+    
+    /**
+     * Renames a temporary file (atomic on the same file system).
+     * The files are named after their content: if the target already exists, it is identical and kept as it is
+     * (no window during which it would be missing), and the temporary file is deleted by the caller.
+     */
+    private static void move(File source, File target) throws IOException
+    {
+        if (target.isFile())
+        {
+            return;
+        }
+        if (! source.renameTo(target))
+        {
+            throw new IOException("Unable to rename '" + source + "' into '" + target + "'!");
+        }
+    }
+    
+    
+    /**
+     * Deletes the outdated exports (and the temporary files left behind), once they are older than the grace period.
+     * @param dir directory where the exports are stored
+     */
+    private static void collect(File dir)
+    {
+        File[] files = dir.listFiles();
+        if (null == files)
+        {
+            return;
+        }
+        
+        Set<File> kept = new HashSet<File>();
+        for (Export export: current.values())
+        {
+            for (Encoding encoding: Encoding.values())
+            {
+                kept.add(export.getFile(encoding));
+            }
+        }
+        
+        long limit = System.currentTimeMillis() - GRACE_PERIOD;
+        int deleted = 0;
+        for (File file: files)
+        {
+            String name = file.getName();
+            if ((name.startsWith(PREFIX) || name.startsWith("." + PREFIX)) && file.isFile() && ! kept.contains(file) && (file.lastModified() < limit))
+            {
+                if (file.delete())
+                {
+                    deleted++;
+                }
+                else
+                {
+                    logger.warn("Unable to delete the outdated export: " + file);
+                }
+            }
+        }
+        if (deleted > 0)
+        {
+            logger.info(deleted + " outdated export file(s) deleted.");
+        }
+    }
+    
+    
+    /**
+     * Computes the digest (SHA-1) of the content of a file.
+     * @param file
+     * @return hexadecimal digest
+     */
+    static String digest(File file) throws IOException
+    {
+        MessageDigest sha;
+        try
+        {
+            sha = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-1 not supported!", e);   // mandatory algorithm
+        }
+        
+        InputStream input = new FileInputStream(file);
+        try
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) > 0)
+            {
+                sha.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+        
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b: sha.digest())
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        
+        return hex.toString();
+    }
+    
+    
+    /**
+     * <p>gzip stream using the best compression level.
+     */
+    private static final class BestGzipOutputStream extends GZIPOutputStream
+    {
+        BestGzipOutputStream(OutputStream output) throws IOException
+        {
+            super(output, BUFFER_SIZE);
+            this.def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+    
+    
+    /**
+     * <p>One version of an export, stored in a file which is never modified (along with its compressed versions).
+     */
+    public static final class Export
+    {
+        private final Format format;
+        private final File file;
+        private final String digest;
+        private final long version;
+        private final long lastModified;
+        
+        
+        Export(Format format, File file, String digest, long version)
+        {
+            this.format = format;
+            this.file = file;
+            this.digest = digest;
+            this.version = version;
+            this.lastModified = (version / 1000) * 1000;   // HTTP dates have a precision of one second
+        }
+        
+        
+        public Format getFormat()
+        {
+            return this.format;
+        }
+        
+        public File getFile()
+        {
+            return this.file;
+        }
+        
+        /**
+         * Retrieves the file storing the export with a given content coding.
+         */
+        public File getFile(Encoding encoding)
+        {
+            return (encoding == Encoding.IDENTITY) ? this.file : new File(this.file.getPath() + encoding.suffix);
+        }
+        
+        /**
+         * Retrieves the entity tag of the export with a given content coding (each coding is a different representation).
+         */
+        public String getETag(Encoding encoding)
+        {
+            return (encoding == Encoding.IDENTITY) ? "\"" + this.digest + "\"" : "\"" + this.digest + "-" + encoding.coding + "\"";
+        }
+        
+        public long getVersion()
+        {
+            return this.version;
+        }
+        
+        public long getLastModified()
+        {
+            return this.lastModified;
+        }
+        
+        
+        /**
+         * Checks the preconditions of a GET (or HEAD) request: 'If-None-Match' first, and 'If-Modified-Since' only if the former is absent.
+         * @param request
+         * @param etag entity tag of the representation selected
+         * @return whether the client already has this version of the export
+         */
+        public boolean isNotModified(HttpServletRequest request, String etag)
+        {
+            if (! "GET".equals(request.getMethod()) && ! "HEAD".equals(request.getMethod()))
+            {
+                return false;
+            }
+            
+            String match = request.getHeader("If-None-Match");
+            if (null != match)
+            {
+                for (String tag: match.split(","))
+                {
+                    tag = tag.trim();
+                    if (tag.startsWith("W/"))
+                    {
+                        tag = tag.substring(2);   // weak comparison
+                    }
+                    if (tag.equals("*") || tag.equals(etag))
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            try
+            {
+                long since = request.getDateHeader("If-Modified-Since");
+                return (since != -1) && (this.lastModified <= since);
+            }
+            catch (IllegalArgumentException e)
+            {
+                return false;   // invalid date: ignored
+            }
+        }
+        
+        
+        /**
+         * Sends the export, compressed if the client accepts it (or a 304 if the client already has it).
+         * Range requests (single or multiple ranges, 'If-Range') are supported for GET requests, in order to resume interrupted downloads.
+         * @param request
+         * @param response
+         * @param disposition value of the 'Content-Disposition' header (null for none)
+         */
+        public void send(HttpServletRequest request, HttpServletResponse response, String disposition) throws IOException
+        {
+            Encoding encoding = Encoding.negotiate(request.getHeader("Accept-Encoding"));
+            File content = getFile(encoding);
+            if ((encoding != Encoding.IDENTITY) && ! content.isFile())
+            {
+                encoding = Encoding.IDENTITY;   // compressed version not available
+                content = this.file;
+            }
+            String etag = getETag(encoding);
+            
+            response.setHeader("Vary", "Accept-Encoding");
+            response.setHeader("ETag", etag);
+            response.setDateHeader("Last-Modified", this.lastModified);
+            response.setHeader("Cache-Control", "no-cache");   // always revalidated: cheap with the conditional requests
+            response.setHeader("Accept-Ranges", "bytes");
+            if (isNotModified(request, etag))
+            {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            
+            // opened before any header is sent: this version may have been deleted meanwhile (grace period elapsed)
+            FileInputStream input = new FileInputStream(content);
+            try
+            {
+                FileChannel channel = input.getChannel();
+                long length = channel.size();
+                List<long[]> ranges = isRangeApplicable(request, etag) ? ranges(request.getHeader("Range"), length) : null;
+                if ((null != ranges) && ranges.isEmpty())
+                {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                
+                response.setBufferSize(BUFFER_SIZE);
+                if (encoding != Encoding.IDENTITY)
+                {
+                    response.setHeader("Content-Encoding", encoding.coding);
+                }
+                if (null != disposition)
+                {
+                    response.setHeader("Content-Disposition", disposition);
+                }
+                boolean body = ! "HEAD".equals(request.getMethod());
+                
+                if (null == ranges)   // whole file
+                {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                    response.setContentType(this.format.getMimeType());
+                    response.setCharacterEncoding("UTF-8");
+                    response.setHeader("Content-Length", Long.toString(length));   // setContentLength() is limited to 2GB
+                    if (body)
+                    {
+                        transfer(request, response, content, channel, 0, length);
+                    }
+                }
+                else if (ranges.size() == 1)
+                {
+                    long[] range = ranges.get(0);
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setContentType(this.format.getMimeType());
+                    response.setCharacterEncoding("UTF-8");
+                    response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+                    response.setHeader("Content-Length", Long.toString(range[1] - range[0] + 1));
+                    if (body)
+                    {
+                        transfer(request, response, content, channel, range[0], range[1] - range[0] + 1);
+                    }
+                }
+                else   // several ranges: multipart response
+                {
+                    String boundary = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+                    String type = this.format.getMimeType() + "; charset=UTF-8";
+                    long total = 0;
+                    for (long[] range: ranges)
+                    {
+                        total += partHeader(boundary, type, range, length).length + (range[1] - range[0] + 1);
+                    }
+                    total += partEnd(boundary).length;
+                    
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setContentType("multipart/byteranges; boundary=" + boundary);
+                    response.setHeader("Content-Length", Long.toString(total));
+                    if (body)
+                    {
+                        OutputStream output = response.getOutputStream();
+                        WritableByteChannel target = Channels.newChannel(output);
+                        for (long[] range: ranges)
+                        {
+                            output.write(partHeader(boundary, type, range, length));
+                            copy(channel, range[0], range[1] - range[0] + 1, target);
+                        }
+                        output.write(partEnd(boundary));
+                        output.flush();
+                    }
+                }
+            }
+            finally
+            {
+                input.close();
+            }
+        }
+        
+        
+        /**
+         * Checks if the 'Range' header of a request must be honoured: only for GET requests,
+         * and only if the 'If-Range' header (if any) matches the representation sent.
+         */
+        private boolean isRangeApplicable(HttpServletRequest request, String etag)
+        {
+            if (! "GET".equals(request.getMethod()) || (null == request.getHeader("Range")))
+            {
+                return false;
+            }
+            
+            String condition = request.getHeader("If-Range");
+            if (null == condition)
+            {
+                return true;
+            }
+            condition = condition.trim();
+            if (condition.startsWith("\"") || condition.startsWith("W/"))
+            {
+                return condition.equals(etag);   // strong comparison: a weak tag never matches
+            }
+            try
+            {
+                return request.getDateHeader("If-Range") == this.lastModified;
+            }
+            catch (IllegalArgumentException e)
+            {
+                return false;   // invalid date: whole content sent
+            }
+        }
+        
+        
+        /**
+         * Sends a part of a file: handed over to the container (sendfile) if it supports it, otherwise copied through a channel.
+         */
+        private void transfer(HttpServletRequest request, HttpServletResponse response, File content, FileChannel channel, long start, long count) throws IOException
+        {
+            if ((count >= SENDFILE_SIZE) && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support")))
+            {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", content.getCanonicalPath());
+                request.setAttribute("org.apache.tomcat.sendfile.start", Long.valueOf(start));
+                request.setAttribute("org.apache.tomcat.sendfile.end", Long.valueOf(start + count));
+                return;
+            }
+            
+            OutputStream output = response.getOutputStream();
+            copy(channel, start, count, Channels.newChannel(output));
+            output.flush();
+        }
+    }
+    
+    
+    /**
+     * Parses the value of a 'Range' header (byte ranges only), merging the ranges overlapping or adjacent.
+     * @param header value of the 'Range' header
+     * @param length length of the content
+     * @return list of {first, last} byte positions (sorted), empty if none is satisfiable, or null if the header must be ignored (invalid, or too many ranges)
+     */
+    static List<long[]> ranges(String header, long length)
+    {
+        if ((null == header) || ! header.trim().toLowerCase().startsWith("bytes="))
+        {
+            return null;
+        }
+        
+        String[] specs = header.trim().substring(6).split(",");
+        if (specs.length > MAX_RANGES)
+        {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<long[]>();
+        for (String spec: specs)
+        {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0)
+            {
+                return null;
+            }
+            long first;
+            long last;
+            try
+            {
+                if (dash == 0)   // suffix: last N bytes
+                {
+                    long suffix = Long.parseLong(spec.substring(1).trim());
+                    if (suffix <= 0)
+                    {
+                        continue;   // not satisfiable
+                    }
+                    first = Math.max(length - suffix, 0);
+                    last = length - 1;
+                }
+                else
+                {
+                    first = Long.parseLong(spec.substring(0, dash).trim());
+                    String end = spec.substring(dash + 1).trim();
+                    last = length - 1;
+                    if (! end.isEmpty())
+                    {
+                        last = Long.parseLong(end);
+                        if (last < first)
+                        {
+                            return null;   // invalid
+                        }
+                        last = Math.min(last, length - 1);
+                    }
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+            if ((first < 0) || (first >= length))
+            {
+                continue;   // not satisfiable
+            }
+            ranges.add(new long[] {first, last});
+        }
+        
+        Collections.sort(ranges, new Comparator<long[]>()
+        {
+            public int compare(long[] a, long[] b)
+            {
+                return (a[0] < b[0]) ? -1 : ((a[0] == b[0]) ? 0 : 1);
+            }
+        });
+        List<long[]> merged = new ArrayList<long[]>();
+        for (long[] range: ranges)
+        {
+            long[] previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if ((null != previous) && (range[0] <= previous[1] + 1))
+            {
+                previous[1] = Math.max(previous[1], range[1]);
+            }
+            else
+            {
+                merged.add(range);
+            }
+        }
+        
+        return merged;
+    }
+    
+    
+    /**
+     * Copies a part of a file into a channel (without going through a buffer of the heap, if the target allows it).
+     */
+    private static void copy(FileChannel channel, long start, long count, WritableByteChannel target) throws IOException
+    {
+        long position = start;
+        long end = start + count;
+        while (position < end)
+        {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0)
+            {
+                throw new EOFException("Export truncated: " + position + " bytes available, " + end + " expected!");
+            }
+            position += sent;
+        }
+    }
+    
+    
+    /**
+     * Builds the header of a part of a multipart/byteranges response.
+     */
+    private static byte[] partHeader(String boundary, String type, long[] range, long length) throws UnsupportedEncodingException
+    {
+        return ("\r\n--" + boundary + "\r\nContent-Type: " + type + "\r\nContent-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n").getBytes("US-ASCII");
+    }
+    
+    
+    /**
+     * Builds the end of a multipart/byteranges response.
+     */
+    private static byte[] partEnd(String boundary) throws UnsupportedEncodingException
+    {
+        return ("\r\n--" + boundary + "--\r\n").getBytes("US-ASCII");
+    }
+}
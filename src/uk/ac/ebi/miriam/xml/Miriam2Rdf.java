@@ -0,0 +1,400 @@
+/*
+ * MIRIAM Registry (Web Application)
+ * The Registry is an online resource created to catalogue data collections 
+ * (their URIs and the corresponding physical URLs, whether these are controlled vocabularies or databases)
+ * and provide unique and stable identifiers for life science, in the form of URIs. 
+ * Ref. http://www.ebi.ac.uk/miriam/
+ *
+ * Copyright (C) 2006-2013  BioModels.net (EMBL - European Bioinformatics Institute)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package uk.ac.ebi.miriam.xml;
+
+
+import uk.ac.ebi.compneur.util.DatetimeProcessor;
+import uk.ac.ebi.miriam.db.DataTypeDao;
+import uk.ac.ebi.miriam.db.MergeCursor;
+import uk.ac.ebi.miriam.db.Resource;
+import uk.ac.ebi.miriam.db.ResourceDao;
+import uk.ac.ebi.miriam.db.SqlQuery;
+import uk.ac.ebi.miriam.tools.RdfStreamWriter;
+import uk.ac.ebi.miriam.tools.RdfUtilities;
+import uk.ac.ebi.miriam.tools.RdfVocabulary;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.DCAT;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.FOAF;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.IDOT;
+import uk.ac.ebi.miriam.tools.RdfVocabulary.VOID;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.apache.log4j.Logger;
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.vocabulary.DCTerms;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.VCARD;
+
+
+/**
+ * <p>Manages the RDF export of the whole Registry in N-Triples or Turtle (same statements as <code>RdfUtilities.generateRegistryRdfModel()</code>).
+ *
+ * <p>
+ * The tables are read like for the XML export (cf. <code>Miriam2XML</code>): sorted by data collection and merge-joined with the list of data collections.
+ * The statements are written as soon as each data collection is read (cf. <code>RdfStreamWriter</code>), without any RDF model:
+ * only the resources of the current data collection are kept in memory.
+ *
+ * <p>
+ * <dl>
+ * <dt><b>Copyright:</b></dt>
+ * <dd>
+ * Copyright (C) 2006-2014  BioModels.net (EMBL - European Bioinformatics Institute)
+ * <br />
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <br />
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br />
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * </dd>
+ * </dl>
+ * </p>
+ *
+ * @version 20261017
+ */
+public class Miriam2Rdf
+{
+    private Logger logger = Logger.getLogger(Miriam2Rdf.class);
+    private static final String[] COLLECTION_KEY = {"ptr_datatype"};
+    private static final String REGISTRY = "http://identifiers.org/registry/";
+    private static final String RESOURCE_PREFIX = "http://identifiers.org/miriam.resource/";
+    private static final String ACCESS_SUFFIX = "#application/xhtml+xml";
+    private static final int BUFFER_SIZE = 65536;   // 64KB
+    private final String poolName;
+    private final String version;
+    private final RdfStreamWriter.Syntax syntax;
+    // during an export: output and cursors on the child tables (all sorted by data collection)
+    private RdfStreamWriter rdf = null;
+    private MergeCursor synonyms;
+    private MergeCursor uris;
+    private MergeCursor resources;
+    private MergeCursor tags;
+    
+    
+    /**
+     * Constructor.
+     * @param poolName name of the database pool
+     * @param version version of the application running (demo, main, ...), used in the URIs of the data collections
+     * @param syntax syntax of the export
+     */
+    public Miriam2Rdf(String poolName, String version, RdfStreamWriter.Syntax syntax)
+    {
+        this.poolName = poolName;
+        this.version = version;
+        this.syntax = syntax;
+    }
+    
+    
+    /**
+     * Exports the Registry in an output stream (in UTF-8, the stream is flushed but not closed).
+     * @return whether the export is a success or not
+     */
+    public boolean export(OutputStream output)
+    {
+        if (! Miriam2XML.acquire())   // limited number of concurrent exports (database connections)
+        {
+            return false;
+        }
+        try
+        {
+            return dump(output);
+        }
+        finally
+        {
+            Miriam2XML.release();
+        }
+    }
+    
+    
+    /*
+     * Writes the export (the caller holds one of the export permits).
+     */
+    private boolean dump(OutputStream output)
+    {
+        // retrieves the newest date of last modification
+        DataTypeDao dao = new DataTypeDao(poolName);
+        Date lastModif = dao.getLastModifDate();
+        dao.clean();
+        
+        List<MergeCursor> cursors = new ArrayList<MergeCursor>();
+        try
+        {
+            // all the queries are executed before anything is written
+            MergeCursor collections = open(cursors, SqlQuery.EXPORT_COLLECTIONS, new String[0]);
+            synonyms = open(cursors, SqlQuery.EXPORT_SYNONYMS, COLLECTION_KEY);
+            uris = open(cursors, SqlQuery.EXPORT_URIS, COLLECTION_KEY);
+            resources = open(cursors, SqlQuery.EXPORT_RESOURCES, COLLECTION_KEY);
+            tags = open(cursors, SqlQuery.EXPORT_TAGS, COLLECTION_KEY);
+            
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"), BUFFER_SIZE);
+            rdf = new RdfStreamWriter(writer, syntax, RdfVocabulary.PREFIXES);
+            rdf.start();
+            
+            describeRegistry(lastModif);
+            int count = 0;
+            while (collections.next())
+            {
+                describeCollection(collections.getRow());
+                count++;
+            }
+            
+            rdf.end();
+            logger.info("The RDF export (" + syntax + ") is a success (" + count + " data collections)!");
+            
+            return true;
+        }
+        catch (SQLException e)
+        {
+            logger.fatal("An error occurred during the RDF export (database)!");
+            logger.error("SQL Exception raised: " + e.getMessage());
+            return false;
+        }
+        catch (IOException e)
+        {
+            logger.fatal("An error occurred during the RDF export (output)!");
+            logger.error("IO Exception raised: " + e.getMessage());
+            return false;
+        }
+        finally
+        {
+            for (MergeCursor cursor: cursors)
+            {
+                cursor.close();
+            }
+            rdf = null;
+        }
+    }
+    
+    
+    /*
+     * Opens a cursor and keeps track of it (in order to close it at the end of the export).
+     */
+    private MergeCursor open(List<MergeCursor> cursors, SqlQuery query, String[] key, Object... params) throws SQLException
+    {
+        MergeCursor cursor = MergeCursor.open(poolName, query, key, params);
+        cursors.add(cursor);
+        
+        return cursor;
+    }
+    
+    
+    /*
+     * Writes the description of the export itself and of the Registry.
+     */
+    private void describeRegistry(Date lastModif) throws IOException
+    {
+        String document = "http://www.ebi.ac.uk/miriam/" + version + "/export/" + ((syntax == RdfStreamWriter.Syntax.TURTLE) ? "turtle" : "ntriples");
+        rdf.resource(document, RDF.type, FOAF.Document);
+        rdf.resource(document, FOAF.primaryTopic, REGISTRY);
+        
+        rdf.resource(REGISTRY, RDF.type, DCAT.Catalog);
+        rdf.literal(REGISTRY, DCTerms.title, "Identifiers.org's Registry", XSDDatatype.XSDstring);
+        rdf.literal(REGISTRY, DCTerms.description, "Identifiers.org is a system providing resolvable persistent URIs used to identify data for the scientific community. It relies on the information stored in the Registry (a list of data collections and the physical locations where information can be accessed).", XSDDatatype.XSDstring);
+        rdf.literal(REGISTRY, DCTerms.license, "TBD", XSDDatatype.XSDstring);
+        rdf.literal(REGISTRY, DCTerms.modified, date(lastModif), XSDDatatype.XSDdateTime);
+        rdf.resource(REGISTRY, DCTerms.publisher, "http://identifiers.org/");
+    }
+    
+    
+    /*
+     * Writes the description of a data collection, followed by the ones of its physical locations.
+     */
+    private void describeCollection(ResultSet collection) throws SQLException, IOException
+    {
+        String id = collection.getString("datatype_id");
+        String subject = "http://www.ebi.ac.uk/miriam/" + version + "/collections/" + id;   // maybe later replace that URI by http://identifiers.org/[namespace]
+        String namespace = namespace(id);
+        List<Resource> locations = resources(id);
+        
+        rdf.resource(subject, RDF.type, DCAT.CatalogRecord);
+        rdf.literal(subject, DCAT.identifier, id, XSDDatatype.XSDstring);
+        rdf.literal(subject, DCAT.title, collection.getString("name"), XSDDatatype.XSDstring);
+        rdf.literal(subject, DCAT.description, collection.getString("definition"), XSDDatatype.XSDstring);
+        rdf.literal(subject, DCAT.issued, date(collection.getTimestamp("date_creation")), XSDDatatype.XSDdateTime);
+        rdf.literal(subject, DCAT.modified, date(collection.getTimestamp("date_modif")), XSDDatatype.XSDdateTime);
+        if (null != namespace)
+        {
+            rdf.literal(subject, IDOT.namespace, namespace, XSDDatatype.XSDstring);
+            rdf.resource(subject, VOID.uriSpace, "http://identifiers.org/" + namespace + "/");
+        }
+        rdf.literal(subject, IDOT.idRegexPattern, collection.getString("pattern"), XSDDatatype.XSDstring);
+        if (0 != collection.getInt("obsolete"))
+        {
+            rdf.literal(subject, IDOT.obsolete, "true", XSDDatatype.XSDboolean);
+        }
+        if (! locations.isEmpty())
+        {
+            rdf.literal(subject, VOID.exampleResource, locations.get(0).getExample(), XSDDatatype.XSDstring);
+        }
+        if (synonyms.seek(id))
+        {
+            do
+            {
+                rdf.literal(subject, DCTerms.alternative, synonyms.getRow().getString("name"), XSDDatatype.XSDstring);
+            }
+            while (synonyms.next(id));
+        }
+        if (tags.seek(id))
+        {
+            do
+            {
+                rdf.literal(subject, DCAT.keyword, tags.getRow().getString("tag"), XSDDatatype.XSDstring);
+            }
+            while (tags.next(id));
+        }
+        for (Resource resource: locations)
+        {
+            if (! resource.isObsolete())
+            {
+                rdf.resource(subject, DCAT.distribution, RESOURCE_PREFIX + resource.getId() + ACCESS_SUFFIX);
+            }
+        }
+        rdf.resource(subject, VOID.inDataset, REGISTRY);
+        
+        // physical locations (TODO: obsolete resources?)
+        for (Resource resource: locations)
+        {
+            if (! resource.isObsolete())
+            {
+                describeResource(resource);
+            }
+        }
+    }
+    
+    
+    /*
+     * Writes the description of a physical location (access details and resource details).
+     */
+    private void describeResource(Resource resource) throws IOException
+    {
+        String access = RESOURCE_PREFIX + resource.getId() + ACCESS_SUFFIX;
+        String subject = RESOURCE_PREFIX + resource.getId();
+        
+        rdf.resource(access, RDF.type, DCAT.Distribution);
+        rdf.resource(access, DCAT.accessURL, RdfUtilities.accessUrl(resource));
+        rdf.literal(access, DCAT.mediaType, "application/xhtml+xml", XSDDatatype.XSDstring);
+        rdf.resource(access, DCAT.publisher, subject);
+        
+        rdf.literal(subject, DCTerms.title, resource.getInfo(), XSDDatatype.XSDstring);
+        rdf.literal(subject, VCARD.Orgname, resource.getInstitution(), XSDDatatype.XSDstring);
+        if ((null != resource.getLocation()) && (! resource.getLocation().isEmpty()))
+        {
+            rdf.literal(subject, VCARD.Country, resource.getLocation(), XSDDatatype.XSDstring);
+        }
+        rdf.resource(subject, DCAT.landingPage, RdfUtilities.landingPage(resource));
+        rdf.literal(subject, IDOT.state, ResourceDao.getStateDesc(resource.getState()), XSDDatatype.XSDstring);
+        rdf.literal(subject, IDOT.reliability, String.valueOf(resource.getReliability()), XSDDatatype.XSDdecimal);
+    }
+    
+    
+    /*
+     * Retrieves the namespace of a data collection (from its current URN).
+     */
+    private String namespace(String id) throws SQLException
+    {
+        String namespace = null;
+        if (uris.seek(id))
+        {
+            do
+            {
+                ResultSet row = uris.getRow();
+                if ((null == namespace) && "URN".equals(row.getString("uri_type")) && (0 == row.getInt("deprecated")))
+                {
+                    String urn = row.getString("uri");
+                    namespace = (urn.length() > 11) ? urn.substring(11) : null;   // after "urn:miriam:"
+                }
+            }
+            while (uris.next(id));
+        }
+        
+        return namespace;
+    }
+    
+    
+    /*
+     * Reads the resources of a data collection, with their health (only the ones of the current data collection are kept in memory).
+     */
+    private List<Resource> resources(String id) throws SQLException
+    {
+        List<Resource> locations = new ArrayList<Resource>();
+        if (resources.seek(id))
+        {
+            do
+            {
+                ResultSet row = resources.getRow();
+                Resource resource = new Resource();
+                resource.setId(row.getString("resource_id"));
+                resource.setObsolete(0 != row.getInt("obsolete"));
+                resource.setUrl_prefix(row.getString("url_element_prefix"));
+                resource.setUrl_suffix(row.getString("url_element_suffix"));
+                resource.setUrl_root(row.getString("url_resource"));
+                resource.setInfo(row.getString("info"));
+                resource.setInstitution(row.getString("institution"));
+                resource.setLocation(row.getString("location"));
+                resource.setExample(row.getString("example"));
+                int uptime = row.getInt("uptime");
+                if (row.wasNull())
+                {
+                    resource.setReliability(0);   // never checked
+                }
+                else
+                {
+                    int totalDays = uptime + row.getInt("downtime");
+                    resource.setReliability((totalDays > 0) ? (uptime * 100 / totalDays) : 0);   // 'unknown' not part of the uptime percent computation
+                    int state = row.getInt("state");
+                    resource.setState(row.wasNull() ? ResourceDao.STATE_NA : state);
+                }
+                locations.add(resource);
+            }
+            while (resources.next(id));
+        }
+        
+        return locations;
+    }
+    
+    
+    /*
+     * Formats a date (W3C date time), null if there is no date.
+     */
+    private static String date(Date date)
+    {
+        return (null == date) ? null : DatetimeProcessor.instance.formatToW3CDTF(date);
+    }
+}
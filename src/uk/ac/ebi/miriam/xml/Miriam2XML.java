@@ -26,27 +26,29 @@
 package uk.ac.ebi.miriam.xml;
 
 
+import uk.ac.ebi.miriam.db.DataTypeDao;
+import uk.ac.ebi.miriam.db.MergeCursor;
 import uk.ac.ebi.miriam.db.ResourceDao;
+import uk.ac.ebi.miriam.db.SqlQuery;
 import uk.ac.ebi.miriam.db.URI;
-import uk.ac.ebi.miriam.db.DbPoolConnect;
-import uk.ac.ebi.compneur.util.*;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.List;
-import org.apache.commons.lang3.StringEscapeUtils;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.apache.log4j.Logger;
 import java.text.SimpleDateFormat;
 import java.util.TimeZone;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -54,6 +56,9 @@ import java.util.TimeZone;
  *
  * <p>
  * Uses the database pool created by the MIRIAM Web App.
+ * Each table is read once, sorted by data collection, and merge-joined with the list of data collections (cf. <code>MergeCursor</code>):
+ * the number of queries does not depend on the number of data collections, and no table is loaded in memory.
+ * The export is streamed (StAX) to a file or to any output stream (for example the response to an HTTP request).
  *
  * <p>
  * <dl>
@@ -79,16 +84,32 @@ import java.util.TimeZone;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20130808
+ * @version 20261017
  */
 public class Miriam2XML
 {
     private Logger logger = Logger.getLogger(Miriam2XML.class);
-    private PrintWriter file = null;
+    private static final String NAMESPACE = "http://www.biomodels.net/MIRIAM/";
+    private static final String[] COLLECTION_KEY = {"ptr_datatype"};
+    private static final String[] RESOURCE_KEY = {"ptr_datatype", "obsolete", "resource_id"};
+    private static final char[] INDENT = "\n\t\t\t\t\t\t".toCharArray();
+    private static final int BUFFER_SIZE = 65536;   // 64KB
+    private static final int MAX_EXPORTS = 2;   // concurrent exports (each one holds up to nine pooled connections)
+    private static final long EXPORT_WAIT = 60;   // maximum time waiting for another export to finish (in seconds)
+    private static final Semaphore exports = new Semaphore(MAX_EXPORTS, true);   // shared with the RDF exports (cf. Miriam2Rdf)
     private String fileName = null;
     private String poolName = null;
-    private DbPoolConnect pool;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z");
+    // during an export: output and cursors on the child tables (all sorted by data collection)
+    private XMLStreamWriter xml = null;
+    private MergeCursor synonyms;
+    private MergeCursor uris;
+    private MergeCursor docs;
+    private MergeCursor resources;
+    private MergeCursor resourceDocs;
+    private MergeCursor restrictions;
+    private MergeCursor tags;
+    private MergeCursor annotations;
 
 
 
@@ -106,6 +127,16 @@ public class Miriam2XML
     }
     
     
+    /**
+     * Constructor, for exports written to a stream (cf. <code>export(String, OutputStream)</code>).
+     * @param poolName name of the database pool
+     */
+    public Miriam2XML(String poolName)
+    {
+        this(poolName, null);
+    }
+    
+    
     /**
      * Official destructor.
      */
@@ -122,23 +153,120 @@ public class Miriam2XML
     @Override
     public String toString()
     {
-        if (null != this.file)
+        return this.fileName;
+    }
+    
+    
+    /**
+     * Exports the database in the output file.
+     * If a 'project' is specified (not null), a customised export will be generated.
+     * @return whether the export is a success or not
+     */
+    public boolean export(String project)
+    {
+        if (null == this.fileName)
         {
-            return this.file.toString();
+            logger.fatal("No output file: impossible to proceed the XML export!");
+            return false;
         }
-        else
+        
+        OutputStream output = null;
+        try
         {
-            return null;
+            output = new FileOutputStream(this.fileName);
+            logger.info("Output file used: '" + fileName + "'");
+            boolean success = export(project, output);
+            output.close();
+            output = null;
+            
+            return success;
+        }
+        catch (IOException e)
+        {
+            logger.error("The output file cannot be written!");
+            logger.error("IO Exception raised: " + e.getMessage());
+            return false;
+        }
+        finally
+        {
+            if (null != output)
+            {
+                try
+                {
+                    output.close();
+                }
+                catch (IOException e)
+                {
+                    logger.warn("Unable to close the output file: " + e.getMessage());
+                }
+            }
         }
     }
     
     
     /**
-     * Exports the database in an output file.
+     * Exports the database in an output stream (in UTF-8, the stream is flushed but not closed).
      * If a 'project' is specified (not null), a customised export will be generated.
+     * Nothing is written if the database cannot be queried, or if too many exports are already in progress.
      * @return whether the export is a success or not
      */
-    public boolean export(String project)
+    public boolean export(String project, OutputStream output)
+    {
+        if (! acquire())
+        {
+            return false;
+        }
+        try
+        {
+            return dump(project, output);
+        }
+        finally
+        {
+            release();
+        }
+    }
+    
+    
+    /**
+     * Waits for the permission to run an export (XML or RDF): as each export streams several tables at once, each one with
+     * its own pooled connection, only a few exports can run at the same time without exhausting the database pool.
+     * Must be followed by a call to {@link #release()} if successful.
+     * @return true if the export can proceed, false if it waited too long (or was interrupted)
+     */
+    static boolean acquire()
+    {
+        boolean acquired = false;
+        
+        try
+        {
+            acquired = exports.tryAcquire(EXPORT_WAIT, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (! acquired)
+        {
+            Logger.getLogger(Miriam2XML.class).error("Too many exports in progress: export cancelled!");
+        }
+        
+        return acquired;
+    }
+    
+    
+    /**
+     * Ends an export started after a successful call to {@link #acquire()}.
+     */
+    static void release()
+    {
+        exports.release();
+    }
+    
+    
+    /*
+     * Writes the export (the caller holds one of the export permits).
+     */
+    private boolean dump(String project, OutputStream output)
     {
         if (null != project)
         {
@@ -149,663 +277,542 @@ public class Miriam2XML
             logger.debug("Request for an XML export of the database.");
         }
         
-        pool = new DbPoolConnect(poolName);
+        // retrieves the newest date of last modification
+        DataTypeDao dao = new DataTypeDao(poolName);
+        Date lastModif = dao.getLastModifDate();
+        dao.clean();
         
-        // open the output file
-        if (openFile() == null)
+        List<MergeCursor> cursors = new ArrayList<MergeCursor>();
+        try
         {
-            logger.fatal("Impossible to proceed the XML export!");
+            // all the queries are executed before anything is written
+            MergeCursor collections;
+            if (null != project)
+            {
+                collections = open(cursors, SqlQuery.EXPORT_PROJECT_COLLECTIONS, new String[0], project);
+            }
+            else
+            {
+                collections = open(cursors, SqlQuery.EXPORT_COLLECTIONS, new String[0]);
+            }
+            synonyms = open(cursors, SqlQuery.EXPORT_SYNONYMS, COLLECTION_KEY);
+            uris = open(cursors, SqlQuery.EXPORT_URIS, COLLECTION_KEY);
+            docs = open(cursors, SqlQuery.EXPORT_DATATYPE_DOCS, COLLECTION_KEY);
+            resources = open(cursors, SqlQuery.EXPORT_RESOURCES, COLLECTION_KEY);
+            resourceDocs = open(cursors, SqlQuery.EXPORT_RESOURCE_DOCS, RESOURCE_KEY);
+            restrictions = open(cursors, SqlQuery.EXPORT_RESTRICTIONS, COLLECTION_KEY);
+            tags = open(cursors, SqlQuery.EXPORT_TAGS, COLLECTION_KEY);
+            annotations = open(cursors, SqlQuery.EXPORT_ANNOTATIONS, COLLECTION_KEY);
+            
+            BufferedOutputStream buffer = new BufferedOutputStream(output, BUFFER_SIZE);
+            xml = XMLOutputFactory.newInstance().createXMLStreamWriter(buffer, "UTF-8");
+            
+            // header of the file
+            beginFile(project, lastModif);
+            
+            // database dump
+            int count = 0;
+            while (collections.next())
+            {
+                dumpCollection(collections.getRow(), project);
+                count++;
+            }
+            
+            // list of tags and there definition (the other cursors are released first)
+            for (MergeCursor cursor: cursors)
+            {
+                cursor.close();
+            }
+            cursors.clear();
+            dumpTags();
+            
+            // footer of the file
+            endFile();
+            xml.close();
+            buffer.flush();
+            
+            // logging message
+            logger.info("The XML export is a success (" + count + " data collections)!");
+            
+            return true;
+        }
+        catch (SQLException e)
+        {
+            logger.fatal("An error occurred during the XML export (database)!");
+            logger.error("SQL Exception raised: " + e.getMessage());
             return false;
         }
+        catch (XMLStreamException e)
+        {
+            logger.fatal("An error occurred during the XML export (output)!");
+            logger.error("XMLStream Exception raised: " + e.getMessage());
+            return false;
+        }
+        catch (IOException e)
+        {
+            logger.fatal("An error occurred during the XML export (output)!");
+            logger.error("IO Exception raised: " + e.getMessage());
+            return false;
+        }
+        finally
+        {
+            for (MergeCursor cursor: cursors)
+            {
+                cursor.close();
+            }
+            xml = null;
+        }
+    }
+    
+    
+    /*
+     * Opens a cursor and keeps track of it (in order to close it at the end of the export).
+     */
+    private MergeCursor open(List<MergeCursor> cursors, SqlQuery query, String[] key, Object... params) throws SQLException
+    {
+        MergeCursor cursor = MergeCursor.open(poolName, query, key, params);
+        cursors.add(cursor);
         
-        // connection to the database (via a pool)
-        // test without 'newConnection()' before, let's see...
-        pool.getConnection();
+        return cursor;
+    }
+    
+    
+    /*
+     * Writes a data collection, with the content of all the child tables.
+     * If 'project' is not null, the preferred resource of the project is flagged.
+     */
+    private void dumpCollection(ResultSet collection, String project) throws SQLException, XMLStreamException
+    {
+        String id = collection.getString("datatype_id");
+        boolean obsolete = (0 != collection.getInt("obsolete"));
+        boolean restricted = (0 != collection.getInt("restriction"));
+        String preferredResourceId = (null != project) ? collection.getString("ptr_preferred_resource") : null;
         
-        // retrieves the newest date of last modification
-        Date lastModif = null;
-        String query = "SELECT date_modif FROM mir_datatype WHERE 1 ORDER BY date_modif DESC LIMIT 1";
-        ResultSet sqlResult = pool.request(pool.getStatement(), query);
-        try
+        start("datatype", 1);
+        xml.writeAttribute("id", id);
+        xml.writeAttribute("pattern", text(collection.getString("pattern")));
+        if (restricted)
         {
-            sqlResult.next();
-            lastModif = sqlResult.getTimestamp("date_modif");
-            sqlResult.close();
+            xml.writeAttribute("restricted", "true");
         }
-        catch (SQLException e)
+        if (obsolete)
         {
-            logger.error("Error while retrieving the newest date of last modification!");
-            logger.error("SQL Exception raised: " + e.getMessage());
+            xml.writeAttribute("obsolete", "true");
+            xml.writeAttribute("replacement", text(collection.getString("replacement")));
+            element("comment", collection.getString("obsolete_comment"), 2);
         }
-
-
-        // header of the file
-        beginFile(file, dateFormat.format(new Date()), dateFormat.format(lastModif), project);
         
-        // database dump
-        if (dump(project) == false)
+        // primary name
+        element("name", collection.getString("name"), 2);
+        
+        // synonym(s)
+        list(synonyms, id, "synonyms", "synonym", "name");
+        
+        // definition
+        if (null != collection.getString("definition"))
         {
-            logger.fatal("An error occurred during the XML export!");
-            return false;
+            element("definition", collection.getString("definition"), 2);
         }
         
-        // list of tags and there definition
-        if (dumpTags() == false)
+        // URI(s) and namespace
+        String namespace = dumpUris(id);
+        if ((null != namespace) && (! isBlank(namespace)))
         {
-            logger.fatal("An error occurred during the XML export!");
-            return false;
+            element("namespace", namespace, 2);
         }
         
-        // footer of the file
-        endFile(file);
+        // pieces of documentation related to the data collection
+        documentations(docs, 2, id);
         
-        // close the file
-        file.flush();
-        file.close();
-
-        // without closing the statement, let's see...
-        pool.closeConnection();
-
-        // logging message
-        logger.info("The XML export is a success!");
-
-        return true;
+        // resources (physical locations)
+        start("resources", 2);
+        if (resources.seek(id))
+        {
+            do
+            {
+                dumpResource(resources.getRow(), id, preferredResourceId);
+            }
+            while (resources.next(id));
+        }
+        end(2);
+        
+        // restriction(s), if any
+        if (restricted)
+        {
+            dumpRestrictions(id);
+        }
+        
+        // tags
+        list(tags, id, "tags", "tag", "tag");
+        
+        // examples of annotation in various formats
+        dumpAnnotations(id);
+        
+        // end of the data collection
+        end(1);
+        xml.writeCharacters("\n");
     }
-
-
+    
+    
     /*
-     * Opens the file
-     * @return the PrintWriter object
+     * Writes the URIs of a data collection: official URN, Identifiers.org URL, then the other and the deprecated URIs.
+     * @return namespace of the data collection (from its official URN), or null
      */
-    private PrintWriter openFile()
+    private String dumpUris(String id) throws SQLException, XMLStreamException
     {
-        try
+        if (! uris.seek(id))
         {
-            file = new PrintWriter(new BufferedWriter(new FileWriter(fileName)));
+            return null;
         }
-        catch (IOException e)
+        
+        String namespace = null;
+        List<URI> others = new ArrayList<URI>();
+        List<URI> deprecated = new ArrayList<URI>();
+        start("uris", 2);
+        do
         {
-            logger.error("The output file cannot be opened!");
-            logger.error("IO Exception raised: " + e.getMessage());
+            ResultSet row = uris.getRow();
+            URI uri = new URI(text(row.getString("uri")), text(row.getString("uri_type")));
+            String status = row.getString("deprecated");
+            if ("0".equals(status))
+            {
+                // official URIs (there should only be one non deprecated URN per data collection)
+                if (uri.getType() == URI.URItype.URN)
+                {
+                    uri(uri, false);
+                    namespace = uri.getValue();   // there should be only one, otherwise we take the last namespace
+                }
+            }
+            else if ("1".equals(status))
+            {
+                deprecated.add(uri);
+            }
+            else if ("2".equals(status))
+            {
+                others.add(uri);
+            }
         }
-
-        logger.info("Output file used: '" + fileName + "'");
-
-        return file;
+        while (uris.next(id));
+        
+        if (null != namespace)
+        {
+            // removes the useless URN parts
+            namespace = namespace.substring(namespace.lastIndexOf(":") + 1);
+            // Identifiers.org URL
+            uri(new URI("http://identifiers.org/" + namespace + "/", "URL"), false);
+        }
+        for (URI uri: others)
+        {
+            uri(uri, true);
+        }
+        for (URI uri: deprecated)
+        {
+            uri(uri, true);
+        }
+        end(2);
+        
+        return namespace;
     }
-
-
+    
+    
     /*
-     * Reads the content of the database and writes it in the output file.
-     * If 'project' is not null, this will generate a customised export.
-     * @return a boolean in order to know if there was a problem or not
+     * Writes a resource of a data collection, with its health and documentation.
      */
-    private boolean dump(String project)
+    private void dumpResource(ResultSet resource, String id, String preferredResourceId) throws SQLException, XMLStreamException
     {
-        String id = new String();
-        String tmp = new String();
-        ResultSet sqlResult = null;
-        String originalQuery = null; 
+        String resourceId = resource.getString("resource_id");
+        String obsolete = text(resource.getString("obsolete"));
         
-        if (null != project)
+        start("resource", 3);
+        xml.writeAttribute("id", resourceId);
+        if (obsolete.equalsIgnoreCase("1"))
         {
-            originalQuery = "SELECT * FROM mir_datatype d, mir_profiles p, mir_my_miriam m WHERE ((p.shortname = '" + project + "') AND (p.id = m.ptr_my_project) AND (m.ptr_datatype = d.datatype_id))";
+            xml.writeAttribute("obsolete", "true");
         }
-        else
+        else if (null != resource.getString("checked"))   // health record available
         {
-            originalQuery = "SELECT * FROM mir_datatype d";
+            int uptime = resource.getInt("uptime");
+            int downtime = resource.getInt("downtime");
+            int workDays = uptime + downtime;   // 'unknown' not part of the uptime percent computation
+            int reliability = (workDays > 0) ? (uptime * 100 / workDays) : 0;
+            xml.writeAttribute("state", ResourceDao.getStateDesc(resource.getInt("state")));
+            xml.writeAttribute("reliability", String.valueOf(reliability));
         }
-
-        // execute the query
-        sqlResult = pool.request(pool.getStatement(), originalQuery);
-
-        try
+        if (resourceId.equals(preferredResourceId))
         {
-            boolean notEmpty = sqlResult.first();
-            
-            // for each data type, search all the needed information
-            while (notEmpty)
+            xml.writeAttribute("preferred", "true");
+        }
+        if (resource.getInt("official") > 0)
+        {
+            xml.writeAttribute("primary", "true");
+        }
+        
+        element("dataResource", resource.getString("url_resource"), 4);
+        String example = resource.getString("example");
+        if ((null != example) && (example.length() > 0))
+        {
+            element("dataEntityExample", example, 4);
+        }
+        element("dataEntry", text(resource.getString("url_element_prefix")) + "$id" + text(resource.getString("url_element_suffix")), 4);
+        element("dataInfo", resource.getString("info"), 4);
+        element("dataInstitution", resource.getString("institution"), 4);
+        element("dataLocation", resource.getString("location"), 4);
+        documentations(resourceDocs, 4, id, obsolete, resourceId);
+        end(3);
+    }
+    
+    
+    /*
+     * Writes the restrictions of a data collection.
+     */
+    private void dumpRestrictions(String id) throws SQLException, XMLStreamException
+    {
+        if (! restrictions.seek(id))
+        {
+            logger.warn("No restrictions found for '" + id + "' when generating the XML export!");   // there should be some restrictions stored somewhere...
+            return;
+        }
+        
+        start("restrictions", 2);
+        do
+        {
+            ResultSet row = restrictions.getRow();
+            start("restriction", 3);
+            xml.writeAttribute("type", String.valueOf(row.getInt("id")));
+            xml.writeAttribute("desc", text(row.getString("short_desc")));
+            if (! isBlank(row.getString("desc")))
             {
-                String preferredResourceId = null;   // preferred resource for the current data collection (if customised export requested)
-                // new resource
-                id = sqlResult.getString("d.datatype_id");
-                boolean obsolete = sqlResult.getBoolean("d.obsolete");
-                boolean restricted = sqlResult.getBoolean("d.restriction");
-                // customised export requested
-                if (null != project)
-                {
-                    preferredResourceId = sqlResult.getString("m.ptr_preferred_resource");
-                }
-                // the data type is obsolete
-                if (obsolete)
-                {
-                    if (restricted)
-                    {
-                        file.println("\t<datatype id=\"" + id + "\" pattern=\"" + StringEscapeUtils.escapeXml(sqlResult.getString("d.pattern")) + "\" restricted=\"true\" obsolete=\"" + obsolete + "\" replacement=\"" + sqlResult.getString("d.replacement") + "\">");
-                    }
-                    else   // no restriction for the data collection
-                    {
-                        file.println("\t<datatype id=\"" + id + "\" pattern=\"" + StringEscapeUtils.escapeXml(sqlResult.getString("d.pattern")) + "\" obsolete=\"" + obsolete + "\" replacement=\"" + sqlResult.getString("d.replacement") + "\">");
-                    }
-                    file.println("\t\t<comment>" + StringEscapeUtils.escapeXml(sqlResult.getString("d.obsolete_comment")) + "</comment>");
-                }
-                else   // the data type is still valid
-                {
-                    if (restricted)
-                    {
-                        file.println("\t<datatype id=\"" + id + "\" pattern=\"" + StringEscapeUtils.escapeXml(sqlResult.getString("d.pattern")) + "\" restricted=\"true\">");
-                    }
-                    else   // no restriction for the data collection
-                    {
-                        file.println("\t<datatype id=\"" + id + "\" pattern=\"" + StringEscapeUtils.escapeXml(sqlResult.getString("d.pattern")) + "\">");
-                    }
-                }
-
-                // primary name
-                file.println("\t\t<name>" + StringEscapeUtils.escapeXml(sqlResult.getString("d.name")) + "</name>");
-
-                // searching for synonym(s)
-                Statement stmt2 = null;
-                ResultSet sqlResult2 = null;
-                boolean notEmpty2;
-                String query2 = "SELECT * FROM mir_synonym WHERE (ptr_datatype = '" + id + "')";
-                // new statement
-                stmt2 = pool.getStatement();
-                // query
-                sqlResult2 = pool.request(stmt2, query2);
-                int i2 = DbPoolConnect.getRowCount(sqlResult2);
-                // there is at least one synonym stored for this data collection: beginning of the list
-                if (i2 > 0)
-                {
-                    file.println("\t\t<synonyms>");
-                    
-                    try
-                    {
-                        notEmpty2 = sqlResult2.first();
-                        while (notEmpty2)
-                        {
-                            file.println("\t\t\t<synonym>" + StringEscapeUtils.escapeXml(sqlResult2.getString("name")) + "</synonym>");
-                            notEmpty2 = sqlResult2.next();
-                        }
-                    }
-                    catch (SQLException e1)
-                    {
-                        logger.error("Error while searching the synonyms!");
-                        logger.error("SQL Exception raised: " + e1.getMessage());
-                    }
-                    
-                    // end of the list of synonyms
-                    file.println("\t\t</synonyms>");
-                }
-                
-                // searching for the definition
-                if (sqlResult.getString("definition") != null)
-                {
-                    file.println("\t\t<definition>" + StringEscapeUtils.escapeXml(sqlResult.getString("definition")) + "</definition>");
-                }
-                
-                // searching for URI(s)
-                String namespace = null;
-                String query3 = "SELECT * FROM mir_uri WHERE (ptr_datatype = '" + id + "')";
-                sqlResult2 = pool.request(stmt2, query3);
-                int i3 = DbPoolConnect.getRowCount(sqlResult2);
-                // beginning of the list of URIs (there should be one, at least!)
-                if (i3 > 0)
-                {
-                    file.println("\t\t<uris>");
-                    
-                    // retrieves URIs from the database
-                    List<URI> uris = new ArrayList<URI>();
-                    List<URI> deprecated = new ArrayList<URI>();
-                    List<URI> official = new ArrayList<URI>();
-                    try
-                    {
-                        notEmpty2 = sqlResult2.first();
-                        while (notEmpty2)
-                        {
-                            if (sqlResult2.getString("deprecated").equals("0"))
-                            {
-                                official.add(new URI(StringEscapeUtils.escapeXml(sqlResult2.getString("uri")), sqlResult2.getString("uri_type")));
-                            }
-                            else if (sqlResult2.getString("deprecated").equals("1"))
-                            {
-                                deprecated.add(new URI(StringEscapeUtils.escapeXml(sqlResult2.getString("uri")), sqlResult2.getString("uri_type")));
-                            }
-                            else if (sqlResult2.getString("deprecated").equals("2"))
-                            {
-                                uris.add(new URI(StringEscapeUtils.escapeXml(sqlResult2.getString("uri")), sqlResult2.getString("uri_type")));
-                            }
-                            
-                            notEmpty2 = sqlResult2.next();
-                        }
-                    }
-                    catch (SQLException e1)
-                    {
-                        logger.error("Error while computing the synonyms!");
-                        logger.error("SQL Exception raised: " + e1.getMessage());
-                    }
-                    
-                    // official URIs (there should only be one non deprecated URN per data collection)
-                    for (URI uri: official)
-                    {
-                        if(uri.getType() == URI.URItype.URN) {
-                            file.println("\t\t\t<uri type=\"" + uri.getType() + "\">" + uri.getValue() + "</uri>");
-                            namespace = uri.getValue();   // there should be only one, otherwise we take the last namespace
-                        }
-                    }
-                    // removes the useless URN parts
-                    namespace = namespace.substring(namespace.lastIndexOf(":")+1);
-                    // Identifiers.org URL
-                    file.println("\t\t\t<uri type=\"URL\">http://identifiers.org/" + namespace + "/</uri>");
-
-                    //other
-                    for (URI uri: uris)
-                    {
-                        file.println("\t\t\t<uri type=\"" + uri.getType() + "\" deprecated=\"true\">" + uri.getValue() + "</uri>");
-                    }
-
-                    // deprecated URI(s)
-                    for (URI uri: deprecated)
-                    {
-                        file.println("\t\t\t<uri type=\"" + uri.getType() + "\" deprecated=\"true\">" + uri.getValue() + "</uri>");
-                    }
-
-                    
-                    // end of the list of URIs
-                    file.println("\t\t</uris>");
-                }
-                
-                // namespace
-                if ((null != namespace) && (!namespace.matches("\\s*")))
-                {
-                    file.println("\t\t<namespace>" + namespace + "</namespace>");
-                }
-
-                // searching for pieces of documentation(s) related to the data collection
-                String query4 = "SELECT * FROM mir_doc WHERE (ptr_type = 'data' AND ptr_datatype = '" + id + "')";
-                sqlResult2 = pool.request(stmt2, query4);
-                
-                int i4 = DbPoolConnect.getRowCount(sqlResult2);
-                // beginning of the list of documentations (if any stored for the current data collection)
-                if (i4 > 0)
-                {
-                    file.println("\t\t<documentations>");
-                    
-                    try
-                    {
-                        notEmpty2 = sqlResult2.first();
-                        while (notEmpty2)
-                        {
-                            file.println("\t\t\t<documentation type=\"" + sqlResult2.getString("uri_type") + "\">" + StringEscapeUtils.escapeXml(sqlResult2.getString("uri")) + "</documentation>");
-                            notEmpty2 = sqlResult2.next();
-                        }
-                    }
-                    catch (SQLException e1)
-                    {
-                        logger.error("Error while searching the documentations of the current resource!");
-                        logger.error("SQL Exception raised: " + e1.getMessage());
-                    }
-                    
-                    // end of the list of documentations (if any stored for the current data type)
-                    file.println("\t\t</documentations>");
-                }
-
-                // searching the resources (physical locationS)
-                String query5 = "SELECT resource_id, url_element_prefix, url_element_suffix, url_resource, info, institution, location, `example`, obsolete, official, ptr_datatype FROM mir_resource WHERE (ptr_datatype = '" + id + "') ORDER BY obsolete";
-                sqlResult2 = pool.request(stmt2, query5);
-                Statement stmt4 = null;
-                ResultSet sqlResult4 = null;
-                
-                // beginning of the list of resources for the current data collection
-                file.println("\t\t<resources>");
-                try
-                {
-                    notEmpty2 = sqlResult2.next();
-                    while (notEmpty2)
-                    {
-                        String resourceId = sqlResult2.getString("resource_id");
-                        file.print("\t\t\t<resource id=\"" + resourceId + "\"");
-                        
-                        // resource obsolete
-                        if ((sqlResult2.getString("obsolete")).equalsIgnoreCase("1"))
-                        {
-                        	file.print(" obsolete=\"true\"");
-                        }
-                        else  // resource not obsolete
-                        {
-                            stmt4 = pool.getStatement();
-                            sqlResult4 = pool.request(stmt4, "SELECT uptime, downtime, unknown, state FROM mir_url_check WHERE (resource_id = '" + resourceId + "')");
-                            if (sqlResult4.first())
-                            {
-                                int state = sqlResult4.getInt("state");
-                                int uptime = sqlResult4.getInt("uptime");
-                                int downtime = sqlResult4.getInt("downtime");
-                                
-                                int workDays = uptime + downtime;   // 'unknown' not part of the uptime percent computation
-                                int reliability = 0;
-                                if (workDays > 0)
-                                {
-                                    reliability = (uptime * 100 / workDays);
-                                }
-                                file.print(" state=\"" + ResourceDao.getStateDesc(state) + "\" reliability=\"" + reliability + "\"");
-                            }
-                            sqlResult4.close();
-                            stmt4.close();
-                        }
-                        // preferred resource
-                        if ((null != project) && (preferredResourceId.equals(resourceId)))
-                        {
-                            file.print(" preferred=\"true\"");
-                        }
-                        // primary resource
-                        if (sqlResult2.getInt("official") > 0)
-                        {
-                        	file.print(" primary=\"true\"");
-                        }
-                        file.println(">");
-                        
-                        file.println("\t\t\t\t<dataResource>" + StringEscapeUtils.escapeXml(sqlResult2.getString("url_resource")) + "</dataResource>");
-                        tmp = StringEscapeUtils.escapeXml(sqlResult2.getString("url_element_prefix")) + "$id" + StringEscapeUtils.escapeXml(sqlResult2.getString("url_element_suffix"));   // for valid URLs
-                        if (! sqlResult2.getString("example").equalsIgnoreCase(""))
-                        {
-                            file.println("\t\t\t\t<dataEntityExample>" + StringEscapeUtils.escapeXml(sqlResult2.getString("example")) + "</dataEntityExample>");
-                        }
-                        file.println("\t\t\t\t<dataEntry>" + tmp + "</dataEntry>");
-                        file.println("\t\t\t\t<dataInfo>" + StringEscapeUtils.escapeXml(sqlResult2.getString("info")) + "</dataInfo>");
-                        file.println("\t\t\t\t<dataInstitution>" + StringEscapeUtils.escapeXml(sqlResult2.getString("institution")) + "</dataInstitution>");
-                        file.println("\t\t\t\t<dataLocation>" + StringEscapeUtils.escapeXml(sqlResult2.getString("location")) + "</dataLocation>");
-
-                        // searching the documentation(s) related to the current resource
-                        Statement stmt3 = null;
-                        ResultSet sqlResult3 = null;
-                        boolean notEmpty3;
-                        String query6 = "SELECT * FROM mir_doc WHERE (ptr_type = 'loc' AND ptr_resource = '" + resourceId + "')";
-
-                        stmt3 = pool.getStatement();
-                        sqlResult3 = pool.request(stmt3, query6);
-                        
-                        int i6 = DbPoolConnect.getRowCount(sqlResult3);
-                        // beginning of the list of documentations stored for the current resource (if any)
-                        if (i6 > 0)
-                        {
-                            file.println("\t\t\t<documentations>");
-                            
-                            try
-                            {
-                                notEmpty3 = sqlResult3.next();
-                                while (notEmpty3)
-                                {
-                                    file.println("\t\t\t\t<documentation type=\"" + sqlResult3.getString("uri_type") + "\">" + StringEscapeUtils.escapeXml(sqlResult3.getString("uri")) + "</documentation>");
-                                    notEmpty3 = sqlResult3.next();
-                                }
-                                sqlResult3.close();
-                                stmt3.close();
-                            }
-                            catch (SQLException e2)
-                            {
-                                logger.error("Error while searching the documentations of the current resource!");
-                                logger.error("SQL Exception raised: " + e2.getMessage());
-                            }
-                            
-                            // end of the documentation part for the current resource
-                            file.println("\t\t\t</documentations>");
-                        }
-
-                        // end of the current resource
-                        file.println("\t\t\t</resource>");
-                        notEmpty2 = sqlResult2.next();
-                    }
-                }
-                catch (SQLException e1)
-                {
-                    logger.error("Error while searching the resources!");
-                    logger.error("SQL Exception raised: " + e1.getMessage());
-                }
-                
-                // end of all the resources for the current data type
-                file.println("\t\t</resources>");
-                
-                // displays any restriction(s), if any
-                if (restricted)
+                element("statement", row.getString("desc"), 4);
+            }
+            if (! isBlank(row.getString("link")))
+            {
+                start("link", 4);
+                if (! isBlank(row.getString("link_text")))
                 {
-                    String query9 = "SELECT * FROM mir_restriction r, mir_restriction_type t WHERE ((r.ptr_datatype = '" + id + "') AND (r.ptr_restriction = t.id))";
-                    sqlResult2 = pool.request(stmt2, query9);
-                    int i9 = DbPoolConnect.getRowCount(sqlResult2);
-                    if (i9 > 0)
-                    {
-                        file.println("\t\t<restrictions>");
-                        try
-                        {
-                            notEmpty = sqlResult2.first();
-                            while (notEmpty)
-                            {
-                                file.println("\t\t\t<restriction type=\"" + sqlResult2.getInt("t.id") + "\" desc=\"" + StringEscapeUtils.escapeXml(sqlResult2.getString("t.short_desc")) + "\">");
-                                if ((null != sqlResult2.getString("r.desc")) && (!sqlResult2.getString("r.desc").matches("\\s*")))
-                                {
-                                    file.println("\t\t\t\t<statement>" + StringEscapeUtils.escapeXml(sqlResult2.getString("r.desc")) + "</statement>");
-                                }
-                                if ((null != sqlResult2.getString("r.link")) && (!sqlResult2.getString("r.link").matches("\\s*")))
-                                {
-                                    if ((null != sqlResult2.getString("r.link_text")) && (!sqlResult2.getString("r.link_text").matches("\\s*")))
-                                    {
-                                        file.println("\t\t\t\t<link desc=\"" + StringEscapeUtils.escapeXml(sqlResult2.getString("r.link_text")) + "\">" + StringEscapeUtils.escapeXml(sqlResult2.getString("r.link")) + "</link>");
-                                    }
-                                    else
-                                    {
-                                        file.println("\t\t\t\t<link>" + StringEscapeUtils.escapeXml(sqlResult2.getString("r.link")) + "</link>");
-                                    }
-                                }
-                                file.println("\t\t\t</restriction>");
-                                notEmpty = sqlResult2.next();
-                            }
-                        }
-                        catch (SQLException e1)
-                        {
-                            logger.error("Error while searching the restrictions!");
-                            logger.error("SQL Exception raised: " + e1.getMessage());
-                        }
-                        file.println("\t\t</restrictions>");
-                    }
-                    else   // there should be some restrictions stored somewhere...
-                    {
-                        logger.warn("No restrictions found for '" + id + "' when generating the XML export!");
-                    }
+                    xml.writeAttribute("desc", row.getString("link_text"));
                 }
-                
-                // tags
-                String query7 = "SELECT t.tag FROM mir_tag t, mir_tag_link l WHERE ((l.ptr_datatype = '" + id + "') AND (t.id = l.ptr_tag)) ORDER BY t.tag";
-                sqlResult2 = pool.request(stmt2, query7);
-                int i7 = DbPoolConnect.getRowCount(sqlResult2);
-                if (i7 > 0)
+                xml.writeCharacters(row.getString("link"));
+                xml.writeEndElement();
+            }
+            end(3);
+        }
+        while (restrictions.next(id));
+        end(2);
+    }
+    
+    
+    /*
+     * Writes the examples of annotation of a data collection (the elements are grouped by format).
+     */
+    private void dumpAnnotations(String id) throws SQLException, XMLStreamException
+    {
+        if (! annotations.seek(id))
+        {
+            return;
+        }
+        
+        start("annotation", 2);
+        String format = null;
+        do
+        {
+            ResultSet row = annotations.getRow();
+            String currentFormat = text(row.getString("format"));
+            // new format (each tag is nested in a 'format' parent tag)
+            if (! currentFormat.equals(format))
+            {
+                if (null != format)
                 {
-                    file.println("\t\t<tags>");
-                    try
-                    {
-                        notEmpty = sqlResult2.first();
-                        while (notEmpty)
-                        {
-                            file.println("\t\t\t<tag>" + StringEscapeUtils.escapeXml(sqlResult2.getString("t.tag")) + "</tag>");
-                            notEmpty = sqlResult2.next();
-                        }
-                    }
-                    catch (SQLException e1)
-                    {
-                        logger.error("Error while searching the tags!");
-                        logger.error("SQL Exception raised: " + e1.getMessage());
-                    }
-                    file.println("\t\t</tags>");
+                    end(4);
+                    end(3);
                 }
-                
-                // examples of annotation in various formats
-                String query8 = "SELECT anno.id, anno.format, anno.name, anno.information FROM mir_annotation anno, mir_anno_link link WHERE ((link.ptr_datatype = '" + id + "') AND (link.ptr_annotation = anno.id)) ORDER BY anno.format";
-                sqlResult2 = pool.request(stmt2, query8);
-                int i8 = DbPoolConnect.getRowCount(sqlResult2);
-                
-                // beginning of the annotation part for the current data type (if any)
-                if (i8 > 0)
+                start("format", 3);
+                xml.writeAttribute("name", currentFormat);
+                start("elements", 4);
+                format = currentFormat;
+            }
+            element("element", row.getString("name"), 5);
+        }
+        while (annotations.next(id));
+        end(4);
+        end(3);
+        end(2);
+    }
+    
+    
+    /*
+     * Writes the list of all the tags used, with their definition.
+     */
+    private void dumpTags() throws SQLException, XMLStreamException
+    {
+        MergeCursor definitions = MergeCursor.open(poolName, SqlQuery.EXPORT_TAG_DEFINITIONS, new String[0]);
+        try
+        {
+            if (definitions.next())
+            {
+                start("listOfTags", 1);
+                do
                 {
-                    file.println("\t\t<annotation>");
-                
-                    try
-                    {
-                        String format = "";
-                        String currentFormat;
-                            
-                        notEmpty2 = sqlResult2.first();
-                        while (notEmpty2)
-                        {
-                            currentFormat = sqlResult2.getString("anno.format");
-                            
-                            // this the first format
-                            if (format.equals(""))
-                            {
-                                file.println("\t\t\t<format name=\"" + currentFormat + "\">");
-                                file.println("\t\t\t\t<elements>");
-                                format = currentFormat;
-                            }
-                            
-                            // new format (each tag is nested in a 'format' parent tag)
-                            if (! format.equals(currentFormat))
-                            {
-                                format = currentFormat;
-                                file.println("\t\t\t\t</elements>");
-                                file.println("\t\t\t</format>");
-                                file.println("\t\t\t<format name=\"" + currentFormat + "\">");
-                                file.println("\t\t\t\t<elements>");
-                            }
-                            
-                            file.println("\t\t\t\t\t<element>" + sqlResult2.getString("anno.name") + "</element>");
-                            notEmpty2 = sqlResult2.next();
-                        }
-                    }
-                    catch (SQLException e1)
-                    {
-                        logger.error("Error while searching the annotation!");
-                        logger.error("SQL Exception raised: " + e1.getMessage());
-                    }
-                
-                    // end of the annotation part for the current data type
-                    file.println("\t\t\t\t</elements>");
-                    file.println("\t\t\t</format>");
-                    file.println("\t\t</annotation>");
+                    start("tagDefinition", 2);
+                    element("name", definitions.getRow().getString("tag"), 3);
+                    element("definition", definitions.getRow().getString("info"), 3);
+                    end(2);
                 }
-                
-                sqlResult2.close();
-                stmt2.close();
-
-                // end of a resource
-                file.println("\t</datatype>");
-                file.println("");
-                file.flush();
-                notEmpty = sqlResult.next();
+                while (definitions.next());
+                end(1);
             }
-            sqlResult.close();
         }
-        catch (SQLException e)
+        finally
         {
-            logger.error("Error while computing the resources!");
-            logger.error("SQL Exception raised: " + e.getMessage());
-            return false;
+            definitions.close();
         }
-
-        // close all the statements
-        pool.closeStatements();
-
-        return true;
     }
     
+    
     /*
-     * Fetches from the database the list of all used tags and writes them (with their definition) in the file.
-     * @return a boolean in order to know if there was a problem or not
+     * Writes a list of simple elements (for example the synonyms), if there is any for the data collection.
      */
-    private boolean dumpTags()
+    private void list(MergeCursor cursor, String id, String listName, String elementName, String column) throws SQLException, XMLStreamException
     {
-        Boolean endRequired = false;
-        ResultSet sqlResult = null;
-        String query = "SELECT DISTINCT t.tag, t.info FROM mir_tag t, mir_tag_link l WHERE (t.id = l.ptr_tag) ORDER BY t.tag ASC";
-        
-        // execute the query
-        sqlResult = pool.request(pool.getStatement(), query);
-        
-        try
+        if (cursor.seek(id))
         {
-            boolean notEmpty = sqlResult.first();
-            
-            // beginning of the list of tags
-            if (notEmpty)
+            start(listName, 2);
+            do
             {
-                file.println("\t<listOfTags>");
-                endRequired = true;
+                element(elementName, cursor.getRow().getString(column), 3);
             }
-            
-            // for each tag, search all the needed information (name + definition)
-            while (notEmpty)
-            {
-                file.println("\t\t<tagDefinition>");
-                file.println("\t\t\t<name>" + StringEscapeUtils.escapeXml(sqlResult.getString("tag")) + "</name>");
-                file.println("\t\t\t<definition>" + StringEscapeUtils.escapeXml(sqlResult.getString("info")) + "</definition>");
-                file.println("\t\t</tagDefinition>");
-                
-                notEmpty = sqlResult.next();
-            }
-            
-            // end of the list of tags
-            if (endRequired)
+            while (cursor.next(id));
+            end(2);
+        }
+    }
+    
+    
+    /*
+     * Writes the pieces of documentation with the given key (data collection or resource), if any.
+     */
+    private void documentations(MergeCursor cursor, int depth, String... key) throws SQLException, XMLStreamException
+    {
+        if (cursor.seek(key))
+        {
+            start("documentations", depth);
+            do
             {
-                file.println("\t</listOfTags>");
+                start("documentation", depth + 1);
+                xml.writeAttribute("type", text(cursor.getRow().getString("uri_type")));
+                xml.writeCharacters(text(cursor.getRow().getString("uri")));
+                xml.writeEndElement();
             }
-            
-            sqlResult.close();
+            while (cursor.next(key));
+            end(depth);
         }
-        catch (SQLException e)
+    }
+    
+    
+    /*
+     * Writes a URI.
+     */
+    private void uri(URI uri, boolean deprecated) throws XMLStreamException
+    {
+        start("uri", 3);
+        xml.writeAttribute("type", uri.getType().toString());
+        if (deprecated)
         {
-            logger.error("Error while fetching the list of used tags!");
-            logger.error("SQL Exception raised: " + e.getMessage());
-            return false;
+            xml.writeAttribute("deprecated", "true");
         }
-        
-        // close all the statements
-        pool.closeStatements();
-        
-        return true;
+        xml.writeCharacters(uri.getValue());
+        xml.writeEndElement();
     }
-
-
+    
+    
     /*
      * Creates the header of the XML file.
      * If 'project' is not null, mentions that this is a customised export.
      */
-    private void beginFile(PrintWriter file, String now, String lastModif, String project)
+    private void beginFile(String project, Date lastModif) throws XMLStreamException
     {
-
-        // writing
-        file.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-        file.println("");   // empty line
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n\n");
         if (null != project)
         {
-            file.println("<!-- Customised (" + project + ") export of Identifiers.org's Registry -->");
-            file.println("<!-- Generated: " + dateFormat.format(new Date()) + "  " + spaces(project.length()) + "-->");
-            file.println("<!-- http://identifiers.org/registry/         " + spaces(project.length()) + "-->");
+            xml.writeComment(" Customised (" + project + ") export of Identifiers.org's Registry ");
+            xml.writeCharacters("\n");
+            xml.writeComment(" Generated: " + dateFormat.format(new Date()) + "  " + spaces(project.length()));
+            xml.writeCharacters("\n");
+            xml.writeComment(" http://identifiers.org/registry/         " + spaces(project.length()));
         }
         else
         {
-            file.println("<!-- Export of Identifiers.org's Registry (full) -->");
-            file.println("<!-- Generated: " + dateFormat.format(new Date()) + "     -->");
-            file.println("<!-- http://identifiers.org/registry/            -->");
+            xml.writeComment(" Export of Identifiers.org's Registry (full) ");
+            xml.writeCharacters("\n");
+            xml.writeComment(" Generated: " + dateFormat.format(new Date()) + "     ");
+            xml.writeCharacters("\n");
+            xml.writeComment(" http://identifiers.org/registry/            ");
         }
-        file.println(""); // empty line
-        file.println("<miriam xmlns=\"http://www.biomodels.net/MIRIAM/\" date=\"" + now + "\" data-version=\"" + lastModif + "\">");
-        file.flush();
+        xml.writeCharacters("\n\n");
+        xml.writeStartElement("miriam");
+        xml.writeDefaultNamespace(NAMESPACE);
+        xml.writeAttribute("date", dateFormat.format(new Date()));
+        xml.writeAttribute("data-version", (null != lastModif) ? dateFormat.format(lastModif) : "");
     }
-
-
+    
+    
     /*
      * Creates the footer of the XML file
      */
-    private void endFile(PrintWriter file)
+    private void endFile() throws XMLStreamException
+    {
+        end(0);
+        xml.writeCharacters("\n");
+        xml.writeEndDocument();
+        xml.flush();
+    }
+    
+    
+    /*
+     * Starts an element on a new line.
+     */
+    private void start(String name, int depth) throws XMLStreamException
+    {
+        xml.writeCharacters(INDENT, 0, depth + 1);
+        xml.writeStartElement(name);
+    }
+    
+    
+    /*
+     * Ends the current element (with children) on a new line.
+     */
+    private void end(int depth) throws XMLStreamException
+    {
+        xml.writeCharacters(INDENT, 0, depth + 1);
+        xml.writeEndElement();
+    }
+    
+    
+    /*
+     * Writes an element with only some text, on a new line.
+     */
+    private void element(String name, String text, int depth) throws XMLStreamException
+    {
+        start(name, depth);
+        xml.writeCharacters(text(text));
+        xml.writeEndElement();
+    }
+    
+    
+    /*
+     * Returns the value of a column, or an empty string if it is null.
+     */
+    private static String text(String value)
+    {
+        return (null == value) ? "" : value;
+    }
+    
+    
+    /*
+     * Checks whether a value is null or only made of white spaces.
+     */
+    private static boolean isBlank(String value)
     {
-        file.println("</miriam>");
-        file.flush();
+        return (null == value) || (value.trim().length() == 0);
     }
     
     
@@ -823,4 +830,3 @@ public class Miriam2XML
         return temp.toString();
     }
 }
-
@@ -30,14 +30,13 @@ import uk.ac.ebi.compneur.util.DatetimeProcessor;
 import uk.ac.ebi.miriam.db.MyMiriamDao;
 import uk.ac.ebi.miriam.db.DataTypeDao;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.net.InetAddress;
 import java.util.Date;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -50,8 +49,8 @@ import java.util.TimeZone;
 
 
 /**
- * <p>Servlet that handles the generation of the XML export on the fly for the whole Registry.
- * <p>The export is available via a simple HTTP GET request.
+ * <p>Servlet that serves the XML export of the whole Registry (generated once per version, cf. <code>ExportManager</code>).
+ * <p>The export is available via a simple HTTP GET request (conditional requests supported).
  * <p>Optional parameters: project and key for project specific exports (cf. MyMIRIAM feature).
  * 
  * <p>
@@ -78,13 +77,12 @@ import java.util.TimeZone;
  * </p>
  *
  * @author Camille Laibe <camille.laibe@ebi.ac.uk>
- * @version 20130808
+ * @version 20261017
  */
 public class ServletInstantXmlExport extends javax.servlet.http.HttpServlet implements javax.servlet.Servlet
 {
     private static final long serialVersionUID = -5526815895316177191L;
     private Logger logger = Logger.getLogger(ServletInstantXmlExport.class);
-    private static Object lock = new Object();   /* lock used to protect concurrent access to critical section */
     private static final Integer BUFFER_SIZE = 10240;   // 10KB
     
     
@@ -95,9 +93,6 @@ public class ServletInstantXmlExport extends javax.servlet.http.HttpServlet impl
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
     {
         String path = new String();
-        String version = new String();
-        String fileName = new String();
-        String realName = null;
         String project = null;
         String key = null;
         //String hashKey = null;
@@ -139,100 +134,100 @@ public class ServletInstantXmlExport extends javax.servlet.http.HttpServlet impl
         }
         
         path = getServletContext().getInitParameter("exportDir");
-        version = getServletContext().getInitParameter("version");
-        Date now = new Date();
-        String nowStr = DatetimeProcessor.instance.formatToW3CDTF(now);
         
-        // where is this app running: tomcat-11 or tomcat-12?
-        // this is useful because it is impossible to do synchronization between servers
-        InetAddress localMachine = InetAddress.getLocalHost();
-        String hostName = localMachine.getHostName();   // will return 'tomcat-11.ebi.ac.uk' or 'tomcat-12.ebi.ac.uk'
-        if(hostName.indexOf(".")!= -1)
-            hostName = hostName.substring(0, hostName.indexOf("."));   // we only keep the 'tomcat-11' or 'tomcat-12' part
-        
-        // checks that the path contains the final path separator character
-        if ((path.charAt(path.length() - 1)) == File.separatorChar)
-        {
-            fileName = path + realName;
-        }
-        else   // no final separator
-        {
-            fileName = path + File.separator + realName;
-        }
-        
-        // processing the request
-        Miriam2XML dump = null;
-        Boolean successfulDump = false;
-        // critical section to protected against concurrent access (in order to not mess up the export file)
-        // TODO: have a proper cache solution: this slows down a lot concurrent requests
-        synchronized(lock)
+        // export of the whole Registry: generated once per version, and shared by all the requests
+        if (null == project)
         {
-        	// generates the temporary file name
-            realName = "Identifiers-org_Registry-" + version + "_" + hostName + "_" + nowStr + ".xml";
-            
-            dump = new Miriam2XML(poolName, fileName);
-            
-            if (null != dump)
+            ExportManager.Export export = ExportManager.get(ExportManager.Format.XML, poolName, path, getServletContext().getInitParameter("version"));
+            if (null == export)
             {
-            	successfulDump = dump.export(project);
+                sendError(response);
+                return;
             }
+            String version = DatetimeProcessor.instance.formatToW3CDTF(new Date(export.getLastModified()));
+            export.send(request, response, "inline; filename=IdentifiersOrg-Registry_" + version + ".xml");
+            return;
         }
         
-        if ((null != dump) && (successfulDump))
+        // customised export: generated in a temporary file (compressed on the fly, as it cannot be versioned),
+        // so that the database connections are released before the transfer to the user, whatever its speed
+        ExportManager.Encoding encoding = ExportManager.Encoding.negotiate(request.getHeader("Accept-Encoding"));
+        File temp = null;
+        try
         {
-        	File generatedExport = new File(fileName);
-        	
-            // sets the headers for the response
-        	response.reset();
-            response.setBufferSize(BUFFER_SIZE);
-            response.setContentType("application/xml");   //"text/xml"
-            response.setCharacterEncoding("UTF-8");
-            response.setContentLength((int)generatedExport.length());
-            if (null != project)   // customised export
+            temp = File.createTempFile("." + ExportManager.PREFIX + "_", ".tmp", (null == path) ? null : new File(path));   // collected with the other exports, if left behind
+            OutputStream output = encoding.wrap(new FileOutputStream(temp));
+            boolean success;
+            try
             {
-                //response.setHeader("Content-Disposition", "attachment; filename=Resources_" + project + ".xml");
-                response.setHeader("Content-Disposition", "inline; filename=IdentifiersOrg-Registry[" + project + "]_" + nowStr + ".xml");
+                success = new Miriam2XML(poolName).export(project, output);
             }
-            else    // non customised export
+            finally
+            {
+                output.close();   // writes the end of the compressed stream
+            }
+            if (! success)
             {
-                //response.setHeader("Content-Disposition", "attachment; filename=Resources_all.xml");   // puts unicode for all special characters
-                response.setHeader("Content-Disposition", "inline; filename=IdentifiersOrg-Registry_" + nowStr + ".xml");
+                sendError(response);
+                return;
             }
+            
+            String nowStr = DatetimeProcessor.instance.formatToW3CDTF(new Date());
+            response.reset();
+            response.setBufferSize(BUFFER_SIZE);
+            response.setContentType("application/xml");   //"text/xml"
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Content-Disposition", "inline; filename=IdentifiersOrg-Registry[" + project + "]_" + nowStr + ".xml");
             response.setStatus(HttpServletResponse.SC_OK);
             response.setHeader("Last-Modified",getLastModifiedDate());
-
-            // reads the generated file and sends the data back to the user
-            BufferedInputStream input = null;
-            BufferedOutputStream output = null;
+            response.setHeader("Vary", "Accept-Encoding");
+            if (encoding != ExportManager.Encoding.IDENTITY)
+            {
+                response.setHeader("Content-Encoding", encoding.getCoding());
+            }
+            response.setContentLength((int) temp.length());
+            
+            InputStream input = new FileInputStream(temp);
             try
             {
-                input = new BufferedInputStream(new FileInputStream(generatedExport), BUFFER_SIZE);
-                output = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+                OutputStream out = response.getOutputStream();
                 byte[] buffer = new byte[BUFFER_SIZE];
-                int data = 0;
-                while ((data = input.read(buffer)) > 0)
+                int read;
+                while ((read = input.read(buffer)) > 0)
                 {
-                    output.write(buffer, 0, data);
+                    out.write(buffer, 0, read);
                 }
+                out.flush();
             }
             finally
             {
-                close(output);
-                close(input);
+                input.close();
             }
         }
-        else
+        finally
         {
-            logger.error("Unable to generate an XML export of MIRIAM Resources!");
-            
-            // sends back an error message to the user
-            response.setContentType("text/plain");
-            response.setCharacterEncoding("UTF-8");
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            PrintWriter out = response.getWriter();
-            out.print("Unable to generate an XML export of the Registry!");
+            if ((null != temp) && ! temp.delete())
+            {
+                logger.warn("Unable to delete the temporary file: " + temp);
+            }
         }
     }
+    
+    
+    /**
+     * Sends back an error message to the user.
+     * @param response
+     */
+    private void sendError(HttpServletResponse response) throws IOException
+    {
+        logger.error("Unable to generate an XML export of MIRIAM Resources!");
+        
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        PrintWriter out = response.getWriter();
+        out.print("Unable to generate an XML export of the Registry!");
+    }
 
     private String getLastModifiedDate(){
         String poolName = getServletContext().getInitParameter("miriam_db_pool");
@@ -242,25 +237,4 @@ public class ServletInstantXmlExport extends javax.servlet.http.HttpServlet impl
         dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
         return dateFormat.format(lastUpdateDate);
     }
-    
-    
-    /**
-     * Closes a resource.
-     * @param resource
-     */
-    private void close(Closeable resource)
-    {
-        if (resource != null)
-        {
-            try
-            {
-                resource.close();
-            }
-            catch (IOException e)
-            {
-            	logger.warn("IOException raised while closing a resource.");
-            	logger.warn(e.getMessage());
-            }
-        }
-    }
 }